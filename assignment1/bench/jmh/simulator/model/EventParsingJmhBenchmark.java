@@ -0,0 +1,72 @@
+package simulator.model;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import simulator.factories.EventStream;
+
+// Loading the scenario of ScenarioLoadBenchmark (a 30x30 grid and its
+// vehicles) into junctions, roads and vehicles, see JmhSuite: from the events
+// JSON parsed as a whole, as the builders do; from the same JSON streamed
+// with EventStream; and from the compiled scenario.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EventParsingJmhBenchmark {
+
+	@Param({ "1000", "10000" })
+	int vehicles;
+
+	Path json;
+	Path compiled;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		json = Files.createTempFile("scenario", ".json");
+		compiled = Files.createTempFile("scenario", ".scn");
+		ScenarioLoadBenchmark.generate(json, vehicles);
+		ScenarioWriter.compile(new FileInputStream(json.toFile()), compiled);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(json);
+		Files.deleteIfExists(compiled);
+	}
+
+	@Benchmark
+	public Object json() throws IOException {
+		return ScenarioLoadBenchmark.loadJson(json);
+	}
+
+	// only the parsing, the events are not built
+	@Benchmark
+	public int jsonStream() throws IOException {
+		int n = 0;
+		try (EventStream<JSONObject> events = EventStream.ofJson(new FileInputStream(json.toFile()))) {
+			while (events.hasNext())
+				n += events.next().length();
+		}
+		return n;
+	}
+
+	@Benchmark
+	public Object compiled() throws IOException {
+		return ScenarioLoadBenchmark.loadCompiled(compiled);
+	}
+}
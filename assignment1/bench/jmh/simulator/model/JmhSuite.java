@@ -0,0 +1,42 @@
+package simulator.model;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+// Runs the JMH benchmarks of the model (the *JmhBenchmark classes) and writes
+// the results as JSON, so the results of two releases can be compared, e.g.,
+// with https://jmh.morethan.net or by diffing the "primaryMetric" scores.
+//
+// They need jmh-core, jmh-generator-annprocess, jopt-simple and commons-math3
+// (https://github.com/openjdk/jmh), which are not in lib/. With those jars in
+// JMH_JARS (separated by ':'), from assignment1/:
+//
+//   javac -d bin/jmh -cp lib/json.jar:$JMH_JARS -processorpath $JMH_JARS \
+//       $(find src bench -name '*.java' -not -path 'src/extra/*' -not -name '*Test.java' -not -path 'src/simulator/launcher/*')
+//   java -cp bin/jmh:lib/json.jar:$JMH_JARS simulator.model.JmhSuite [results file] [benchmark regexp]
+//
+// e.g., JmhSuite jmh-1.2.json Road to run only RoadJmhBenchmark. The defaults
+// are jmh-results.json and all the benchmarks.
+public class JmhSuite {
+
+	public static void main(String[] args) throws RunnerException {
+		String results = args.length > 0 ? args[0] : "jmh-results.json";
+		String include = args.length > 1 ? args[1] : "";
+
+		Options opt = new OptionsBuilder()
+				.include(JmhSuite.class.getPackageName() + "\\..*" + include + ".*JmhBenchmark")
+				.warmupIterations(3)
+				.warmupTime(TimeValue.seconds(1))
+				.measurementIterations(5)
+				.measurementTime(TimeValue.seconds(1))
+				.forks(1)
+				.resultFormat(ResultFormatType.JSON)
+				.result(results)
+				.build();
+		new Runner(opt).run();
+	}
+}
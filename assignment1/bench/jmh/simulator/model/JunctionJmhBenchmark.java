@@ -0,0 +1,72 @@
+package simulator.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Junction#advance until a junction with roads incoming roads has moved all
+// the vehicles of its queues to its outgoing road, see JmhSuite. Each queue
+// starts with queueLength vehicles, so the queues are filled again before
+// each invocation. With most_crowded the junction looks for the longest queue
+// in every switch (QueueLengths#firstLongest), so its cost against the
+// number of roads shows in the 4 and 64 road runs.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JunctionJmhBenchmark {
+
+	@Param({ "4", "64" })
+	int roads;
+
+	@Param({ "1", "10", "100", "1000" })
+	int queueLength;
+
+	@Param({ "move_first", "move_all" })
+	String dqStrategy;
+
+	@Param({ "1", "5" })
+	int timeSlot;
+
+	@Param({ "round_robin", "most_crowded" })
+	String lsStrategy;
+
+	Junction junction;
+	Road out;
+
+	@Setup(Level.Invocation)
+	public void fillQueues() {
+		junction = new Junction("j", lsStrategy.equals("round_robin") ? new RoundRobinStrategy(timeSlot) : new MostCrowdedStrategy(timeSlot),
+				dqStrategy.equals("move_first") ? new MoveFirstStrategy() : new MoveAllStrategy(), 0, 0);
+		Junction sink = new Junction("sink", new RoundRobinStrategy(timeSlot), new MoveFirstStrategy(), 0, 0);
+		out = new InterCityRoad("out", junction, sink, 100, Integer.MAX_VALUE, 100000, Weather.SUNNY);
+
+		// roads of length 1, so their vehicles reach the junction in one tick
+		List<Road> in = new ArrayList<>();
+		for (int i = 0; i < roads; i++) {
+			Junction src = new Junction("src" + i, new RoundRobinStrategy(timeSlot), new MoveFirstStrategy(), 0, 0);
+			in.add(new CityRoad("in" + i, src, junction, 100, Integer.MAX_VALUE, 1, Weather.SUNNY));
+			for (int k = 0; k < queueLength; k++)
+				new Vehicle("v" + i + "_" + k, 100, 0, List.of(src, junction, sink)).moveToNextRoad();
+		}
+		for (Road r : in)
+			r.advance(0);
+	}
+
+	@Benchmark
+	public int drain() {
+		int time = 1;
+		while (out.getVehicles().size() < roads * queueLength)
+			junction.advance(time++);
+		return time;
+	}
+}
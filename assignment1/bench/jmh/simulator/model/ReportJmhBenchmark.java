@@ -0,0 +1,75 @@
+package simulator.model;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+// The report of one tick of a GridNetwork, see JmhSuite: built as JSONObjects
+// with report() and turned into text, and streamed with StatesWriter (into a
+// stream that discards it).
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReportJmhBenchmark {
+
+	static final int GRID = 10; // 360 roads
+
+	@Param({ "1", "10", "100" })
+	int vehiclesPerRoad;
+
+	GridNetwork net;
+	StatesWriter out;
+	int time;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		net = new GridNetwork(GRID, vehiclesPerRoad * 2 * 2 * GRID * (GRID - 1), 8, 42);
+		net.start();
+		// spread the vehicles over the roads and the queues
+		for (time = 1; time <= 50; time++) {
+			for (Junction j : net.junctions)
+				j.advance(time);
+			for (Road r : net.roads)
+				r.advance(time);
+		}
+		out = new StatesWriter(OutputStream.nullOutputStream());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		out.close();
+	}
+
+	@Benchmark
+	public String jsonObject() {
+		JSONObject state = new JSONObject();
+		JSONArray roads = new JSONArray();
+		for (Road r : net.roads)
+			roads.put(r.report());
+		JSONArray vehicles = new JSONArray();
+		for (Vehicle v : net.vehicles)
+			vehicles.put(v.report());
+		JSONArray junctions = new JSONArray();
+		for (Junction j : net.junctions)
+			junctions.put(j.report());
+		state.put("roads", roads).put("vehicles", vehicles).put("junctions", junctions);
+		return new JSONObject().put("time", time).put("state", state).toString();
+	}
+
+	@Benchmark
+	public void statesWriter() {
+		out.write(time, net.roads, net.vehicles, net.junctions);
+	}
+}
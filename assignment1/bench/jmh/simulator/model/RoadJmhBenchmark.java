@@ -0,0 +1,55 @@
+package simulator.model;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Road#advance (one tick) of a road with a given number of traveling
+// vehicles, see JmhSuite. The road is rebuilt for each iteration and is long
+// enough that no vehicle reaches its end during one.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RoadJmhBenchmark {
+
+	@Param({ "10", "100", "1000", "10000" })
+	int vehiclesPerRoad;
+
+	@Param({ "city", "inter_city" })
+	String roadType;
+
+	Road road;
+	int time;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		Junction j1 = new Junction("j1", new RoundRobinStrategy(10), new MoveFirstStrategy(), 0, 0);
+		Junction j2 = new Junction("j2", new RoundRobinStrategy(10), new MoveFirstStrategy(), 0, 0);
+		int length = Integer.MAX_VALUE - 1000;
+		road = roadType.equals("city") ? new CityRoad("r1", j1, j2, 50, Integer.MAX_VALUE, length, Weather.SUNNY)
+				: new InterCityRoad("r1", j1, j2, 50, Integer.MAX_VALUE, length, Weather.SUNNY);
+
+		// different max speeds, so the slow ones get overtaken. As in
+		// RoadAdvanceBenchmark they do not contaminate, otherwise the (int) CO2
+		// of the road overflows with many vehicles
+		Random rnd = new Random(vehiclesPerRoad);
+		for (int i = 0; i < vehiclesPerRoad; i++)
+			new Vehicle("v" + i, 10 + rnd.nextInt(40), 0, Arrays.asList(j1, j2)).moveToNextRoad();
+		time = 0;
+	}
+
+	@Benchmark
+	public void advance() {
+		road.advance(++time);
+	}
+}
@@ -0,0 +1,60 @@
+package simulator.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Vehicle#moveToNextRoad of new vehicles, i.e., resolving the route of their
+// itinerary and entering their first road, which already has vehiclesPerRoad
+// vehicles, see JmhSuite. Each vehicle has its own copy of the itinerary, as
+// when they are built from events.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(VehicleJmhBenchmark.BATCH)
+public class VehicleJmhBenchmark {
+
+	static final int BATCH = 1000;
+
+	@Param({ "2", "8", "32" })
+	int itineraryLength;
+
+	@Param({ "0", "1000", "10000" })
+	int vehiclesPerRoad;
+
+	Vehicle[] pending;
+
+	// a line of junctions, with the first road already used
+	@Setup(Level.Invocation)
+	public void setUp() {
+		List<Junction> line = new ArrayList<>();
+		for (int i = 0; i < itineraryLength; i++) {
+			Junction j = new Junction("j" + i, new RoundRobinStrategy(1), new MoveFirstStrategy(), 0, 0);
+			if (i > 0)
+				new CityRoad("r" + i, line.get(i - 1), j, 100, 1000, 1000, Weather.SUNNY);
+			line.add(j);
+		}
+		for (int i = 0; i < vehiclesPerRoad; i++)
+			new Vehicle("w" + i, 100, 1, new ArrayList<>(line)).moveToNextRoad();
+		pending = new Vehicle[BATCH];
+		for (int i = 0; i < BATCH; i++)
+			pending[i] = new Vehicle("v" + i, 100, 1, new ArrayList<>(line));
+	}
+
+	@Benchmark
+	public void moveToNextRoad() {
+		for (Vehicle v : pending)
+			v.moveToNextRoad();
+	}
+}
@@ -0,0 +1,48 @@
+package simulator.model;
+
+// Measures ActiveSetEngine against advancing every junction and road on a
+// large synthetic grid with little traffic, and checks that both produce the
+// same final state.
+//
+// Usage: ActiveSetBenchmark [grid size] [vehicles] [ticks]
+//
+public class ActiveSetBenchmark {
+
+	public static void main(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		int nVehicles = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+		int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+		System.out.println("grid=" + size + "x" + size + ", vehicles=" + nVehicles + ", ticks=" + ticks);
+		System.out.println("engine,ticks_per_sec,active_roads");
+
+		GridNetwork all = new GridNetwork(size, nVehicles, 20, 1234);
+		all.start();
+		long start = System.nanoTime();
+		for (int t = 1; t <= ticks; t++) {
+			for (Junction j : all.junctions)
+				j.advance(t);
+			for (Road r : all.roads)
+				r.advance(t);
+		}
+		double base = ticks / ((System.nanoTime() - start) / 1e9);
+		System.out.println("all," + String.format("%.1f", base) + "," + all.roads.size());
+
+		GridNetwork active = new GridNetwork(size, nVehicles, 20, 1234);
+		ActiveSetEngine engine = new ActiveSetEngine();
+		for (Junction j : active.junctions)
+			engine.addJunction(j);
+		for (Road r : active.roads)
+			engine.addRoad(r);
+		active.start();
+		start = System.nanoTime();
+		for (int t = 1; t <= ticks; t++)
+			engine.advance(t);
+		double tps = ticks / ((System.nanoTime() - start) / 1e9);
+		System.out.println("active," + String.format("%.1f", tps) + "," + engine.getActiveRoadCount());
+
+		if (!ParallelTickBenchmark.state(all).equals(ParallelTickBenchmark.state(active)))
+			throw new IllegalStateException("The state with active sets is different from the one advancing everything.");
+		System.out.println("speedup=" + String.format("%.2f", tps / base));
+	}
+}
@@ -0,0 +1,77 @@
+package simulator.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// A synthetic size x size grid, with roads in both directions between
+// neighbour junctions and vehicles that follow random walks on the grid.
+// The same seed always builds the same network.
+public class GridNetwork {
+
+	public final List<Junction> junctions = new ArrayList<>();
+	public final List<Road> roads = new ArrayList<>();
+	public final List<Vehicle> vehicles = new ArrayList<>();
+
+	private final int size;
+
+	public GridNetwork(int size, int nVehicles, int itineraryLength, long seed) {
+		this.size = size;
+		Random rnd = new Random(seed);
+
+		for (int y = 0; y < size; y++)
+			for (int x = 0; x < size; x++)
+				junctions.add(new Junction("j" + x + "_" + y, new RoundRobinStrategy(1 + rnd.nextInt(5)),
+						rnd.nextBoolean() ? new MoveFirstStrategy() : new MoveAllStrategy(), x * 100, y * 100));
+
+		for (int y = 0; y < size; y++) {
+			for (int x = 0; x < size; x++) {
+				if (x + 1 < size) {
+					road(at(x, y), at(x + 1, y), rnd);
+					road(at(x + 1, y), at(x, y), rnd);
+				}
+				if (y + 1 < size) {
+					road(at(x, y), at(x, y + 1), rnd);
+					road(at(x, y + 1), at(x, y), rnd);
+				}
+			}
+		}
+
+		for (int i = 0; i < nVehicles; i++) {
+			int x = rnd.nextInt(size);
+			int y = rnd.nextInt(size);
+			List<Junction> it = new ArrayList<>();
+			it.add(at(x, y));
+			while (it.size() < itineraryLength) {
+				switch (rnd.nextInt(4)) {
+				case 0: if (x + 1 < size) x++; break;
+				case 1: if (x > 0) x--; break;
+				case 2: if (y + 1 < size) y++; break;
+				default: if (y > 0) y--; break;
+				}
+				if (at(x, y) != it.get(it.size() - 1))
+					it.add(at(x, y));
+			}
+			vehicles.add(new Vehicle("v" + i, 50 + rnd.nextInt(100), rnd.nextInt(11), it));
+		}
+	}
+
+	// Puts all vehicles on their first road
+	public void start() {
+		for (Vehicle v : vehicles)
+			v.moveToNextRoad();
+	}
+
+	private Junction at(int x, int y) {
+		return junctions.get(y * size + x);
+	}
+
+	private void road(Junction src, Junction dest, Random rnd) {
+		String id = "r" + src.getId() + "-" + dest.getId();
+		int length = 500 + rnd.nextInt(2000);
+		if (rnd.nextBoolean())
+			roads.add(new CityRoad(id, src, dest, 80 + rnd.nextInt(60), 2000, length, Weather.SUNNY));
+		else
+			roads.add(new InterCityRoad(id, src, dest, 100 + rnd.nextInt(40), 2000, length, Weather.SUNNY));
+	}
+}
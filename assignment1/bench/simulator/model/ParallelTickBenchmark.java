@@ -0,0 +1,55 @@
+package simulator.model;
+
+// Measures the scaling of ParallelTickEngine on a synthetic grid, and checks
+// that every number of threads produces the same final state as one thread.
+//
+// Usage: ParallelTickBenchmark [grid size] [vehicles] [ticks]
+//
+public class ParallelTickBenchmark {
+
+	static final int[] THREADS = { 1, 2, 4, 8 };
+
+	public static void main(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+		int nVehicles = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+		int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+
+		System.out.println("grid=" + size + "x" + size + ", vehicles=" + nVehicles + ", ticks=" + ticks);
+		System.out.println("threads,ticks_per_sec,speedup");
+
+		String expected = null;
+		double base = 0;
+		for (int threads : THREADS) {
+			GridNetwork g = new GridNetwork(size, nVehicles, 20, 1234);
+			g.start();
+			ParallelTickEngine engine = new ParallelTickEngine(threads);
+
+			long start = System.nanoTime();
+			for (int t = 1; t <= ticks; t++)
+				engine.advance(g.junctions, g.roads, t);
+			double tps = ticks / ((System.nanoTime() - start) / 1e9);
+			engine.shutdown();
+
+			if (threads == 1)
+				base = tps;
+			System.out.println(threads + "," + String.format("%.1f", tps) + "," + String.format("%.2f", tps / base));
+
+			String state = state(g);
+			if (expected == null)
+				expected = state;
+			else if (!expected.equals(state))
+				throw new IllegalStateException("The state with " + threads + " threads is different from the serial one.");
+		}
+	}
+
+	static String state(GridNetwork g) {
+		StringBuilder sb = new StringBuilder();
+		for (Road r : g.roads)
+			sb.append(r.report()).append('\n');
+		for (Junction j : g.junctions)
+			sb.append(j.report()).append('\n');
+		for (Vehicle v : g.vehicles)
+			sb.append(v.report()).append('\n');
+		return sb.toString();
+	}
+}
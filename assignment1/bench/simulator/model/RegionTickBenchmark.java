@@ -0,0 +1,41 @@
+package simulator.model;
+
+// Runs RegionTickEngine on a synthetic grid and prints, for each number of
+// regions, the ticks per second and the time spent by each region, which
+// shows how balanced the partition is.
+//
+// Usage: RegionTickBenchmark [grid size] [vehicles] [ticks]
+//
+public class RegionTickBenchmark {
+
+	static final int[] REGIONS = { 1, 2, 4, 8 };
+
+	public static void main(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+		int nVehicles = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+		int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+
+		System.out.println("grid=" + size + "x" + size + ", vehicles=" + nVehicles + ", ticks=" + ticks);
+		for (int regions : REGIONS) {
+			GridNetwork g = new GridNetwork(size, nVehicles, 20, 1234);
+			g.start();
+			RegionTickEngine engine = new RegionTickEngine(g.junctions, g.roads, regions);
+
+			long start = System.nanoTime();
+			for (int t = 1; t <= ticks; t++)
+				engine.advance(t);
+			double tps = ticks / ((System.nanoTime() - start) / 1e9);
+
+			System.out.println();
+			System.out.println("regions=" + regions + ", cut roads=" + engine.getPartition().getCutRoads() + ", ticks/sec="
+					+ String.format("%.1f", tps));
+			System.out.println("region,junctions,roads,ms");
+			for (int r = 0; r < engine.getRegions(); r++) {
+				System.out.println(r + "," + engine.getPartition().getJunctions(r).size() + ","
+						+ engine.getPartition().getRoads(r).size() + ","
+						+ String.format("%.1f", engine.getTotalTickNanos(r) / 1e6));
+			}
+			engine.shutdown();
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package simulator.model;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Measures Road#advance throughput (ticks per second) for different numbers
+// of vehicles per road.
+//
+// Usage: RoadAdvanceBenchmark [ticks]
+//
+public class RoadAdvanceBenchmark {
+
+	static final int[] VEHICLES_PER_ROAD = { 10, 100, 1000, 10000, 100000 };
+
+	static double ticksPerSecond(int nVehicles, int ticks) {
+		Junction j1 = new Junction("j1", new RoundRobinStrategy(10), new MoveFirstStrategy(), 0, 0);
+		Junction j2 = new Junction("j2", new RoundRobinStrategy(10), new MoveFirstStrategy(), 0, 0);
+
+		// long enough so that no vehicle reaches the end during the run
+		Road r = new InterCityRoad("r1", j1, j2, 200, Integer.MAX_VALUE, 1000000000, Weather.SUNNY);
+
+		// vehicles with different max speeds, so the slow ones get overtaken. They
+		// do not contaminate, otherwise the (int) CO2 of the road overflows with
+		// many vehicles
+		Random rnd = new Random(nVehicles);
+		for (int i = 0; i < nVehicles; i++) {
+			Vehicle v = new Vehicle("v" + i, 50 + rnd.nextInt(150), 0, Arrays.asList(j1, j2));
+			v.moveToNextRoad();
+		}
+
+		// warm up
+		for (int t = 1; t <= ticks / 10; t++)
+			r.advance(t);
+
+		long start = System.nanoTime();
+		for (int t = 1; t <= ticks; t++)
+			r.advance(t);
+		long elapsed = System.nanoTime() - start;
+
+		return ticks / (elapsed / 1e9);
+	}
+
+	public static void main(String[] args) {
+		int ticks = args.length == 0 ? 200 : Integer.parseInt(args[0]);
+
+		System.out.println("vehicles_per_road,ticks_per_sec");
+		for (int n : VEHICLES_PER_ROAD) {
+			System.out.println(n + "," + String.format("%.1f", ticksPerSecond(n, ticks)));
+		}
+	}
+}
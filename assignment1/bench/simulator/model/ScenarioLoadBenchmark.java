@@ -0,0 +1,230 @@
+package simulator.model;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import simulator.misc.JsonWriter;
+
+// Measures the time from start to the end of the first tick when loading a
+// scenario from its events JSON (parsing the whole file, as the launcher
+// does) and from the same scenario compiled with ScenarioWriter.
+//
+// Usage: ScenarioLoadBenchmark [vehicles]   (default 1000000, needs -Xmx3g)
+//
+public class ScenarioLoadBenchmark {
+
+	static final int GRID = 30;
+	static final int ITINERARY = 8;
+
+	// The objects of a scenario, put on their first road
+	static class Scenario {
+		final List<Junction> junctions = new ArrayList<>();
+		final List<Road> roads = new ArrayList<>();
+		final List<Vehicle> vehicles = new ArrayList<>();
+
+		void firstTick() {
+			for (Vehicle v : vehicles)
+				v.moveToNextRoad();
+			for (Junction j : junctions)
+				j.advance(1);
+			for (Road r : roads)
+				r.advance(1);
+		}
+	}
+
+	// A grid like GridNetwork, written as an events file
+	static void generate(Path file, int nVehicles) throws IOException {
+		Random rnd = new Random(42);
+		try (JsonWriter out = new JsonWriter(new FileOutputStream(file.toFile()))) {
+			out.beginObject().name("events").beginArray();
+			for (int y = 0; y < GRID; y++) {
+				for (int x = 0; x < GRID; x++) {
+					out.beginObject().name("type").value("new_junction").name("data").beginObject();
+					out.name("time").value(1).name("id").value("j" + x + "_" + y);
+					out.name("coor").beginArray().value(x * 100).value(y * 100).endArray();
+					out.name("ls_strategy").beginObject().name("type").value("round_robin_lss");
+					out.name("data").beginObject().name("timeslot").value(1 + rnd.nextInt(5)).endObject().endObject();
+					out.name("dq_strategy").beginObject().name("type").value(rnd.nextBoolean() ? "move_first_dqs" : "move_all_dqs");
+					out.name("data").beginObject().endObject().endObject();
+					out.endObject().endObject();
+				}
+			}
+			for (int y = 0; y < GRID; y++) {
+				for (int x = 0; x < GRID; x++) {
+					if (x + 1 < GRID) {
+						road(out, x, y, x + 1, y, rnd);
+						road(out, x + 1, y, x, y, rnd);
+					}
+					if (y + 1 < GRID) {
+						road(out, x, y, x, y + 1, rnd);
+						road(out, x, y + 1, x, y, rnd);
+					}
+				}
+			}
+			for (int i = 0; i < nVehicles; i++) {
+				out.beginObject().name("type").value("new_vehicle").name("data").beginObject();
+				out.name("time").value(1).name("id").value("v" + i);
+				out.name("maxspeed").value(50 + rnd.nextInt(100)).name("class").value(rnd.nextInt(11));
+				out.name("itinerary").beginArray();
+				int x = rnd.nextInt(GRID);
+				int y = rnd.nextInt(GRID);
+				out.value("j" + x + "_" + y);
+				for (int n = 1; n < ITINERARY;) {
+					int nx = x, ny = y;
+					switch (rnd.nextInt(4)) {
+					case 0: if (x + 1 < GRID) nx++; break;
+					case 1: if (x > 0) nx--; break;
+					case 2: if (y + 1 < GRID) ny++; break;
+					default: if (y > 0) ny--; break;
+					}
+					if (nx != x || ny != y) {
+						x = nx;
+						y = ny;
+						out.value("j" + x + "_" + y);
+						n++;
+					}
+				}
+				out.endArray().endObject().endObject();
+			}
+			out.endArray().endObject();
+		}
+	}
+
+	private static void road(JsonWriter out, int x1, int y1, int x2, int y2, Random rnd) {
+		boolean city = rnd.nextBoolean();
+		out.beginObject().name("type").value(city ? "new_city_road" : "new_inter_city_road").name("data").beginObject();
+		out.name("time").value(1).name("id").value("rj" + x1 + "_" + y1 + "-j" + x2 + "_" + y2);
+		out.name("src").value("j" + x1 + "_" + y1).name("dest").value("j" + x2 + "_" + y2);
+		out.name("length").value(500 + rnd.nextInt(2000)).name("co2limit").value(2000);
+		out.name("maxspeed").value(city ? 80 + rnd.nextInt(60) : 100 + rnd.nextInt(40)).name("weather").value("SUNNY");
+		out.endObject().endObject();
+	}
+
+	// What the builders do: the whole file is parsed, then each event is built
+	// with lookups by id
+	static Scenario loadJson(Path file) throws IOException {
+		Scenario s = new Scenario();
+		Map<String, Junction> junctions = new HashMap<>();
+		JSONArray events = new JSONObject(new JSONTokener(new FileInputStream(file.toFile()))).getJSONArray("events");
+		for (int i = 0; i < events.length(); i++) {
+			JSONObject e = events.getJSONObject(i);
+			JSONObject d = e.getJSONObject("data");
+			switch (e.getString("type")) {
+			case "new_junction":
+				JSONArray c = d.getJSONArray("coor");
+				Junction j = new Junction(d.getString("id"), new RoundRobinStrategy(d.getJSONObject("ls_strategy").getJSONObject("data").getInt("timeslot")),
+						d.getJSONObject("dq_strategy").getString("type").equals("move_first_dqs") ? new MoveFirstStrategy() : new MoveAllStrategy(),
+						c.getInt(0), c.getInt(1));
+				junctions.put(j.getId(), j);
+				s.junctions.add(j);
+				break;
+			case "new_city_road":
+				s.roads.add(new CityRoad(d.getString("id"), junctions.get(d.getString("src")), junctions.get(d.getString("dest")), d.getInt("maxspeed"),
+						d.getInt("co2limit"), d.getInt("length"), Weather.valueOf(d.getString("weather"))));
+				break;
+			case "new_inter_city_road":
+				s.roads.add(new InterCityRoad(d.getString("id"), junctions.get(d.getString("src")), junctions.get(d.getString("dest")), d.getInt("maxspeed"),
+						d.getInt("co2limit"), d.getInt("length"), Weather.valueOf(d.getString("weather"))));
+				break;
+			default:
+				JSONArray it = d.getJSONArray("itinerary");
+				List<Junction> itinerary = new ArrayList<>(it.length());
+				for (int k = 0; k < it.length(); k++)
+					itinerary.add(junctions.get(it.getString(k)));
+				s.vehicles.add(new Vehicle(d.getString("id"), d.getInt("maxspeed"), d.getInt("class"), itinerary));
+			}
+		}
+		return s;
+	}
+
+	// The same objects from the compiled scenario, looked up by id index
+	static Scenario loadCompiled(Path file) throws IOException {
+		Scenario s = new Scenario();
+		try (ScenarioReader in = ScenarioReader.open(file)) {
+			Junction[] junctions = new Junction[in.getIdCount()];
+			in.read(new ScenarioHandler() {
+				@Override
+				public void newJunction(int time, int id, int x, int y, LightSwitchingStrategy lss, DequeuingStrategy dqs) {
+					junctions[id] = new Junction(in.getId(id), lss, dqs, x, y);
+					s.junctions.add(junctions[id]);
+				}
+
+				@Override
+				public void newRoad(int time, int id, boolean city, int src, int dest, int length, int co2Limit, int maxSpeed, Weather weather) {
+					s.roads.add(city ? new CityRoad(in.getId(id), junctions[src], junctions[dest], maxSpeed, co2Limit, length, weather)
+							: new InterCityRoad(in.getId(id), junctions[src], junctions[dest], maxSpeed, co2Limit, length, weather));
+				}
+
+				@Override
+				public void newVehicle(int time, int id, int maxSpeed, int contClass, int[] itinerary) {
+					Junction[] it = new Junction[itinerary.length];
+					for (int k = 0; k < it.length; k++)
+						it[k] = junctions[itinerary[k]];
+					s.vehicles.add(new Vehicle(in.getId(id), maxSpeed, contClass, Arrays.asList(it)));
+				}
+
+				@Override
+				public void setWeather(int time, int[] roads, Weather[] weathers) {
+				}
+
+				@Override
+				public void setContClass(int time, int[] vehicles, int[] classes) {
+				}
+			});
+		}
+		return s;
+	}
+
+	public static void main(String[] args) throws IOException {
+		int nVehicles = args.length == 0 ? 1000000 : Integer.parseInt(args[0]);
+		Path json = Files.createTempFile("scenario", ".json");
+		Path compiled = Files.createTempFile("scenario", ".scn");
+		try {
+			generate(json, nVehicles);
+
+			long start = System.nanoTime();
+			ScenarioWriter.compile(new FileInputStream(json.toFile()), compiled);
+			long compile = System.nanoTime() - start;
+
+			System.out.println("format,file_mb,load_ms,load_and_first_tick_ms");
+			for (int run = 0; run < 2; run++) { // the first run warms up
+				start = System.nanoTime();
+				Scenario s = loadJson(json);
+				long load = System.nanoTime() - start;
+				s.firstTick();
+				long total = System.nanoTime() - start;
+				s = null;
+				if (run == 1)
+					System.out.println(String.format("json,%.1f,%d,%d", Files.size(json) / 1e6, load / 1000000, total / 1000000));
+				System.gc();
+
+				start = System.nanoTime();
+				s = loadCompiled(compiled);
+				load = System.nanoTime() - start;
+				s.firstTick();
+				total = System.nanoTime() - start;
+				if (run == 1)
+					System.out.println(String.format("compiled,%.1f,%d,%d", Files.size(compiled) / 1e6, load / 1000000, total / 1000000));
+				s = null;
+				System.gc();
+			}
+			System.out.println("compile_ms," + compile / 1000000);
+		} finally {
+			Files.deleteIfExists(json);
+			Files.deleteIfExists(compiled);
+		}
+	}
+}
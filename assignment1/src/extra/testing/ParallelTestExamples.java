@@ -0,0 +1,129 @@
+package extra.testing;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import simulator.launcher.Main;
+import simulator.launcher.SimulationConfig;
+
+// Like TestExamples (in test mode), but runs the examples of db.json
+// concurrently on a pool of threads, and prints the result of each one as
+// soon as it finishes, with its wall time and ticks per second.
+//
+// The examples run through the shared SimulationLauncher of Main (in batch
+// mode, see BatchSimulation), each one with its own SimulationConfig, so they
+// do not share any state.
+public class ParallelTestExamples {
+
+	private static class Result {
+		String file;
+		int ticks;
+		long nanos;
+		String status;
+	}
+
+	public static void start(String path, int threads) throws JSONException, FileNotFoundException {
+
+		JSONObject jo = new JSONObject(new JSONTokener(new FileInputStream(new File(path + "/db.json"))));
+
+		JSONArray tests = jo.getJSONArray("tests");
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		CompletionService<Result> done = new ExecutorCompletionService<>(pool);
+		long start = System.nanoTime();
+		for (int i = 0; i < tests.length(); i++) {
+			JSONObject info = tests.getJSONObject(i);
+			done.submit(() -> test(path, info));
+		}
+
+		int failed = 0;
+		long busy = 0;
+		for (int i = 0; i < tests.length(); i++) {
+			Result r;
+			try {
+				r = done.take().get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			} catch (ExecutionException e) {
+				System.out.println("-> Failed (runner error): " + e.getCause());
+				failed++;
+				continue;
+			}
+			if (!r.status.equals("OK!"))
+				failed++;
+			busy += r.nanos;
+			System.out.println(String.format("-> %s: %s %d ticks in %d ms (%.1f ticks/s)", r.file, r.status, r.ticks, r.nanos / 1000000,
+					r.ticks / (r.nanos / 1e9)));
+		}
+		pool.shutdown();
+		long wall = System.nanoTime() - start;
+
+		System.out.println(String.format("%d examples, %d failed, %d ms (%d ms of work on %d threads)", tests.length(), failed, wall / 1000000,
+				busy / 1000000, threads));
+	}
+
+	private static Result test(String path, JSONObject info) {
+		Result r = new Result();
+		r.file = info.getString("file");
+		r.ticks = info.getInt("ticks");
+		File inFile = new File(path + "/" + r.file + ".json");
+		File outFile = new File(path + "/" + r.file + ".expout.json");
+		File myoutFile = new File(path + "/" + r.file + ".myout.json");
+		myoutFile.delete();
+
+		long start = System.nanoTime();
+		try {
+			SimulationConfig config = new SimulationConfig.Builder(inFile.getPath()).setOutFile(myoutFile.getPath()).setTicks(r.ticks).build();
+			Main.getLauncher().run(config);
+			r.nanos = System.nanoTime() - start;
+
+			if (!myoutFile.exists()) {
+				r.status = "Failed (no output)!";
+				return r;
+			}
+			boolean same;
+			try (FileInputStream in1 = new FileInputStream(outFile); FileInputStream in2 = new FileInputStream(myoutFile)) {
+				same = new JSONObject(new JSONTokener(in1)).similar(new JSONObject(new JSONTokener(in2)));
+			}
+
+			if (same) {
+				r.status = "OK!";
+				myoutFile.delete(); // delete the file
+			} else {
+				r.status = "Failed (output is not equal)!";
+			}
+		} catch (Exception e) {
+			if (r.nanos == 0)
+				r.nanos = System.nanoTime() - start;
+			r.status = "Failed (exception thrown: " + e + ").";
+		}
+		return r;
+	}
+
+	// The path to the examples directory, where db.json is, can be passed as
+	// the first command-line argument (the default is "resources/examples"),
+	// and the number of threads as the second one (the default is the number
+	// of processors).
+	//
+	public static void main(String[] args) throws JSONException, FileNotFoundException {
+		String path = args.length == 0 ? "resources/examples" : args[0];
+		int threads = args.length < 2 ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(args[1]);
+		if (threads <= 0)
+			throw new IllegalArgumentException("The number of threads must be positive.");
+
+		start(path, threads);
+	}
+
+}
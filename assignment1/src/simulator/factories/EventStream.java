@@ -0,0 +1,174 @@
+package simulator.factories;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+// Reads the "events" array of an events file one element at a time, instead
+// of parsing the whole file into one JSONObject, so the memory used does not
+// grow with the number of events. Each element is parsed on its own and
+// handed to the factory, e.g.,
+//
+//   EventStream<Event> events = new EventStream<>(in, eventsFactory);
+//   while (events.hasNext())
+//     sim.addEvent(events.next());
+//
+// or, to keep only the events of the near future in memory, admitted as the
+// clock advances (this needs the events of the file sorted by time):
+//
+//   events.admitUntil(sim.getTime() + 1, sim::addEvent);
+//
+// Other keys of the top-level object are skipped, and nothing after the
+// events array is read.
+public class EventStream<T> implements Iterator<T>, Closeable {
+
+	// the elements of the events array as they are
+	private static final Factory<JSONObject> RAW = new Factory<JSONObject>() {
+		@Override
+		public JSONObject create_instance(JSONObject info) {
+			return info;
+		}
+
+		@Override
+		public List<JSONObject> get_info() {
+			return List.of();
+		}
+	};
+
+	private Reader _in;
+	private JSONTokener _tokener;
+	private Factory<T> _factory;
+
+	private JSONObject _next; // next element, not built yet
+	private boolean _done;
+	private int _lastTime;
+
+	public EventStream(InputStream in, Factory<T> factory) {
+		this(new InputStreamReader(in, StandardCharsets.UTF_8), factory);
+	}
+
+	public EventStream(Reader in, Factory<T> factory) {
+		if (in == null || factory == null)
+			throw new IllegalArgumentException("Input and factory cannot be null.");
+		_in = in;
+		_tokener = new JSONTokener(in);
+		_factory = factory;
+		_next = null;
+		_done = false;
+		_lastTime = Integer.MIN_VALUE;
+		findEvents();
+	}
+
+	// The elements of the events array, {"type": ..., "data": {...}}, as they are
+	public static EventStream<JSONObject> ofJson(InputStream in) {
+		return new EventStream<>(in, RAW);
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (_next == null && !_done)
+			_next = readNext();
+		return _next != null;
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		JSONObject info = _next;
+		_next = null;
+		return _factory.create_instance(info);
+	}
+
+	// Time of the next event, Integer.MAX_VALUE if there are no more events
+	public int nextTime() {
+		if (!hasNext())
+			return Integer.MAX_VALUE;
+		try {
+			return _next.getJSONObject("data").getInt("time");
+		} catch (JSONException e) {
+			throw new IllegalArgumentException("Event without time: " + _next, e);
+		}
+	}
+
+	// Builds the events up to time (included) and passes them to sink, in the
+	// order of the file. Returns the number of events admitted.
+	public int admitUntil(int time, Consumer<? super T> sink) {
+		int n = 0;
+		while (nextTime() <= time) {
+			int t = nextTime();
+			if (t < _lastTime)
+				throw new IllegalStateException("Events must be sorted by time to be admitted lazily: " + t + " after " + _lastTime);
+			_lastTime = t;
+			sink.accept(next());
+			n++;
+		}
+		return n;
+	}
+
+	@Override
+	public void close() {
+		try {
+			_in.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// Reads up to the [ of the events array, skipping any other key
+	private void findEvents() {
+		if (_tokener.nextClean() != '{')
+			throw _tokener.syntaxError("The events file must be a JSON object");
+		while (true) {
+			char c = _tokener.nextClean();
+			if (c == '}')
+				throw new IllegalArgumentException("The events file has no events array.");
+			if (c == ',')
+				c = _tokener.nextClean();
+			if (c != '"' && c != '\'')
+				throw _tokener.syntaxError("A key was expected");
+			String key = _tokener.nextString(c);
+			if (_tokener.nextClean() != ':')
+				throw _tokener.syntaxError("':' was expected");
+			if (key.equals("events")) {
+				if (_tokener.nextClean() != '[')
+					throw _tokener.syntaxError("The events must be an array");
+				if (_tokener.nextClean() == ']')
+					_done = true;
+				else
+					_tokener.back();
+				return;
+			}
+			_tokener.nextValue(); // skipped
+		}
+	}
+
+	// Next element of the events array, null at its end
+	private JSONObject readNext() {
+		Object o = _tokener.nextValue();
+		if (!(o instanceof JSONObject))
+			throw _tokener.syntaxError("Events must be JSON objects");
+		switch (_tokener.nextClean()) {
+		case ',':
+			break;
+		case ']':
+			_done = true;
+			break;
+		default:
+			throw _tokener.syntaxError("',' or ']' was expected");
+		}
+		return (JSONObject) o;
+	}
+}
@@ -0,0 +1,75 @@
+package simulator.launcher;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+import simulator.model.ScenarioWriter;
+
+// Compiles an events file into a binary scenario (see ScenarioWriter), which
+// Main loads directly with -i, without parsing JSON. The events are streamed,
+// so the events file does not need to fit in memory.
+public class CompileScenario {
+
+	private static String _inFile = null;
+	private static String _outFile = null;
+
+	private static void parseArgs(String[] args) {
+		Options cmdLineOptions = buildOptions();
+		CommandLineParser parser = new DefaultParser();
+		try {
+			CommandLine line = parser.parse(cmdLineOptions, args);
+			if (line.hasOption("h")) {
+				HelpFormatter formatter = new HelpFormatter();
+				formatter.printHelp(CompileScenario.class.getCanonicalName(), cmdLineOptions, true);
+				System.exit(0);
+			}
+			_inFile = line.getOptionValue("i");
+			if (_inFile == null)
+				throw new ParseException("An events file is missing");
+			_outFile = line.getOptionValue("o");
+			if (_outFile == null)
+				throw new ParseException("An output file is missing");
+
+			if (line.getArgs().length > 0)
+				throw new ParseException("Illegal arguments: " + String.join(" ", line.getArgs()));
+		} catch (ParseException e) {
+			System.err.println(e.getLocalizedMessage());
+			System.exit(1);
+		}
+	}
+
+	private static Options buildOptions() {
+		Options cmdLineOptions = new Options();
+		cmdLineOptions.addOption(Option.builder("i").longOpt("input").hasArg().desc("Events input file").build());
+		cmdLineOptions.addOption(Option.builder("o").longOpt("output").hasArg().desc("Compiled scenario file").build());
+		cmdLineOptions.addOption(Option.builder("h").longOpt("help").desc("Print this message").build());
+		return cmdLineOptions;
+	}
+
+	private static void start(String[] args) throws IOException {
+		parseArgs(args);
+		int n = ScenarioWriter.compile(new FileInputStream(_inFile), Paths.get(_outFile));
+		System.out.println(n + " events compiled");
+	}
+
+	// example command lines:
+	//
+	// -i resources/examples/ex1.json -o resources/tmp/ex1.scn
+
+	public static void main(String[] args) {
+		try {
+			start(args);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
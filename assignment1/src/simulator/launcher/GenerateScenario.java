@@ -0,0 +1,102 @@
+package simulator.launcher;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+import simulator.model.ScenarioGenerator;
+
+// Writes a synthetic events file (see ScenarioGenerator). The same options
+// and seed always give the same file, so large benchmark inputs can be
+// generated again instead of being kept.
+public class GenerateScenario {
+
+	private static String _outFile = null;
+	private static ScenarioGenerator _generator = null;
+
+	private static void parseArgs(String[] args) {
+		Options cmdLineOptions = buildOptions();
+		CommandLineParser parser = new DefaultParser();
+		try {
+			CommandLine line = parser.parse(cmdLineOptions, args);
+			if (line.hasOption("h")) {
+				HelpFormatter formatter = new HelpFormatter();
+				formatter.printHelp(GenerateScenario.class.getCanonicalName(), cmdLineOptions, true);
+				System.exit(0);
+			}
+			_outFile = line.getOptionValue("o");
+			_generator = new ScenarioGenerator(Long.parseLong(line.getOptionValue("seed", "42")));
+			_generator.setTopology(ScenarioGenerator.Topology.valueOf(line.getOptionValue("topology", "grid").toUpperCase()));
+			_generator.setJunctions(Integer.parseInt(line.getOptionValue("junctions", "100")));
+			_generator.setCityRoadPct(Integer.parseInt(line.getOptionValue("city-roads", "50")));
+			_generator.setVehicles(Integer.parseInt(line.getOptionValue("vehicles", "1000")));
+			String[] it = line.getOptionValue("itinerary", "2,8").split(",");
+			if (it.length != 2)
+				throw new ParseException("The itinerary length must be min,max");
+			_generator.setItinerary(Integer.parseInt(it[0].trim()), Integer.parseInt(it[1].trim()));
+			_generator.setEntryTicks(Integer.parseInt(line.getOptionValue("entry-ticks", "1")));
+			_generator.setChangeEvents(Integer.parseInt(line.getOptionValue("weather-events", "0")),
+					Integer.parseInt(line.getOptionValue("cont-class-events", "0")));
+
+			if (line.getArgs().length > 0)
+				throw new ParseException("Illegal arguments: " + String.join(" ", line.getArgs()));
+		} catch (ParseException | IllegalArgumentException e) {
+			System.err.println(e.getLocalizedMessage());
+			System.exit(1);
+		}
+	}
+
+	private static Options buildOptions() {
+		Options cmdLineOptions = new Options();
+		cmdLineOptions.addOption(Option.builder("o").longOpt("output").hasArg().desc("Events output file, default is the standard output").build());
+		cmdLineOptions.addOption(Option.builder().longOpt("seed").hasArg().desc("Seed of the random generator. Default value: 42.").build());
+		cmdLineOptions.addOption(Option.builder().longOpt("topology").hasArg().desc("grid or geometric. Default value: grid.").build());
+		cmdLineOptions.addOption(Option.builder().longOpt("junctions").hasArg().desc("Number of junctions. Default value: 100.").build());
+		cmdLineOptions.addOption(Option.builder().longOpt("city-roads").hasArg()
+				.desc("Percentage of city roads, the rest are inter-city roads. Default value: 50.").build());
+		cmdLineOptions.addOption(Option.builder().longOpt("vehicles").hasArg().desc("Number of vehicles. Default value: 1000.").build());
+		cmdLineOptions.addOption(Option.builder().longOpt("itinerary").hasArg()
+				.desc("Min and max junctions of the itineraries, e.g., 2,8. Default value: 2,8.").build());
+		cmdLineOptions.addOption(Option.builder().longOpt("entry-ticks").hasArg()
+				.desc("Vehicles and changes are spread from tick 1 to this one. Default value: 1.").build());
+		cmdLineOptions.addOption(Option.builder().longOpt("weather-events").hasArg().desc("Number of set_weather events. Default value: 0.").build());
+		cmdLineOptions.addOption(Option.builder().longOpt("cont-class-events").hasArg()
+				.desc("Number of set_cont_class events. Default value: 0.").build());
+		cmdLineOptions.addOption(Option.builder("h").longOpt("help").desc("Print this message").build());
+		return cmdLineOptions;
+	}
+
+	private static void start(String[] args) throws IOException {
+		parseArgs(args);
+		if (_outFile == null) {
+			_generator.write(System.out);
+			System.out.flush();
+		} else {
+			try (OutputStream out = new FileOutputStream(_outFile)) {
+				_generator.write(out);
+			}
+			System.err.println(_generator.getRoadCount() + " roads written to " + _outFile);
+		}
+	}
+
+	// example command lines:
+	//
+	// --junctions 10000 --vehicles 100000 -o resources/tmp/grid100k.json
+	// --topology geometric --junctions 50000 --vehicles 1000000 --itinerary 4,20 --entry-ticks 100 --weather-events 500 --cont-class-events 5000 -o resources/tmp/geo1m.json
+
+	public static void main(String[] args) {
+		try {
+			start(args);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
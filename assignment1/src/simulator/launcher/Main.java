@@ -1,6 +1,7 @@
 package simulator.launcher;
 
 import java.io.IOException;
+
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.DefaultParser;
@@ -14,11 +15,9 @@ import simulator.model.Event;
 
 public class Main {
 
-	private static String _inFile = null;
-	private static String _outFile = null;
-	private static Factory<Event> _eventsFactory = null;
+	private static SimulationLauncher _launcher = null;
 
-	private static void parseArgs(String[] args) {
+	private static SimulationConfig parseArgs(String[] args) {
 
 		// define the valid command line options
 		//
@@ -30,8 +29,17 @@ public class Main {
 		try {
 			CommandLine line = parser.parse(cmdLineOptions, args);
 			parseHelpOption(line, cmdLineOptions);
-			parseInFileOption(line);
-			parseOutFileOption(line);
+			SimulationConfig.Builder config = parseInFileOption(line);
+			parseOutFileOption(line, config);
+			parseTicksOption(line, config);
+			parseThreadsOption(line, config);
+			parseFastForwardOptions(line, config);
+			parseDeltaReportsOption(line, config);
+			parseAsyncReportsOption(line, config);
+			parseTrajectoryLogOption(line, config);
+			parseIndexOption(line, config);
+			config.setStreamEvents(line.hasOption("stream-events"));
+			config.setStats(line.hasOption("stats"));
 
 			// if there are some remaining arguments, then something wrong is
 			// provided in the command line!
@@ -44,9 +52,11 @@ public class Main {
 				throw new ParseException(error);
 			}
 
-		} catch (ParseException e) {
+			return config.build();
+		} catch (ParseException | IllegalArgumentException e) {
 			System.err.println(e.getLocalizedMessage());
 			System.exit(1);
+			return null;
 		}
 
 	}
@@ -57,6 +67,26 @@ public class Main {
 		cmdLineOptions.addOption(Option.builder("i").longOpt("input").hasArg().desc("Events input file").build());
 		cmdLineOptions.addOption(
 				Option.builder("o").longOpt("output").hasArg().desc("Output file, where reports are written.").build());
+		cmdLineOptions.addOption(Option.builder("t").longOpt("ticks").hasArg()
+				.desc("Ticks to the simulator's main loop. Default value: 10.").build());
+		cmdLineOptions.addOption(Option.builder().longOpt("threads").hasArg()
+				.desc("Number of threads used to advance junctions and roads in each tick. Default value: 1.").build());
+		cmdLineOptions.addOption(Option.builder().longOpt("fast-forward")
+				.desc("Jump over quiet ticks (no event, no vehicle reaching the end of a road, no light switch) in one step.").build());
+		cmdLineOptions.addOption(Option.builder().longOpt("skip-quiet-reports")
+				.desc("With --fast-forward, do not write the reports of the ticks that were jumped over.").build());
+		cmdLineOptions.addOption(Option.builder().longOpt("delta-reports").hasArg()
+				.desc("Write only the objects that changed in each tick, with a full state (keyframe) every N ticks.").build());
+		cmdLineOptions.addOption(Option.builder().longOpt("async-reports").hasArg()
+				.desc("Write the reports on a separate thread, the simulation waits when N ticks are pending.").build());
+		cmdLineOptions.addOption(Option.builder().longOpt("trajectory-log")
+				.desc("Write the output file as a compact binary log instead of JSON, see ReplayLog to get the JSON back.").build());
+		cmdLineOptions.addOption(Option.builder().longOpt("index").hasArg()
+				.desc("Index the offset of every N-th state in a sidecar file (the output file + .idx), see QueryStates.").build());
+		cmdLineOptions.addOption(Option.builder().longOpt("stream-events")
+				.desc("Read the events one at a time as the simulation reaches their time, instead of loading the whole file first (the events must be sorted by time).").build());
+		cmdLineOptions.addOption(Option.builder().longOpt("stats")
+				.desc("Time each phase of every tick (events, junctions, roads, reports) and print their percentiles and allocations to the standard error at the end.").build());
 		cmdLineOptions.addOption(Option.builder("h").longOpt("help").desc("Print this message").build());
 
 		return cmdLineOptions;
@@ -70,27 +100,92 @@ public class Main {
 		}
 	}
 
-	private static void parseInFileOption(CommandLine line) throws ParseException {
-		_inFile = line.getOptionValue("i");
-		if (_inFile == null) {
+	private static SimulationConfig.Builder parseInFileOption(CommandLine line) throws ParseException {
+		String inFile = line.getOptionValue("i");
+		if (inFile == null) {
 			throw new ParseException("An events file is missing");
 		}
+		return new SimulationConfig.Builder(inFile);
+	}
+
+	private static void parseOutFileOption(CommandLine line, SimulationConfig.Builder config) throws ParseException {
+		config.setOutFile(line.getOptionValue("o"));
+	}
+
+	private static void parseTicksOption(CommandLine line, SimulationConfig.Builder config) throws ParseException {
+		String ticks = line.getOptionValue("t", "10");
+		try {
+			config.setTicks(Integer.parseInt(ticks));
+		} catch (NumberFormatException e) {
+			throw new ParseException("Invalid number of ticks: " + ticks);
+		}
+	}
+
+	private static void parseThreadsOption(CommandLine line, SimulationConfig.Builder config) throws ParseException {
+		String threads = line.getOptionValue("threads", "1");
+		try {
+			config.setThreads(Integer.parseInt(threads));
+		} catch (NumberFormatException e) {
+			throw new ParseException("Invalid number of threads: " + threads);
+		}
+	}
+
+	private static void parseFastForwardOptions(CommandLine line, SimulationConfig.Builder config) throws ParseException {
+		config.setFastForward(line.hasOption("fast-forward"), line.hasOption("skip-quiet-reports"));
 	}
 
-	private static void parseOutFileOption(CommandLine line) throws ParseException {
-		_outFile = line.getOptionValue("o");
+	private static void parseDeltaReportsOption(CommandLine line, SimulationConfig.Builder config) throws ParseException {
+		if (!line.hasOption("delta-reports"))
+			return;
+		String n = line.getOptionValue("delta-reports");
+		try {
+			config.setDeltaReports(Integer.parseInt(n));
+		} catch (NumberFormatException e) {
+			throw new ParseException("Invalid keyframe interval: " + n);
+		}
+	}
+
+	private static void parseAsyncReportsOption(CommandLine line, SimulationConfig.Builder config) throws ParseException {
+		if (!line.hasOption("async-reports"))
+			return;
+		String n = line.getOptionValue("async-reports");
+		try {
+			config.setAsyncReports(Integer.parseInt(n));
+		} catch (NumberFormatException e) {
+			throw new ParseException("Invalid report queue size: " + n);
+		}
+	}
+
+	private static void parseTrajectoryLogOption(CommandLine line, SimulationConfig.Builder config) throws ParseException {
+		config.setTrajectoryLog(line.hasOption("trajectory-log"));
+	}
+
+	private static void parseIndexOption(CommandLine line, SimulationConfig.Builder config) throws ParseException {
+		if (!line.hasOption("index"))
+			return;
+		String n = line.getOptionValue("index");
+		try {
+			config.setIndex(Integer.parseInt(n));
+		} catch (NumberFormatException e) {
+			throw new ParseException("Invalid index interval: " + n);
+		}
 	}
 
-	private static void initFactories() {
+	private static Factory<Event> initFactories() {
+		return null;
 	}
 
-	private static void startBatchMode() throws IOException {
+	// The launcher shared by all the simulations of this JVM, its factories are
+	// only created once
+	public static synchronized SimulationLauncher getLauncher() {
+		if (_launcher == null)
+			_launcher = new SimulationLauncher(initFactories());
+		return _launcher;
 	}
 
 	private static void start(String[] args) throws IOException {
-		initFactories();
-		parseArgs(args);
-		startBatchMode();
+		SimulationConfig config = parseArgs(args);
+		getLauncher().run(config);
 	}
 
 	// example command lines:
@@ -98,6 +193,14 @@ public class Main {
 	// -i resources/examples/ex1.json
 	// -i resources/examples/ex1.json -t 300
 	// -i resources/examples/ex1.json -o resources/tmp/ex1.out.json
+	// -i resources/examples/ex1.json -t 300 --threads 4
+	// -i resources/examples/ex1.json -o resources/tmp/ex1.out.json --delta-reports 50
+	// -i resources/examples/ex1.json -o resources/tmp/ex1.out.json --async-reports 64
+	// -i resources/examples/ex1.json -o resources/tmp/ex1.log --trajectory-log
+	// -i resources/examples/ex1.json -o resources/tmp/ex1.out.json --index 100
+	// -i resources/examples/ex1.json -o resources/tmp/ex1.out.json --stream-events
+	// -i resources/tmp/ex1.scn -o resources/tmp/ex1.out.json (compiled by CompileScenario -i resources/examples/ex1.json -o resources/tmp/ex1.scn)
+	// -i resources/examples/ex1.json -o resources/tmp/ex1.out.json -t 300 --stats
 	// --help
 
 	public static void main(String[] args) {
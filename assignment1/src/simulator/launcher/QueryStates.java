@@ -0,0 +1,107 @@
+package simulator.launcher;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.json.JSONObject;
+
+import simulator.model.StatesIndex;
+
+// Prints the state at some time, or the states of one object over a range of
+// times, from an output file written with Main --index (it needs the .idx
+// sidecar next to the output file).
+public class QueryStates {
+
+	private static String _inFile = null;
+	private static Integer _time = null;
+	private static String _id = null;
+	private static int _from = 0;
+	private static int _to = Integer.MAX_VALUE;
+
+	private static void parseArgs(String[] args) {
+		Options cmdLineOptions = buildOptions();
+		CommandLineParser parser = new DefaultParser();
+		try {
+			CommandLine line = parser.parse(cmdLineOptions, args);
+			if (line.hasOption("h")) {
+				HelpFormatter formatter = new HelpFormatter();
+				formatter.printHelp(QueryStates.class.getCanonicalName(), cmdLineOptions, true);
+				System.exit(0);
+			}
+			_inFile = line.getOptionValue("i");
+			if (_inFile == null)
+				throw new ParseException("An output file is missing");
+
+			_id = line.getOptionValue("id");
+			if (line.hasOption("t"))
+				_time = parseInt(line.getOptionValue("t"));
+			if (line.hasOption("from"))
+				_from = parseInt(line.getOptionValue("from"));
+			if (line.hasOption("to"))
+				_to = parseInt(line.getOptionValue("to"));
+			if (_id == null && _time == null)
+				throw new ParseException("Either a time (-t) or an object id (--id) is required");
+			if (_id != null && _time != null) {
+				_from = _time;
+				_to = _time;
+			}
+
+			if (line.getArgs().length > 0)
+				throw new ParseException("Illegal arguments: " + String.join(" ", line.getArgs()));
+		} catch (ParseException e) {
+			System.err.println(e.getLocalizedMessage());
+			System.exit(1);
+		}
+	}
+
+	private static int parseInt(String s) throws ParseException {
+		try {
+			return Integer.parseInt(s);
+		} catch (NumberFormatException e) {
+			throw new ParseException("Invalid time: " + s);
+		}
+	}
+
+	private static Options buildOptions() {
+		Options cmdLineOptions = new Options();
+		cmdLineOptions.addOption(Option.builder("i").longOpt("input").hasArg().desc("Output file of a simulation").build());
+		cmdLineOptions.addOption(Option.builder("t").longOpt("time").hasArg().desc("Time of the state").build());
+		cmdLineOptions.addOption(Option.builder().longOpt("id").hasArg().desc("Id of a road, vehicle or junction").build());
+		cmdLineOptions.addOption(Option.builder().longOpt("from").hasArg().desc("With --id, first time. Default value: the first one.").build());
+		cmdLineOptions.addOption(Option.builder().longOpt("to").hasArg().desc("With --id, last time. Default value: the last one.").build());
+		cmdLineOptions.addOption(Option.builder("h").longOpt("help").desc("Print this message").build());
+		return cmdLineOptions;
+	}
+
+	private static void start(String[] args) throws IOException {
+		parseArgs(args);
+		try (StatesIndex index = StatesIndex.open(Paths.get(_inFile))) {
+			if (_id == null) {
+				JSONObject state = index.getState(_time);
+				System.out.println(state == null ? "No state at time " + _time : state.toString());
+			} else {
+				System.out.println(index.getObjectStates(_id, _from, _to).toString());
+			}
+		}
+	}
+
+	// example command lines:
+	//
+	// -i resources/tmp/ex1.out.json -t 41
+	// -i resources/tmp/ex1.out.json --id r3 --from 100 --to 200
+
+	public static void main(String[] args) {
+		try {
+			start(args);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
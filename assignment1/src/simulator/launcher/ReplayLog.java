@@ -0,0 +1,79 @@
+package simulator.launcher;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Paths;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+import simulator.model.TrajectoryLogReader;
+
+// Regenerates the JSON output of a simulation from the binary trajectory log
+// written with Main --trajectory-log, without simulating again.
+public class ReplayLog {
+
+	private static String _inFile = null;
+	private static String _outFile = null;
+
+	private static void parseArgs(String[] args) {
+		Options cmdLineOptions = buildOptions();
+		CommandLineParser parser = new DefaultParser();
+		try {
+			CommandLine line = parser.parse(cmdLineOptions, args);
+			if (line.hasOption("h")) {
+				HelpFormatter formatter = new HelpFormatter();
+				formatter.printHelp(ReplayLog.class.getCanonicalName(), cmdLineOptions, true);
+				System.exit(0);
+			}
+			_inFile = line.getOptionValue("i");
+			if (_inFile == null)
+				throw new ParseException("A trajectory log file is missing");
+			_outFile = line.getOptionValue("o");
+
+			if (line.getArgs().length > 0)
+				throw new ParseException("Illegal arguments: " + String.join(" ", line.getArgs()));
+		} catch (ParseException e) {
+			System.err.println(e.getLocalizedMessage());
+			System.exit(1);
+		}
+	}
+
+	private static Options buildOptions() {
+		Options cmdLineOptions = new Options();
+		cmdLineOptions.addOption(Option.builder("i").longOpt("input").hasArg().desc("Trajectory log file").build());
+		cmdLineOptions.addOption(Option.builder("o").longOpt("output").hasArg()
+				.desc("Output file, where the JSON reports are written. Default value: the standard output.").build());
+		cmdLineOptions.addOption(Option.builder("h").longOpt("help").desc("Print this message").build());
+		return cmdLineOptions;
+	}
+
+	private static void start(String[] args) throws IOException {
+		parseArgs(args);
+		try (TrajectoryLogReader log = TrajectoryLogReader.open(Paths.get(_inFile))) {
+			OutputStream out = _outFile == null ? System.out : new FileOutputStream(_outFile);
+			log.writeJson(out);
+			if (_outFile != null)
+				out.close();
+		}
+	}
+
+	// example command lines:
+	//
+	// -i resources/tmp/ex1.log
+	// -i resources/tmp/ex1.log -o resources/tmp/ex1.out.json
+
+	public static void main(String[] args) {
+		try {
+			start(args);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
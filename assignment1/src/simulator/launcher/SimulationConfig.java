@@ -0,0 +1,186 @@
+package simulator.launcher;
+
+// The configuration of one simulation run, see SimulationLauncher. It is
+// immutable, so it can be shared between threads. Main builds it from the
+// command line, e.g.,
+//
+//   new SimulationConfig.Builder("ex1.json").setOutFile("ex1.out.json").setTicks(300).build()
+//
+// The options are the ones of Main, build() checks the combinations.
+public class SimulationConfig {
+
+	private final String _inFile;
+	private final String _outFile; // null means the standard output
+	private final int _ticks;
+	private final int _threads;
+	private final boolean _fastForward;
+	private final boolean _skipQuietReports;
+	private final int _keyframeInterval; // 0 means full reports in every tick
+	private final int _reportQueue; // 0 means reports are written by the simulation thread
+	private final boolean _trajectoryLog;
+	private final int _indexInterval; // 0 means no index
+	private final boolean _streamEvents;
+	private final boolean _stats;
+
+	private SimulationConfig(Builder b) {
+		_inFile = b._inFile;
+		_outFile = b._outFile;
+		_ticks = b._ticks;
+		_threads = b._threads;
+		_fastForward = b._fastForward;
+		_skipQuietReports = b._skipQuietReports;
+		_keyframeInterval = b._keyframeInterval;
+		_reportQueue = b._reportQueue;
+		_trajectoryLog = b._trajectoryLog;
+		_indexInterval = b._indexInterval;
+		_streamEvents = b._streamEvents;
+		_stats = b._stats;
+	}
+
+	public String getInFile() {
+		return _inFile;
+	}
+
+	public String getOutFile() {
+		return _outFile;
+	}
+
+	public int getTicks() {
+		return _ticks;
+	}
+
+	public int getThreads() {
+		return _threads;
+	}
+
+	public boolean isFastForward() {
+		return _fastForward;
+	}
+
+	public boolean isSkipQuietReports() {
+		return _skipQuietReports;
+	}
+
+	public int getKeyframeInterval() {
+		return _keyframeInterval;
+	}
+
+	public int getReportQueue() {
+		return _reportQueue;
+	}
+
+	public boolean isTrajectoryLog() {
+		return _trajectoryLog;
+	}
+
+	public int getIndexInterval() {
+		return _indexInterval;
+	}
+
+	public boolean isStreamEvents() {
+		return _streamEvents;
+	}
+
+	public boolean isStats() {
+		return _stats;
+	}
+
+	public static class Builder {
+
+		private String _inFile;
+		private String _outFile = null;
+		private int _ticks = 10;
+		private int _threads = 1;
+		private boolean _fastForward = false;
+		private boolean _skipQuietReports = false;
+		private int _keyframeInterval = 0;
+		private int _reportQueue = 0;
+		private boolean _trajectoryLog = false;
+		private int _indexInterval = 0;
+		private boolean _streamEvents = false;
+		private boolean _stats = false;
+
+		public Builder(String inFile) {
+			if (inFile == null || inFile.isBlank())
+				throw new IllegalArgumentException("An events file is missing");
+			_inFile = inFile;
+		}
+
+		public Builder setOutFile(String outFile) {
+			_outFile = outFile;
+			return this;
+		}
+
+		public Builder setTicks(int ticks) {
+			if (ticks < 0)
+				throw new IllegalArgumentException("The number of ticks cannot be negative: " + ticks);
+			_ticks = ticks;
+			return this;
+		}
+
+		public Builder setThreads(int threads) {
+			if (threads <= 0)
+				throw new IllegalArgumentException("The number of threads must be positive: " + threads);
+			_threads = threads;
+			return this;
+		}
+
+		public Builder setFastForward(boolean fastForward, boolean skipQuietReports) {
+			_fastForward = fastForward;
+			_skipQuietReports = skipQuietReports;
+			return this;
+		}
+
+		public Builder setDeltaReports(int keyframeInterval) {
+			if (keyframeInterval <= 0)
+				throw new IllegalArgumentException("The keyframe interval must be positive: " + keyframeInterval);
+			_keyframeInterval = keyframeInterval;
+			return this;
+		}
+
+		public Builder setAsyncReports(int queueSize) {
+			if (queueSize <= 0)
+				throw new IllegalArgumentException("The report queue size must be positive: " + queueSize);
+			_reportQueue = queueSize;
+			return this;
+		}
+
+		public Builder setTrajectoryLog(boolean trajectoryLog) {
+			_trajectoryLog = trajectoryLog;
+			return this;
+		}
+
+		public Builder setIndex(int interval) {
+			if (interval <= 0)
+				throw new IllegalArgumentException("The index interval must be positive: " + interval);
+			_indexInterval = interval;
+			return this;
+		}
+
+		public Builder setStreamEvents(boolean streamEvents) {
+			_streamEvents = streamEvents;
+			return this;
+		}
+
+		public Builder setStats(boolean stats) {
+			_stats = stats;
+			return this;
+		}
+
+		public SimulationConfig build() {
+			if (_skipQuietReports && !_fastForward)
+				throw new IllegalArgumentException("--skip-quiet-reports requires --fast-forward");
+			if (_reportQueue > 0 && _keyframeInterval > 0)
+				throw new IllegalArgumentException("--async-reports cannot be combined with --delta-reports");
+			if (_trajectoryLog && _outFile == null)
+				throw new IllegalArgumentException("--trajectory-log requires an output file");
+			if (_trajectoryLog && (_keyframeInterval > 0 || _reportQueue > 0))
+				throw new IllegalArgumentException("--trajectory-log cannot be combined with --delta-reports or --async-reports");
+			if (_indexInterval > 0 && _outFile == null)
+				throw new IllegalArgumentException("--index requires an output file");
+			if (_indexInterval > 0 && (_trajectoryLog || _keyframeInterval > 0))
+				throw new IllegalArgumentException("--index cannot be combined with --trajectory-log or --delta-reports");
+			return new SimulationConfig(this);
+		}
+	}
+}
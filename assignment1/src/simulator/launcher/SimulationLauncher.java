@@ -0,0 +1,113 @@
+package simulator.launcher;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import simulator.factories.Factory;
+import simulator.model.AsyncStatesWriter;
+import simulator.model.BatchSimulation;
+import simulator.model.DeltaStatesWriter;
+import simulator.model.Event;
+import simulator.model.ScenarioPlan;
+import simulator.model.ScenarioReader;
+import simulator.model.ScenarioWriter;
+import simulator.model.StatesIndexWriter;
+import simulator.model.StatesSink;
+import simulator.model.StatesWriter;
+import simulator.model.TickStats;
+import simulator.model.TrajectoryLogWriter;
+
+// Runs simulations in batch mode, see BatchSimulation. The factories are
+// created once and shared by all the runs: they only build new objects from
+// their input, so they can be used by several threads at the same time.
+// Everything else belongs to one run and is created by run(), so many
+// simulations can run at the same time in one JVM, e.g., one per thread of a
+// pool:
+//
+//   SimulationLauncher launcher = Main.getLauncher();
+//   pool.submit(() -> launcher.run(config1));
+//   pool.submit(() -> launcher.run(config2));
+public class SimulationLauncher {
+
+	private final Factory<Event> _eventsFactory;
+
+	public SimulationLauncher(Factory<Event> eventsFactory) {
+		_eventsFactory = eventsFactory;
+	}
+
+	public Factory<Event> getEventsFactory() {
+		return _eventsFactory;
+	}
+
+	// Runs one simulation, it can be called from several threads at once.
+	// With --stats the phases of its ticks are printed to the standard error.
+	public void run(SimulationConfig config) throws IOException {
+		TickStats stats = config.isStats() ? new TickStats() : null;
+		startBatchMode(config, stats);
+		if (stats != null)
+			System.err.print(stats);
+	}
+
+	// The input is an events file (JSON) or a scenario compiled by
+	// ScenarioWriter. With --stream-events a JSON file is compiled first, so
+	// that its events can be read as the simulation reaches them.
+	private void startBatchMode(SimulationConfig config, TickStats stats) throws IOException {
+		Path in = Paths.get(config.getInFile());
+		if (!config.isStreamEvents()) {
+			run(new BatchSimulation(ScenarioPlan.load(in)), config, stats);
+			return;
+		}
+		if (ScenarioReader.isScenario(in)) {
+			try (ScenarioReader events = ScenarioReader.open(in)) {
+				run(new BatchSimulation(events), config, stats);
+			}
+			return;
+		}
+		Path compiled = Files.createTempFile("scenario", ".scn");
+		try {
+			try (InputStream json = new FileInputStream(in.toFile())) {
+				ScenarioWriter.compile(json, compiled);
+			}
+			try (ScenarioReader events = ScenarioReader.open(compiled)) {
+				run(new BatchSimulation(events), config, stats);
+			}
+		} finally {
+			Files.deleteIfExists(compiled);
+		}
+	}
+
+	private void run(BatchSimulation sim, SimulationConfig config, TickStats stats) throws IOException {
+		sim.setThreads(config.getThreads());
+		sim.setFastForward(config.isFastForward(), config.isSkipQuietReports());
+		sim.setStats(stats);
+		sim.run(config.getTicks(), openOutput(config));
+	}
+
+	// The writer selected by the options, on the output file or the standard
+	// output
+	private static StatesSink openOutput(SimulationConfig config) throws IOException {
+		if (config.isTrajectoryLog())
+			return TrajectoryLogWriter.open(Paths.get(config.getOutFile()));
+		OutputStream os = config.getOutFile() == null ? new FilterOutputStream(System.out) {
+			@Override
+			public void close() throws IOException {
+				flush(); // the standard output stays open
+			}
+		} : new FileOutputStream(config.getOutFile());
+		if (config.getKeyframeInterval() > 0)
+			return new DeltaStatesWriter(os, config.getKeyframeInterval());
+		StatesIndexWriter index = config.getIndexInterval() > 0
+				? new StatesIndexWriter(Paths.get(config.getOutFile() + ".idx"), config.getIndexInterval())
+				: null;
+		if (config.getReportQueue() > 0)
+			return new AsyncStatesWriter(os, config.getReportQueue(), index);
+		return new StatesWriter(os, index);
+	}
+}
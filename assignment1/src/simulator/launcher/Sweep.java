@@ -0,0 +1,153 @@
+package simulator.launcher;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+import simulator.model.ParameterSweep;
+import simulator.model.ScenarioPlan;
+import simulator.model.TickStats;
+
+// Runs every combination of the given parameters on one events file, in
+// parallel and in one JVM, see ParameterSweep. The events file is loaded once
+// and shared by all the variants. A row of the summary is printed as soon as
+// its variant finishes.
+public class Sweep {
+
+	private static String _inFile = null;
+	private static int _ticks = 10;
+	private static int _threads = Runtime.getRuntime().availableProcessors();
+	private static int[] _timeSlots = { 0 };
+	private static int[] _maxSpeeds = { 100 };
+	private static int[] _co2Limits = { 100 };
+	private static boolean _stats = false;
+
+	private static void parseArgs(String[] args) {
+		Options cmdLineOptions = buildOptions();
+		CommandLineParser parser = new DefaultParser();
+		try {
+			CommandLine line = parser.parse(cmdLineOptions, args);
+			if (line.hasOption("h")) {
+				HelpFormatter formatter = new HelpFormatter();
+				formatter.printHelp(Sweep.class.getCanonicalName(), cmdLineOptions, true);
+				System.exit(0);
+			}
+			_inFile = line.getOptionValue("i");
+			if (_inFile == null)
+				throw new ParseException("An events file is missing");
+			if (line.hasOption("t"))
+				_ticks = parseInts(line.getOptionValue("t"))[0];
+			if (line.hasOption("threads"))
+				_threads = parseInts(line.getOptionValue("threads"))[0];
+			if (_ticks < 0 || _threads <= 0)
+				throw new ParseException("Invalid number of ticks or threads");
+			if (line.hasOption("timeslot"))
+				_timeSlots = parseInts(line.getOptionValue("timeslot"));
+			if (line.hasOption("maxspeed"))
+				_maxSpeeds = parseInts(line.getOptionValue("maxspeed"));
+			if (line.hasOption("co2limit"))
+				_co2Limits = parseInts(line.getOptionValue("co2limit"));
+			_stats = line.hasOption("stats");
+
+			if (line.getArgs().length > 0)
+				throw new ParseException("Illegal arguments: " + String.join(" ", line.getArgs()));
+		} catch (ParseException e) {
+			System.err.println(e.getLocalizedMessage());
+			System.exit(1);
+		}
+	}
+
+	// e.g., 1,2,5
+	private static int[] parseInts(String s) throws ParseException {
+		String[] parts = s.split(",");
+		int[] a = new int[parts.length];
+		try {
+			for (int i = 0; i < parts.length; i++)
+				a[i] = Integer.parseInt(parts[i].trim());
+		} catch (NumberFormatException e) {
+			throw new ParseException("Invalid list of numbers: " + s);
+		}
+		return a;
+	}
+
+	private static Options buildOptions() {
+		Options cmdLineOptions = new Options();
+		cmdLineOptions.addOption(Option.builder("i").longOpt("input").hasArg().desc("Events input file (JSON or compiled)").build());
+		cmdLineOptions.addOption(Option.builder("t").longOpt("ticks").hasArg().desc("Ticks of each run. Default value: 10.").build());
+		cmdLineOptions.addOption(Option.builder().longOpt("threads").hasArg()
+				.desc("Number of variants run at the same time. Default value: the number of processors.").build());
+		cmdLineOptions.addOption(Option.builder().longOpt("timeslot").hasArg()
+				.desc("Time slots of the round robin strategies, e.g., 1,2,5 (0 keeps the ones of the file). Default value: 0.").build());
+		cmdLineOptions.addOption(Option.builder().longOpt("maxspeed").hasArg()
+				.desc("Max speeds of the roads, as percentages of the ones of the file, e.g., 80,100,120. Default value: 100.").build());
+		cmdLineOptions.addOption(Option.builder().longOpt("co2limit").hasArg()
+				.desc("CO2 limits of the roads, as percentages of the ones of the file. Default value: 100.").build());
+		cmdLineOptions.addOption(Option.builder().longOpt("stats")
+				.desc("Time each phase of every tick and print their percentiles and allocations, of all the variants, at the end.").build());
+		cmdLineOptions.addOption(Option.builder("h").longOpt("help").desc("Print this message").build());
+		return cmdLineOptions;
+	}
+
+	private static void start(String[] args) throws IOException, InterruptedException {
+		parseArgs(args);
+		List<ParameterSweep.Variant> variants = ParameterSweep.grid(_timeSlots, _maxSpeeds, _co2Limits);
+
+		long start = System.nanoTime();
+		ScenarioPlan plan = ScenarioPlan.load(Paths.get(_inFile));
+		System.out.println(String.format("# %d events loaded in %d ms, %d variants on %d threads", plan.getEventCount(),
+				(System.nanoTime() - start) / 1000000, variants.size(), _threads));
+		System.out.println("timeslot,maxspeed_pct,co2limit_pct,total_co2,vehicles,arrivals,mean_travel_time,ms");
+
+		ExecutorService pool = Executors.newFixedThreadPool(_threads);
+		CompletionService<ParameterSweep.Result> done = new ExecutorCompletionService<>(pool);
+		for (ParameterSweep.Variant v : variants)
+			done.submit(() -> ParameterSweep.run(plan, v, _ticks, _stats ? new TickStats() : null));
+		TickStats stats = new TickStats();
+		try {
+			for (int i = 0; i < variants.size(); i++) {
+				try {
+					ParameterSweep.Result r = done.take().get();
+					ParameterSweep.Variant v = r.getVariant();
+					System.out.println(String.format("%d,%d,%d,%d,%d,%d,%.2f,%d", v.getTimeSlot(), v.getMaxSpeedPct(), v.getCO2LimitPct(),
+							r.getTotalCO2(), r.getVehicles(), r.getArrivals(), r.getMeanTravelTime(), r.getNanos() / 1000000));
+					if (r.getStats() != null)
+						stats.add(r.getStats());
+				} catch (ExecutionException e) {
+					System.out.println("# failed: " + e.getCause());
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+		System.out.println(String.format("# done in %d ms", (System.nanoTime() - start) / 1000000));
+		if (_stats)
+			System.out.print(stats.toString().replaceAll("(?m)^", "# "));
+	}
+
+	// example command lines:
+	//
+	// -i resources/examples/ex1.json -t 300 --timeslot 1,2,5,10 --maxspeed 80,100,120
+	// -i resources/tmp/ex1.scn -t 300 --co2limit 50,100 --threads 4
+	// -i resources/tmp/grid100k.json -t 300 --stats
+
+	public static void main(String[] args) {
+		try {
+			start(args);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
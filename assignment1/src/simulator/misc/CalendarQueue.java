@@ -0,0 +1,215 @@
+package simulator.misc;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+// A queue of elements (events) scheduled at integer ticks, polled tick by
+// tick. Adding and polling take O(1) amortized, instead of the O(n) of
+// keeping a sorted list. Elements of the same tick are polled in the order
+// they were added, so the order of a sorted list is kept.
+//
+// It is a hierarchical timing wheel. The ticks of the current block of 256
+// ticks have one bucket each, the next blocks of the current 2^16 ticks have
+// one bucket per block, and the same for the next 2^16 ticks of the current
+// 2^24. The elements of a bucket are spread over the buckets below when
+// their range starts, and ticks after the current 2^24 wait in an overflow
+// heap.
+public class CalendarQueue<T> {
+
+	private static final int BITS = 8;
+	private static final int SLOTS = 1 << BITS;
+	private static final int MASK = SLOTS - 1;
+	private static final int LEVELS = 3;
+
+	// Elements (and their times) in insertion order
+	private static class Bucket {
+		Object[] elems = new Object[4];
+		int[] times = new int[4];
+		int size;
+
+		void add(int time, Object e) {
+			if (size == elems.length) {
+				elems = Arrays.copyOf(elems, size * 2);
+				times = Arrays.copyOf(times, size * 2);
+			}
+			times[size] = time;
+			elems[size++] = e;
+		}
+
+		void clear() {
+			Arrays.fill(elems, 0, size, null);
+			size = 0;
+		}
+	}
+
+	// An element of the overflow heap, seq keeps the insertion order
+	private static class Entry implements Comparable<Entry> {
+		final int time;
+		final long seq;
+		final Object elem;
+
+		Entry(int time, long seq, Object elem) {
+			this.time = time;
+			this.seq = seq;
+			this.elem = elem;
+		}
+
+		@Override
+		public int compareTo(Entry o) {
+			return time != o.time ? Integer.compare(time, o.time) : Long.compare(seq, o.seq);
+		}
+	}
+
+	private Bucket[][] _wheels; // _wheels[0] has the ticks of the current block
+	private int[] _count; // elements in each wheel
+	private PriorityQueue<Entry> _overflow;
+	private long _seq;
+	private long _now; // next tick to poll, a long so that it can go past Integer.MAX_VALUE
+
+	public CalendarQueue() {
+		this(0);
+	}
+
+	// start is the first tick that will be polled
+	public CalendarQueue(int start) {
+		_wheels = new Bucket[LEVELS][SLOTS];
+		for (Bucket[] w : _wheels) {
+			for (int i = 0; i < SLOTS; i++)
+				w[i] = new Bucket();
+		}
+		_count = new int[LEVELS];
+		_overflow = new PriorityQueue<>();
+		_seq = 0;
+		_now = start;
+	}
+
+	// Schedules e at time. A time that has already been polled is taken as
+	// the next tick to poll.
+	public void add(int time, T e) {
+		put(time, e);
+	}
+
+	// Removes the elements scheduled at or before time and passes them to
+	// action, by time and in insertion order within a tick. Elements that
+	// action adds for a tick up to time are also polled. Returns the number of
+	// elements polled.
+	@SuppressWarnings("unchecked")
+	public int pollUntil(int time, Consumer<? super T> action) {
+		int n = 0;
+		while (_now <= time) {
+			if (isEmpty()) {
+				_now = time + 1L;
+				break;
+			}
+			if (_count[0] == 0) {
+				// nothing else in this block, jump to the next block with elements
+				advance(time + 1L);
+				continue;
+			}
+			Bucket b = _wheels[0][(int) _now & MASK];
+			for (int i = 0; i < b.size; i++) {
+				_count[0]--;
+				n++;
+				action.accept((T) b.elems[i]);
+			}
+			b.clear();
+			advance(_now + 1);
+		}
+		return n;
+	}
+
+	// Time of the first element, Integer.MAX_VALUE if the queue is empty. Times
+	// that have already been polled are given as the next tick to poll.
+	public int nextTime() {
+		if (_count[0] > 0) {
+			for (int i = (int) _now & MASK; i < SLOTS; i++) {
+				if (_wheels[0][i].size > 0)
+					return (int) ((_now & ~MASK) + i);
+			}
+		}
+		for (int l = 1; l < LEVELS; l++) {
+			if (_count[l] == 0)
+				continue;
+			for (int i = slot(_now, l) + 1; i < SLOTS; i++) {
+				Bucket b = _wheels[l][i];
+				if (b.size > 0) {
+					int min = b.times[0];
+					for (int k = 1; k < b.size; k++)
+						min = Math.min(min, b.times[k]);
+					return min;
+				}
+			}
+		}
+		return _overflow.isEmpty() ? Integer.MAX_VALUE : _overflow.peek().time;
+	}
+
+	public int size() {
+		int n = _overflow.size();
+		for (int c : _count)
+			n += c;
+		return n;
+	}
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	// In the lowest wheel whose range has time, or in the overflow heap
+	private void put(int time, Object e) {
+		long t = Math.max(time, _now);
+		for (int l = 0; l < LEVELS; l++) {
+			if (t >> BITS * (l + 1) == _now >> BITS * (l + 1)) {
+				_wheels[l][slot(t, l)].add(time, e);
+				_count[l]++;
+				return;
+			}
+		}
+		_overflow.add(new Entry(time, _seq++, e));
+	}
+
+	private static int slot(long t, int level) {
+		return (int) (t >> BITS * level) & MASK;
+	}
+
+	// Moves towards tick to, bringing in the elements of the ranges that start
+	// on the way. Stops at the start of the first block with elements.
+	private void advance(long to) {
+		while (_now < to) {
+			long next = (_now | MASK) + 1; // start of the next block
+			if (to < next) {
+				_now = to;
+				return;
+			}
+			// skip the ranges of the empty wheels, but not the block of to
+			long target = next;
+			int l = 1;
+			while (l < LEVELS && _count[l] == 0) {
+				target = (_now >> BITS * (l + 1)) + 1 << BITS * (l + 1);
+				l++;
+			}
+			if (l == LEVELS)
+				target = _overflow.isEmpty() ? Long.MAX_VALUE : Math.max(target, (long) _overflow.peek().time >> BITS * LEVELS << BITS * LEVELS);
+			_now = Math.max(next, Math.min(target, to & ~MASK));
+
+			// the ranges that start at _now, the widest first
+			if ((_now & (1L << BITS * LEVELS) - 1) == 0) {
+				while (!_overflow.isEmpty() && _overflow.peek().time >> BITS * LEVELS <= _now >> BITS * LEVELS) {
+					Entry e = _overflow.poll();
+					put(e.time, e.elem);
+				}
+			}
+			for (l = LEVELS - 1; l > 0; l--) {
+				if ((_now & (1L << BITS * l) - 1) != 0)
+					continue;
+				Bucket b = _wheels[l][slot(_now, l)];
+				_count[l] -= b.size;
+				for (int i = 0; i < b.size; i++)
+					put(b.times[i], b.elems[i]);
+				b.clear();
+			}
+			if (_count[0] > 0)
+				return;
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package simulator.misc;
+
+import java.util.Arrays;
+
+// Interns ids: the first time an id is seen it gets the next int (0, 1, 2,
+// ...), so objects can be kept in arrays indexed by their ids and strings are
+// only needed to parse and to report. Unlike a HashMap<String, Integer> it
+// does not box the ints nor allocate an entry per id; the table is open
+// addressing with linear probing over the positions of the ids.
+public class IdTable {
+
+	private static final int INITIAL_CAPACITY = 16; // a power of two
+
+	private String[] _ids; // by int id
+	private int _size;
+	private int[] _table; // int id + 1 of each slot, 0 if empty
+
+	public IdTable() {
+		_ids = new String[INITIAL_CAPACITY];
+		_size = 0;
+		_table = new int[2 * INITIAL_CAPACITY];
+	}
+
+	// The int id of id, a new one if it was not interned yet
+	public int intern(String id) {
+		int slot = slot(id);
+		if (_table[slot] != 0)
+			return _table[slot] - 1;
+
+		if (_size == _ids.length) {
+			_ids = Arrays.copyOf(_ids, _size * 2);
+			rehash(4 * _size);
+			slot = slot(id);
+		}
+		_ids[_size] = id;
+		_table[slot] = ++_size;
+		return _size - 1;
+	}
+
+	// The int id of id, -1 if it was not interned
+	public int indexOf(String id) {
+		return _table[slot(id)] - 1;
+	}
+
+	public String get(int i) {
+		if (i < 0 || i >= _size)
+			throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + _size);
+		return _ids[i];
+	}
+
+	public int size() {
+		return _size;
+	}
+
+	public void clear() {
+		Arrays.fill(_ids, 0, _size, null);
+		Arrays.fill(_table, 0);
+		_size = 0;
+	}
+
+	// The slot of id, or the empty one where it would go
+	private int slot(String id) {
+		int mask = _table.length - 1;
+		int h = id.hashCode();
+		int slot = (h ^ (h >>> 16)) & mask;
+		while (_table[slot] != 0 && !_ids[_table[slot] - 1].equals(id))
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+
+	private void rehash(int capacity) {
+		_table = new int[capacity];
+		int mask = capacity - 1;
+		for (int i = 0; i < _size; i++) {
+			int h = _ids[i].hashCode();
+			int slot = (h ^ (h >>> 16)) & mask;
+			while (_table[slot] != 0)
+				slot = (slot + 1) & mask;
+			_table[slot] = i + 1;
+		}
+	}
+}
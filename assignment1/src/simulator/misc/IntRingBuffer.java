@@ -0,0 +1,103 @@
+package simulator.misc;
+
+import java.util.Arrays;
+
+// The same as RingBuffer but for primitive ints, so queues of indices do not
+// box their elements.
+public class IntRingBuffer {
+
+	private static final int INITIAL_CAPACITY = 4;
+
+	private int[] _elems;
+	private int _head;
+	private int _size;
+
+	public IntRingBuffer() {
+		_elems = new int[INITIAL_CAPACITY];
+		_head = 0;
+		_size = 0;
+	}
+
+	public int get(int index) {
+		if (index < 0 || index >= _size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + _size);
+		return _elems[slot(index)];
+	}
+
+	public void set(int index, int e) {
+		if (index < 0 || index >= _size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + _size);
+		_elems[slot(index)] = e;
+	}
+
+	public int size() {
+		return _size;
+	}
+
+	public boolean isEmpty() {
+		return _size == 0;
+	}
+
+	// appends at the end of the queue
+	public void add(int e) {
+		if (_size == _elems.length)
+			grow();
+		_elems[slot(_size)] = e;
+		_size++;
+	}
+
+	// removes the first k elements
+	public void removeFirst(int k) {
+		if (k < 0 || k > _size)
+			throw new IndexOutOfBoundsException("Cannot remove " + k + " elements, Size: " + _size);
+		_head = _size == k ? 0 : slot(k);
+		_size -= k;
+	}
+
+	// removes the first occurrence of e, returns false if it is not there
+	public boolean removeValue(int e) {
+		for (int i = 0; i < _size; i++) {
+			if (_elems[slot(i)] == e) {
+				if (i == 0) {
+					removeFirst(1);
+				} else {
+					for (int j = i; j < _size - 1; j++)
+						_elems[slot(j)] = _elems[slot(j + 1)];
+					_size--;
+				}
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public void clear() {
+		_head = 0;
+		_size = 0;
+	}
+
+	public int[] toArray() {
+		int[] a = new int[_size];
+		for (int i = 0; i < _size; i++)
+			a[i] = _elems[slot(i)];
+		return a;
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(toArray());
+	}
+
+	private int slot(int index) {
+		int i = _head + index;
+		return i < _elems.length ? i : i - _elems.length;
+	}
+
+	private void grow() {
+		int[] bigger = new int[_elems.length * 2];
+		for (int i = 0; i < _size; i++)
+			bigger[i] = _elems[slot(i)];
+		_elems = bigger;
+		_head = 0;
+	}
+}
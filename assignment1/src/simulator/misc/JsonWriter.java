@@ -0,0 +1,272 @@
+package simulator.misc;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+// Writes JSON straight to an output stream, without building JSONObjects. The
+// text is encoded (UTF-8) into a byte buffer that is reused, and the buffer is
+// written to the stream when it is full, so writing ints and ASCII strings
+// does not allocate.
+//
+// Commas and colons are added as needed, e.g.,
+//
+//   out.beginObject().name("id").value("r1").name("co2").value(100).endObject();
+//
+// Several values at the top level are written one per line.
+public class JsonWriter implements Closeable, Flushable {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private OutputStream _out;
+	private byte[] _buf;
+	private int _pos;
+	private long _written; // bytes written to the stream
+
+	private boolean[] _empty; // for each level, true if nothing has been written yet
+	private int _depth;
+	private boolean _afterName;
+
+	private byte[] _digits;
+
+	public JsonWriter(OutputStream out) {
+		this(out, BUFFER_SIZE);
+	}
+
+	public JsonWriter(OutputStream out, int bufferSize) {
+		if (out == null)
+			throw new IllegalArgumentException("Output stream cannot be null.");
+		if (bufferSize < 16)
+			throw new IllegalArgumentException("Buffer size must be at least 16.");
+		_out = out;
+		_buf = new byte[bufferSize];
+		_pos = 0;
+		_written = 0;
+		_empty = new boolean[16];
+		_empty[0] = true;
+		_depth = 0;
+		_afterName = false;
+		_digits = new byte[20];
+	}
+
+	public JsonWriter beginObject() {
+		beforeValue();
+		put('{');
+		push();
+		return this;
+	}
+
+	public JsonWriter endObject() {
+		pop();
+		put('}');
+		return this;
+	}
+
+	public JsonWriter beginArray() {
+		beforeValue();
+		put('[');
+		push();
+		return this;
+	}
+
+	public JsonWriter endArray() {
+		pop();
+		put(']');
+		return this;
+	}
+
+	public JsonWriter name(String name) {
+		if (_depth == 0 || _afterName)
+			throw new IllegalStateException("A name can only be written inside an object.");
+		beforeValue();
+		string(name);
+		put(':');
+		_afterName = true;
+		return this;
+	}
+
+	public JsonWriter value(String s) {
+		beforeValue();
+		if (s == null)
+			ascii("null");
+		else
+			string(s);
+		return this;
+	}
+
+	public JsonWriter value(long v) {
+		beforeValue();
+		if (v == Long.MIN_VALUE) {
+			ascii(Long.toString(v));
+			return this;
+		}
+		if (v < 0) {
+			put('-');
+			v = -v;
+		}
+		int n = 0;
+		do {
+			_digits[n++] = (byte) ('0' + v % 10);
+			v /= 10;
+		} while (v != 0);
+		ensure(n);
+		while (n > 0)
+			_buf[_pos++] = _digits[--n];
+		return this;
+	}
+
+	public JsonWriter value(boolean b) {
+		beforeValue();
+		ascii(b ? "true" : "false");
+		return this;
+	}
+
+	public JsonWriter nullValue() {
+		beforeValue();
+		ascii("null");
+		return this;
+	}
+
+	// Number of bytes written so far, also the ones still in the buffer
+	public long position() {
+		return _written + _pos;
+	}
+
+	// Nesting level, 0 at the top level
+	public int getDepth() {
+		return _depth;
+	}
+
+	@Override
+	public void flush() {
+		try {
+			drain();
+			_out.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void close() {
+		try {
+			drain();
+			_out.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void beforeValue() {
+		if (_afterName) {
+			_afterName = false;
+			return;
+		}
+		if (!_empty[_depth])
+			put(_depth == 0 ? '\n' : ',');
+		_empty[_depth] = false;
+	}
+
+	private void push() {
+		_depth++;
+		if (_depth == _empty.length)
+			_empty = Arrays.copyOf(_empty, _empty.length * 2);
+		_empty[_depth] = true;
+	}
+
+	private void pop() {
+		if (_depth == 0 || _afterName)
+			throw new IllegalStateException("Nothing to close.");
+		_depth--;
+	}
+
+	private void string(String s) {
+		put('"');
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			ensure(6);
+			if (c == '"' || c == '\\') {
+				_buf[_pos++] = '\\';
+				_buf[_pos++] = (byte) c;
+			} else if (c < 0x20) {
+				escape(c);
+			} else if (c < 0x80) {
+				_buf[_pos++] = (byte) c;
+			} else if (c < 0x800) {
+				_buf[_pos++] = (byte) (0xC0 | c >> 6);
+				_buf[_pos++] = (byte) (0x80 | c & 0x3F);
+			} else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+				int cp = Character.toCodePoint(c, s.charAt(++i));
+				_buf[_pos++] = (byte) (0xF0 | cp >> 18);
+				_buf[_pos++] = (byte) (0x80 | cp >> 12 & 0x3F);
+				_buf[_pos++] = (byte) (0x80 | cp >> 6 & 0x3F);
+				_buf[_pos++] = (byte) (0x80 | cp & 0x3F);
+			} else {
+				_buf[_pos++] = (byte) (0xE0 | c >> 12);
+				_buf[_pos++] = (byte) (0x80 | c >> 6 & 0x3F);
+				_buf[_pos++] = (byte) (0x80 | c & 0x3F);
+			}
+		}
+		put('"');
+	}
+
+	private void escape(char c) {
+		_buf[_pos++] = '\\';
+		switch (c) {
+		case '\b':
+			_buf[_pos++] = 'b';
+			break;
+		case '\t':
+			_buf[_pos++] = 't';
+			break;
+		case '\n':
+			_buf[_pos++] = 'n';
+			break;
+		case '\f':
+			_buf[_pos++] = 'f';
+			break;
+		case '\r':
+			_buf[_pos++] = 'r';
+			break;
+		default:
+			_buf[_pos++] = 'u';
+			_buf[_pos++] = '0';
+			_buf[_pos++] = '0';
+			_buf[_pos++] = (byte) Character.forDigit(c >> 4, 16);
+			_buf[_pos++] = (byte) Character.forDigit(c & 0xF, 16);
+		}
+	}
+
+	// s has only ASCII characters that do not need escaping
+	private void ascii(String s) {
+		ensure(s.length());
+		for (int i = 0; i < s.length(); i++)
+			_buf[_pos++] = (byte) s.charAt(i);
+	}
+
+	private void put(char c) {
+		ensure(1);
+		_buf[_pos++] = (byte) c;
+	}
+
+	private void ensure(int n) {
+		if (_pos + n > _buf.length) {
+			try {
+				drain();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	private void drain() throws IOException {
+		if (_pos > 0) {
+			_out.write(_buf, 0, _pos);
+			_written += _pos;
+			_pos = 0;
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package simulator.misc;
+
+import java.util.Arrays;
+
+// A histogram of non-negative longs (e.g., durations in nanoseconds) with a
+// fixed number of buckets, so recording a value is a few integer operations
+// and never allocates. Values below 16 have a bucket each; above that, each
+// power of two is split into 16 buckets, so percentiles are off by at most
+// 1/16 (6.25%) of the value. The max, the count and the sum are exact.
+public class LatencyHistogram {
+
+	private static final int SUB_BITS = 4;
+	private static final int SUB = 1 << SUB_BITS;
+	private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB;
+
+	private long[] _counts;
+	private long _count;
+	private long _sum;
+	private long _max;
+
+	public LatencyHistogram() {
+		_counts = new long[BUCKETS];
+		_count = 0;
+		_sum = 0;
+		_max = 0;
+	}
+
+	public void record(long value) {
+		if (value < 0)
+			throw new IllegalArgumentException("Values cannot be negative: " + value);
+		_counts[bucket(value)]++;
+		_count++;
+		_sum += value;
+		if (value > _max)
+			_max = value;
+	}
+
+	// Adds the values of h, e.g., to merge the histograms of several threads
+	public void add(LatencyHistogram h) {
+		for (int i = 0; i < BUCKETS; i++)
+			_counts[i] += h._counts[i];
+		_count += h._count;
+		_sum += h._sum;
+		_max = Math.max(_max, h._max);
+	}
+
+	public void clear() {
+		Arrays.fill(_counts, 0);
+		_count = 0;
+		_sum = 0;
+		_max = 0;
+	}
+
+	// The value below or at which p percent of the values are (the largest
+	// value of its bucket, but never more than the max), 0 if it is empty
+	public long getPercentile(double p) {
+		if (p < 0 || p > 100)
+			throw new IllegalArgumentException("Percentile must be between 0 and 100: " + p);
+		if (_count == 0)
+			return 0;
+		long rank = Math.max(1, (long) Math.ceil(p / 100 * _count));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += _counts[i];
+			if (seen >= rank)
+				return Math.min(highest(i), _max);
+		}
+		return _max;
+	}
+
+	public long getCount() {
+		return _count;
+	}
+
+	public long getSum() {
+		return _sum;
+	}
+
+	public long getMax() {
+		return _max;
+	}
+
+	public double getMean() {
+		return _count == 0 ? 0 : (double) _sum / _count;
+	}
+
+	static int bucket(long value) {
+		if (value < SUB)
+			return (int) value;
+		int e = 63 - Long.numberOfLeadingZeros(value); // >= SUB_BITS
+		int low = (int) (value >>> (e - SUB_BITS)) - SUB; // the SUB_BITS bits after the first one
+		return (e - SUB_BITS + 1) * SUB + low;
+	}
+
+	// The largest value of bucket i
+	static long highest(int i) {
+		if (i < SUB)
+			return i;
+		int shift = i / SUB - 1;
+		long lowest = (long) (SUB + i % SUB) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+}
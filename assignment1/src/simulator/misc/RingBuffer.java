@@ -0,0 +1,102 @@
+package simulator.misc;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+
+// A FIFO queue backed by a circular array. Besides the List operations, it
+// supports removing the first k elements in O(k) (without shifting the rest)
+// which is what a junction does when it lets vehicles go.
+public class RingBuffer<T> extends AbstractList<T> {
+
+	private static final int INITIAL_CAPACITY = 8;
+
+	private Object[] _elems;
+	private int _head;
+	private int _size;
+
+	public RingBuffer() {
+		this(INITIAL_CAPACITY);
+	}
+
+	public RingBuffer(int capacity) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("Capacity must be positive.");
+		_elems = new Object[capacity];
+		_head = 0;
+		_size = 0;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T get(int index) {
+		if (index < 0 || index >= _size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + _size);
+		return (T) _elems[slot(index)];
+	}
+
+	@Override
+	public int size() {
+		return _size;
+	}
+
+	// appends at the end of the queue
+	@Override
+	public boolean add(T e) {
+		if (_size == _elems.length)
+			grow();
+		_elems[slot(_size)] = e;
+		_size++;
+		modCount++;
+		return true;
+	}
+
+	// removes (and forgets) the first k elements
+	public void removeFirst(int k) {
+		if (k < 0 || k > _size)
+			throw new IndexOutOfBoundsException("Cannot remove " + k + " elements, Size: " + _size);
+		for (int i = 0; i < k; i++)
+			_elems[slot(i)] = null;
+		_head = slot(k);
+		_size -= k;
+		if (_size == 0)
+			_head = 0;
+		if (k > 0)
+			modCount++;
+	}
+
+	@Override
+	public T remove(int index) {
+		T e = get(index);
+		if (index == 0) {
+			removeFirst(1);
+		} else {
+			for (int i = index; i < _size - 1; i++)
+				_elems[slot(i)] = _elems[slot(i + 1)];
+			_elems[slot(_size - 1)] = null;
+			_size--;
+			modCount++;
+		}
+		return e;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(_elems, null);
+		_head = 0;
+		_size = 0;
+		modCount++;
+	}
+
+	private int slot(int index) {
+		int i = _head + index;
+		return i < _elems.length ? i : i - _elems.length;
+	}
+
+	private void grow() {
+		Object[] bigger = new Object[_elems.length * 2];
+		for (int i = 0; i < _size; i++)
+			bigger[i] = _elems[slot(i)];
+		_elems = bigger;
+		_head = 0;
+	}
+}
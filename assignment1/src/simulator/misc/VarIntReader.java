@@ -0,0 +1,128 @@
+package simulator.misc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+// Reads what VarIntWriter writes, either from a buffer that has all the data
+// (e.g., a memory-mapped file) or from a channel, through a buffer that is
+// refilled as needed.
+public class VarIntReader {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private ReadableByteChannel _ch; // null if _buf has all the data
+	private ByteBuffer _buf;
+	private long _consumed; // position of the start of the buffer in the data
+
+	public VarIntReader(ByteBuffer buf) {
+		_ch = null;
+		_buf = buf;
+		_consumed = 0;
+	}
+
+	public VarIntReader(ReadableByteChannel ch) {
+		_ch = ch;
+		_buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		_buf.flip(); // empty
+		_consumed = 0;
+	}
+
+	// True if there is at least one more byte
+	public boolean hasRemaining() {
+		return _buf.hasRemaining() || fill();
+	}
+
+	public int readByte() {
+		if (!_buf.hasRemaining() && !fill())
+			throw new IllegalStateException("Unexpected end of data.");
+		return _buf.get() & 0xFF;
+	}
+
+	public int readVarInt() {
+		int v = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = readByte();
+			v |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return v;
+		}
+		throw new IllegalStateException("Malformed variable-length int.");
+	}
+
+	public long readVarLong() {
+		long v = 0;
+		for (int shift = 0; shift < 70; shift += 7) {
+			int b = readByte();
+			v |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return v;
+		}
+		throw new IllegalStateException("Malformed variable-length long.");
+	}
+
+	public int readZigZag() {
+		int v = readVarInt();
+		return v >>> 1 ^ -(v & 1);
+	}
+
+	public long readZigZagLong() {
+		long v = readVarLong();
+		return v >>> 1 ^ -(v & 1);
+	}
+
+	public int readInt() {
+		int v = 0;
+		for (int i = 0; i < 4; i++)
+			v = v << 8 | readByte();
+		return v;
+	}
+
+	public long readLong() {
+		long v = 0;
+		for (int i = 0; i < 8; i++)
+			v = v << 8 | readByte();
+		return v;
+	}
+
+	public String readString() {
+		int n = readVarInt();
+		if (n < 0)
+			throw new IllegalStateException("Malformed string length.");
+		byte[] b = new byte[n];
+		int off = 0;
+		while (off < n) {
+			if (!_buf.hasRemaining() && !fill())
+				throw new IllegalStateException("Unexpected end of data.");
+			int k = Math.min(_buf.remaining(), n - off);
+			_buf.get(b, off, k);
+			off += k;
+		}
+		return new String(b, StandardCharsets.UTF_8);
+	}
+
+	// Number of bytes read so far
+	public long position() {
+		return _ch == null ? _buf.position() : _consumed + _buf.position();
+	}
+
+	// Reads more bytes from the channel, false at the end of the data
+	private boolean fill() {
+		if (_ch == null)
+			return false;
+		try {
+			_consumed += _buf.position();
+			_buf.compact();
+			int n;
+			do {
+				n = _ch.read(_buf);
+			} while (n == 0);
+			_buf.flip();
+			return n > 0;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
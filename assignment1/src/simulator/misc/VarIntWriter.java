@@ -0,0 +1,128 @@
+package simulator.misc;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+// Writes variable-length integers (LEB128, 7 bits per byte) and strings into
+// a byte buffer that is written to a channel when it is full. Small values
+// take one byte. Signed values (e.g., deltas) are zig-zag encoded first so that
+// small negative values are also short.
+public class VarIntWriter implements Closeable, Flushable {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private WritableByteChannel _ch;
+	private ByteBuffer _buf;
+	private long _written; // bytes written to the channel
+
+	public VarIntWriter(WritableByteChannel ch) {
+		this(ch, BUFFER_SIZE);
+	}
+
+	public VarIntWriter(WritableByteChannel ch, int bufferSize) {
+		if (ch == null)
+			throw new IllegalArgumentException("Channel cannot be null.");
+		if (bufferSize < 16)
+			throw new IllegalArgumentException("Buffer size must be at least 16.");
+		_ch = ch;
+		_buf = ByteBuffer.allocateDirect(bufferSize);
+		_written = 0;
+	}
+
+	public void writeByte(int b) {
+		ensure(1);
+		_buf.put((byte) b);
+	}
+
+	// v is taken as unsigned
+	public void writeVarInt(int v) {
+		ensure(5);
+		while ((v & ~0x7F) != 0) {
+			_buf.put((byte) (v & 0x7F | 0x80));
+			v >>>= 7;
+		}
+		_buf.put((byte) v);
+	}
+
+	public void writeVarLong(long v) {
+		ensure(10);
+		while ((v & ~0x7FL) != 0) {
+			_buf.put((byte) (v & 0x7F | 0x80));
+			v >>>= 7;
+		}
+		_buf.put((byte) v);
+	}
+
+	public void writeZigZag(int v) {
+		writeVarInt(v << 1 ^ v >> 31);
+	}
+
+	public void writeZigZagLong(long v) {
+		writeVarLong(v << 1 ^ v >> 63);
+	}
+
+	// Fixed size, big endian
+	public void writeInt(int v) {
+		ensure(4);
+		_buf.putInt(v);
+	}
+
+	public void writeLong(long v) {
+		ensure(8);
+		_buf.putLong(v);
+	}
+
+	// Length (in bytes) followed by the UTF-8 bytes
+	public void writeString(String s) {
+		byte[] b = s.getBytes(StandardCharsets.UTF_8);
+		writeVarInt(b.length);
+		int off = 0;
+		while (off < b.length) {
+			ensure(1);
+			int n = Math.min(_buf.remaining(), b.length - off);
+			_buf.put(b, off, n);
+			off += n;
+		}
+	}
+
+	// Number of bytes written so far, also the ones still in the buffer
+	public long position() {
+		return _written + _buf.position();
+	}
+
+	@Override
+	public void flush() {
+		try {
+			drain();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void close() {
+		try {
+			drain();
+			_ch.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void ensure(int n) {
+		if (_buf.remaining() < n)
+			flush();
+	}
+
+	private void drain() throws IOException {
+		_buf.flip();
+		while (_buf.hasRemaining())
+			_written += _ch.write(_buf);
+		_buf.clear();
+	}
+}
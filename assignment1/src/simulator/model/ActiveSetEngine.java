@@ -0,0 +1,215 @@
+package simulator.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Advances only the junctions and roads that are active, so the cost of a
+// tick depends on the traffic and not on the size of the network.
+//
+// A road is idle when it has no vehicles: advancing it only reduces its
+// contamination and updates its speed limit. A junction is idle when its
+// queues are empty and its strategy is a CyclicStrategy: advancing it only
+// moves the green light to the next road every time slot (see
+// Junction#isIdle). Idle objects are not advanced; they remember the last tick
+// they saw and catch up in one step (Road#skipIdle, Junction#skipIdle) when
+// they are touched or reported:
+//
+//   - a vehicle enters a road or the queue of a junction: the object catches
+//     up and becomes active again
+//   - the weather of a road changes: the road catches up with the old weather
+//   - a road or junction is reported: it catches up and stays idle
+//
+// The states writers (DeltaStatesWriter, StateSnapshot and so
+// AsyncStatesWriter and TrajectoryLogWriter) catch up the objects they write,
+// and mark dirty the ones that changed. Objects that are read in other ways
+// (e.g., Road#getTotalCO2) must be caught up first with sync().
+//
+// The events of a tick must be applied before advance(time), as the
+// simulator does. Active objects advance in the order they were added, so the
+// result is the same as advancing all of them, except that the light switches
+// of idle junctions are not JFR events.
+public class ActiveSetEngine {
+
+    private List<Junction> junctions;
+    private List<Road> roads;
+    private ActiveSet activeJunctions;
+    private ActiveSet activeRoads;
+    private int[] junctionSynced; // last tick applied to each idle junction
+    private int[] roadSynced; // last tick applied to each idle road
+    private int junctionTime; // last tick whose junction phase is done
+    private int roadTime; // last tick whose road phase is done
+
+    // An engine whose next tick is time + 1
+    public ActiveSetEngine(int time) {
+        this.junctions = new ArrayList<>();
+        this.roads = new ArrayList<>();
+        this.activeJunctions = new ActiveSet();
+        this.activeRoads = new ActiveSet();
+        this.junctionSynced = new int[16];
+        this.roadSynced = new int[16];
+        this.junctionTime = time;
+        this.roadTime = time;
+    }
+
+    public ActiveSetEngine() {
+        this(0);
+    }
+
+    // Adds a junction, it is active until its first advance
+    public void addJunction(Junction j) {
+        if (j.getScheduler() != null)
+            throw new IllegalArgumentException("Junction " + j.getId() + " is already scheduled.");
+        int slot = junctions.size();
+        junctions.add(j);
+        if (slot == junctionSynced.length)
+            junctionSynced = Arrays.copyOf(junctionSynced, slot * 2);
+        j.schedule(this, slot);
+        activeJunctions.add(slot);
+    }
+
+    // Adds a road, it is active until its first advance
+    public void addRoad(Road r) {
+        if (r.getScheduler() != null)
+            throw new IllegalArgumentException("Road " + r.getId() + " is already scheduled.");
+        int slot = roads.size();
+        roads.add(r);
+        if (slot == roadSynced.length)
+            roadSynced = Arrays.copyOf(roadSynced, slot * 2);
+        r.schedule(this, slot);
+        activeRoads.add(slot);
+    }
+
+    // Advances the active junctions and then the active roads
+    public void advance(int time) {
+        advanceJunctions(time);
+        advanceRoads(time);
+    }
+
+    public void advanceJunctions(int time) {
+        ActiveSet a = activeJunctions;
+        a.merge();
+        int kept = 0;
+        for (int k = 0; k < a.size; k++) {
+            int i = a.slots[k];
+            Junction j = junctions.get(i);
+            j.advance(time);
+            if (j.isIdle()) {
+                a.active[i] = false;
+                junctionSynced[i] = time;
+            } else {
+                a.slots[kept++] = i;
+            }
+        }
+        a.size = kept;
+        junctionTime = time;
+    }
+
+    public void advanceRoads(int time) {
+        ActiveSet a = activeRoads;
+        a.merge();
+        int kept = 0;
+        for (int k = 0; k < a.size; k++) {
+            int i = a.slots[k];
+            Road r = roads.get(i);
+            r.advance(time);
+            if (r.isIdle()) {
+                a.active[i] = false;
+                roadSynced[i] = time;
+            } else {
+                a.slots[kept++] = i;
+            }
+        }
+        a.size = kept;
+        roadTime = time;
+    }
+
+    // Catches up all the idle objects, e.g., before reading them
+    public void sync() {
+        for (Junction j : junctions)
+            sync(j);
+        for (Road r : roads)
+            sync(r);
+    }
+
+    void sync(Junction j) {
+        int i = j.getSlot();
+        if (!activeJunctions.active[i]) {
+            j.skipIdle(junctionSynced[i], junctionTime);
+            junctionSynced[i] = junctionTime;
+        }
+    }
+
+    void sync(Road r) {
+        int i = r.getSlot();
+        if (!activeRoads.active[i]) {
+            r.skipIdle(roadTime - roadSynced[i]);
+            roadSynced[i] = roadTime;
+        }
+    }
+
+    void wake(Junction j) {
+        sync(j);
+        activeJunctions.wake(j.getSlot());
+    }
+
+    void wake(Road r) {
+        sync(r);
+        activeRoads.wake(r.getSlot());
+    }
+
+    public int getActiveJunctionCount() { return activeJunctions.count(); }
+    public int getActiveRoadCount() { return activeRoads.count(); }
+    public List<Junction> getJunctions() { return Collections.unmodifiableList(junctions); }
+    public List<Road> getRoads() { return Collections.unmodifiableList(roads); }
+
+    // The slots of the active objects in increasing order. Objects that wake
+    // up are kept apart and merged in order before the next pass.
+    private static class ActiveSet {
+        int[] slots = new int[16];
+        int size;
+        int[] woken = new int[16];
+        int wokenSize;
+        boolean[] active = new boolean[16]; // per slot, also the woken ones
+
+        // A new slot, always the next one
+        void add(int slot) {
+            if (slot == active.length)
+                active = Arrays.copyOf(active, slot * 2);
+            wake(slot);
+        }
+
+        void wake(int slot) {
+            if (active[slot])
+                return;
+            active[slot] = true;
+            if (wokenSize == woken.length)
+                woken = Arrays.copyOf(woken, wokenSize * 2);
+            woken[wokenSize++] = slot;
+        }
+
+        // In place, from the back
+        void merge() {
+            if (wokenSize == 0)
+                return;
+            Arrays.sort(woken, 0, wokenSize);
+            if (size + wokenSize > slots.length)
+                slots = Arrays.copyOf(slots, 2 * (size + wokenSize));
+            int i = size - 1;
+            int k = wokenSize - 1;
+            for (int n = size + wokenSize - 1; k >= 0; n--) {
+                if (i >= 0 && slots[i] > woken[k])
+                    slots[n] = slots[i--];
+                else
+                    slots[n] = woken[k--];
+            }
+            size += wokenSize;
+            wokenSize = 0;
+        }
+
+        int count() {
+            return size + wokenSize;
+        }
+    }
+}
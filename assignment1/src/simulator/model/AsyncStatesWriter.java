@@ -0,0 +1,150 @@
+package simulator.model;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import simulator.misc.JsonWriter;
+
+// Writes the same output as StatesWriter, but the JSON is serialized and
+// written by a separate writer thread, so it does not add to the time of
+// each tick.
+//
+// In each tick the simulation thread only captures a StateSnapshot and puts
+// it in a bounded queue. If the writer falls behind and the queue is full, the
+// simulation thread waits (backpressure), so memory stays bounded. The time
+// spent waiting is the stall time. Snapshots are written in the order they
+// are captured, so the output is the same as the synchronous one.
+public class AsyncStatesWriter implements StatesSink {
+
+    // marks the end of the states in the queue
+    private static final StateSnapshot END = StateSnapshot.capture(0, List.of(), List.of(), List.of());
+
+    private BlockingQueue<StateSnapshot> queue;
+    private int capacity;
+    private JsonWriter out;
+    private StatesIndexWriter index; // null if not indexed
+    private Thread writer;
+    private volatile Throwable failure;
+    private boolean closed;
+
+    // only changed by the simulation thread
+    private long stallNanos;
+    private int stalls;
+    private int maxDepth;
+
+    public AsyncStatesWriter(OutputStream os, int capacity) {
+        this(os, capacity, null);
+    }
+
+    public AsyncStatesWriter(OutputStream os, int capacity, StatesIndexWriter index) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Queue capacity must be positive.");
+        this.capacity = capacity;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.out = new JsonWriter(os);
+        this.index = index;
+        this.closed = false;
+        this.stallNanos = 0;
+        this.stalls = 0;
+        this.maxDepth = 0;
+
+        out.beginObject();
+        out.name("states").beginArray();
+
+        this.writer = new Thread(this::work, "states-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // Captures the state of the given objects at time and queues it, waits if
+    // the queue is full
+    @Override
+    public void write(int time, List<Road> roads, List<Vehicle> vehicles, List<Junction> junctions) {
+        if (closed)
+            throw new IllegalStateException("The writer is closed.");
+        checkFailure();
+        put(StateSnapshot.capture(time, roads, vehicles, junctions));
+        maxDepth = Math.max(maxDepth, queue.size());
+    }
+
+    // Waits until all queued states are written, ends the states array and
+    // closes the stream (and the index)
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        put(END);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the writer.", e);
+        }
+        checkFailure();
+    }
+
+    private void put(StateSnapshot s) {
+        if (queue.offer(s))
+            return;
+
+        long start = System.nanoTime();
+        try {
+            queue.put(s);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the writer.", e);
+        }
+        stallNanos += System.nanoTime() - start;
+        stalls++;
+    }
+
+    private void checkFailure() {
+        if (failure != null)
+            throw new IllegalStateException("The states could not be written.", failure);
+    }
+
+    private void work() {
+        boolean ended = false;
+        try {
+            while (true) {
+                StateSnapshot s = queue.take();
+                if (s == END) {
+                    ended = true;
+                    break;
+                }
+                if (index != null)
+                    index.add(s.getTime(), out.position());
+                s.write(out);
+                if (queue.isEmpty())
+                    out.flush(); // nothing else to do for now
+            }
+            out.endArray();
+            out.endObject();
+            out.close();
+            if (index != null)
+                index.close();
+        } catch (Throwable e) {
+            failure = e;
+            // keep taking snapshots so that the simulation thread does not block
+            try {
+                while (!ended && queue.take() != END)
+                    ;
+            } catch (InterruptedException ie) {
+                // stopped
+            }
+        }
+    }
+
+    public int getCapacity() { return capacity; }
+
+    // Number of states waiting to be written
+    public int getQueueDepth() { return queue.size(); }
+    public int getMaxQueueDepth() { return maxDepth; }
+
+    // Total time that the simulation thread waited for space in the queue, and how many times
+    public long getStallNanos() { return stallNanos; }
+    public int getStalls() { return stalls; }
+}
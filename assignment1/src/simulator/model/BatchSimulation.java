@@ -0,0 +1,234 @@
+package simulator.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Runs a scenario in batch mode, as the simulator does: each tick runs the
+// events of the tick, then advances the junctions and then the roads, and
+// writes the state to a StatesSink, e.g.,
+//
+//   BatchSimulation sim = new BatchSimulation(ScenarioPlan.load(file));
+//   sim.setThreads(4);
+//   sim.run(300, new StatesWriter(os));
+//
+// The events come from a ScenarioPlan (all loaded before the first tick) or
+// from a ScenarioReader (read as the simulation reaches their time, so only
+// the objects are kept in memory).
+//
+// The junctions and roads are advanced by a ParallelTickEngine. With fast
+// forward, quiet stretches are jumped over in one step (see FastForward); the
+// states of the ticks jumped over are still written, unless skipQuietReports
+// is set. Ticks that are jumped over are not measured by the TickStats.
+public class BatchSimulation implements ScenarioHandler {
+
+    // Where the events come from, see the constructors
+    private interface Events {
+
+        // Runs the events up to time (included) on h
+        void replay(int time, ScenarioHandler h);
+
+        // Time of the next event, Integer.MAX_VALUE if there is none
+        int nextTime();
+
+        String getId(int i);
+    }
+
+    private final Events events;
+    private final Junction[] junctionsById;
+    private final Road[] roadsById;
+    private final Vehicle[] vehiclesById;
+    private final List<Junction> junctions = new ArrayList<>();
+    private final List<Road> roads = new ArrayList<>();
+    private final List<Vehicle> vehicles = new ArrayList<>();
+
+    private int threads = 1;
+    private boolean fastForward = false;
+    private boolean skipQuietReports = false;
+    private TickStats stats; // null if not measured
+    private int time;
+    private int lastEvent; // time of the last event run
+
+    public BatchSimulation(ScenarioPlan plan) {
+        this(plan.getIdCount(), new Events() {
+            private int next = 0;
+
+            @Override
+            public void replay(int time, ScenarioHandler h) {
+                next = plan.replay(next, time, h);
+            }
+
+            @Override
+            public int nextTime() {
+                return plan.getTime(next);
+            }
+
+            @Override
+            public String getId(int i) {
+                return plan.getId(i);
+            }
+        });
+    }
+
+    // The events of in must be sorted by time. in is not closed.
+    public BatchSimulation(ScenarioReader in) {
+        this(in.getIdCount(), new Events() {
+            @Override
+            public void replay(int time, ScenarioHandler h) {
+                in.readUntil(time, h);
+            }
+
+            @Override
+            public int nextTime() {
+                return in.nextTime();
+            }
+
+            @Override
+            public String getId(int i) {
+                return in.getId(i);
+            }
+        });
+    }
+
+    private BatchSimulation(int ids, Events events) {
+        this.events = events;
+        this.junctionsById = new Junction[ids];
+        this.roadsById = new Road[ids];
+        this.vehiclesById = new Vehicle[ids];
+        this.time = 0;
+        this.lastEvent = Integer.MIN_VALUE;
+    }
+
+    public void setThreads(int threads) {
+        if (threads <= 0)
+            throw new IllegalArgumentException("Number of threads must be positive.");
+        this.threads = threads;
+    }
+
+    public void setFastForward(boolean fastForward, boolean skipQuietReports) {
+        if (skipQuietReports && !fastForward)
+            throw new IllegalArgumentException("Quiet reports can only be skipped with fast forward.");
+        this.fastForward = fastForward;
+        this.skipQuietReports = skipQuietReports;
+    }
+
+    // Measures the phases of each tick into stats, null stops measuring
+    public void setStats(TickStats stats) {
+        this.stats = stats;
+    }
+
+    // Runs the given number of ticks and writes their states to out, which is
+    // closed at the end
+    public void run(int ticks, StatesSink out) {
+        if (ticks < 0)
+            throw new IllegalArgumentException("The number of ticks cannot be negative: " + ticks);
+        ParallelTickEngine engine = new ParallelTickEngine(threads);
+        engine.setStats(stats);
+        try {
+            int end = time + ticks;
+            while (time < end) {
+                if (fastForward) {
+                    // no event can happen in a quiet tick
+                    int max = (int) Math.min(end, events.nextTime() - 1L) - time;
+                    int quiet = max > 0 ? FastForward.quietTicks(junctions, roads, time, max) : 0;
+                    if (quiet > 0) {
+                        if (skipQuietReports)
+                            FastForward.jump(roads, quiet);
+                        else
+                            FastForward.jump(roads, time, quiet, t -> out.write(t, roads, vehicles, junctions));
+                        time += quiet;
+                        continue;
+                    }
+                }
+                time++;
+                tick(engine, out);
+            }
+        } finally {
+            engine.shutdown();
+            out.close();
+        }
+    }
+
+    private void tick(ParallelTickEngine engine, StatesSink out) {
+        SimulationEvents.TickEvent tick = SimulationEvents.TickEvent.begin(time, stats);
+        SimulationEvents.PhaseEvent phase = SimulationEvents.PhaseEvent.begin(time, TickStats.Phase.EVENTS, stats);
+        events.replay(time, this);
+        phase.finish(stats);
+
+        engine.advance(junctions, roads, time);
+
+        phase = SimulationEvents.PhaseEvent.begin(time, TickStats.Phase.REPORTS, stats);
+        out.write(time, roads, vehicles, junctions);
+        phase.finish(stats);
+        tick.finish(stats);
+    }
+
+    @Override
+    public void newJunction(int time, int id, int x, int y, LightSwitchingStrategy lss, DequeuingStrategy dqs) {
+        checkOrder(time);
+        Junction j = new Junction(events.getId(id), lss, dqs, x, y);
+        junctionsById[id] = j;
+        junctions.add(j);
+    }
+
+    @Override
+    public void newRoad(int time, int id, boolean city, int src, int dest, int length, int co2Limit, int maxSpeed, Weather weather) {
+        checkOrder(time);
+        Road r = city ? new CityRoad(events.getId(id), junction(src), junction(dest), maxSpeed, co2Limit, length, weather)
+                : new InterCityRoad(events.getId(id), junction(src), junction(dest), maxSpeed, co2Limit, length, weather);
+        roadsById[id] = r;
+        roads.add(r);
+    }
+
+    @Override
+    public void newVehicle(int time, int id, int maxSpeed, int contClass, int[] itinerary) {
+        checkOrder(time);
+        Junction[] it = new Junction[itinerary.length];
+        for (int i = 0; i < it.length; i++)
+            it[i] = junction(itinerary[i]);
+        Vehicle v = new Vehicle(events.getId(id), maxSpeed, contClass, Arrays.asList(it));
+        vehiclesById[id] = v;
+        vehicles.add(v);
+        v.moveToNextRoad();
+    }
+
+    @Override
+    public void setWeather(int time, int[] roads, Weather[] weathers) {
+        checkOrder(time);
+        for (int i = 0; i < roads.length; i++) {
+            if (roadsById[roads[i]] == null)
+                throw new IllegalArgumentException("Unknown road " + events.getId(roads[i]) + " at time " + time);
+            roadsById[roads[i]].setWeather(weathers[i]);
+        }
+    }
+
+    @Override
+    public void setContClass(int time, int[] vehicles, int[] classes) {
+        checkOrder(time);
+        for (int i = 0; i < vehicles.length; i++) {
+            if (vehiclesById[vehicles[i]] == null)
+                throw new IllegalArgumentException("Unknown vehicle " + events.getId(vehicles[i]) + " at time " + time);
+            vehiclesById[vehicles[i]].setContClass(classes[i]);
+        }
+    }
+
+    // A ScenarioPlan sorts its events, but a ScenarioReader reads them in file
+    // order, and an event that comes after a later one would run too late
+    private void checkOrder(int eventTime) {
+        if (eventTime < lastEvent)
+            throw new IllegalArgumentException("The events are not sorted by time: an event at time " + eventTime + " comes after one at time " + lastEvent);
+        lastEvent = eventTime;
+    }
+
+    private Junction junction(int id) {
+        if (junctionsById[id] == null)
+            throw new IllegalArgumentException("Unknown junction " + events.getId(id) + " at time " + time);
+        return junctionsById[id];
+    }
+
+    public int getTime() { return time; }
+    public List<Junction> getJunctions() { return Collections.unmodifiableList(junctions); }
+    public List<Road> getRoads() { return Collections.unmodifiableList(roads); }
+    public List<Vehicle> getVehicles() { return Collections.unmodifiableList(vehicles); }
+}
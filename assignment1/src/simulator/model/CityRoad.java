@@ -10,13 +10,21 @@ public class CityRoad extends Road {
     // Reduce total contamination based on weather
     @Override
     void reduceTotalContamination() {
-        int x = 2;
-        if (getWeather() == Weather.WINDY || getWeather() == Weather.STORM) {
-            x = 10;
-        }
         int currentCO2 = getTotalCO2();
-        int newCO2 = Math.max(0, currentCO2 - x);
-        addContamination(newCO2 - currentCO2); // Update totalCO2 using addContamination
+        int newCO2 = Math.max(0, currentCO2 - reduction());
+        setTotalCO2(newCO2); // addContamination only accepts non-negative amounts
+    }
+
+    // The same reduction in every tick, so several ticks are one subtraction
+    @Override
+    void reduceTotalContamination(int ticks) {
+        setTotalCO2((int) Math.max(0, getTotalCO2() - (long) reduction() * ticks));
+    }
+
+    private int reduction() {
+        if (getWeather() == Weather.WINDY || getWeather() == Weather.STORM)
+            return 10;
+        return 2;
     }
 
     // Speed limit is always the maximum speed
@@ -27,7 +35,7 @@ public class CityRoad extends Road {
 
     // Calculate vehicle speed based on contamination class
     @Override
-    int calculateVehicleSpeed(Vehicle v) {
-        return ((11 - v.getContClass()) * getSpeedLimit()) / 11; // Use getter method to access speedLimit
+    int calculateVehicleSpeed(int contClass) {
+        return ((11 - contClass) * getSpeedLimit()) / 11; // Use getter method to access speedLimit
     }
 }
\ No newline at end of file
@@ -0,0 +1,493 @@
+package simulator.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import simulator.misc.IdTable;
+import simulator.misc.IntRingBuffer;
+
+// An alternative simulation engine for very large numbers of vehicles.
+//
+// Junctions and roads are the usual objects (there are few of them, and they
+// keep the weather, contamination and speed limit rules), but vehicles are not:
+// the state of vehicle i is stored at position i of primitive arrays (one
+// array per attribute), roads keep the indices of their vehicles and junction
+// queues are queues of indices. The rules are the same as in Vehicle, Road and
+// Junction, and report() produces the same JSON as RoadMap would for the
+// equivalent objects.
+//
+// Strategies see the queues as read-only lists. Their elements are Vehicle
+// objects that copy the state of the columns when they are read, created the
+// first time a strategy reads a vehicle; the strategies of this package only
+// look at the sizes, so they never create any.
+public class ColumnarEngine {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int SHIFTS_PER_VEHICLE = 8;
+
+    private static final byte PENDING = (byte) VehicleStatus.PENDING.ordinal();
+    private static final byte TRAVELING = (byte) VehicleStatus.TRAVELING.ordinal();
+    private static final byte WAITING = (byte) VehicleStatus.WAITING.ordinal();
+    private static final byte ARRIVED = (byte) VehicleStatus.ARRIVED.ordinal();
+    private static final VehicleStatus[] STATUS = VehicleStatus.values();
+
+    // Junctions
+    private List<Junction> junctions; // junction i has index i, see SimulatedObject#getIndex
+    private List<int[]> incoming; // indices of the incoming roads of each junction, in the junction's order
+    private List<List<List<Vehicle>>> queueViews; // what the light switching strategy of each junction sees
+    private int[] green;
+    private int[] lastSwitchingTime;
+
+    // Roads
+    private List<Road> roads; // road i has index i
+    private List<IntRingBuffer> roadVehicles; // vehicles of each road, in descending order of location
+    private List<IntRingBuffer> roadQueues; // queue of each road at its destination junction
+
+    // Vehicles, one column per attribute
+    private int nVehicles;
+    private IdTable vehicleIndex; // the int id of a vehicle is its index
+    private String[] id;
+    private int[] maxSpeed;
+    private int[] speed;
+    private int[] location;
+    private int[] contClass;
+    private int[] co2;
+    private int[] distance;
+    private byte[] status;
+    private int[] road; // road index, -1 if not on a road
+    private int[] cursor; // position in the route of the current (or next) road
+    private int[] route; // route index
+    private Vehicle[] views; // what the strategies see of each vehicle, null until they read it
+
+    // Routes as road indices, shared by all vehicles with the same itinerary
+    // (the same Route, see Junction#routeFrom)
+    private List<int[]> routes;
+    private List<Route> routeObjects; // route i has index i
+
+    public ColumnarEngine() {
+        this.junctions = new ArrayList<>();
+        this.incoming = new ArrayList<>();
+        this.queueViews = new ArrayList<>();
+        this.green = new int[INITIAL_CAPACITY];
+        this.lastSwitchingTime = new int[INITIAL_CAPACITY];
+
+        this.roads = new ArrayList<>();
+        this.roadVehicles = new ArrayList<>();
+        this.roadQueues = new ArrayList<>();
+
+        this.nVehicles = 0;
+        this.vehicleIndex = new IdTable();
+        this.id = new String[INITIAL_CAPACITY];
+        this.maxSpeed = new int[INITIAL_CAPACITY];
+        this.speed = new int[INITIAL_CAPACITY];
+        this.location = new int[INITIAL_CAPACITY];
+        this.contClass = new int[INITIAL_CAPACITY];
+        this.co2 = new int[INITIAL_CAPACITY];
+        this.distance = new int[INITIAL_CAPACITY];
+        this.status = new byte[INITIAL_CAPACITY];
+        this.road = new int[INITIAL_CAPACITY];
+        this.cursor = new int[INITIAL_CAPACITY];
+        this.route = new int[INITIAL_CAPACITY];
+        this.views = new Vehicle[INITIAL_CAPACITY];
+
+        this.routes = new ArrayList<>();
+        this.routeObjects = new ArrayList<>();
+    }
+
+    // Adds a junction, its roads must be added afterwards
+    public void addJunction(Junction j) {
+        if (indexOf(j) != -1)
+            throw new IllegalArgumentException("Junction " + j.getId() + " already exists.");
+        int idx = junctions.size();
+        if (idx == green.length) {
+            green = Arrays.copyOf(green, idx * 2);
+            lastSwitchingTime = Arrays.copyOf(lastSwitchingTime, idx * 2);
+        }
+        junctions.add(j);
+        j.setIndex(idx);
+        incoming.add(new int[0]);
+        queueViews.add(new ArrayList<>());
+        green[idx] = -1;
+        lastSwitchingTime[idx] = 0;
+    }
+
+    // Adds a road, roads must be added in the same order they were created
+    public void addRoad(Road r) {
+        if (indexOf(r) != -1)
+            throw new IllegalArgumentException("Road " + r.getId() + " already exists.");
+        int dest = indexOf(r.getDest());
+        if (dest == -1 || indexOf(r.getSrc()) == -1)
+            throw new IllegalArgumentException("Junctions of road " + r.getId() + " must be added first.");
+        if (!r.getVehicles().isEmpty())
+            throw new IllegalArgumentException("Road " + r.getId() + " already has vehicles.");
+
+        int idx = roads.size();
+        roads.add(r);
+        r.setIndex(idx);
+        roadVehicles.add(new IntRingBuffer());
+        roadQueues.add(new IntRingBuffer());
+
+        // the incoming roads of the destination, in the order the junction has them
+        List<Road> in = r.getDest().getIncomingRoads();
+        int[] inIdx = new int[in.size()];
+        List<List<Vehicle>> views = new ArrayList<>();
+        for (int i = 0; i < inIdx.length; i++) {
+            int k = indexOf(in.get(i));
+            if (k == -1)
+                throw new IllegalArgumentException("Road " + in.get(i).getId() + " must be added before road " + r.getId() + ".");
+            inIdx[i] = k;
+            views.add(new QueueView(roadQueues.get(k)));
+        }
+        incoming.set(dest, inIdx);
+        queueViews.set(dest, views);
+    }
+
+    // Adds a PENDING vehicle and returns its index. All the roads of the
+    // itinerary must have been added.
+    public int addVehicle(String vid, int maxSpeed, int contClass, List<Junction> itinerary) {
+        if (vid == null || vid.isBlank())
+            throw new IllegalArgumentException("the 'id' must be a nonempty string.");
+        if (vehicleIndex.indexOf(vid) != -1)
+            throw new IllegalArgumentException("Vehicle " + vid + " already exists.");
+        if (maxSpeed <= 0)
+            throw new IllegalArgumentException("Max speed must be positive.");
+        if (contClass < 0 || contClass > 10)
+            throw new IllegalArgumentException("Contamination class must be between 0 and 10.");
+        if (itinerary == null || itinerary.size() < 2)
+            throw new IllegalArgumentException("Itinerary must have at least 2 junctions.");
+
+        int rt = compileRoute(vid, itinerary);
+        int v = nVehicles;
+        if (v == id.length)
+            growVehicles();
+
+        id[v] = vid;
+        this.maxSpeed[v] = maxSpeed;
+        this.speed[v] = 0;
+        this.location[v] = 0;
+        this.contClass[v] = contClass;
+        this.co2[v] = 0;
+        this.distance[v] = 0;
+        this.status[v] = PENDING;
+        this.road[v] = -1;
+        this.cursor[v] = 0;
+        this.route[v] = rt;
+
+        vehicleIndex.intern(vid);
+        nVehicles++;
+        return v;
+    }
+
+    // Index of the route of the itinerary, resolving it the first time. The
+    // route is found in the tree of routes of the first junction, so the
+    // itinerary is not hashed.
+    private int compileRoute(String vid, List<Junction> itinerary) {
+        Junction first = itinerary.get(0);
+        if (indexOf(first) == -1)
+            throw new IllegalArgumentException("Junction " + first.getId() + " of vehicle " + vid + " does not exist.");
+        Route rt;
+        try {
+            rt = first.routeFrom(itinerary);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Vehicle " + vid + ": " + e.getMessage(), e);
+        }
+        int idx = rt.getIndex();
+        if (idx >= 0 && idx < routeObjects.size() && routeObjects.get(idx) == rt)
+            return idx;
+
+        int[] rs = new int[rt.size()];
+        for (int i = 0; i < rs.length; i++) {
+            Road r = rt.getRoad(i);
+            if (indexOf(r.getDest()) == -1)
+                throw new IllegalArgumentException("Junction " + r.getDest().getId() + " of vehicle " + vid + " does not exist.");
+            rs[i] = indexOf(r);
+            if (rs[i] == -1)
+                throw new IllegalArgumentException("Road " + r.getId() + " of vehicle " + vid + " does not exist.");
+        }
+
+        routes.add(rs);
+        routeObjects.add(rt);
+        rt.setIndex(routes.size() - 1);
+        return routes.size() - 1;
+    }
+
+    // Index of j in this engine, -1 if it was not added (or another engine
+    // registered it since)
+    private int indexOf(Junction j) {
+        int i = j.getIndex();
+        return i >= 0 && i < junctions.size() && junctions.get(i) == j ? i : -1;
+    }
+
+    private int indexOf(Road r) {
+        int i = r.getIndex();
+        return i >= 0 && i < roads.size() && roads.get(i) == r ? i : -1;
+    }
+
+    public void setContClass(int v, int c) {
+        if (c < 0 || c > 10)
+            throw new IllegalArgumentException("Contamination class must be between 0 and 10.");
+        contClass[v] = c;
+    }
+
+    // Same as Vehicle#moveToNextRoad
+    public void moveToNextRoad(int v) {
+        if (status[v] != PENDING && status[v] != WAITING)
+            throw new IllegalStateException("Vehicle must be PENDING or WAITING to move to the next road.");
+
+        int[] rs = routes.get(route[v]);
+        if (status[v] == WAITING) {
+            roadVehicles.get(road[v]).removeValue(v);
+            cursor[v]++;
+
+            if (cursor[v] == rs.length) {
+                status[v] = ARRIVED;
+                road[v] = -1;
+                location[v] = 0;
+                return;
+            }
+        }
+
+        int k = rs[cursor[v]];
+        road[v] = k;
+        location[v] = 0;
+        roadVehicles.get(k).add(v);
+        status[v] = TRAVELING;
+    }
+
+    // Advances all junctions and then all roads, as the simulator does in each tick
+    public void advance(int time) {
+        for (int j = 0; j < junctions.size(); j++)
+            advanceJunction(j, time);
+        for (int r = 0; r < roads.size(); r++)
+            advanceRoad(r, time);
+    }
+
+    // Same as Junction#advance
+    void advanceJunction(int j, int time) {
+        Junction junc = junctions.get(j);
+        int[] in = incoming.get(j);
+
+        if (green[j] != -1) {
+            IntRingBuffer q = roadQueues.get(in[green[j]]);
+            int n = junc.getDequeuingStrategy().dequeueCount(queueViews.get(j).get(green[j]));
+            for (int i = 0; i < n; i++)
+                moveToNextRoad(q.get(i));
+            q.removeFirst(n);
+            if (n > 0)
+                SimulationEvents.DequeueEvent.emit(junc, time, green[j], n);
+        }
+
+        int newGreen = junc.getLightSwitchingStrategy().chooseNextGreen(junc.getIncomingRoads(), queueViews.get(j), green[j], lastSwitchingTime[j], time);
+        if (newGreen != green[j]) {
+            SimulationEvents.LightSwitchEvent.emit(junc, time, green[j], newGreen);
+            green[j] = newGreen;
+            lastSwitchingTime[j] = time;
+        }
+    }
+
+    // Same as Road#advance and Vehicle#advance
+    void advanceRoad(int r, int time) {
+        Road rd = roads.get(r);
+        rd.reduceTotalContamination();
+        rd.updateSpeedLimit();
+
+        int length = rd.getLength();
+        IntRingBuffer vs = roadVehicles.get(r);
+        for (int i = 0; i < vs.size(); i++) {
+            int v = vs.get(i);
+            if (status[v] != TRAVELING)
+                continue;
+
+            speed[v] = Math.min(rd.calculateVehicleSpeed(contClass[v]), maxSpeed[v]);
+
+            int prev = location[v];
+            location[v] = Math.min(prev + speed[v], length);
+            int d = location[v] - prev;
+            distance[v] += d;
+            int c = d * contClass[v];
+            co2[v] += c;
+            rd.addContamination(c);
+
+            if (location[v] == length) {
+                status[v] = WAITING;
+                speed[v] = 0;
+                roadQueues.get(r).add(v);
+            }
+        }
+
+        restoreOrder(vs);
+    }
+
+    // The same (stable) insertion pass as RoadVehicleList#restoreOrder
+    private void restoreOrder(IntRingBuffer vs) {
+        int n = vs.size();
+        int maxShifts = SHIFTS_PER_VEHICLE * n;
+        int shifts = 0;
+        for (int i = 1; i < n; i++) {
+            int v = vs.get(i);
+            int loc = location[v];
+            if (location[vs.get(i - 1)] >= loc)
+                continue;
+
+            int j = i - 1;
+            while (j >= 0 && location[vs.get(j)] < loc) {
+                vs.set(j + 1, vs.get(j));
+                j--;
+                shifts++;
+            }
+            vs.set(j + 1, v);
+
+            if (shifts > maxShifts) {
+                Integer[] a = new Integer[n];
+                for (int k = 0; k < n; k++)
+                    a[k] = vs.get(k);
+                Arrays.sort(a, (v1, v2) -> Integer.compare(location[v2], location[v1]));
+                for (int k = 0; k < n; k++)
+                    vs.set(k, a[k]);
+                return;
+            }
+        }
+    }
+
+    // Same as Vehicle#report
+    public JSONObject reportVehicle(int v) {
+        JSONObject json = new JSONObject();
+        json.put("id", id[v]);
+        json.put("speed", speed[v]);
+        json.put("distance", distance[v]);
+        json.put("co2", co2[v]);
+        json.put("class", contClass[v]);
+        json.put("status", STATUS[status[v]].toString());
+
+        if (status[v] == TRAVELING || status[v] == WAITING) {
+            json.put("road", roads.get(road[v]).getId());
+            json.put("location", location[v]);
+        }
+
+        return json;
+    }
+
+    // Same as Road#report
+    public JSONObject reportRoad(int r) {
+        Road rd = roads.get(r);
+        JSONObject json = new JSONObject();
+        json.put("id", rd.getId());
+        json.put("speedlimit", rd.getSpeedLimit());
+        json.put("weather", rd.getWeather().toString());
+        json.put("co2", rd.getTotalCO2());
+        json.put("vehicles", ids(roadVehicles.get(r)));
+        return json;
+    }
+
+    // Same as Junction#report
+    public JSONObject reportJunction(int j) {
+        int[] in = incoming.get(j);
+        JSONObject json = new JSONObject();
+        json.put("id", junctions.get(j).getId());
+        json.put("green", (green[j] == -1) ? "none" : roads.get(in[green[j]]).getId());
+
+        JSONArray queuesJson = new JSONArray();
+        for (int r : in) {
+            JSONObject queueJson = new JSONObject();
+            queueJson.put("road", roads.get(r).getId());
+            queueJson.put("vehicles", new JSONArray(ids(roadQueues.get(r))));
+            queuesJson.put(queueJson);
+        }
+        json.put("queues", queuesJson);
+
+        return json;
+    }
+
+    // The state of all objects, as RoadMap#report
+    public JSONObject report() {
+        JSONArray roadsJson = new JSONArray();
+        for (int r = 0; r < roads.size(); r++)
+            roadsJson.put(reportRoad(r));
+
+        JSONArray vehiclesJson = new JSONArray();
+        for (int v = 0; v < nVehicles; v++)
+            vehiclesJson.put(reportVehicle(v));
+
+        JSONArray junctionsJson = new JSONArray();
+        for (int j = 0; j < junctions.size(); j++)
+            junctionsJson.put(reportJunction(j));
+
+        JSONObject json = new JSONObject();
+        json.put("roads", roadsJson);
+        json.put("vehicles", vehiclesJson);
+        json.put("junctions", junctionsJson);
+        return json;
+    }
+
+    private List<String> ids(IntRingBuffer vs) {
+        List<String> l = new ArrayList<>(vs.size());
+        for (int i = 0; i < vs.size(); i++)
+            l.add(id[vs.get(i)]);
+        return l;
+    }
+
+    private void growVehicles() {
+        int n = id.length * 2;
+        id = Arrays.copyOf(id, n);
+        maxSpeed = Arrays.copyOf(maxSpeed, n);
+        speed = Arrays.copyOf(speed, n);
+        location = Arrays.copyOf(location, n);
+        contClass = Arrays.copyOf(contClass, n);
+        co2 = Arrays.copyOf(co2, n);
+        distance = Arrays.copyOf(distance, n);
+        status = Arrays.copyOf(status, n);
+        road = Arrays.copyOf(road, n);
+        cursor = Arrays.copyOf(cursor, n);
+        route = Arrays.copyOf(route, n);
+        views = Arrays.copyOf(views, n);
+    }
+
+    // Vehicle v as an object with its current state, the same object every
+    // time so strategies can compare them
+    private Vehicle view(int v) {
+        if (views[v] == null)
+            views[v] = new Vehicle(id[v], maxSpeed[v], contClass[v], routeObjects.get(route[v]).getItinerary());
+        views[v].loadState(STATUS[status[v]], getRoad(v), location[v], speed[v], contClass[v], co2[v], distance[v], cursor[v]);
+        return views[v];
+    }
+
+    // Getters
+    public int getVehicleCount() { return nVehicles; }
+    public int getRouteCount() { return routes.size(); }
+    public int getVehicleIndex(String vid) { return vehicleIndex.indexOf(vid); }
+    public String getVehicleId(int v) { return id[v]; }
+    public int getLocation(int v) { return location[v]; }
+    public int getSpeed(int v) { return speed[v]; }
+    public int getContClass(int v) { return contClass[v]; }
+    public int getTotalCO2(int v) { return co2[v]; }
+    public int getDistance(int v) { return distance[v]; }
+    public VehicleStatus getStatus(int v) { return STATUS[status[v]]; }
+    public Road getRoad(int v) { return road[v] == -1 ? null : roads.get(road[v]); }
+    public List<Junction> getJunctions() { return Collections.unmodifiableList(junctions); }
+    public List<Road> getRoads() { return Collections.unmodifiableList(roads); }
+
+    // A queue as seen by the strategies
+    private class QueueView extends AbstractList<Vehicle> {
+        private final IntRingBuffer q;
+
+        QueueView(IntRingBuffer q) {
+            this.q = q;
+        }
+
+        @Override
+        public Vehicle get(int index) {
+            return view(q.get(index));
+        }
+
+        @Override
+        public int size() {
+            return q.size();
+        }
+    }
+}
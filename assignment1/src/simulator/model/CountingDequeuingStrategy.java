@@ -0,0 +1,35 @@
+package simulator.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// A dequeuing strategy that only says how many vehicles leave from the front
+// of the queue, so the junction can move them without allocating a list.
+public interface CountingDequeuingStrategy extends DequeuingStrategy {
+
+	// number of vehicles, from the front of q, that should be moved
+	int dequeueCount(List<Vehicle> q);
+
+	@Override
+	default List<Vehicle> dequeue(List<Vehicle> q) {
+		return new ArrayList<>(q.subList(0, dequeueCount(q)));
+	}
+
+	// Returns s itself if it is already a counting strategy, otherwise wraps it
+	// so that the list it returns is turned into a count. The wrapped strategy
+	// must return a prefix of the queue, which is the case for any strategy that
+	// dequeues in FIFO order.
+	static CountingDequeuingStrategy of(DequeuingStrategy s) {
+		if (s instanceof CountingDequeuingStrategy)
+			return (CountingDequeuingStrategy) s;
+
+		return q -> {
+			List<Vehicle> toMove = s.dequeue(q);
+			for (int i = 0; i < toMove.size(); i++) {
+				if (i >= q.size() || toMove.get(i) != q.get(i))
+					throw new IllegalStateException("Dequeuing strategy must dequeue vehicles from the front of the queue.");
+			}
+			return toMove.size();
+		};
+	}
+}
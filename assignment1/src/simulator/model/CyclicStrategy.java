@@ -0,0 +1,10 @@
+package simulator.model;
+
+// A light switching strategy that, while all the queues of the junction are
+// empty, gives the green light to the next road every getTimeSlot() ticks (or
+// in every tick if it is less than 1). A junction with empty queues and such a
+// strategy can therefore skip ticks and compute its lights later in one step
+// (see ActiveSetEngine).
+public interface CyclicStrategy extends LightSwitchingStrategy {
+	int getTimeSlot();
+}
@@ -0,0 +1,95 @@
+package simulator.model;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import simulator.misc.IdTable;
+
+// Rebuilds the full states, {"time": t, "state": {...}}, from the output of
+// DeltaStatesWriter, one tick at a time.
+public class DeltaStatesReader implements Iterator<JSONObject> {
+
+    private static final String[] KINDS = { "roads", "vehicles", "junctions" };
+
+    private JSONArray states;
+    private int next;
+
+    // current objects of each kind, in the order of the state, and their positions
+    private List<List<JSONObject>> objects;
+    private List<IdTable> positions; // the int id of an object is its position
+
+    public DeltaStatesReader(JSONObject deltas) {
+        this.states = deltas.getJSONArray("states");
+        this.next = 0;
+        this.objects = new ArrayList<>();
+        this.positions = new ArrayList<>();
+        for (int k = 0; k < KINDS.length; k++) {
+            objects.add(new ArrayList<>());
+            positions.add(new IdTable());
+        }
+    }
+
+    // The same as the full output, {"states": [...]}
+    public static JSONObject expand(JSONObject deltas) {
+        JSONArray states = new JSONArray();
+        DeltaStatesReader reader = new DeltaStatesReader(deltas);
+        while (reader.hasNext())
+            states.put(reader.next());
+        return new JSONObject().put("states", states);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next < states.length();
+    }
+
+    @Override
+    public JSONObject next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        JSONObject s = states.getJSONObject(next);
+        if (next == 0 && !s.optBoolean("keyframe"))
+            throw new IllegalArgumentException("The first state must be a keyframe.");
+        next++;
+
+        if (s.optBoolean("keyframe")) {
+            JSONObject state = s.getJSONObject("state");
+            for (int k = 0; k < KINDS.length; k++) {
+                objects.get(k).clear();
+                positions.get(k).clear();
+                apply(k, state.getJSONArray(KINDS[k]));
+            }
+        } else {
+            JSONObject delta = s.getJSONObject("delta");
+            for (int k = 0; k < KINDS.length; k++)
+                apply(k, delta.getJSONArray(KINDS[k]));
+        }
+
+        JSONObject state = new JSONObject();
+        for (int k = 0; k < KINDS.length; k++)
+            state.put(KINDS[k], new JSONArray(objects.get(k)));
+        return new JSONObject().put("time", s.getInt("time")).put("state", state);
+    }
+
+    // Replaces the objects with the same id, and appends the new ones
+    private void apply(int kind, JSONArray changed) {
+        List<JSONObject> l = objects.get(kind);
+        IdTable pos = positions.get(kind);
+        for (int i = 0; i < changed.length(); i++) {
+            JSONObject o = changed.getJSONObject(i);
+            int p = pos.indexOf(o.getString("id"));
+            if (p == -1) {
+                pos.intern(o.getString("id"));
+                l.add(o);
+            } else {
+                l.set(p, o);
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package simulator.model;
+
+import java.io.OutputStream;
+import java.util.List;
+
+import simulator.misc.JsonWriter;
+
+// Writes the states of batch mode as deltas: every keyframeInterval ticks the
+// full state is written (a keyframe), and in between only the objects whose
+// report changed since the previous tick (see SimulatedObject#isDirty):
+//
+//   {"keyframe_interval": 50, "states": [
+//     {"time": 1, "keyframe": true, "state": {"roads": [...], "vehicles": [...], "junctions": [...]}},
+//     {"time": 2, "delta": {"roads": [...], "vehicles": [...], "junctions": [...]}},
+//     ...]}
+//
+// The objects in a delta are complete reports, objects that are not in the
+// previous state are new and go at the end of their list. DeltaStatesReader
+// rebuilds the full states.
+//
+// The writer clears the dirty flags of all objects after each tick, so only
+// one delta writer can be used for a simulation.
+public class DeltaStatesWriter implements StatesSink {
+
+    private JsonWriter out;
+    private int keyframeInterval;
+    private int ticks; // ticks written so far
+    private boolean closed;
+
+    public DeltaStatesWriter(OutputStream os, int keyframeInterval) {
+        this(new JsonWriter(os), keyframeInterval);
+    }
+
+    public DeltaStatesWriter(JsonWriter out, int keyframeInterval) {
+        if (keyframeInterval <= 0)
+            throw new IllegalArgumentException("Keyframe interval must be positive.");
+        this.out = out;
+        this.keyframeInterval = keyframeInterval;
+        this.ticks = 0;
+        this.closed = false;
+        out.beginObject();
+        out.name("keyframe_interval").value(keyframeInterval);
+        out.name("states").beginArray();
+    }
+
+    // Appends the state (or the changes) of the given objects at time
+    @Override
+    public void write(int time, List<Road> roads, List<Vehicle> vehicles, List<Junction> junctions) {
+        if (closed)
+            throw new IllegalStateException("The writer is closed.");
+
+        // skipped objects catch up first, so their changes are in the delta
+        sync(roads);
+        sync(junctions);
+
+        out.beginObject();
+        out.name("time").value(time);
+        if (ticks % keyframeInterval == 0) {
+            out.name("keyframe").value(true);
+            out.name("state");
+            StatesWriter.writeState(out, roads, vehicles, junctions);
+        } else {
+            out.name("delta").beginObject();
+            out.name("roads");
+            writeDirty(out, roads);
+            out.name("vehicles");
+            writeDirty(out, vehicles);
+            out.name("junctions");
+            writeDirty(out, junctions);
+            out.endObject();
+        }
+        out.endObject();
+
+        clearDirty(roads);
+        clearDirty(vehicles);
+        clearDirty(junctions);
+        ticks++;
+    }
+
+    private static void writeDirty(JsonWriter out, List<? extends SimulatedObject> l) {
+        out.beginArray();
+        for (int i = 0; i < l.size(); i++) {
+            SimulatedObject o = l.get(i);
+            if (o.isDirty())
+                o.report(out);
+        }
+        out.endArray();
+    }
+
+    private static void sync(List<? extends SimulatedObject> l) {
+        for (int i = 0; i < l.size(); i++)
+            l.get(i).sync();
+    }
+
+    private static void clearDirty(List<? extends SimulatedObject> l) {
+        for (int i = 0; i < l.size(); i++)
+            l.get(i).clearDirty();
+    }
+
+    public int getKeyframeInterval() {
+        return keyframeInterval;
+    }
+
+    public void flush() {
+        out.flush();
+    }
+
+    // Ends the states array and closes the stream
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        out.endArray();
+        out.endObject();
+        out.close();
+    }
+}
@@ -0,0 +1,81 @@
+package simulator.model;
+
+import java.util.List;
+import java.util.function.IntConsumer;
+
+// Next-event time skipping for quiet periods.
+//
+// A tick is quiet when nothing discrete happens in it: no junction moves a
+// vehicle or switches its lights, no vehicle reaches the end of its road or
+// overtakes another one, and no speed limit changes under traveling vehicles.
+// In a quiet stretch every traveling vehicle keeps its speed, so the whole
+// stretch can be applied in one step: vehicles move by ticks * speed, and only
+// the contamination and speed limit of each road are replayed tick by tick
+// (a few integer operations per road instead of a full advance).
+//
+// Events are not known here, the caller passes as max the number of ticks
+// before the next event, e.g., nextEventTime - time - 1.
+public class FastForward {
+
+    // Number of ticks after time (time + 1, ..., time + k, with k <= max) that
+    // are quiet
+    public static int quietTicks(List<Junction> junctions, List<Road> roads, int time, int max) {
+        int ticks = max;
+        for (Road r : roads) {
+            if (ticks == 0)
+                return 0;
+            ticks = Math.min(ticks, r.quietTicks(ticks));
+        }
+
+        // the lights only depend on the time, since the queues do not change
+        for (int i = 1; i <= ticks; i++) {
+            for (Junction j : junctions) {
+                if (!j.isQuietAt(time + i))
+                    return i - 1;
+            }
+        }
+        return ticks;
+    }
+
+    // Applies the quiet ticks time + 1, ..., time + ticks in one step. The
+    // result is the same as advancing all junctions and roads tick by tick.
+    public static void jump(List<Road> roads, int ticks) {
+        for (Road r : roads)
+            r.fastForward(ticks);
+    }
+
+    // Same as jump(roads, ticks) but stops after each tick to call onTick with
+    // the time, e.g., to report the state of each skipped tick
+    public static void jump(List<Road> roads, int time, int ticks, IntConsumer onTick) {
+        for (int i = 1; i <= ticks; i++) {
+            for (Road r : roads)
+                r.fastForward(1);
+            onTick.accept(time + i);
+        }
+    }
+
+    // Advances from time to time + ticks, jumping over quiet stretches and
+    // advancing the rest normally. onTick (if not null) is called after each
+    // tick, also the skipped ones.
+    public static void advance(List<Junction> junctions, List<Road> roads, int time, int ticks, IntConsumer onTick) {
+        int t = time;
+        while (t < time + ticks) {
+            int quiet = quietTicks(junctions, roads, t, time + ticks - t);
+            if (quiet > 0) {
+                if (onTick == null)
+                    jump(roads, quiet);
+                else
+                    jump(roads, t, quiet, onTick);
+                t += quiet;
+            } else {
+                t++;
+                for (Junction j : junctions)
+                    j.advance(t);
+                for (Road r : roads)
+                    r.advance(t);
+                if (onTick != null)
+                    onTick.accept(t);
+            }
+        }
+    }
+}
@@ -19,7 +19,7 @@ public class InterCityRoad extends Road {
         }
         int currentCO2 = getTotalCO2();
         int newCO2 = ((100 - x) * currentCO2) / 100;
-        addContamination(newCO2 - currentCO2); // Update totalCO2 using addContamination
+        setTotalCO2(newCO2); // addContamination only accepts non-negative amounts
     }
 
     // Update speed limit based on contamination
@@ -34,7 +34,7 @@ public class InterCityRoad extends Road {
 
     // Calculate vehicle speed based on speed limit and weather
     @Override
-    int calculateVehicleSpeed(Vehicle v) {
+    int calculateVehicleSpeed(int contClass) {
         if (getWeather() == Weather.STORM) {
             return (getSpeedLimit() * 8) / 10; // Use getter method to access speedLimit
         }
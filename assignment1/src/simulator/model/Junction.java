@@ -2,21 +2,30 @@ package simulator.model;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import simulator.misc.JsonWriter;
+import simulator.misc.RingBuffer;
 
 public class Junction extends SimulatedObject {
-	//Understand map (HachMap)
-	//Map<String, Integer> map = new HashMap<>();
-	//map.put("apple", 10);  // Key: "apple", Value: 10
-	//int apples = map.get("apple");  // Retrieves 10
     private List<Road> incomingRoads;
-    private Map<Junction, Road> outgoingRoads;
-    private List<List<Vehicle>> queues;
-    private Map<Road, List<Vehicle>> roadQueueMap;
+    private List<Road> outgoingRoads; // a few, so they are searched instead of hashed
+    private Map<Junction, Road> outgoingView; // built by getOutgoingRoads, null when it changes
+    private List<RingBuffer<Vehicle>> queues;
+    private List<List<Vehicle>> queuesView; // what the light switching strategy sees
+    private QueueLengths lengths; // of the queues, for strategies that only need them
+    private boolean[] arrived; // per queue, true if vehicles entered it since its length was updated
+    private int[] pending; // the queues with arrived set, pendingCount of them
+    private AtomicInteger pendingCount;
     private int greenLightIndex;
     private int lastSwitchingTime;
     private LightSwitchingStrategy lsStrategy;
-    private DequeuingStrategy dqStrategy;
+    private QueueLengthStrategy lengthStrategy; // lsStrategy if it only needs the lengths, null otherwise
+    private CountingDequeuingStrategy dqStrategy;
     private int x, y;
+    private RouteNode routes; // routes that start here, shared by all vehicles that follow them
+    private ActiveSetEngine scheduler; // advances the junction only while it is active, null if not scheduled
+    private int slot; // index of the junction in scheduler
 
     Junction(String id, LightSwitchingStrategy lsStrategy, DequeuingStrategy dqStrategy, int xCoor, int yCoor) {
         super(id);
@@ -26,70 +35,210 @@ public class Junction extends SimulatedObject {
             throw new IllegalArgumentException("Coordinates must be non-negative.");
 
         this.incomingRoads = new ArrayList<>();
-        this.outgoingRoads = new HashMap<>();
+        this.outgoingRoads = new ArrayList<>();
         this.queues = new ArrayList<>();
-        this.roadQueueMap = new HashMap<>();
+        this.queuesView = Collections.unmodifiableList(queues);
+        this.lengths = new QueueLengths();
+        this.arrived = new boolean[0];
+        this.pending = new int[0];
+        this.pendingCount = new AtomicInteger();
         this.greenLightIndex = -1;
         this.lastSwitchingTime = 0;
         this.lsStrategy = lsStrategy;
-        this.dqStrategy = dqStrategy;
+        this.lengthStrategy = lsStrategy instanceof QueueLengthStrategy ? (QueueLengthStrategy) lsStrategy : null;
+        this.dqStrategy = CountingDequeuingStrategy.of(dqStrategy); // old strategies are adapted
         this.x = xCoor;
         this.y = yCoor;
+        this.routes = new RouteNode();
     }
 
     void addIncomingRoad(Road r) {
         if (r.getDest() != this)
             throw new IllegalArgumentException("Road destination is not this junction.");
+        if (scheduler != null)
+            scheduler.wake(this); // the lights cycle over one more road from now on
         incomingRoads.add(r);
-        List<Vehicle> q = new LinkedList<>();
-        queues.add(q);
-        roadQueueMap.put(r, q);
+        r.setDestQueue(queues.size());
+        queues.add(new RingBuffer<>());
+        lengths.addQueue();
+        arrived = Arrays.copyOf(arrived, queues.size());
+        pending = Arrays.copyOf(pending, queues.size());
+        markDirty();
     }
 
      void addOutgoingRoad(Road r) {
         if (r.getSrc() != this)
             throw new IllegalArgumentException("Road source is not this junction.");
         Junction dest = r.getDest();
-        if (outgoingRoads.containsKey(dest))
+        if (roadTo(dest) != null)
             throw new IllegalArgumentException("Outgoing road to junction " + dest.getId() + " already exists.");
-        outgoingRoads.put(dest, r);
+        outgoingRoads.add(r);
+        outgoingView = null;
     }
 
     void enter(Vehicle v) {
         Road r = v.getRoad();
-        List<Vehicle> q = roadQueueMap.get(r);
-        if (q == null)
+        if (r == null || r.getDest() != this)
             throw new IllegalArgumentException("Vehicle's road is not an incoming road to this junction.");
-        q.add(v);
+        int i = r.getDestQueue();
+        if (scheduler != null)
+            scheduler.wake(this);
+        queues.get(i).add(v);
+        if (!arrived[i]) {
+            arrived[i] = true;
+            pending[pendingCount.getAndIncrement()] = i;
+        }
+        markDirty();
     }
 
     Road roadTo(Junction j) {
-        return outgoingRoads.get(j);
+        int i = outgoingIndexOf(j);
+        return i == -1 ? null : outgoingRoads.get(i);
+    }
+
+    // Index of the road to j in the outgoing roads, -1 if there is none
+    private int outgoingIndexOf(Junction j) {
+        for (int i = 0; i < outgoingRoads.size(); i++) {
+            if (outgoingRoads.get(i).getDest() == j)
+                return i;
+        }
+        return -1;
+    }
+
+    // The (shared) route of an itinerary that starts at this junction. The
+    // routes are kept in a tree whose edges are the indexes of the outgoing
+    // roads taken at each junction, so finding one does not hash the
+    // itinerary nor allocate anything.
+    Route routeFrom(List<Junction> itinerary) {
+        if (itinerary.isEmpty() || itinerary.get(0) != this)
+            throw new IllegalArgumentException("Itinerary does not start at junction " + getId() + ".");
+        RouteNode node = routes;
+        Junction at = this;
+        for (int i = 1; i < itinerary.size(); i++) {
+            Junction next = itinerary.get(i);
+            int k = at.outgoingIndexOf(next);
+            if (k == -1)
+                throw new IllegalArgumentException("Invalid itinerary: there is no road from " + at.getId() + " to " + next.getId() + ".");
+            node = node.child(k);
+            at = next;
+        }
+        if (node.route == null)
+            node.route = Route.compile(List.copyOf(itinerary));
+        return node.route;
     }
 
     void advance(int time) {
-        // Dequeue vehicles from the current green light queue
+        advance(time, null);
+    }
+
+    // Same as advance(time), but if arrivals is not null the vehicles that
+    // move to a new road are collected there instead of entering the road
+    // (see Vehicle#moveToNextRoad(List))
+    void advance(int time, List<Vehicle> arrivals) {
+        updateLengths();
+
+        // Dequeue vehicles from the current green light queue, they are always
+        // the first n vehicles so they are removed in bulk
         if (greenLightIndex != -1) {
-            List<Vehicle> queue = queues.get(greenLightIndex);
-            List<Vehicle> toMove = dqStrategy.dequeue(queue);
-            for (Vehicle v : toMove) {
-                v.moveToNextRoad();
+            RingBuffer<Vehicle> queue = queues.get(greenLightIndex);
+            int n = dqStrategy.dequeueCount(queue);
+            for (int i = 0; i < n; i++) {
+                queue.get(i).moveToNextRoad(arrivals);
+            }
+            queue.removeFirst(n);
+            if (n > 0) {
+                lengths.set(greenLightIndex, queue.size());
+                markDirty();
+                SimulationEvents.DequeueEvent.emit(this, time, greenLightIndex, n);
             }
-            queue.removeAll(toMove);
         }
 
         // Update green light using the light switching strategy
-        int newGreen = lsStrategy.chooseNextGreen(incomingRoads, queues, greenLightIndex, lastSwitchingTime, time);
+        int newGreen = chooseNextGreen(time);
         if (newGreen != greenLightIndex) {
+            SimulationEvents.LightSwitchEvent.emit(this, time, greenLightIndex, newGreen);
             greenLightIndex = newGreen;
             lastSwitchingTime = time;
+            markDirty();
         }
     }
 
+    // True if advancing at the given time would not move any vehicle nor switch the lights
+    boolean isQuietAt(int time) {
+        updateLengths();
+        if (greenLightIndex != -1 && dqStrategy.dequeueCount(queues.get(greenLightIndex)) > 0)
+            return false;
+        return chooseNextGreen(time) == greenLightIndex;
+    }
+
+    // True if advancing the junction can only move the green light to the
+    // next road every time slot: its queues are empty, its strategy is a
+    // CyclicStrategy and it already chose a first green light
+    boolean isIdle() {
+        updateLengths();
+        return lengths.getMax() == 0 && lsStrategy instanceof CyclicStrategy && (greenLightIndex != -1 || incomingRoads.isEmpty());
+    }
+
+    // Applies the ticks from + 1, ..., to to an idle junction in one step, the
+    // result is the same as advancing it tick by tick
+    void skipIdle(int from, int to) {
+        int n = incomingRoads.size();
+        if (n == 0 || to <= from)
+            return;
+        int timeSlot = Math.max(1, ((CyclicStrategy) lsStrategy).getTimeSlot());
+        long first = Math.max(from + 1L, (long) lastSwitchingTime + timeSlot); // first switch
+        if (first > to)
+            return;
+        long switches = (to - first) / timeSlot + 1;
+        greenLightIndex = (int) ((greenLightIndex + switches) % n);
+        lastSwitchingTime = (int) (first + (switches - 1) * timeSlot);
+        markDirty();
+    }
+
+    void schedule(ActiveSetEngine scheduler, int slot) {
+        this.scheduler = scheduler;
+        this.slot = slot;
+    }
+
+    @Override
+    void sync() {
+        if (scheduler != null)
+            scheduler.sync(this);
+    }
+
+    ActiveSetEngine getScheduler() { return scheduler; }
+    int getSlot() { return slot; }
+
+    // Vehicles enter the queues in the road phase, where several incoming roads
+    // may advance at the same time (see ParallelTickEngine), so enter() does
+    // not touch the lengths, which are shared by all the queues. It only
+    // records the queue the first time, and the lengths of the recorded
+    // queues are brought up to date here. A queue is only entered from its
+    // own road, so arrived[i] has one writer, and each queue gets its own
+    // slot in pending.
+    private void updateLengths() {
+        int n = pendingCount.get();
+        if (n == 0)
+            return;
+        for (int k = 0; k < n; k++) {
+            int i = pending[k];
+            arrived[i] = false;
+            lengths.set(i, queues.get(i).size());
+        }
+        pendingCount.set(0);
+    }
+
+    private int chooseNextGreen(int time) {
+        if (lengthStrategy != null)
+            return lengthStrategy.chooseNextGreen(lengths, greenLightIndex, lastSwitchingTime, time);
+        return lsStrategy.chooseNextGreen(incomingRoads, queuesView, greenLightIndex, lastSwitchingTime, time);
+    }
+
     public JSONObject report() {
+        sync();
         JSONObject json = new JSONObject();
         json.put("id", getId());
-        json.put("green", (greenLightIndex == -1) ? JSONObject.NULL : incomingRoads.get(greenLightIndex).getId());
+        json.put("green", (greenLightIndex == -1) ? "none" : incomingRoads.get(greenLightIndex).getId());
 
         JSONArray queuesJson = new JSONArray();
         for (int i = 0; i < incomingRoads.size(); i++) {
@@ -109,11 +258,61 @@ public class Junction extends SimulatedObject {
         return json;
     }
 
+    public void report(JsonWriter out) {
+        sync();
+        out.beginObject();
+        out.name("id").value(getId());
+        out.name("green").value((greenLightIndex == -1) ? "none" : incomingRoads.get(greenLightIndex).getId());
+        out.name("queues").beginArray();
+        for (int i = 0; i < incomingRoads.size(); i++) {
+            RingBuffer<Vehicle> q = queues.get(i);
+            out.beginObject();
+            out.name("road").value(incomingRoads.get(i).getId());
+            out.name("vehicles").beginArray();
+            for (int k = 0; k < q.size(); k++)
+                out.value(q.get(k).getId());
+            out.endArray();
+            out.endObject();
+        }
+        out.endArray();
+        out.endObject();
+    }
+
     // Getters for testing or internal use
     public List<Road> getIncomingRoads() { return Collections.unmodifiableList(incomingRoads); }
-    public Map<Junction, Road> getOutgoingRoads() { return Collections.unmodifiableMap(outgoingRoads); }
+    public Map<Junction, Road> getOutgoingRoads() {
+        if (outgoingView == null) {
+            Map<Junction, Road> m = new LinkedHashMap<>();
+            for (Road r : outgoingRoads)
+                m.put(r.getDest(), r);
+            outgoingView = Collections.unmodifiableMap(m);
+        }
+        return outgoingView;
+    }
     public int getGreenLightIndex() { return greenLightIndex; }
+    List<Vehicle> getQueue(int i) { return queuesView.get(i); }
+    QueueLengths getQueueLengths() { return lengths; }
     public int getLastSwitchingTime() { return lastSwitchingTime; }
     public int getX() { return x; }
     public int getY() { return y; }
+    LightSwitchingStrategy getLightSwitchingStrategy() { return lsStrategy; }
+    CountingDequeuingStrategy getDequeuingStrategy() { return dqStrategy; }
+
+    // A node of the tree of routes: the route of the itinerary that ends here,
+    // if one was compiled, and the next nodes by index of the outgoing road of
+    // the last junction
+    private static class RouteNode {
+        private static final RouteNode[] NONE = new RouteNode[0];
+
+        Route route;
+        RouteNode[] next = NONE;
+
+        RouteNode child(int k) {
+            if (k >= next.length)
+                next = Arrays.copyOf(next, k + 1);
+            if (next[k] == null)
+                next[k] = new RouteNode();
+            return next[k];
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package simulator.model;
+
+import java.util.List;
+
+public class MostCrowdedStrategy implements QueueLengthStrategy, CyclicStrategy {
+
+    private int timeSlot; // Minimum time a light stays green
+
+    public MostCrowdedStrategy(int timeSlot) {
+        this.timeSlot = timeSlot;
+    }
+
+    // The longest queue gets the green light, searching from the first one if
+    // no light is green and from the one after the green light otherwise, so
+    // ties go to the first longest one in that order
+    @Override
+    public int chooseNextGreen(List<Road> roads, List<List<Vehicle>> qs, int currGreen, int lastSwitchingTime, int currTime) {
+        if (roads.isEmpty())
+            return -1;
+
+        if (currGreen == -1)
+            return firstLongest(qs, 0);
+
+        if (currTime - lastSwitchingTime < timeSlot)
+            return currGreen;
+
+        return firstLongest(qs, (currGreen + 1) % roads.size());
+    }
+
+    @Override
+    public int chooseNextGreen(QueueLengths qs, int currGreen, int lastSwitchingTime, int currTime) {
+        if (qs.size() == 0)
+            return -1;
+
+        if (currGreen == -1)
+            return qs.firstLongest(0);
+
+        if (currTime - lastSwitchingTime < timeSlot)
+            return currGreen;
+
+        return qs.firstLongest((currGreen + 1) % qs.size());
+    }
+
+    private static int firstLongest(List<List<Vehicle>> qs, int from) {
+        int n = qs.size();
+        int best = from;
+        int bestSize = qs.get(from).size();
+        for (int k = 1; k < n; k++) {
+            int i = (from + k) % n;
+            int size = qs.get(i).size();
+            if (size > bestSize) {
+                best = i;
+                bestSize = size;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public int getTimeSlot() { return timeSlot; }
+}
@@ -0,0 +1,12 @@
+package simulator.model;
+
+import java.util.List;
+
+public class MoveAllStrategy implements CountingDequeuingStrategy {
+
+    // All vehicles of the queue are moved
+    @Override
+    public int dequeueCount(List<Vehicle> q) {
+        return q.size();
+    }
+}
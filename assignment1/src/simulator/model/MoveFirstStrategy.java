@@ -1,16 +1,12 @@
 package simulator.model;
 
-import java.util.ArrayList;
 import java.util.List;
 
-public class MoveFirstStrategy implements DequeuingStrategy {
+public class MoveFirstStrategy implements CountingDequeuingStrategy {
 
+    // Only the first vehicle of the queue is moved
     @Override
-    public List<Vehicle> dequeue(List<Vehicle> q) {
-        List<Vehicle> vehiclesToMove = new ArrayList();
-        if (!q.isEmpty()) {
-            vehiclesToMove.add(q.get(0));
-        }
-        return vehiclesToMove;
+    public int dequeueCount(List<Vehicle> q) {
+        return q.isEmpty() ? 0 : 1;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,121 @@
+package simulator.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+// Advances the junctions and then the roads of one tick using a fork-join
+// pool, with exactly the same result as advancing them one by one.
+//
+// Road phase: a road only changes its own contamination, its own vehicles and
+// the queue of its own destination junction for that road, so roads can
+// advance in parallel without any synchronization. Entering a queue only sets
+// the dirty flag of the junction, which every road sets to true, and records
+// the queue in a slot of its own; the lengths of the queues (QueueLengths)
+// are shared by all the incoming roads, so the junction updates the ones of
+// the recorded queues at the start of its next advance.
+//
+// Junction phase: a junction moves vehicles out of its incoming roads and into
+// its outgoing roads, so a road can be changed by two junctions (its source
+// and its destination) at the same time. The vehicles that enter a road are
+// therefore buffered per junction and, once all junctions are done, they enter
+// their roads junction by junction in the order of the junction list, which is
+// the order of a serial run.
+public class ParallelTickEngine {
+
+    // below this number of objects a task is not split any more
+    private static final int THRESHOLD = 16;
+
+    private ForkJoinPool pool;
+    private int threads;
+    private List<List<Vehicle>> arrivals; // per junction, reused in every tick
+    private TickStats stats; // null if not measured
+
+    public ParallelTickEngine(int threads) {
+        if (threads <= 0)
+            throw new IllegalArgumentException("Number of threads must be positive.");
+        this.threads = threads;
+        this.pool = threads == 1 ? null : new ForkJoinPool(threads);
+        this.arrivals = new ArrayList<>();
+    }
+
+    // Measures the junction and road phases of each tick into stats, null
+    // stops measuring
+    public void setStats(TickStats stats) {
+        this.stats = stats;
+    }
+
+    // Advances all junctions and then all roads. The two phases are also JFR
+    // events, see SimulationEvents.
+    public void advance(List<Junction> junctions, List<Road> roads, int time) {
+        SimulationEvents.PhaseEvent phase = SimulationEvents.PhaseEvent.begin(time, TickStats.Phase.JUNCTIONS, stats);
+        if (pool == null) {
+            for (Junction j : junctions)
+                j.advance(time);
+        } else {
+            while (arrivals.size() < junctions.size())
+                arrivals.add(new ArrayList<>());
+
+            // junction phase, then the buffered vehicles enter their roads in order
+            forEach(junctions.size(), i -> junctions.get(i).advance(time, arrivals.get(i)));
+            for (int i = 0; i < junctions.size(); i++) {
+                List<Vehicle> l = arrivals.get(i);
+                for (int k = 0; k < l.size(); k++)
+                    l.get(k).enterRoad();
+                l.clear();
+            }
+        }
+        phase.finish(stats);
+
+        // road phase
+        phase = SimulationEvents.PhaseEvent.begin(time, TickStats.Phase.ROADS, stats);
+        if (pool == null) {
+            for (Road r : roads)
+                r.advance(time);
+        } else {
+            forEach(roads.size(), i -> roads.get(i).advance(time));
+        }
+        phase.finish(stats);
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void shutdown() {
+        if (pool != null)
+            pool.shutdown();
+    }
+
+    private void forEach(int n, IntConsumer action) {
+        pool.invoke(new RangeTask(0, n, action));
+    }
+
+    // Applies action to [from, to), splitting the range in halves
+    private static class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final IntConsumer action;
+
+        RangeTask(int from, int to, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                for (int i = from; i < to; i++)
+                    action.accept(i);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RangeTask(from, mid, action), new RangeTask(mid, to, action));
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package simulator.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Runs a variant of a scenario, i.e., the scenario with some of its
+// parameters changed, and summarizes the result. The scenario is a
+// ScenarioPlan that is shared (read only) by all the variants; each run builds
+// its own junctions, roads and vehicles, so variants can run in parallel.
+//
+// Each tick runs the events of the tick, then advances the junctions and then
+// the roads, as the simulator does. Only the junctions and roads with traffic
+// are advanced, see ActiveSetEngine.
+public class ParameterSweep {
+
+    // The changes of a variant: the time slot of all light switching strategies
+    // (0 keeps the ones of the scenario) and the max speed and the CO2 limit of
+    // all roads, as a percentage of the ones of the scenario
+    public static class Variant {
+
+        private final int timeSlot;
+        private final int maxSpeedPct;
+        private final int co2LimitPct;
+
+        public Variant(int timeSlot, int maxSpeedPct, int co2LimitPct) {
+            if (timeSlot < 0)
+                throw new IllegalArgumentException("The time slot cannot be negative: " + timeSlot);
+            if (maxSpeedPct <= 0 || co2LimitPct <= 0)
+                throw new IllegalArgumentException("Percentages must be positive.");
+            this.timeSlot = timeSlot;
+            this.maxSpeedPct = maxSpeedPct;
+            this.co2LimitPct = co2LimitPct;
+        }
+
+        public int getTimeSlot() { return timeSlot; }
+        public int getMaxSpeedPct() { return maxSpeedPct; }
+        public int getCO2LimitPct() { return co2LimitPct; }
+
+        @Override
+        public String toString() {
+            return "timeslot=" + (timeSlot == 0 ? "file" : timeSlot) + " maxspeed=" + maxSpeedPct + "% co2limit=" + co2LimitPct + "%";
+        }
+    }
+
+    public static class Result {
+
+        private final Variant variant;
+        private final long totalCO2;
+        private final int vehicles;
+        private final int arrivals;
+        private final long travelTime; // of the vehicles that arrived
+        private final long nanos;
+        private final TickStats stats; // null if not measured
+
+        Result(Variant variant, long totalCO2, int vehicles, int arrivals, long travelTime, long nanos, TickStats stats) {
+            this.variant = variant;
+            this.totalCO2 = totalCO2;
+            this.vehicles = vehicles;
+            this.arrivals = arrivals;
+            this.travelTime = travelTime;
+            this.nanos = nanos;
+            this.stats = stats;
+        }
+
+        public Variant getVariant() { return variant; }
+        public long getTotalCO2() { return totalCO2; }
+        public int getVehicles() { return vehicles; }
+        public int getArrivals() { return arrivals; }
+        public long getNanos() { return nanos; }
+        public TickStats getStats() { return stats; }
+
+        // Mean ticks from entering the first road to arriving, NaN if no vehicle arrived
+        public double getMeanTravelTime() {
+            return arrivals == 0 ? Double.NaN : (double) travelTime / arrivals;
+        }
+    }
+
+    // Every combination of the given values
+    public static List<Variant> grid(int[] timeSlots, int[] maxSpeedPcts, int[] co2LimitPcts) {
+        List<Variant> l = new ArrayList<>();
+        for (int ts : timeSlots)
+            for (int ms : maxSpeedPcts)
+                for (int co2 : co2LimitPcts)
+                    l.add(new Variant(ts, ms, co2));
+        return l;
+    }
+
+    // Runs the variant for the given number of ticks (from tick 1)
+    public static Result run(ScenarioPlan plan, Variant v, int ticks) {
+        return run(plan, v, ticks, null);
+    }
+
+    // Same as run(plan, v, ticks), and the phases of the ticks are measured
+    // into stats if it is not null. Ticks and phases are also JFR events, see
+    // SimulationEvents.
+    public static Result run(ScenarioPlan plan, Variant v, int ticks, TickStats stats) {
+        long start = System.nanoTime();
+        Run r = new Run(plan, v);
+        int next = 0;
+        for (int time = 1; time <= ticks; time++) {
+            SimulationEvents.TickEvent tick = SimulationEvents.TickEvent.begin(time, stats);
+            SimulationEvents.PhaseEvent phase = SimulationEvents.PhaseEvent.begin(time, TickStats.Phase.EVENTS, stats);
+            r.time = time;
+            next = plan.replay(next, time, r);
+            phase.finish(stats);
+
+            phase = SimulationEvents.PhaseEvent.begin(time, TickStats.Phase.JUNCTIONS, stats);
+            r.engine.advanceJunctions(time);
+            phase.finish(stats);
+
+            phase = SimulationEvents.PhaseEvent.begin(time, TickStats.Phase.ROADS, stats);
+            r.engine.advanceRoads(time);
+            phase.finish(stats);
+
+            r.countArrivals(time);
+            tick.finish(stats);
+        }
+        r.engine.sync(); // the skipped junctions and roads catch up before they are read
+        long co2 = 0;
+        for (Vehicle vh : r.vehicles)
+            co2 += vh.getTotalCO2();
+        return new Result(v, co2, r.vehicles.size(), r.arrivals, r.travelTime, System.nanoTime() - start, stats);
+    }
+
+    // The objects of one run, built from the events of the plan
+    private static class Run implements ScenarioHandler {
+
+        final ScenarioPlan plan;
+        final Variant v;
+        final Junction[] junctionsById;
+        final Road[] roadsById;
+        final Vehicle[] vehiclesById;
+        final List<Junction> junctions = new ArrayList<>();
+        final List<Road> roads = new ArrayList<>();
+        final List<Vehicle> vehicles = new ArrayList<>();
+        final ActiveSetEngine engine = new ActiveSetEngine(); // only the busy junctions and roads advance
+
+        // vehicles that have not arrived yet, and the tick they started
+        final List<Vehicle> active = new ArrayList<>();
+        int[] started = new int[16];
+
+        int time;
+        int arrivals;
+        long travelTime;
+
+        Run(ScenarioPlan plan, Variant v) {
+            this.plan = plan;
+            this.v = v;
+            this.junctionsById = new Junction[plan.getIdCount()];
+            this.roadsById = new Road[plan.getIdCount()];
+            this.vehiclesById = new Vehicle[plan.getIdCount()];
+        }
+
+        @Override
+        public void newJunction(int time, int id, int x, int y, LightSwitchingStrategy lss, DequeuingStrategy dqs) {
+            if (v.timeSlot > 0)
+                lss = lss instanceof MostCrowdedStrategy ? new MostCrowdedStrategy(v.timeSlot) : new RoundRobinStrategy(v.timeSlot);
+            Junction j = new Junction(plan.getId(id), lss, dqs, x, y);
+            junctionsById[id] = j;
+            junctions.add(j);
+            engine.addJunction(j);
+        }
+
+        @Override
+        public void newRoad(int time, int id, boolean city, int src, int dest, int length, int co2Limit, int maxSpeed, Weather weather) {
+            maxSpeed = Math.max(1, (int) ((long) maxSpeed * v.maxSpeedPct / 100));
+            co2Limit = (int) Math.min(Integer.MAX_VALUE, (long) co2Limit * v.co2LimitPct / 100);
+            Road r = city ? new CityRoad(plan.getId(id), junction(src), junction(dest), maxSpeed, co2Limit, length, weather)
+                    : new InterCityRoad(plan.getId(id), junction(src), junction(dest), maxSpeed, co2Limit, length, weather);
+            roadsById[id] = r;
+            roads.add(r);
+            engine.addRoad(r);
+        }
+
+        @Override
+        public void newVehicle(int time, int id, int maxSpeed, int contClass, int[] itinerary) {
+            Junction[] it = new Junction[itinerary.length];
+            for (int i = 0; i < it.length; i++)
+                it[i] = junction(itinerary[i]);
+            Vehicle vh = new Vehicle(plan.getId(id), maxSpeed, contClass, Arrays.asList(it));
+            vehiclesById[id] = vh;
+            vehicles.add(vh);
+            vh.moveToNextRoad();
+            if (active.size() == started.length)
+                started = Arrays.copyOf(started, started.length * 2);
+            started[active.size()] = this.time;
+            active.add(vh);
+        }
+
+        @Override
+        public void setWeather(int time, int[] roads, Weather[] weathers) {
+            for (int i = 0; i < roads.length; i++) {
+                if (roadsById[roads[i]] == null)
+                    throw new IllegalArgumentException("Unknown road " + plan.getId(roads[i]) + " at time " + time);
+                roadsById[roads[i]].setWeather(weathers[i]);
+            }
+        }
+
+        @Override
+        public void setContClass(int time, int[] vehicles, int[] classes) {
+            for (int i = 0; i < vehicles.length; i++) {
+                if (vehiclesById[vehicles[i]] == null)
+                    throw new IllegalArgumentException("Unknown vehicle " + plan.getId(vehicles[i]) + " at time " + time);
+                vehiclesById[vehicles[i]].setContClass(classes[i]);
+            }
+        }
+
+        // Removes the vehicles that arrived from the active ones (not in order)
+        void countArrivals(int time) {
+            for (int i = 0; i < active.size();) {
+                if (active.get(i).getStatus() == VehicleStatus.ARRIVED) {
+                    arrivals++;
+                    travelTime += time - started[i];
+                    int last = active.size() - 1;
+                    active.set(i, active.get(last));
+                    started[i] = started[last];
+                    active.remove(last);
+                } else {
+                    i++;
+                }
+            }
+        }
+
+        private Junction junction(int id) {
+            if (junctionsById[id] == null)
+                throw new IllegalArgumentException("Unknown junction " + plan.getId(id) + " at time " + time);
+            return junctionsById[id];
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package simulator.model;
+
+// A light switching strategy that only needs the lengths of the queues. A
+// junction keeps them in a QueueLengths, updating the ones that changed before
+// it chooses, and calls this method instead of the one with the lists, so the
+// strategy does not have to scan the queues in every tick. The other method
+// is still used by engines that do not keep the lengths (e.g.,
+// ColumnarEngine) and must choose the same.
+public interface QueueLengthStrategy extends LightSwitchingStrategy {
+	int chooseNextGreen(QueueLengths qs, int currGreen, int lastSwitchingTime, int currTime);
+}
@@ -0,0 +1,85 @@
+package simulator.model;
+
+import java.util.Objects;
+
+// The length of each queue of a junction, brought up to date by the junction
+// before it chooses a green light, with a tree of maximums over them (a
+// segment tree), so the longest queue is known in O(1) and the first longest
+// one from a given queue on is found in O(log n) instead of scanning every
+// queue. The junction records the queues that vehicles entered, so only the
+// lengths that changed are updated, O(log n) each.
+public class QueueLengths {
+
+    private int n;      // number of queues
+    private int leaves; // a power of two >= n
+    private int[] max;  // max[leaves + i] is the length of queue i, max[k] the max of max[2k] and max[2k+1]
+
+    QueueLengths() {
+        this.n = 0;
+        this.leaves = 1;
+        this.max = new int[2];
+    }
+
+    // Adds an empty queue, its index is the previous size
+    void addQueue() {
+        if (n == leaves) {
+            int[] m = new int[4 * leaves];
+            System.arraycopy(max, leaves, m, 2 * leaves, leaves);
+            leaves *= 2;
+            max = m;
+            for (int k = leaves - 1; k >= 1; k--)
+                max[k] = Math.max(max[2 * k], max[2 * k + 1]);
+        }
+        n++;
+    }
+
+    void set(int i, int length) {
+        Objects.checkIndex(i, n);
+        if (length < 0)
+            throw new IllegalArgumentException("Queue length cannot be negative: " + length);
+        int k = leaves + i;
+        max[k] = length;
+        for (k >>= 1; k >= 1; k >>= 1) {
+            int m = Math.max(max[2 * k], max[2 * k + 1]);
+            if (max[k] == m)
+                break; // the ones above do not change either
+            max[k] = m;
+        }
+    }
+
+    void increment(int i) {
+        set(i, get(i) + 1);
+    }
+
+    public int size() { return n; }
+    public int get(int i) { return max[leaves + Objects.checkIndex(i, n)]; }
+    public int getMax() { return max[1]; }
+
+    // Index of the first longest queue in circular order starting at from,
+    // -1 if there are no queues
+    public int firstLongest(int from) {
+        Objects.checkIndex(from, Math.max(n, 1));
+        if (n == 0)
+            return -1;
+        int i = firstAtLeast(from, max[1]);
+        return i != -1 ? i : firstAtLeast(0, max[1]);
+    }
+
+    // Index of the first queue from i on whose length is at least m, -1 if
+    // there is none. The padding leaves are 0, so m must be positive or i < n.
+    private int firstAtLeast(int i, int m) {
+        int k = leaves + i;
+        while (max[k] < m) {
+            // up while k is a right child, then to its right sibling
+            while ((k & 1) == 1) {
+                if (k == 1)
+                    return -1;
+                k >>= 1;
+            }
+            k++;
+        }
+        while (k < leaves)
+            k = max[2 * k] >= m ? 2 * k : 2 * k + 1;
+        return k - leaves;
+    }
+}
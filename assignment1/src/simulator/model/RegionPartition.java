@@ -0,0 +1,177 @@
+package simulator.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Splits a road network into k regions of (almost) the same number of
+// junctions.
+//
+// Junctions are first split by recursive coordinate bisection: the set is cut
+// at the median of its widest coordinate (x or y) until there are k parts.
+// Then a junction that has more roads to a neighbour region than to its own is
+// moved there, as long as the neighbour region does not become too big. This
+// reduces the number of roads that cross regions. Each road belongs to the
+// region of its destination junction.
+public class RegionPartition {
+
+    // a region can grow up to this factor of the average size when refining
+    private static final double MAX_IMBALANCE = 1.1;
+
+    private int regions;
+    private List<Junction> allJunctions; // junction i has index i, see SimulatedObject#getIndex
+    private List<Road> allRoads; // road i has index i
+    private int[] junctionRegion; // by index
+    private int[] roadRegion;
+    private List<List<Junction>> junctions; // junctions of each region, in the original order
+    private List<List<Road>> roads; // roads of each region, in the original order
+
+    public RegionPartition(List<Junction> js, List<Road> rs, int k) {
+        if (k <= 0)
+            throw new IllegalArgumentException("Number of regions must be positive.");
+
+        this.regions = Math.max(1, Math.min(k, js.size()));
+        this.allJunctions = new ArrayList<>(js);
+        this.allRoads = new ArrayList<>(rs);
+        for (int i = 0; i < js.size(); i++)
+            js.get(i).setIndex(i);
+        for (int i = 0; i < rs.size(); i++)
+            rs.get(i).setIndex(i);
+
+        int[] region = new int[js.size()];
+        Integer[] order = new Integer[js.size()];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        bisect(js, order, 0, order.length, 0, regions, region);
+        refine(js, rs, region);
+
+        this.junctionRegion = region;
+        this.junctions = new ArrayList<>();
+        this.roads = new ArrayList<>();
+        for (int r = 0; r < regions; r++) {
+            junctions.add(new ArrayList<>());
+            roads.add(new ArrayList<>());
+        }
+        for (int i = 0; i < js.size(); i++)
+            junctions.get(region[i]).add(js.get(i));
+
+        this.roadRegion = new int[rs.size()];
+        for (int i = 0; i < rs.size(); i++) {
+            Road r = rs.get(i);
+            int dest = indexOf(r.getDest());
+            if (dest == -1 || indexOf(r.getSrc()) == -1)
+                throw new IllegalArgumentException("Junctions of road " + r.getId() + " are not in the list of junctions.");
+            roadRegion[i] = region[dest];
+            roads.get(region[dest]).add(r);
+        }
+    }
+
+    // Assigns the junctions order[from, to) to regions [firstRegion, firstRegion + k)
+    private static void bisect(List<Junction> js, Integer[] order, int from, int to, int firstRegion, int k, int[] region) {
+        if (k == 1) {
+            for (int i = from; i < to; i++)
+                region[order[i]] = firstRegion;
+            return;
+        }
+
+        int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+        for (int i = from; i < to; i++) {
+            Junction j = js.get(order[i]);
+            minX = Math.min(minX, j.getX());
+            maxX = Math.max(maxX, j.getX());
+            minY = Math.min(minY, j.getY());
+            maxY = Math.max(maxY, j.getY());
+        }
+
+        // sort by the widest coordinate, ties by position in the list so the result is deterministic
+        boolean byX = (long) maxX - minX >= (long) maxY - minY;
+        Arrays.sort(order, from, to, (a, b) -> {
+            int c = byX ? Integer.compare(js.get(a).getX(), js.get(b).getX()) : Integer.compare(js.get(a).getY(), js.get(b).getY());
+            return c != 0 ? c : Integer.compare(a, b);
+        });
+
+        int kLeft = k / 2;
+        int mid = from + (int) ((long) (to - from) * kLeft / k);
+        bisect(js, order, from, mid, firstRegion, kLeft, region);
+        bisect(js, order, mid, to, firstRegion + kLeft, k - kLeft, region);
+    }
+
+    // One pass that moves junctions to the neighbour region they are most connected to
+    private void refine(List<Junction> js, List<Road> rs, int[] region) {
+        List<List<Integer>> neighbours = new ArrayList<>();
+        for (int i = 0; i < js.size(); i++)
+            neighbours.add(new ArrayList<>());
+        for (Road r : rs) {
+            int s = indexOf(r.getSrc());
+            int d = indexOf(r.getDest());
+            if (s != -1 && d != -1 && s != d) {
+                neighbours.get(s).add(d);
+                neighbours.get(d).add(s);
+            }
+        }
+
+        int[] size = new int[regions];
+        for (int reg : region)
+            size[reg]++;
+        int maxSize = (int) Math.ceil(MAX_IMBALANCE * js.size() / regions);
+
+        int[] count = new int[regions];
+        for (int i = 0; i < js.size(); i++) {
+            Arrays.fill(count, 0);
+            for (int n : neighbours.get(i))
+                count[region[n]]++;
+
+            int best = region[i];
+            for (int reg = 0; reg < regions; reg++) {
+                if (count[reg] > count[best] && size[reg] < maxSize)
+                    best = reg;
+            }
+            if (best != region[i] && size[region[i]] > 1) {
+                size[region[i]]--;
+                size[best]++;
+                region[i] = best;
+            }
+        }
+    }
+
+    // Index of j in the partition, -1 if it is not in it (or another engine
+    // registered it since)
+    private int indexOf(Junction j) {
+        int i = j.getIndex();
+        return i >= 0 && i < allJunctions.size() && allJunctions.get(i) == j ? i : -1;
+    }
+
+    private int indexOf(Road r) {
+        int i = r.getIndex();
+        return i >= 0 && i < allRoads.size() && allRoads.get(i) == r ? i : -1;
+    }
+
+    public int getRegions() { return regions; }
+
+    public int regionOf(Junction j) {
+        int i = indexOf(j);
+        if (i == -1)
+            throw new IllegalArgumentException("Junction " + j.getId() + " is not in the partition.");
+        return junctionRegion[i];
+    }
+
+    public int regionOf(Road r) {
+        int i = indexOf(r);
+        if (i == -1)
+            throw new IllegalArgumentException("Road " + r.getId() + " is not in the partition.");
+        return roadRegion[i];
+    }
+    public List<Junction> getJunctions(int region) { return Collections.unmodifiableList(junctions.get(region)); }
+    public List<Road> getRoads(int region) { return Collections.unmodifiableList(roads.get(region)); }
+
+    // number of roads whose source and destination are in different regions
+    public int getCutRoads() {
+        int cut = 0;
+        for (int i = 0; i < roadRegion.length; i++) {
+            if (regionOf(allRoads.get(i).getSrc()) != roadRegion[i])
+                cut++;
+        }
+        return cut;
+    }
+}
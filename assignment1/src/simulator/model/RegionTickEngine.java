@@ -0,0 +1,199 @@
+package simulator.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+
+// Advances a road network split into regions (see RegionPartition), where each
+// region is owned by one worker thread for the whole life of the engine. A
+// worker only touches the junctions and roads of its region, so they stay in
+// the caches of its core.
+//
+// In each tick a worker advances its junctions. A vehicle that moves to a road
+// of its own region enters the road directly. A vehicle that moves to a road
+// of another region is handed off through the (lock-free) mailbox of that
+// region. After all workers are done with their junctions, each worker lets
+// the vehicles of its mailbox enter their roads, and then advances its roads.
+//
+// A road receives vehicles only from its source junction, in the order that
+// junction dequeues them, so the result is the same as advancing the whole
+// network on one thread.
+//
+// If a region fails, the engine stops: the barrier is broken for good, so all
+// the workers exit and advance throws the failure. shutdown() waits for the
+// workers to exit in any case.
+public class RegionTickEngine {
+
+    private RegionPartition partition;
+    private List<ConcurrentLinkedQueue<Vehicle>> mailboxes;
+    private List<Thread> workers;
+    private CyclicBarrier barrier; // the workers and the thread that calls advance
+
+    private long[] lastTickNanos; // time spent by each region in the last tick, without waiting
+    private long[] totalTickNanos;
+
+    private int time;
+    private volatile boolean stopped;
+    private volatile RuntimeException failure;
+
+    public RegionTickEngine(List<Junction> junctions, List<Road> roads, int regions) {
+        this(new RegionPartition(junctions, roads, regions));
+    }
+
+    public RegionTickEngine(RegionPartition partition) {
+        this.partition = partition;
+        int n = partition.getRegions();
+        this.mailboxes = new ArrayList<>();
+        this.workers = new ArrayList<>();
+        this.barrier = new CyclicBarrier(n + 1);
+        this.lastTickNanos = new long[n];
+        this.totalTickNanos = new long[n];
+        this.stopped = false;
+
+        for (int r = 0; r < n; r++)
+            mailboxes.add(new ConcurrentLinkedQueue<>());
+        for (int r = 0; r < n; r++) {
+            int region = r;
+            Thread t = new Thread(() -> work(region), "region-" + r);
+            t.setDaemon(true);
+            workers.add(t);
+            t.start();
+        }
+    }
+
+    // Advances all junctions and then all roads, region by region in parallel
+    public void advance(int time) {
+        if (failure != null)
+            throw new IllegalStateException("A region failed to advance.", failure);
+        if (stopped)
+            throw new IllegalStateException("The engine has been shut down.");
+        this.time = time;
+        await(); // start
+        await(); // junctions done
+        await(); // roads done
+    }
+
+    // Stops the workers and waits for them to exit
+    public void shutdown() {
+        if (!stopped) {
+            stopped = true;
+            try {
+                barrier.await(); // the workers see stopped and exit
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (BrokenBarrierException e) {
+                // a region failed, the workers exit anyway
+            }
+        }
+        try {
+            for (Thread t : workers)
+                t.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void await() {
+        try {
+            barrier.await();
+        } catch (InterruptedException | BrokenBarrierException e) {
+            stopped = true;
+            if (failure != null)
+                throw new IllegalStateException("A region failed to advance.", failure);
+            throw new IllegalStateException("The engine was interrupted.", e);
+        }
+    }
+
+    private void work(int region) {
+        List<Junction> junctions = partition.getJunctions(region);
+        List<Road> roads = partition.getRoads(region);
+        ConcurrentLinkedQueue<Vehicle> mailbox = mailboxes.get(region);
+        List<Vehicle> arrivals = new ArrayList<>();
+
+        try {
+            while (true) {
+                barrier.await();
+                if (stopped)
+                    return;
+
+                // junctions
+                long start = System.nanoTime();
+                for (Junction j : junctions)
+                    j.advance(time, arrivals);
+                for (int i = 0; i < arrivals.size(); i++) {
+                    Vehicle v = arrivals.get(i);
+                    int owner = partition.regionOf(v.getRoad());
+                    if (owner == region)
+                        v.enterRoad();
+                    else
+                        mailboxes.get(owner).add(v);
+                }
+                arrivals.clear();
+                long elapsed = System.nanoTime() - start;
+
+                barrier.await();
+
+                // vehicles handed off by other regions, and then roads
+                start = System.nanoTime();
+                Vehicle v;
+                while ((v = mailbox.poll()) != null)
+                    v.enterRoad();
+                for (Road r : roads)
+                    r.advance(time);
+                elapsed += System.nanoTime() - start;
+
+                lastTickNanos[region] = elapsed;
+                totalTickNanos[region] += elapsed;
+
+                barrier.await();
+            }
+        } catch (InterruptedException | BrokenBarrierException e) {
+            // the engine is being stopped
+        } catch (RuntimeException e) {
+            failure = e;
+            stopped = true;
+            breakBarrier();
+        }
+    }
+
+    // Breaks the barrier for good, so the threads that wait on it, and the
+    // ones that get to it later, fail with BrokenBarrierException and stop. An
+    // interrupted thread breaks the barrier as soon as it gets to it, without
+    // counting as a party. (barrier.reset() would only release the threads
+    // already waiting, the others would wait for the next generation forever.)
+    private void breakBarrier() {
+        Thread.currentThread().interrupt();
+        try {
+            barrier.await();
+        } catch (InterruptedException | BrokenBarrierException e) {
+            // the barrier is broken now, and the interrupt was consumed
+        }
+    }
+
+    // True if all the workers have exited, for testing
+    boolean isTerminated() {
+        for (Thread t : workers) {
+            if (t.isAlive())
+                return false;
+        }
+        return true;
+    }
+
+    public RegionPartition getPartition() { return partition; }
+    public int getRegions() { return partition.getRegions(); }
+    public long getLastTickNanos(int region) { return lastTickNanos[region]; }
+    public long getTotalTickNanos(int region) { return totalTickNanos[region]; }
+
+    // slowest region divided by the average region in the last tick, 1.0 is a perfect balance
+    public double getLastTickImbalance() {
+        long max = 0, sum = 0;
+        for (long t : lastTickNanos) {
+            max = Math.max(max, t);
+            sum += t;
+        }
+        return sum == 0 ? 1.0 : (double) max * lastTickNanos.length / sum;
+    }
+}
@@ -5,6 +5,8 @@ import java.util.List;
 import java.util.ArrayList;
 import org.json.JSONObject;
 
+import simulator.misc.JsonWriter;
+
 
 //we declare abstarct because we have two subclasses of this City Road and inter-city 
 public abstract class Road extends SimulatedObject {
@@ -16,7 +18,10 @@ public abstract class Road extends SimulatedObject {
     private int contLimit; // Contamination alarm limit
     private Weather weather; // Weather conditions
     private int totalCO2; // Total accumulated contamination
-    private List<Vehicle> vehicles; // List of vehicles on the road
+    private RoadVehicleList vehicles; // Vehicles on the road, in descending order of location
+    private int destQueue; // index of the queue of the road at its destination junction
+    private ActiveSetEngine scheduler; // advances the road only while it is active, null if not scheduled
+    private int slot; // index of the road in scheduler
 
     // Constructor
     Road(String id, Junction srcJunc, Junction destJunc, int maxSpeed, int contLimit, int length, Weather weather) {
@@ -38,7 +43,7 @@ public abstract class Road extends SimulatedObject {
         this.length = length;
         this.weather = weather;
         this.totalCO2 = 0;
-        this.vehicles = new ArrayList<>();
+        this.vehicles = new RoadVehicleList();
 
         // Add this road to the source and destination junctions
         srcJunc.addOutgoingRoad(this);
@@ -51,32 +56,57 @@ public abstract class Road extends SimulatedObject {
             throw new IllegalArgumentException("Vehicle location must be 0 to enter the road.");
         if (v.getSpeed() != 0)
             throw new IllegalArgumentException("Vehicle speed must be 0 to enter the road.");
+        if (scheduler != null)
+            scheduler.wake(this);
         vehicles.add(v);
+        markDirty();
     }
 
     // Remove a vehicle from the road
     void exit(Vehicle v) {
-        vehicles.remove(v);
+        if (vehicles.remove(v))
+            markDirty();
     }
 
     // Set weather conditions
     void setWeather(Weather w) {
         if (w == null)
             throw new IllegalArgumentException("Weather cannot be null.");
-        this.weather = w;
+        sync(); // the past ticks decay with the old weather
+        if (w != weather) {
+            this.weather = w;
+            markDirty();
+        }
     }
 
     // Add contamination to the road
     void addContamination(int c) {
         if (c < 0)
             throw new IllegalArgumentException("Contamination must be non-negative.");
-        totalCO2 += c;
+        if (c > 0) {
+            totalCO2 += c;
+            markDirty();
+        }
     }
 
     // Abstract methods to be implemented by subclasses
     abstract void reduceTotalContamination();
     abstract void updateSpeedLimit();
-    abstract int calculateVehicleSpeed(Vehicle v);
+    abstract int calculateVehicleSpeed(int contClass);
+
+    // Same as reducing the contamination ticks times, subclasses can do it in
+    // closed form. Reductions that round down in every tick (InterCityRoad)
+    // have none, but they reach 0 within about a thousand ticks for any
+    // contamination, and stop there.
+    void reduceTotalContamination(int ticks) {
+        for (int i = 0; i < ticks && totalCO2 != 0; i++)
+            reduceTotalContamination();
+    }
+
+    // Speed of a vehicle only depends on its contamination class
+    int calculateVehicleSpeed(Vehicle v) {
+        return calculateVehicleSpeed(v.getContClass());
+    }
 
     // Advance the state of the road
     void advance(int time) {
@@ -92,12 +122,124 @@ public abstract class Road extends SimulatedObject {
             v.advance(time);
         }
 
-        // Sort vehicles by location (descending order)
-        vehicles.sort((v1, v2) -> Integer.compare(v2.getLocation(), v1.getLocation()));
+        // Restore the order by location (descending), only overtaking vehicles are moved
+        if (vehicles.restoreOrder() > 0)
+            markDirty();
+    }
+
+    // True if the road has no vehicles, so advancing it only reduces its
+    // contamination and updates its speed limit
+    boolean isIdle() {
+        return vehicles.isEmpty();
+    }
+
+    // Applies ticks ticks to an idle road in one step, the result is the same
+    // as advancing it tick by tick
+    void skipIdle(int ticks) {
+        if (ticks <= 0)
+            return;
+        reduceTotalContamination(ticks);
+        updateSpeedLimit(); // only depends on the contamination
+    }
+
+    void setDestQueue(int i) {
+        this.destQueue = i;
+    }
+
+    int getDestQueue() { return destQueue; }
+
+    void schedule(ActiveSetEngine scheduler, int slot) {
+        this.scheduler = scheduler;
+        this.slot = slot;
+    }
+
+    @Override
+    void sync() {
+        if (scheduler != null)
+            scheduler.sync(this);
+    }
+
+    ActiveSetEngine getScheduler() { return scheduler; }
+    int getSlot() { return slot; }
+
+    // Number of ticks, up to max, that the road can advance without anything
+    // discrete happening: no vehicle reaches the end of the road, no vehicle
+    // reaches or overtakes the one in front, and the speed limit does not change
+    // while there are vehicles traveling
+    int quietTicks(int max) {
+        int savedCO2 = totalCO2;
+        int savedSpeedLimit = speedLimit;
+        boolean savedDirty = isDirty();
+
+        // the speeds of the first tick
+        reduceTotalContamination();
+        updateSpeedLimit();
+        int firstSpeedLimit = speedLimit;
+
+        int ticks = max;
+        long inflow = 0;
+        boolean traveling = false;
+        Vehicle front = null;
+        int frontSpeed = 0;
+        for (Vehicle v : vehicles) {
+            if (v.getStatus() != VehicleStatus.TRAVELING)
+                continue;
+            traveling = true;
+
+            int s = Math.min(calculateVehicleSpeed(v), v.getMaxSpeed());
+            if (s > 0)
+                ticks = Math.min(ticks, (length - v.getLocation() - 1) / s);
+            if (front != null && s > frontSpeed)
+                ticks = Math.min(ticks, (front.getLocation() - v.getLocation() - 1) / (s - frontSpeed));
+            inflow += s * v.getContClass();
+
+            front = v;
+            frontSpeed = s;
+        }
+
+        // the speed limit of the following ticks
+        totalCO2 += (int) inflow;
+        for (int i = 2; i <= ticks && traveling; i++) {
+            reduceTotalContamination();
+            updateSpeedLimit();
+            if (speedLimit != firstSpeedLimit)
+                ticks = i - 1;
+            totalCO2 += (int) inflow;
+        }
+
+        totalCO2 = savedCO2;
+        speedLimit = savedSpeedLimit;
+        if (!savedDirty)
+            clearDirty();
+        return Math.max(0, ticks);
+    }
+
+    // Advances the road several ticks in one step, ticks must not be more than
+    // quietTicks(ticks). Vehicles move in one step, only the contamination and
+    // speed limit of the road are updated tick by tick.
+    void fastForward(int ticks) {
+        if (ticks <= 0)
+            return;
+
+        int inflow = 0;
+        for (int i = 1; i <= ticks; i++) {
+            reduceTotalContamination();
+            updateSpeedLimit();
+            if (i == 1) {
+                for (Vehicle v : vehicles) {
+                    v.setSpeed(calculateVehicleSpeed(v));
+                    if (v.getStatus() == VehicleStatus.TRAVELING)
+                        inflow += v.getSpeed() * v.getContClass();
+                    v.fastForward(ticks);
+                }
+            }
+            addContamination(inflow); // also marks the road dirty
+        }
     }
 
     // Generate a JSON report of the road's state
     public JSONObject report() {
+        sync();
         JSONObject json = new JSONObject();
         json.put("id", getId());
         json.put("speedlimit", speedLimit);
@@ -114,6 +256,20 @@ public abstract class Road extends SimulatedObject {
         return json;
     }
 
+    public void report(JsonWriter out) {
+        sync();
+        out.beginObject();
+        out.name("id").value(getId());
+        out.name("speedlimit").value(speedLimit);
+        out.name("weather").value(weather.toString());
+        out.name("co2").value(totalCO2);
+        out.name("vehicles").beginArray();
+        for (int i = 0; i < vehicles.size(); i++)
+            out.value(vehicles.get(i).getId());
+        out.endArray();
+        out.endObject();
+    }
+
     // Getters
     public int getLength() { return length; }
     public Junction getDest() { return destJunc; }
@@ -150,7 +306,10 @@ public abstract class Road extends SimulatedObject {
 	}
 
 	public void setSpeedLimit(int speedLimit) {
-		this.speedLimit = speedLimit;
+		if (speedLimit != this.speedLimit) {
+			this.speedLimit = speedLimit;
+			markDirty();
+		}
 	}
 
 	public void setContLimit(int contLimit) {
@@ -158,11 +317,16 @@ public abstract class Road extends SimulatedObject {
 	}
 
 	public void setTotalCO2(int totalCO2) {
-		this.totalCO2 = totalCO2;
+		if (totalCO2 != this.totalCO2) {
+			this.totalCO2 = totalCO2;
+			markDirty();
+		}
 	}
 
 	public void setVehicles(List<Vehicle> vehicles) {
-		this.vehicles = vehicles;
+		this.vehicles.clear();
+		this.vehicles.addAll(vehicles);
+		markDirty();
 	}
     
 }
\ No newline at end of file
@@ -0,0 +1,147 @@
+package simulator.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+// Vehicles of a road kept in descending order of location.
+//
+// Vehicles are stored in an array window [head, head + size) so that the
+// vehicle at the front of the road (the one that reaches the junction first)
+// can be removed in O(1). After the vehicles move, restoreOrder() fixes the
+// order with an insertion pass that only shifts the vehicles that overtook a
+// neighbour, i.e., O(n + number of overtakes) instead of a full sort. The pass
+// is stable, so vehicles with the same location keep their entry order, exactly
+// as List.sort does.
+class RoadVehicleList extends AbstractList<Vehicle> {
+
+    private static final int INITIAL_CAPACITY = 8;
+    private static final int SHIFTS_PER_VEHICLE = 8;
+    private static final Comparator<Vehicle> BY_LOCATION_DESC = (v1, v2) -> Integer.compare(v2.getLocation(), v1.getLocation());
+
+    private Vehicle[] elems;
+    private int head;
+    private int size;
+
+    RoadVehicleList() {
+        this.elems = new Vehicle[INITIAL_CAPACITY];
+        this.head = 0;
+        this.size = 0;
+    }
+
+    @Override
+    public Vehicle get(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return elems[head + index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // Vehicles always enter at the back of the road
+    @Override
+    public boolean add(Vehicle v) {
+        if (head + size == elems.length)
+            makeRoom();
+        elems[head + size] = v;
+        size++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Vehicle> c) {
+        for (Vehicle v : c)
+            add(v);
+        return !c.isEmpty();
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        for (int i = 0; i < size; i++) {
+            if (elems[head + i] == o) {
+                remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Vehicle remove(int index) {
+        Vehicle v = get(index);
+        if (index == 0) {
+            // the common case, the first vehicle leaves the road
+            elems[head] = null;
+            head++;
+        } else {
+            int from = head + index;
+            System.arraycopy(elems, from + 1, elems, from, size - index - 1);
+            elems[head + size - 1] = null;
+        }
+        size--;
+        if (size == 0)
+            head = 0;
+        modCount++;
+        return v;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(elems, head, head + size, null);
+        head = 0;
+        size = 0;
+        modCount++;
+    }
+
+    // Restores the descending order by location after the vehicles moved.
+    // Returns the number of shifts, which is the number of overtakes.
+    //
+    // If the vehicles got heavily mixed (e.g., many vehicles that entered
+    // together with different speeds) the insertion pass would be quadratic, so
+    // once the shifts exceed a few per vehicle we fall back to a (stable) sort.
+    int restoreOrder() {
+        int maxShifts = SHIFTS_PER_VEHICLE * size;
+        int shifts = 0;
+        int end = head + size;
+        for (int i = head + 1; i < end; i++) {
+            Vehicle v = elems[i];
+            int loc = v.getLocation();
+            if (elems[i - 1].getLocation() >= loc)
+                continue; // already in place, the usual case
+
+            int j = i - 1;
+            while (j >= head && elems[j].getLocation() < loc) {
+                elems[j + 1] = elems[j];
+                j--;
+                shifts++;
+            }
+            elems[j + 1] = v;
+
+            if (shifts > maxShifts) {
+                Arrays.sort(elems, head, end, BY_LOCATION_DESC);
+                break;
+            }
+        }
+        if (shifts > 0)
+            modCount++;
+        return shifts;
+    }
+
+    // Either compacts the window to the beginning of the array or grows it
+    private void makeRoom() {
+        if (head > elems.length / 2) {
+            System.arraycopy(elems, head, elems, 0, size);
+            Arrays.fill(elems, size, head + size, null);
+        } else {
+            Vehicle[] bigger = new Vehicle[elems.length * 2];
+            System.arraycopy(elems, head, bigger, 0, size);
+            elems = bigger;
+        }
+        head = 0;
+    }
+}
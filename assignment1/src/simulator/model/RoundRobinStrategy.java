@@ -2,7 +2,7 @@ package simulator.model;
 
 import java.util.List;
 
-public class RoundRobinStrategy implements LightSwitchingStrategy {
+public class RoundRobinStrategy implements CyclicStrategy {
 
     private int timeSlot; // Time slot for green light
 
@@ -24,4 +24,7 @@ public class RoundRobinStrategy implements LightSwitchingStrategy {
 
         return (currGreen + 1) % roads.size();
     }
+
+    @Override
+    public int getTimeSlot() { return timeSlot; }
 }
\ No newline at end of file
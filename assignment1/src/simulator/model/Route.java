@@ -0,0 +1,42 @@
+package simulator.model;
+
+import java.util.Collections;
+import java.util.List;
+
+// The roads that a vehicle goes through, resolved once from its itinerary
+// (road i goes from junction i to junction i + 1). Routes are immutable, so
+// all vehicles with the same itinerary share the same one (see
+// Junction#routeFrom).
+public final class Route {
+
+    private final List<Junction> itinerary;
+    private final Road[] roads;
+    private int index; // given by the engine that registered it, as in SimulatedObject#getIndex
+
+    private Route(List<Junction> itinerary, Road[] roads) {
+        this.itinerary = itinerary;
+        this.roads = roads;
+        this.index = -1;
+    }
+
+    // Resolves the roads of the itinerary, all of them must exist
+    static Route compile(List<Junction> itinerary) {
+        if (itinerary == null || itinerary.size() < 2)
+            throw new IllegalArgumentException("Itinerary must have at least 2 junctions.");
+
+        Road[] roads = new Road[itinerary.size() - 1];
+        for (int i = 0; i < roads.length; i++) {
+            roads[i] = itinerary.get(i).roadTo(itinerary.get(i + 1));
+            if (roads[i] == null)
+                throw new IllegalArgumentException("Invalid itinerary: there is no road from " + itinerary.get(i).getId() + " to " + itinerary.get(i + 1).getId() + ".");
+        }
+        return new Route(Collections.unmodifiableList(itinerary), roads);
+    }
+
+    // Number of roads
+    public int size() { return roads.length; }
+    public Road getRoad(int i) { return roads[i]; }
+    public List<Junction> getItinerary() { return itinerary; }
+    int getIndex() { return index; }
+    void setIndex(int index) { this.index = index; }
+}
@@ -0,0 +1,341 @@
+package simulator.model;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import simulator.misc.JsonWriter;
+
+// Generates synthetic events files, e.g., to benchmark scenarios much larger
+// than the examples. The network is either a grid or a random geometric graph
+// (each junction is connected to its nearest neighbours), with roads in both
+// directions. Vehicles follow random walks on the network and enter over the
+// first ticks; weather and contamination class changes can be added too.
+//
+// The output only depends on the settings and the seed, e.g.,
+//
+//   new ScenarioGenerator(42).setJunctions(10000).setVehicles(1000000).write(out);
+//
+// always writes the same file. Events are written in time order, so the file
+// can be streamed (see EventStream#admitUntil), and vehicles are written as
+// they are generated, so memory only grows with the size of the network.
+public class ScenarioGenerator {
+
+    public enum Topology { GRID, GEOMETRIC }
+
+    static final int SPACING = 100; // mean distance between neighbour junctions
+    static final int NEIGHBOURS = 3; // of each junction in a geometric graph
+
+    private final long seed;
+    private Topology topology = Topology.GRID;
+    private int junctions = 100;
+    private int cityRoadPct = 50;
+    private int vehicles = 1000;
+    private int minItinerary = 2;
+    private int maxItinerary = 8;
+    private int entryTicks = 1; // vehicles enter from tick 1 to this one
+    private int weatherEvents = 0;
+    private int contClassEvents = 0;
+
+    // the network, built by write()
+    private int[] x, y;
+    private int[] roadSrc, roadDest;
+    private int roadCount;
+    private int[][] outgoing; // for each junction, the indexes of its roads
+
+    public ScenarioGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    public ScenarioGenerator setTopology(Topology topology) {
+        if (topology == null)
+            throw new IllegalArgumentException("Topology cannot be null.");
+        this.topology = topology;
+        return this;
+    }
+
+    public ScenarioGenerator setJunctions(int junctions) {
+        if (junctions < 2)
+            throw new IllegalArgumentException("There must be at least 2 junctions: " + junctions);
+        this.junctions = junctions;
+        return this;
+    }
+
+    // Percentage of city roads, the rest are inter-city roads
+    public ScenarioGenerator setCityRoadPct(int cityRoadPct) {
+        if (cityRoadPct < 0 || cityRoadPct > 100)
+            throw new IllegalArgumentException("The percentage of city roads must be between 0 and 100: " + cityRoadPct);
+        this.cityRoadPct = cityRoadPct;
+        return this;
+    }
+
+    public ScenarioGenerator setVehicles(int vehicles) {
+        if (vehicles < 0)
+            throw new IllegalArgumentException("The number of vehicles cannot be negative: " + vehicles);
+        this.vehicles = vehicles;
+        return this;
+    }
+
+    // Number of junctions of the itineraries, chosen uniformly between min and max
+    public ScenarioGenerator setItinerary(int min, int max) {
+        if (min < 2 || max < min)
+            throw new IllegalArgumentException("Invalid itinerary length: " + min + "-" + max);
+        this.minItinerary = min;
+        this.maxItinerary = max;
+        return this;
+    }
+
+    public ScenarioGenerator setEntryTicks(int entryTicks) {
+        if (entryTicks < 1)
+            throw new IllegalArgumentException("The entry ticks must be positive: " + entryTicks);
+        this.entryTicks = entryTicks;
+        return this;
+    }
+
+    // Number of set_weather and set_cont_class events, spread over the entry
+    // ticks. Classes only change for vehicles that entered already, so there
+    // are no set_cont_class events without vehicles.
+    public ScenarioGenerator setChangeEvents(int weatherEvents, int contClassEvents) {
+        if (weatherEvents < 0 || contClassEvents < 0)
+            throw new IllegalArgumentException("The number of events cannot be negative.");
+        this.weatherEvents = weatherEvents;
+        this.contClassEvents = contClassEvents;
+        return this;
+    }
+
+    // Writes the events file, the stream is not closed
+    public void write(OutputStream os) {
+        Random rnd = new Random(seed);
+        buildNetwork(rnd);
+
+        JsonWriter out = new JsonWriter(os);
+        out.beginObject().name("events").beginArray();
+        for (int j = 0; j < junctions; j++)
+            writeJunction(out, j, rnd);
+        for (int r = 0; r < roadCount; r++)
+            writeRoad(out, r, rnd);
+
+        // the events of each tick, in proportion to the ticks elapsed
+        int v = 0, w = 0, c = 0;
+        for (int time = 1; time <= entryTicks; time++) {
+            for (; v < share(vehicles, time); v++)
+                writeVehicle(out, time, v, rnd);
+            for (; w < share(weatherEvents, time); w++)
+                writeWeather(out, time, rnd);
+            for (; c < share(contClassEvents, time) && v > 0; c++)
+                writeContClass(out, time, v, rnd);
+        }
+        out.endArray().endObject();
+        out.flush();
+    }
+
+    // Number of roads of the last file written
+    public int getRoadCount() { return roadCount; }
+
+    private int share(int n, int time) {
+        return (int) ((long) n * time / entryTicks);
+    }
+
+    private void buildNetwork(Random rnd) {
+        x = new int[junctions];
+        y = new int[junctions];
+        roadSrc = new int[16];
+        roadDest = new int[16];
+        roadCount = 0;
+        if (topology == Topology.GRID) {
+            int width = (int) Math.ceil(Math.sqrt(junctions));
+            for (int j = 0; j < junctions; j++) {
+                x[j] = (j % width) * SPACING;
+                y[j] = (j / width) * SPACING;
+                if (j % width > 0)
+                    connect(j - 1, j);
+                if (j >= width)
+                    connect(j - width, j);
+            }
+        } else {
+            geometric(rnd);
+        }
+
+        int[] n = new int[junctions];
+        for (int r = 0; r < roadCount; r++)
+            n[roadSrc[r]]++;
+        outgoing = new int[junctions][];
+        for (int j = 0; j < junctions; j++)
+            outgoing[j] = new int[n[j]];
+        Arrays.fill(n, 0);
+        for (int r = 0; r < roadCount; r++)
+            outgoing[roadSrc[r]][n[roadSrc[r]]++] = r;
+    }
+
+    // Random points in a square with one junction per SPACING x SPACING cell
+    // on average, each one connected to its NEIGHBOURS nearest ones. Points are
+    // bucketed by cell, so only the cells around a point are searched.
+    private void geometric(Random rnd) {
+        int cells = (int) Math.ceil(Math.sqrt(junctions));
+        int side = cells * SPACING;
+        int[] count = new int[cells * cells + 1];
+        for (int j = 0; j < junctions; j++) {
+            x[j] = rnd.nextInt(side);
+            y[j] = rnd.nextInt(side);
+            count[cell(j, cells) + 1]++;
+        }
+        for (int i = 1; i < count.length; i++)
+            count[i] += count[i - 1];
+        int[] byCell = new int[junctions]; // junctions sorted by cell, count[c] is where cell c starts
+        int[] next = Arrays.copyOf(count, count.length);
+        for (int j = 0; j < junctions; j++)
+            byCell[next[cell(j, cells)]++] = j;
+
+        int[] near = new int[junctions * NEIGHBOURS]; // the nearest of each junction
+        int[] nearest = new int[NEIGHBOURS];
+        long[] dist = new long[NEIGHBOURS];
+        for (int j = 0; j < junctions; j++) {
+            Arrays.fill(nearest, -1);
+            Arrays.fill(dist, Long.MAX_VALUE);
+            int cx = x[j] / SPACING, cy = y[j] / SPACING;
+            // rings of cells around the cell of j, until the nearest found are
+            // closer than any point of the next ring
+            for (int ring = 0; ring <= cells; ring++) {
+                long reach = (long) (ring - 1) * SPACING;
+                if (ring > 0 && nearest[NEIGHBOURS - 1] != -1 && dist[NEIGHBOURS - 1] <= reach * reach)
+                    break;
+                for (int gy = cy - ring; gy <= cy + ring; gy++) {
+                    for (int gx = cx - ring; gx <= cx + ring; gx++) {
+                        if (gx < 0 || gy < 0 || gx >= cells || gy >= cells)
+                            continue;
+                        if (Math.max(Math.abs(gx - cx), Math.abs(gy - cy)) != ring)
+                            continue;
+                        int c = gy * cells + gx;
+                        for (int k = count[c]; k < count[c + 1]; k++) {
+                            int o = byCell[k];
+                            if (o != j)
+                                insertNearest(o, distance2(j, o), nearest, dist);
+                        }
+                    }
+                }
+            }
+            System.arraycopy(nearest, 0, near, j * NEIGHBOURS, NEIGHBOURS);
+            // o was connected to j already if j is one of the nearest of o
+            for (int o : nearest)
+                if (o != -1 && !(o < j && contains(near, o, j)))
+                    connect(j, o);
+        }
+    }
+
+    private static boolean contains(int[] near, int o, int j) {
+        for (int i = o * NEIGHBOURS; i < (o + 1) * NEIGHBOURS; i++)
+            if (near[i] == j)
+                return true;
+        return false;
+    }
+
+    private int cell(int j, int cells) {
+        return (y[j] / SPACING) * cells + x[j] / SPACING;
+    }
+
+    private long distance2(int a, int b) {
+        long dx = x[a] - x[b], dy = y[a] - y[b];
+        return dx * dx + dy * dy;
+    }
+
+    // Keeps the NEIGHBOURS nearest, sorted by distance (ties by index)
+    private static void insertNearest(int o, long d, int[] nearest, long[] dist) {
+        int i = NEIGHBOURS;
+        while (i > 0 && (d < dist[i - 1] || (d == dist[i - 1] && o < nearest[i - 1])))
+            i--;
+        if (i == NEIGHBOURS)
+            return;
+        System.arraycopy(nearest, i, nearest, i + 1, NEIGHBOURS - i - 1);
+        System.arraycopy(dist, i, dist, i + 1, NEIGHBOURS - i - 1);
+        nearest[i] = o;
+        dist[i] = d;
+    }
+
+    // Roads in both directions
+    private void connect(int a, int b) {
+        if (roadCount + 2 > roadSrc.length) {
+            roadSrc = Arrays.copyOf(roadSrc, roadSrc.length * 2);
+            roadDest = Arrays.copyOf(roadDest, roadDest.length * 2);
+        }
+        roadSrc[roadCount] = a;
+        roadDest[roadCount++] = b;
+        roadSrc[roadCount] = b;
+        roadDest[roadCount++] = a;
+    }
+
+    private void writeJunction(JsonWriter out, int j, Random rnd) {
+        out.beginObject().name("type").value("new_junction").name("data").beginObject();
+        out.name("time").value(1).name("id").value("j" + j);
+        out.name("coor").beginArray().value(x[j]).value(y[j]).endArray();
+        out.name("ls_strategy").beginObject().name("type").value("round_robin_lss");
+        out.name("data").beginObject().name("timeslot").value(1 + rnd.nextInt(5)).endObject().endObject();
+        out.name("dq_strategy").beginObject().name("type").value(rnd.nextBoolean() ? "move_first_dqs" : "move_all_dqs");
+        out.name("data").beginObject().endObject().endObject();
+        out.endObject().endObject();
+    }
+
+    private void writeRoad(JsonWriter out, int r, Random rnd) {
+        int src = roadSrc[r], dest = roadDest[r];
+        boolean city = rnd.nextInt(100) < cityRoadPct;
+        // at least the distance between the junctions
+        int length = (int) Math.max(Math.sqrt(distance2(src, dest)), SPACING / 2) * (5 + rnd.nextInt(20));
+        out.beginObject().name("type").value(city ? "new_city_road" : "new_inter_city_road").name("data").beginObject();
+        out.name("time").value(1).name("id").value("r" + r);
+        out.name("src").value("j" + src).name("dest").value("j" + dest);
+        out.name("length").value(length).name("co2limit").value(500 + rnd.nextInt(2000));
+        out.name("maxspeed").value(city ? 50 + rnd.nextInt(50) : 90 + rnd.nextInt(50));
+        out.name("weather").value(weather(rnd).name());
+        out.endObject().endObject();
+    }
+
+    // A random walk that does not go back to the junction it comes from,
+    // unless it is a dead end
+    private void writeVehicle(JsonWriter out, int time, int v, Random rnd) {
+        out.beginObject().name("type").value("new_vehicle").name("data").beginObject();
+        out.name("time").value(time).name("id").value("v" + v);
+        out.name("maxspeed").value(50 + rnd.nextInt(100)).name("class").value(rnd.nextInt(11));
+        out.name("itinerary").beginArray();
+        int n = minItinerary + rnd.nextInt(maxItinerary - minItinerary + 1);
+        int j = rnd.nextInt(junctions);
+        while (outgoing[j].length == 0)
+            j = rnd.nextInt(junctions);
+        int prev = -1;
+        out.value("j" + j);
+        for (int i = 1; i < n; i++) {
+            int[] o = outgoing[j];
+            int k = rnd.nextInt(o.length);
+            if (roadDest[o[k]] == prev && o.length > 1) // any of the others
+                k = (k + 1 + rnd.nextInt(o.length - 1)) % o.length;
+            prev = j;
+            j = roadDest[o[k]];
+            out.value("j" + j);
+        }
+        out.endArray().endObject().endObject();
+    }
+
+    private void writeWeather(JsonWriter out, int time, Random rnd) {
+        out.beginObject().name("type").value("set_weather").name("data").beginObject();
+        out.name("time").value(time).name("info").beginArray();
+        for (int i = 1 + rnd.nextInt(4); i > 0; i--) {
+            out.beginObject().name("road").value("r" + rnd.nextInt(roadCount));
+            out.name("weather").value(weather(rnd).name()).endObject();
+        }
+        out.endArray().endObject().endObject();
+    }
+
+    // changes of vehicles that already exist
+    private void writeContClass(JsonWriter out, int time, int created, Random rnd) {
+        out.beginObject().name("type").value("set_cont_class").name("data").beginObject();
+        out.name("time").value(time).name("info").beginArray();
+        for (int i = 1 + rnd.nextInt(4); i > 0; i--) {
+            out.beginObject().name("vehicle").value("v" + rnd.nextInt(created));
+            out.name("class").value(rnd.nextInt(11)).endObject();
+        }
+        out.endArray().endObject().endObject();
+    }
+
+    private static Weather weather(Random rnd) {
+        Weather[] w = Weather.values();
+        return w[rnd.nextInt(w.length)];
+    }
+}
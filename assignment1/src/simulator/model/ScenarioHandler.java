@@ -0,0 +1,17 @@
+package simulator.model;
+
+// Receives the events of a compiled scenario (see ScenarioReader), in the
+// order of the file. Objects are given by the index of their id, see
+// ScenarioReader#getId, so that they can be kept in arrays instead of maps.
+public interface ScenarioHandler {
+
+    void newJunction(int time, int id, int x, int y, LightSwitchingStrategy lsStrategy, DequeuingStrategy dqStrategy);
+
+    void newRoad(int time, int id, boolean city, int src, int dest, int length, int co2Limit, int maxSpeed, Weather weather);
+
+    void newVehicle(int time, int id, int maxSpeed, int contClass, int[] itinerary);
+
+    void setWeather(int time, int[] roads, Weather[] weathers);
+
+    void setContClass(int time, int[] vehicles, int[] classes);
+}
@@ -0,0 +1,128 @@
+package simulator.model;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// The events of a scenario, loaded once and then replayed into any number of
+// ScenarioHandlers, e.g., one per variant of a ParameterSweep, from several
+// threads at once. It cannot be changed after loading, and each replay
+// creates new strategies, so replays do not share any mutable object (the
+// itinerary arrays are shared, handlers must not change them).
+//
+// The events are kept sorted by time (in file order within the same time),
+// so a simulation replays them tick by tick, see replay.
+public class ScenarioPlan {
+
+    private String[] ids;
+    private int[] times;
+    private String[] types; // of the events, as in the events file
+    private List<Consumer<ScenarioHandler>> events;
+
+    private ScenarioPlan(ScenarioReader in) {
+        this.ids = new String[in.getIdCount()];
+        for (int i = 0; i < ids.length; i++)
+            ids[i] = in.getId(i);
+        List<int[]> order = new ArrayList<>(); // {time, index}
+        List<Consumer<ScenarioHandler>> unsorted = new ArrayList<>();
+        List<String> unsortedTypes = new ArrayList<>();
+        in.read(new ScenarioHandler() {
+            @Override
+            public void newJunction(int time, int id, int x, int y, LightSwitchingStrategy lss, DequeuingStrategy dqs) {
+                boolean mostCrowded = lss instanceof MostCrowdedStrategy;
+                int timeSlot = mostCrowded ? ((MostCrowdedStrategy) lss).getTimeSlot() : ((RoundRobinStrategy) lss).getTimeSlot();
+                boolean moveAll = dqs instanceof MoveAllStrategy;
+                add(time, "new_junction", h -> h.newJunction(time, id, x, y, mostCrowded ? new MostCrowdedStrategy(timeSlot) : new RoundRobinStrategy(timeSlot),
+                        moveAll ? new MoveAllStrategy() : new MoveFirstStrategy()));
+            }
+
+            @Override
+            public void newRoad(int time, int id, boolean city, int src, int dest, int length, int co2Limit, int maxSpeed, Weather weather) {
+                add(time, city ? "new_city_road" : "new_inter_city_road", h -> h.newRoad(time, id, city, src, dest, length, co2Limit, maxSpeed, weather));
+            }
+
+            @Override
+            public void newVehicle(int time, int id, int maxSpeed, int contClass, int[] itinerary) {
+                add(time, "new_vehicle", h -> h.newVehicle(time, id, maxSpeed, contClass, itinerary));
+            }
+
+            @Override
+            public void setWeather(int time, int[] roads, Weather[] weathers) {
+                add(time, "set_weather", h -> h.setWeather(time, roads, weathers));
+            }
+
+            @Override
+            public void setContClass(int time, int[] vehicles, int[] classes) {
+                add(time, "set_cont_class", h -> h.setContClass(time, vehicles, classes));
+            }
+
+            private void add(int time, String type, Consumer<ScenarioHandler> e) {
+                order.add(new int[] { time, unsorted.size() });
+                unsorted.add(e);
+                unsortedTypes.add(type);
+            }
+        });
+        order.sort((a, b) -> Integer.compare(a[0], b[0])); // stable
+        this.times = new int[order.size()];
+        this.types = new String[order.size()];
+        this.events = new ArrayList<>(order.size());
+        for (int i = 0; i < times.length; i++) {
+            times[i] = order.get(i)[0];
+            types[i] = unsortedTypes.get(order.get(i)[1]);
+            events.add(unsorted.get(order.get(i)[1]));
+        }
+    }
+
+    // Loads an events file, JSON or compiled (see ScenarioWriter)
+    public static ScenarioPlan load(Path file) throws IOException {
+        if (ScenarioReader.isScenario(file)) {
+            try (ScenarioReader in = ScenarioReader.open(file)) {
+                return new ScenarioPlan(in);
+            }
+        }
+        Path compiled = Files.createTempFile("scenario", ".scn");
+        try {
+            ScenarioWriter.compile(new FileInputStream(file.toFile()), compiled);
+            try (ScenarioReader in = ScenarioReader.open(compiled)) {
+                return new ScenarioPlan(in);
+            }
+        } finally {
+            Files.deleteIfExists(compiled);
+        }
+    }
+
+    // Replays the events from position from up to the first one after time,
+    // returns the position of the next event. Each one is a JFR event too,
+    // see SimulationEvents.
+    public int replay(int from, int time, ScenarioHandler h) {
+        while (from < times.length && times[from] <= time) {
+            SimulationEvents.ApplyEvent e = new SimulationEvents.ApplyEvent();
+            e.begin();
+            events.get(from).accept(h);
+            e.end();
+            if (e.shouldCommit()) {
+                e.time = times[from];
+                e.type = types[from];
+                e.commit();
+            }
+            from++;
+        }
+        return from;
+    }
+
+    // Time of the event at position i, Integer.MAX_VALUE if there is none
+    public int getTime(int i) {
+        return i < times.length ? times[i] : Integer.MAX_VALUE;
+    }
+
+    public int getEventCount() { return times.length; }
+    public int getIdCount() { return ids.length; }
+
+    public String getId(int i) {
+        return ids[i];
+    }
+}
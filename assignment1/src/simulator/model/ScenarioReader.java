@@ -0,0 +1,195 @@
+package simulator.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import simulator.misc.VarIntReader;
+
+// Loads a scenario compiled by ScenarioWriter. The events are read straight
+// from the memory-mapped file and handed to a ScenarioHandler as ints, no
+// JSON is parsed and nothing is looked up by name. Events can be read all at
+// once or as the simulation reaches their time, see readUntil.
+public class ScenarioReader implements Closeable {
+
+    private static final Weather[] WEATHERS = Weather.values();
+
+    private FileChannel ch;
+    private IntBuffer events;
+    private String[] ids;
+    private int nEvents;
+    private int read; // events read so far
+
+    public ScenarioReader(FileChannel ch) throws IOException {
+        this.ch = ch;
+        long size = ch.size();
+        ByteBuffer header = ch.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, ScenarioWriter.HEADER_SIZE));
+        if (header.limit() < ScenarioWriter.HEADER_SIZE || header.getInt(0) != ScenarioWriter.MAGIC)
+            throw new IllegalArgumentException("Not a compiled scenario.");
+        if (header.getInt(4) != ScenarioWriter.VERSION)
+            throw new IllegalArgumentException("Unsupported scenario version: " + header.getInt(4));
+        this.nEvents = header.getInt(8);
+        int nIds = header.getInt(12);
+        long idsOffset = header.getLong(16);
+        if (idsOffset < ScenarioWriter.HEADER_SIZE || idsOffset > size || (idsOffset - ScenarioWriter.HEADER_SIZE) % 4 != 0)
+            throw new IllegalArgumentException("Malformed scenario: bad offset " + idsOffset + ".");
+
+        this.events = ch.map(FileChannel.MapMode.READ_ONLY, ScenarioWriter.HEADER_SIZE, idsOffset - ScenarioWriter.HEADER_SIZE).asIntBuffer();
+        VarIntReader in = new VarIntReader(ch.map(FileChannel.MapMode.READ_ONLY, idsOffset, size - idsOffset));
+        this.ids = new String[nIds];
+        for (int i = 0; i < nIds; i++)
+            ids[i] = in.readString();
+        this.read = 0;
+    }
+
+    public static ScenarioReader open(Path file) throws IOException {
+        return new ScenarioReader(FileChannel.open(file, StandardOpenOption.READ));
+    }
+
+    // True if the file starts like a compiled scenario (and not like JSON)
+    public static boolean isScenario(Path file) throws IOException {
+        try (FileChannel c = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer b = ByteBuffer.allocate(4);
+            while (b.hasRemaining() && c.read(b) >= 0)
+                ;
+            return !b.hasRemaining() && b.getInt(0) == ScenarioWriter.MAGIC;
+        }
+    }
+
+    public int getIdCount() { return ids.length; }
+
+    public String getId(int i) {
+        return ids[i];
+    }
+
+    public int getEventCount() { return nEvents; }
+
+    // Time of the next event, Integer.MAX_VALUE if all events have been read
+    public int nextTime() {
+        return read < nEvents ? events.get(events.position() + 1) : Integer.MAX_VALUE;
+    }
+
+    // Reads all the (remaining) events
+    public void read(ScenarioHandler h) {
+        readUntil(Integer.MAX_VALUE, h);
+    }
+
+    // Reads the events of the file up to the first one after time. Returns the
+    // number of events read.
+    public int readUntil(int time, ScenarioHandler h) {
+        int n = 0;
+        while (read < nEvents && nextTime() <= time) {
+            readEvent(h);
+            read++;
+            n++;
+        }
+        return n;
+    }
+
+    @Override
+    public void close() {
+        try {
+            ch.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void readEvent(ScenarioHandler h) {
+        IntBuffer in = events;
+        int tag = in.get();
+        int time = in.get();
+        switch (tag) {
+        case ScenarioWriter.JUNCTION: {
+            int id = id(in.get());
+            int x = in.get();
+            int y = in.get();
+            int lss = in.get();
+            int timeSlot = in.get();
+            int dqs = in.get();
+            LightSwitchingStrategy ls;
+            if (lss == ScenarioWriter.ROUND_ROBIN_LSS)
+                ls = new RoundRobinStrategy(timeSlot);
+            else if (lss == ScenarioWriter.MOST_CROWDED_LSS)
+                ls = new MostCrowdedStrategy(timeSlot);
+            else
+                throw malformed("light switching strategy " + lss);
+            DequeuingStrategy dq;
+            if (dqs == ScenarioWriter.MOVE_FIRST_DQS)
+                dq = new MoveFirstStrategy();
+            else if (dqs == ScenarioWriter.MOVE_ALL_DQS)
+                dq = new MoveAllStrategy();
+            else
+                throw malformed("dequeuing strategy " + dqs);
+            h.newJunction(time, id, x, y, ls, dq);
+            break;
+        }
+        case ScenarioWriter.CITY_ROAD:
+        case ScenarioWriter.INTER_CITY_ROAD: {
+            int id = id(in.get());
+            int src = id(in.get());
+            int dest = id(in.get());
+            int length = in.get();
+            int co2Limit = in.get();
+            int maxSpeed = in.get();
+            h.newRoad(time, id, tag == ScenarioWriter.CITY_ROAD, src, dest, length, co2Limit, maxSpeed, weather(in.get()));
+            break;
+        }
+        case ScenarioWriter.VEHICLE: {
+            int id = id(in.get());
+            int maxSpeed = in.get();
+            int contClass = in.get();
+            int[] itinerary = new int[in.get()];
+            for (int i = 0; i < itinerary.length; i++)
+                itinerary[i] = id(in.get());
+            h.newVehicle(time, id, maxSpeed, contClass, itinerary);
+            break;
+        }
+        case ScenarioWriter.SET_WEATHER: {
+            int n = in.get();
+            int[] roads = new int[n];
+            Weather[] weathers = new Weather[n];
+            for (int i = 0; i < n; i++) {
+                roads[i] = id(in.get());
+                weathers[i] = weather(in.get());
+            }
+            h.setWeather(time, roads, weathers);
+            break;
+        }
+        case ScenarioWriter.SET_CONT_CLASS: {
+            int n = in.get();
+            int[] vehicles = new int[n];
+            int[] classes = new int[n];
+            for (int i = 0; i < n; i++) {
+                vehicles[i] = id(in.get());
+                classes[i] = in.get();
+            }
+            h.setContClass(time, vehicles, classes);
+            break;
+        }
+        default:
+            throw malformed("record " + tag);
+        }
+    }
+
+    private int id(int i) {
+        if (i < 0 || i >= ids.length)
+            throw malformed("id " + i);
+        return i;
+    }
+
+    private static Weather weather(int w) {
+        if (w < 0 || w >= WEATHERS.length)
+            throw malformed("weather " + w);
+        return WEATHERS[w];
+    }
+
+    private static IllegalStateException malformed(String what) {
+        return new IllegalStateException("Malformed scenario: unknown " + what + ".");
+    }
+}
@@ -0,0 +1,231 @@
+package simulator.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import simulator.factories.EventStream;
+import simulator.misc.IdTable;
+import simulator.misc.VarIntWriter;
+
+// Compiles the events of an events file into a binary scenario that
+// ScenarioReader loads without parsing any JSON. Ids are interned, strategies
+// and weathers are resolved to codes and itineraries are arrays of ids.
+//
+// Format (all ints are 4 bytes, big endian):
+//
+//   header     MAGIC, VERSION, number of events, number of ids, offset of the
+//              ids (8 bytes)
+//   events     one record per event, a tag followed by its fields:
+//              JUNCTION         time, id, x, y, lss, lss timeslot, dqs
+//              CITY_ROAD        time, id, src, dest, length, co2 limit,
+//              INTER_CITY_ROAD    max speed, weather
+//              VEHICLE          time, id, max speed, class, n, n junction ids
+//              SET_WEATHER      time, n, n (road id, weather) pairs
+//              SET_CONT_CLASS   time, n, n (vehicle id, class) pairs
+//   ids        the interned ids, in order, see VarIntWriter#writeString
+//
+// The events section only has ints, so the reader sees it as an IntBuffer.
+public class ScenarioWriter implements Closeable {
+
+    static final int MAGIC = 0x53434E52; // "SCNR"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 24;
+
+    static final int JUNCTION = 1;
+    static final int CITY_ROAD = 2;
+    static final int INTER_CITY_ROAD = 3;
+    static final int VEHICLE = 4;
+    static final int SET_WEATHER = 5;
+    static final int SET_CONT_CLASS = 6;
+
+    static final int ROUND_ROBIN_LSS = 1;
+    static final int MOST_CROWDED_LSS = 2;
+    static final int MOVE_FIRST_DQS = 1;
+    static final int MOVE_ALL_DQS = 2;
+
+    private FileChannel ch;
+    private VarIntWriter out;
+    private IdTable ids;
+    private int[] record; // the event being written, only written when complete
+    private int length;
+    private int events;
+    private boolean closed;
+
+    public ScenarioWriter(FileChannel ch) {
+        this.ch = ch;
+        this.out = new VarIntWriter(ch);
+        this.ids = new IdTable();
+        this.record = new int[64];
+        this.events = 0;
+        this.closed = false;
+        for (int i = 0; i < HEADER_SIZE; i++)
+            out.writeByte(0); // written by close()
+    }
+
+    public static ScenarioWriter open(Path file) throws IOException {
+        return new ScenarioWriter(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+    }
+
+    // Compiles the events of an events file into file, returns the number of events
+    public static int compile(InputStream json, Path file) throws IOException {
+        try (EventStream<JSONObject> events = EventStream.ofJson(json); ScenarioWriter out = open(file)) {
+            while (events.hasNext())
+                out.write(events.next());
+            return out.getEventCount();
+        }
+    }
+
+    // Appends an element of the events array, {"type": ..., "data": {...}}
+    public void write(JSONObject event) {
+        if (closed)
+            throw new IllegalStateException("The scenario is closed.");
+        length = 0;
+        try {
+            String type = event.getString("type");
+            JSONObject data = event.getJSONObject("data");
+            switch (type) {
+            case "new_junction":
+                writeJunction(data);
+                break;
+            case "new_city_road":
+            case "new_inter_city_road":
+                put(type.equals("new_city_road") ? CITY_ROAD : INTER_CITY_ROAD);
+                put(data.getInt("time"));
+                put(intern(data.getString("id")));
+                put(intern(data.getString("src")));
+                put(intern(data.getString("dest")));
+                put(data.getInt("length"));
+                put(data.getInt("co2limit"));
+                put(data.getInt("maxspeed"));
+                put(weather(data.getString("weather")).ordinal());
+                break;
+            case "new_vehicle":
+                JSONArray it = data.getJSONArray("itinerary");
+                put(VEHICLE);
+                put(data.getInt("time"));
+                put(intern(data.getString("id")));
+                put(data.getInt("maxspeed"));
+                put(data.getInt("class"));
+                put(it.length());
+                for (int i = 0; i < it.length(); i++)
+                    put(intern(it.getString(i)));
+                break;
+            case "set_weather":
+                writePairs(SET_WEATHER, data, "road", "weather");
+                break;
+            case "set_cont_class":
+                writePairs(SET_CONT_CLASS, data, "vehicle", "class");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown event type: " + type);
+            }
+        } catch (JSONException e) {
+            throw new IllegalArgumentException("Invalid event: " + event, e);
+        }
+        for (int i = 0; i < length; i++)
+            out.writeInt(record[i]);
+        events++;
+    }
+
+    public int getEventCount() { return events; }
+
+    // Writes the ids and the header
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        long idsOffset = out.position();
+        for (int i = 0; i < ids.size(); i++)
+            out.writeString(ids.get(i));
+        out.flush();
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(events).putInt(ids.size()).putLong(idsOffset).flip();
+        try {
+            while (header.hasRemaining())
+                ch.write(header, header.position());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        out.close();
+    }
+
+    private void writeJunction(JSONObject data) {
+        JSONObject lss = data.getJSONObject("ls_strategy");
+        JSONObject dqs = data.getJSONObject("dq_strategy");
+        JSONArray coor = data.getJSONArray("coor");
+        int ls;
+        switch (lss.getString("type")) {
+        case "round_robin_lss":
+            ls = ROUND_ROBIN_LSS;
+            break;
+        case "most_crowded_lss":
+            ls = MOST_CROWDED_LSS;
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown light switching strategy: " + lss.getString("type"));
+        }
+        int dq;
+        switch (dqs.getString("type")) {
+        case "move_first_dqs":
+            dq = MOVE_FIRST_DQS;
+            break;
+        case "move_all_dqs":
+            dq = MOVE_ALL_DQS;
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown dequeuing strategy: " + dqs.getString("type"));
+        }
+        put(JUNCTION);
+        put(data.getInt("time"));
+        put(intern(data.getString("id")));
+        put(coor.getInt(0));
+        put(coor.getInt(1));
+        put(ls);
+        put(lss.getJSONObject("data").optInt("timeslot", 1));
+        put(dq);
+    }
+
+    // {"time": t, "info": [{key: id, value: ...}, ...]}
+    private void writePairs(int tag, JSONObject data, String key, String value) {
+        JSONArray info = data.getJSONArray("info");
+        put(tag);
+        put(data.getInt("time"));
+        put(info.length());
+        for (int i = 0; i < info.length(); i++) {
+            JSONObject o = info.getJSONObject(i);
+            put(intern(o.getString(key)));
+            put(tag == SET_WEATHER ? weather(o.getString(value)).ordinal() : o.getInt(value));
+        }
+    }
+
+    private void put(int v) {
+        if (length == record.length)
+            record = Arrays.copyOf(record, length * 2);
+        record[length++] = v;
+    }
+
+    private static Weather weather(String s) {
+        try {
+            return Weather.valueOf(s.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown weather: " + s);
+        }
+    }
+
+    private int intern(String id) {
+        return ids.intern(id);
+    }
+}
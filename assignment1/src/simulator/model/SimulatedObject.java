@@ -2,15 +2,55 @@ package simulator.model;
 
 import org.json.JSONObject;
 
+import simulator.misc.JsonWriter;
+
 public abstract class SimulatedObject {
 
 	protected String _id;
+	private boolean _dirty;
+	private int _index; // -1 until an engine registers the object
 
 	SimulatedObject(String id) {
 		if (id == null || id.isBlank())
 			throw new IllegalArgumentException("the 'id' must be a nonempty string.");
 		else
 			_id = id;
+		_dirty = true; // a new object has not been reported yet
+		_index = -1;
+	}
+
+	// Dense index of the object, given by the engine that registers it (see
+	// ColumnarEngine and RegionPartition) so that it keeps the data of each
+	// object in arrays instead of hash maps. Only the last engine that
+	// registered the object can use it: engines check that the object at that
+	// index is this one.
+	int getIndex() {
+		return _index;
+	}
+
+	void setIndex(int index) {
+		_index = index;
+	}
+
+	// True if the report of the object may have changed since the last
+	// clearDirty(), subclasses call markDirty() whenever a reported field
+	// changes. Used to write delta reports (see DeltaStatesWriter).
+	boolean isDirty() {
+		return _dirty;
+	}
+
+	void markDirty() {
+		_dirty = true;
+	}
+
+	void clearDirty() {
+		_dirty = false;
+	}
+
+	// Brings the object up to date if a scheduler skipped some ticks of it
+	// (see ActiveSetEngine), marking it dirty if its report changed. Called
+	// before the object is reported or captured.
+	void sync() {
 	}
 
 	public String getId() {
@@ -25,4 +65,7 @@ public abstract class SimulatedObject {
 	abstract void advance(int time);
 
 	abstract public JSONObject report();
+
+	// Writes the same as report() to out, without creating any JSONObject
+	abstract public void report(JsonWriter out);
 }
@@ -0,0 +1,154 @@
+package simulator.model;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Java Flight Recorder events of the simulation, so a recording shows ticks,
+// their phases, light switches, dequeued vehicles and applied events next to
+// GC pauses and allocations.
+//
+// Events are enabled or disabled by the recording settings, not by the code,
+// e.g., to record them in a running JVM:
+//
+//   jcmd <pid> JFR.start settings=default settings=resources/jfr/simulator.jfc filename=run.jfr
+//
+// Ticks and phases are enabled by default. Light switches, dequeues and
+// applied events happen for each junction or event, so they are disabled
+// unless a settings file (like simulator.jfc) enables them. While a type is
+// disabled its events are only created and dropped, which the JIT removes.
+public class SimulationEvents {
+
+    @Name("simulator.Tick")
+    @Label("Tick")
+    @Category("Simulator")
+    @StackTrace(false)
+    public static class TickEvent extends Event {
+        @Label("Time")
+        int time;
+
+        // Starts the tick, also in stats if it is not null
+        public static TickEvent begin(int time, TickStats stats) {
+            if (stats != null)
+                stats.startTick();
+            TickEvent e = new TickEvent();
+            e.time = time;
+            e.begin();
+            return e;
+        }
+
+        public void finish(TickStats stats) {
+            end();
+            if (shouldCommit())
+                commit();
+            if (stats != null)
+                stats.endTick();
+        }
+    }
+
+    @Name("simulator.Phase")
+    @Label("Tick Phase")
+    @Category("Simulator")
+    @StackTrace(false)
+    public static class PhaseEvent extends Event {
+        @Label("Time")
+        int time;
+        @Label("Phase")
+        String phase;
+        transient TickStats.Phase p; // not recorded
+
+        // Starts the phase, also in stats if it is not null
+        public static PhaseEvent begin(int time, TickStats.Phase phase, TickStats stats) {
+            if (stats != null)
+                stats.start(phase);
+            PhaseEvent e = new PhaseEvent();
+            e.time = time;
+            e.phase = phase.name();
+            e.p = phase;
+            e.begin();
+            return e;
+        }
+
+        public void finish(TickStats stats) {
+            end();
+            if (shouldCommit())
+                commit();
+            if (stats != null)
+                stats.end(p);
+        }
+    }
+
+    @Name("simulator.LightSwitch")
+    @Label("Light Switch")
+    @Description("A junction switched its green light")
+    @Category("Simulator")
+    @Enabled(false)
+    @StackTrace(false)
+    static class LightSwitchEvent extends Event {
+        @Label("Junction")
+        String junction;
+        @Label("Time")
+        int time;
+        @Label("Old Green")
+        @Description("Index of the incoming road that was green, -1 if none")
+        int oldGreen;
+        @Label("New Green")
+        int newGreen;
+
+        static void emit(Junction j, int time, int oldGreen, int newGreen) {
+            LightSwitchEvent e = new LightSwitchEvent();
+            if (e.shouldCommit()) {
+                e.junction = j.getId();
+                e.time = time;
+                e.oldGreen = oldGreen;
+                e.newGreen = newGreen;
+                e.commit();
+            }
+        }
+    }
+
+    @Name("simulator.Dequeue")
+    @Label("Dequeue")
+    @Description("Vehicles moved out of the green queue of a junction")
+    @Category("Simulator")
+    @Enabled(false)
+    @StackTrace(false)
+    static class DequeueEvent extends Event {
+        @Label("Junction")
+        String junction;
+        @Label("Time")
+        int time;
+        @Label("Queue")
+        int queue;
+        @Label("Vehicles")
+        int vehicles;
+
+        static void emit(Junction j, int time, int queue, int vehicles) {
+            DequeueEvent e = new DequeueEvent();
+            if (e.shouldCommit()) {
+                e.junction = j.getId();
+                e.time = time;
+                e.queue = queue;
+                e.vehicles = vehicles;
+                e.commit();
+            }
+        }
+    }
+
+    @Name("simulator.ApplyEvent")
+    @Label("Apply Event")
+    @Description("An event of the scenario applied to the simulation")
+    @Category("Simulator")
+    @Enabled(false)
+    @StackTrace(false)
+    static class ApplyEvent extends Event {
+        @Label("Time")
+        int time;
+        @Label("Type")
+        String type;
+    }
+}
@@ -0,0 +1,218 @@
+package simulator.model;
+
+import java.util.List;
+
+import simulator.misc.JsonWriter;
+
+// An immutable copy of the state of all objects at some time, with the same
+// content as RoadMap#report. Fields are copied into a few flat arrays (ids
+// are immutable strings, so only the references are copied), which is cheap
+// to capture on the simulation thread and can be written to JSON later on
+// another thread (see AsyncStatesWriter), or encoded in a binary log (see
+// TrajectoryLogWriter).
+public final class StateSnapshot {
+
+    final int time;
+
+    // Roads
+    final String[] roadIds;
+    final int[] speedLimits;
+    final Weather[] weathers;
+    final int[] roadCO2;
+    final int[] roadVehiclesEnd; // vehicles of road i are roadVehicles[end[i - 1], end[i])
+    final String[] roadVehicles;
+
+    // Vehicles
+    final String[] vehicleIds;
+    final int[] vehicleInts; // speed, distance, co2, class and location of each vehicle
+    final VehicleStatus[] statuses;
+    final String[] vehicleRoads;
+
+    // Junctions
+    final String[] junctionIds;
+    final String[] greens;
+    final int[] queuesEnd; // queues of junction i are queueRoads[end[i - 1], end[i])
+    final String[] queueRoads;
+    final int[] queueVehiclesEnd; // vehicles of queue q are queueVehicles[end[q - 1], end[q])
+    final String[] queueVehicles;
+
+    static final int VEHICLE_INTS = 5;
+
+    private StateSnapshot(int time, List<Road> roads, List<Vehicle> vehicles, List<Junction> junctions) {
+        this.time = time;
+
+        int nr = roads.size();
+        roadIds = new String[nr];
+        speedLimits = new int[nr];
+        weathers = new Weather[nr];
+        roadCO2 = new int[nr];
+        roadVehiclesEnd = new int[nr];
+        int n = 0;
+        for (int i = 0; i < nr; i++) {
+            roads.get(i).sync(); // if skipped by a scheduler
+            n += roads.get(i).getVehicles().size();
+            roadVehiclesEnd[i] = n;
+        }
+        roadVehicles = new String[n];
+        n = 0;
+        for (int i = 0; i < nr; i++) {
+            Road r = roads.get(i);
+            roadIds[i] = r.getId();
+            speedLimits[i] = r.getSpeedLimit();
+            weathers[i] = r.getWeather();
+            roadCO2[i] = r.getTotalCO2();
+            List<Vehicle> vs = r.getVehicles();
+            for (int k = 0; k < vs.size(); k++)
+                roadVehicles[n++] = vs.get(k).getId();
+        }
+
+        int nv = vehicles.size();
+        vehicleIds = new String[nv];
+        vehicleInts = new int[nv * VEHICLE_INTS];
+        statuses = new VehicleStatus[nv];
+        vehicleRoads = new String[nv];
+        for (int i = 0; i < nv; i++) {
+            Vehicle v = vehicles.get(i);
+            int b = i * VEHICLE_INTS;
+            vehicleIds[i] = v.getId();
+            vehicleInts[b] = v.getSpeed();
+            vehicleInts[b + 1] = v.getTotalDistance();
+            vehicleInts[b + 2] = v.getTotalCO2();
+            vehicleInts[b + 3] = v.getContClass();
+            vehicleInts[b + 4] = v.getLocation();
+            statuses[i] = v.getStatus();
+            vehicleRoads[i] = v.getRoad() == null ? null : v.getRoad().getId();
+        }
+
+        int nj = junctions.size();
+        junctionIds = new String[nj];
+        greens = new String[nj];
+        queuesEnd = new int[nj];
+        int nq = 0;
+        n = 0;
+        for (int i = 0; i < nj; i++) {
+            Junction j = junctions.get(i);
+            j.sync(); // if skipped by a scheduler
+            int in = j.getIncomingRoads().size();
+            for (int q = 0; q < in; q++)
+                n += j.getQueue(q).size();
+            nq += in;
+            queuesEnd[i] = nq;
+        }
+        queueRoads = new String[nq];
+        queueVehiclesEnd = new int[nq];
+        queueVehicles = new String[n];
+        nq = 0;
+        n = 0;
+        for (int i = 0; i < nj; i++) {
+            Junction j = junctions.get(i);
+            List<Road> in = j.getIncomingRoads();
+            junctionIds[i] = j.getId();
+            greens[i] = j.getGreenLightIndex() == -1 ? "none" : in.get(j.getGreenLightIndex()).getId();
+            for (int q = 0; q < in.size(); q++) {
+                List<Vehicle> queue = j.getQueue(q);
+                for (int k = 0; k < queue.size(); k++)
+                    queueVehicles[n++] = queue.get(k).getId();
+                queueRoads[nq] = in.get(q).getId();
+                queueVehiclesEnd[nq++] = n;
+            }
+        }
+    }
+
+    // From decoded arrays (see TrajectoryLogReader), they are not copied
+    StateSnapshot(int time, String[] roadIds, int[] speedLimits, Weather[] weathers, int[] roadCO2, int[] roadVehiclesEnd, String[] roadVehicles,
+            String[] vehicleIds, int[] vehicleInts, VehicleStatus[] statuses, String[] vehicleRoads,
+            String[] junctionIds, String[] greens, int[] queuesEnd, String[] queueRoads, int[] queueVehiclesEnd, String[] queueVehicles) {
+        this.time = time;
+        this.roadIds = roadIds;
+        this.speedLimits = speedLimits;
+        this.weathers = weathers;
+        this.roadCO2 = roadCO2;
+        this.roadVehiclesEnd = roadVehiclesEnd;
+        this.roadVehicles = roadVehicles;
+        this.vehicleIds = vehicleIds;
+        this.vehicleInts = vehicleInts;
+        this.statuses = statuses;
+        this.vehicleRoads = vehicleRoads;
+        this.junctionIds = junctionIds;
+        this.greens = greens;
+        this.queuesEnd = queuesEnd;
+        this.queueRoads = queueRoads;
+        this.queueVehiclesEnd = queueVehiclesEnd;
+        this.queueVehicles = queueVehicles;
+    }
+
+    public static StateSnapshot capture(int time, List<Road> roads, List<Vehicle> vehicles, List<Junction> junctions) {
+        return new StateSnapshot(time, roads, vehicles, junctions);
+    }
+
+    public int getTime() {
+        return time;
+    }
+
+    // Writes {"time": t, "state": {...}}, the same as StatesWriter#write
+    public void write(JsonWriter out) {
+        out.beginObject();
+        out.name("time").value(time);
+        out.name("state").beginObject();
+
+        out.name("roads").beginArray();
+        for (int i = 0; i < roadIds.length; i++) {
+            out.beginObject();
+            out.name("id").value(roadIds[i]);
+            out.name("speedlimit").value(speedLimits[i]);
+            out.name("weather").value(weathers[i].toString());
+            out.name("co2").value(roadCO2[i]);
+            out.name("vehicles");
+            writeIds(out, roadVehicles, i == 0 ? 0 : roadVehiclesEnd[i - 1], roadVehiclesEnd[i]);
+            out.endObject();
+        }
+        out.endArray();
+
+        out.name("vehicles").beginArray();
+        for (int i = 0; i < vehicleIds.length; i++) {
+            int b = i * VEHICLE_INTS;
+            out.beginObject();
+            out.name("id").value(vehicleIds[i]);
+            out.name("speed").value(vehicleInts[b]);
+            out.name("distance").value(vehicleInts[b + 1]);
+            out.name("co2").value(vehicleInts[b + 2]);
+            out.name("class").value(vehicleInts[b + 3]);
+            out.name("status").value(statuses[i].toString());
+            if (statuses[i] == VehicleStatus.TRAVELING || statuses[i] == VehicleStatus.WAITING) {
+                out.name("road").value(vehicleRoads[i]);
+                out.name("location").value(vehicleInts[b + 4]);
+            }
+            out.endObject();
+        }
+        out.endArray();
+
+        out.name("junctions").beginArray();
+        for (int i = 0; i < junctionIds.length; i++) {
+            out.beginObject();
+            out.name("id").value(junctionIds[i]);
+            out.name("green").value(greens[i]);
+            out.name("queues").beginArray();
+            for (int q = i == 0 ? 0 : queuesEnd[i - 1]; q < queuesEnd[i]; q++) {
+                out.beginObject();
+                out.name("road").value(queueRoads[q]);
+                out.name("vehicles");
+                writeIds(out, queueVehicles, q == 0 ? 0 : queueVehiclesEnd[q - 1], queueVehiclesEnd[q]);
+                out.endObject();
+            }
+            out.endArray();
+            out.endObject();
+        }
+        out.endArray();
+
+        out.endObject();
+        out.endObject();
+    }
+
+    private static void writeIds(JsonWriter out, String[] ids, int from, int to) {
+        out.beginArray();
+        for (int i = from; i < to; i++)
+            out.value(ids[i]);
+        out.endArray();
+    }
+}
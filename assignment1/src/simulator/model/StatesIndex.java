@@ -0,0 +1,234 @@
+package simulator.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+// Random access to the states of a JSON output file through its sidecar
+// index (see StatesIndexWriter), without reading the file from the start.
+//
+// A lookup finds the last indexed state at or before the wanted time with a
+// binary search on the (mapped) index, and then walks the states that follow
+// it in the (mapped) output, only matching brackets, up to the wanted one. At
+// most interval - 1 states are skipped, so the cost does not depend on the
+// size of the file. Only a window of the output is mapped at a time, so files
+// larger than 2 GB are fine.
+public class StatesIndex implements Closeable {
+
+    private static final int WINDOW = 1 << 26; // bytes of the output mapped at a time
+    private static final byte[] TIME_KEY = "{\"time\":".getBytes(StandardCharsets.US_ASCII);
+
+    private FileChannel json;
+    private long size;
+    private ByteBuffer entries;
+    private int interval;
+    private int n;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    public StatesIndex(Path jsonFile, Path indexFile) throws IOException {
+        try (FileChannel idx = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            this.entries = idx.map(FileChannel.MapMode.READ_ONLY, 0, idx.size());
+        }
+        if (entries.limit() < StatesIndexWriter.HEADER_SIZE || entries.getInt(0) != StatesIndexWriter.MAGIC)
+            throw new IllegalArgumentException("Not a states index: " + indexFile);
+        if (entries.getInt(4) != StatesIndexWriter.VERSION)
+            throw new IllegalArgumentException("Unsupported states index version: " + entries.getInt(4));
+        this.interval = entries.getInt(8);
+        this.n = entries.getInt(12);
+        if (entries.limit() != StatesIndexWriter.HEADER_SIZE + (long) n * StatesIndexWriter.ENTRY_SIZE)
+            throw new IllegalArgumentException("Truncated states index: " + indexFile);
+
+        this.json = FileChannel.open(jsonFile, StandardOpenOption.READ);
+        this.size = json.size();
+        this.window = null;
+        this.windowStart = 0;
+    }
+
+    public static StatesIndex open(Path jsonFile) throws IOException {
+        return new StatesIndex(jsonFile, indexFile(jsonFile));
+    }
+
+    // The sidecar of an output file, e.g., ex1.out.json.idx
+    public static Path indexFile(Path jsonFile) {
+        return jsonFile.resolveSibling(jsonFile.getFileName() + ".idx");
+    }
+
+    // The state at time, {"time": t, "state": {...}}, or null if there is none
+    public JSONObject getState(int time) {
+        long pos = startOffset(time);
+        while (pos >= 0) {
+            long start = nextState(pos);
+            if (start < 0)
+                return null;
+            long end = endOf(start);
+            int t = timeOf(start, end);
+            if (t == time)
+                return parse(start, end);
+            if (t > time)
+                return null;
+            pos = end;
+        }
+        return null;
+    }
+
+    // The reports of the object with the given id (a road, vehicle or
+    // junction) from time from to time to, as [{"time": t, "state": {...}}, ...].
+    // Times where the object does not exist are left out.
+    public JSONArray getObjectStates(String id, int from, int to) {
+        JSONArray result = new JSONArray();
+        long pos = startOffset(from);
+        if (pos < 0)
+            pos = n == 0 ? -1 : offset(0); // from is before the first indexed state
+        while (pos >= 0) {
+            long start = nextState(pos);
+            if (start < 0)
+                break;
+            long end = endOf(start);
+            int t = timeOf(start, end);
+            if (t > to)
+                break;
+            if (t >= from) {
+                JSONObject o = find(parse(start, end).getJSONObject("state"), id);
+                if (o != null)
+                    result.put(new JSONObject().put("time", t).put("state", o));
+            }
+            pos = end;
+        }
+        return result;
+    }
+
+    public int getInterval() { return interval; }
+
+    @Override
+    public void close() {
+        try {
+            json.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static JSONObject find(JSONObject state, String id) {
+        for (String kind : new String[] { "roads", "vehicles", "junctions" }) {
+            JSONArray a = state.getJSONArray(kind);
+            for (int i = 0; i < a.length(); i++) {
+                if (a.getJSONObject(i).getString("id").equals(id))
+                    return a.getJSONObject(i);
+            }
+        }
+        return null;
+    }
+
+    private int time(int i) {
+        return entries.getInt(StatesIndexWriter.HEADER_SIZE + i * StatesIndexWriter.ENTRY_SIZE);
+    }
+
+    private long offset(int i) {
+        return entries.getLong(StatesIndexWriter.HEADER_SIZE + i * StatesIndexWriter.ENTRY_SIZE + 4);
+    }
+
+    // Offset of the last indexed state at or before time, -1 if there is none
+    private long startOffset(int time) {
+        int lo = 0, hi = n - 1, found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (time(mid) <= time) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found == -1 ? -1 : offset(found);
+    }
+
+    // Skips separators, returns where the next state starts or -1 at the end of the states
+    private long nextState(long pos) {
+        while (pos < size) {
+            int b = at(pos);
+            if (b == '{')
+                return pos;
+            if (b != ',' && b != ' ' && b != '\n' && b != '\r' && b != '\t')
+                return -1;
+            pos++;
+        }
+        return -1;
+    }
+
+    // Where the object that starts at start ends (exclusive)
+    private long endOf(long start) {
+        int depth = 0;
+        boolean inString = false;
+        for (long pos = start; pos < size; pos++) {
+            int b = at(pos);
+            if (inString) {
+                if (b == '\\')
+                    pos++;
+                else if (b == '"')
+                    inString = false;
+            } else if (b == '"') {
+                inString = true;
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                if (--depth == 0)
+                    return pos + 1;
+            }
+        }
+        throw new IllegalStateException("Truncated state at offset " + start + ".");
+    }
+
+    // StatesWriter writes the time first, otherwise the state is parsed
+    private int timeOf(long start, long end) {
+        long pos = start;
+        for (byte k : TIME_KEY) {
+            if (pos >= end || at(pos++) != k)
+                return parse(start, end).getInt("time");
+        }
+        boolean negative = at(pos) == '-';
+        if (negative)
+            pos++;
+        int t = 0;
+        while (pos < end && at(pos) >= '0' && at(pos) <= '9')
+            t = t * 10 + at(pos++) - '0';
+        return negative ? -t : t;
+    }
+
+    private JSONObject parse(long start, long end) {
+        if (end - start > Integer.MAX_VALUE)
+            throw new IllegalStateException("State at offset " + start + " is too large.");
+        ByteBuffer b = ByteBuffer.allocate((int) (end - start));
+        try {
+            while (b.hasRemaining()) {
+                if (json.read(b, start + b.position()) < 0)
+                    throw new IllegalStateException("Truncated state at offset " + start + ".");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new JSONObject(new String(b.array(), StandardCharsets.UTF_8));
+    }
+
+    private int at(long pos) {
+        if (window == null || pos < windowStart || pos >= windowStart + window.limit()) {
+            try {
+                windowStart = pos;
+                window = json.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(WINDOW, size - pos));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return window.get((int) (pos - windowStart));
+    }
+}
@@ -0,0 +1,84 @@
+package simulator.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Keeps the offset in the output of every interval-th state written by
+// StatesWriter (or AsyncStatesWriter), and writes them to a sidecar file when
+// closed (see StatesIndex for the lookups):
+//
+//   MAGIC, VERSION, interval, n (4 bytes each), and n entries of
+//   time (4 bytes) and offset (8 bytes), in increasing order of time
+public class StatesIndexWriter implements Closeable {
+
+    static final int MAGIC = 0x53494458; // "SIDX"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int ENTRY_SIZE = 12;
+
+    private Path file;
+    private int interval;
+    private int states; // states seen so far
+    private int lastTime;
+    private int n; // entries
+    private int[] times;
+    private long[] offsets;
+    private boolean closed;
+
+    public StatesIndexWriter(Path file, int interval) {
+        if (interval <= 0)
+            throw new IllegalArgumentException("Index interval must be positive.");
+        this.file = file;
+        this.interval = interval;
+        this.states = 0;
+        this.n = 0;
+        this.times = new int[64];
+        this.offsets = new long[64];
+        this.closed = false;
+    }
+
+    // Called for every state, with the offset where the state starts (a
+    // separator may come before it)
+    void add(int time, long offset) {
+        if (states > 0 && time <= lastTime)
+            throw new IllegalArgumentException("Times must be increasing.");
+        lastTime = time;
+        if (states++ % interval != 0)
+            return;
+        if (n == times.length) {
+            times = Arrays.copyOf(times, n * 2);
+            offsets = Arrays.copyOf(offsets, n * 2);
+        }
+        times[n] = time;
+        offsets[n] = offset;
+        n++;
+    }
+
+    public int getInterval() { return interval; }
+    public int getEntries() { return n; }
+
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + n * ENTRY_SIZE);
+        buf.putInt(MAGIC).putInt(VERSION).putInt(interval).putInt(n);
+        for (int i = 0; i < n; i++)
+            buf.putInt(times[i]).putLong(offsets[i]);
+        buf.flip();
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buf.hasRemaining())
+                ch.write(buf);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
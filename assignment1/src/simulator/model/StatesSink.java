@@ -0,0 +1,15 @@
+package simulator.model;
+
+import java.io.Closeable;
+import java.util.List;
+
+// Where a simulation writes the state of each tick: StatesWriter,
+// DeltaStatesWriter, AsyncStatesWriter or TrajectoryLogWriter, see
+// BatchSimulation. close() ends the output.
+public interface StatesSink extends Closeable {
+
+    void write(int time, List<Road> roads, List<Vehicle> vehicles, List<Junction> junctions);
+
+    @Override
+    void close();
+}
@@ -0,0 +1,83 @@
+package simulator.model;
+
+import java.io.OutputStream;
+import java.util.List;
+
+import simulator.misc.JsonWriter;
+
+// Writes the output of batch mode, {"states": [{"time": t, "state": {...}}, ...]},
+// straight from the simulated objects (see SimulatedObject#report(JsonWriter)).
+// The state of each tick has the same content as RoadMap#report, but no
+// JSONObject is created, and the same writer (and buffer) is used for all
+// ticks. Optionally, the offsets of the states are indexed (see StatesIndex).
+public class StatesWriter implements StatesSink {
+
+    private JsonWriter out;
+    private StatesIndexWriter index; // null if not indexed
+    private boolean closed;
+
+    public StatesWriter(OutputStream os) {
+        this(new JsonWriter(os), null);
+    }
+
+    public StatesWriter(OutputStream os, StatesIndexWriter index) {
+        this(new JsonWriter(os), index);
+    }
+
+    public StatesWriter(JsonWriter out, StatesIndexWriter index) {
+        this.out = out;
+        this.index = index;
+        this.closed = false;
+        out.beginObject();
+        out.name("states").beginArray();
+    }
+
+    // Appends the state of the given objects at time
+    @Override
+    public void write(int time, List<Road> roads, List<Vehicle> vehicles, List<Junction> junctions) {
+        if (closed)
+            throw new IllegalStateException("The writer is closed.");
+        if (index != null)
+            index.add(time, out.position());
+        out.beginObject();
+        out.name("time").value(time);
+        out.name("state");
+        writeState(out, roads, vehicles, junctions);
+        out.endObject();
+    }
+
+    // Writes {"roads": [...], "vehicles": [...], "junctions": [...]}
+    static void writeState(JsonWriter out, List<Road> roads, List<Vehicle> vehicles, List<Junction> junctions) {
+        out.beginObject();
+        out.name("roads").beginArray();
+        for (int i = 0; i < roads.size(); i++)
+            roads.get(i).report(out);
+        out.endArray();
+        out.name("vehicles").beginArray();
+        for (int i = 0; i < vehicles.size(); i++)
+            vehicles.get(i).report(out);
+        out.endArray();
+        out.name("junctions").beginArray();
+        for (int i = 0; i < junctions.size(); i++)
+            junctions.get(i).report(out);
+        out.endArray();
+        out.endObject();
+    }
+
+    public void flush() {
+        out.flush();
+    }
+
+    // Ends the states array and closes the stream (and the index)
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        out.endArray();
+        out.endObject();
+        out.close();
+        if (index != null)
+            index.close();
+    }
+}
@@ -0,0 +1,116 @@
+package simulator.model;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import simulator.misc.LatencyHistogram;
+
+// Times the phases of every tick (events, junctions, roads and reports) and of
+// the whole tick, in nanoseconds, and counts the bytes allocated in each
+// phase by the thread that runs it, e.g.,
+//
+//   stats.startTick();
+//   stats.start(TickStats.Phase.JUNCTIONS);
+//   ... advance the junctions ...
+//   stats.end(TickStats.Phase.JUNCTIONS);
+//   ...
+//   stats.endTick();
+//
+// Durations go into LatencyHistograms, so recording never allocates. The
+// code that runs ticks takes a TickStats that is null when the statistics
+// are disabled, so they cost one null check per phase.
+//
+// It belongs to the thread that runs the ticks. Allocations of other threads
+// (e.g., the workers of a ParallelTickEngine) are not counted.
+public class TickStats {
+
+    public enum Phase { EVENTS, JUNCTIONS, ROADS, REPORTS }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final LatencyHistogram ticks;
+    private final LatencyHistogram[] phases;
+    private final long[] allocated;
+    private final com.sun.management.ThreadMXBean allocations; // null if they cannot be measured
+
+    private long tickStart;
+    private long phaseStart;
+    private long allocStart;
+
+    public TickStats() {
+        this.ticks = new LatencyHistogram();
+        this.phases = new LatencyHistogram[PHASES.length];
+        for (int i = 0; i < phases.length; i++)
+            phases[i] = new LatencyHistogram();
+        this.allocated = new long[PHASES.length];
+        this.allocations = allocationBean();
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean))
+            return null;
+        com.sun.management.ThreadMXBean b = (com.sun.management.ThreadMXBean) bean;
+        if (!b.isThreadAllocatedMemorySupported())
+            return null;
+        if (!b.isThreadAllocatedMemoryEnabled())
+            b.setThreadAllocatedMemoryEnabled(true);
+        return b;
+    }
+
+    public void startTick() {
+        tickStart = System.nanoTime();
+    }
+
+    public void endTick() {
+        ticks.record(System.nanoTime() - tickStart);
+    }
+
+    // Phases do not nest, a phase must end before the next one starts
+    public void start(Phase p) {
+        allocStart = allocatedBytes();
+        phaseStart = System.nanoTime();
+    }
+
+    public void end(Phase p) {
+        long t = System.nanoTime();
+        phases[p.ordinal()].record(t - phaseStart);
+        if (allocations != null)
+            allocated[p.ordinal()] += allocatedBytes() - allocStart;
+    }
+
+    private long allocatedBytes() {
+        return allocations == null ? 0 : allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    // Adds the statistics of s, e.g., to merge the ones of several runs
+    public void add(TickStats s) {
+        ticks.add(s.ticks);
+        for (int i = 0; i < phases.length; i++) {
+            phases[i].add(s.phases[i]);
+            allocated[i] += s.allocated[i];
+        }
+    }
+
+    public LatencyHistogram getTicks() { return ticks; }
+    public LatencyHistogram getPhase(Phase p) { return phases[p.ordinal()]; }
+    public long getAllocatedBytes(Phase p) { return allocated[p.ordinal()]; }
+    public boolean isAllocationMeasured() { return allocations != null; }
+
+    // A table with a row per phase and one for the whole tick, times in
+    // microseconds (totals in milliseconds)
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder(String.format("%-10s %8s %10s %10s %10s %10s %12s%n", "phase", "count", "p50_us", "p99_us",
+                "max_us", "total_ms", "alloc_kb"));
+        for (Phase p : PHASES)
+            row(s, p.name().toLowerCase(), phases[p.ordinal()], isAllocationMeasured() ? String.valueOf(allocated[p.ordinal()] / 1024) : "-");
+        row(s, "tick", ticks, "");
+        return s.toString();
+    }
+
+    private static void row(StringBuilder s, String name, LatencyHistogram h, String alloc) {
+        s.append(String.format("%-10s %8d %10.1f %10.1f %10.1f %10.1f %12s%n", name, h.getCount(), h.getPercentile(50) / 1e3,
+                h.getPercentile(99) / 1e3, h.getMax() / 1e3, h.getSum() / 1e6, alloc));
+    }
+}
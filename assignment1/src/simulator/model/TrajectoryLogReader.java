@@ -0,0 +1,210 @@
+package simulator.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import simulator.misc.JsonWriter;
+import simulator.misc.VarIntReader;
+
+// Reads the states of a log written by TrajectoryLogWriter, one tick at a
+// time, without simulating anything. A log that ends without END (e.g., the
+// simulation was killed) is read up to its last complete tick.
+public class TrajectoryLogReader implements Iterator<StateSnapshot>, Closeable {
+
+    private static final Weather[] WEATHERS = Weather.values();
+    private static final VehicleStatus[] STATUSES = VehicleStatus.values();
+
+    private VarIntReader in;
+    private ReadableByteChannel ch; // null if reading from a buffer
+    private List<String> ids;
+    private StateSnapshot prev;
+    private int next; // tag of the next record, -1 if not read yet
+
+    public TrajectoryLogReader(ReadableByteChannel ch) {
+        this(new VarIntReader(ch), ch);
+    }
+
+    public TrajectoryLogReader(ByteBuffer buf) {
+        this(new VarIntReader(buf), null);
+    }
+
+    private TrajectoryLogReader(VarIntReader in, ReadableByteChannel ch) {
+        this.in = in;
+        this.ch = ch;
+        this.ids = new ArrayList<>();
+        this.prev = StateSnapshot.capture(0, List.of(), List.of(), List.of());
+        this.next = -1;
+
+        if (!in.hasRemaining() || in.readInt() != TrajectoryLogWriter.MAGIC)
+            throw new IllegalArgumentException("Not a trajectory log.");
+        int version = in.readVarInt();
+        if (version != TrajectoryLogWriter.VERSION)
+            throw new IllegalArgumentException("Unsupported trajectory log version: " + version);
+    }
+
+    public static TrajectoryLogReader open(Path file) throws IOException {
+        return new TrajectoryLogReader(FileChannel.open(file, StandardOpenOption.READ));
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == -1) {
+            if (!in.hasRemaining()) {
+                next = TrajectoryLogWriter.END;
+                break;
+            }
+            int tag = in.readByte();
+            if (tag == TrajectoryLogWriter.ID)
+                ids.add(in.readString());
+            else if (tag == TrajectoryLogWriter.TICK || tag == TrajectoryLogWriter.END)
+                next = tag;
+            else
+                throw new IllegalStateException("Unknown record " + tag + " at byte " + (in.position() - 1) + ".");
+        }
+        return next == TrajectoryLogWriter.TICK;
+    }
+
+    @Override
+    public StateSnapshot next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        next = -1;
+
+        StateSnapshot p = prev;
+        int time = p.time + in.readZigZag();
+
+        // roads
+        int nr = in.readVarInt();
+        int pnr = p.roadIds.length;
+        String[] roadIds = grow(p.roadIds, nr);
+        int[] speedLimits = new int[nr];
+        Weather[] weathers = new Weather[nr];
+        int[] roadCO2 = new int[nr];
+        int[] roadVehiclesEnd = new int[nr];
+        for (int i = 0; i < nr; i++)
+            speedLimits[i] = (i < pnr ? p.speedLimits[i] : 0) + in.readZigZag();
+        for (int i = 0; i < nr; i++)
+            weathers[i] = WEATHERS[in.readVarInt()];
+        for (int i = 0; i < nr; i++)
+            roadCO2[i] = (i < pnr ? p.roadCO2[i] : 0) + in.readZigZag();
+        String[] roadVehicles = readIdLists(roadVehiclesEnd);
+
+        // vehicles
+        int nv = in.readVarInt();
+        int pnv = p.vehicleIds.length;
+        int k = StateSnapshot.VEHICLE_INTS;
+        String[] vehicleIds = grow(p.vehicleIds, nv);
+        int[] vehicleInts = new int[nv * k];
+        VehicleStatus[] statuses = new VehicleStatus[nv];
+        String[] vehicleRoads = new String[nv];
+        for (int c = 0; c < k; c++) {
+            for (int i = 0; i < nv; i++)
+                vehicleInts[i * k + c] = (i < pnv ? p.vehicleInts[i * k + c] : 0) + in.readZigZag();
+        }
+        for (int i = 0; i < nv; i++)
+            statuses[i] = STATUSES[in.readVarInt()];
+        for (int i = 0; i < nv; i++) {
+            int r = in.readVarInt();
+            vehicleRoads[i] = r == 0 ? null : id(r - 1);
+        }
+
+        // junctions
+        int nj = in.readVarInt();
+        int pnj = p.junctionIds.length;
+        String[] junctionIds = grow(p.junctionIds, nj);
+        String[] greens = new String[nj];
+        int[] queuesEnd = new int[nj];
+        for (int i = 0; i < nj; i++)
+            greens[i] = id(in.readVarInt());
+        int nq = 0;
+        for (int i = 0; i < nj; i++) {
+            nq += in.readVarInt();
+            queuesEnd[i] = nq;
+        }
+        String[] queueRoads = new String[nq];
+        for (int i = 0; i < nj; i++) {
+            int from = TrajectoryLogWriter.start(queuesEnd, i);
+            int prevQueues = 0;
+            if (i < pnj) {
+                int prevFrom = TrajectoryLogWriter.start(p.queuesEnd, i);
+                prevQueues = p.queuesEnd[i] - prevFrom;
+                System.arraycopy(p.queueRoads, prevFrom, queueRoads, from, prevQueues);
+            }
+            for (int q = from + prevQueues; q < queuesEnd[i]; q++)
+                queueRoads[q] = id(in.readVarInt());
+        }
+        int[] queueVehiclesEnd = new int[nq];
+        String[] queueVehicles = readIdLists(queueVehiclesEnd);
+
+        prev = new StateSnapshot(time, roadIds, speedLimits, weathers, roadCO2, roadVehiclesEnd, roadVehicles,
+                vehicleIds, vehicleInts, statuses, vehicleRoads,
+                junctionIds, greens, queuesEnd, queueRoads, queueVehiclesEnd, queueVehicles);
+        return prev;
+    }
+
+    // Writes the JSON of all (remaining) states, the same as StatesWriter
+    public void writeJson(OutputStream os) {
+        JsonWriter out = new JsonWriter(os);
+        out.beginObject();
+        out.name("states").beginArray();
+        while (hasNext())
+            next().write(out);
+        out.endArray();
+        out.endObject();
+        out.flush();
+    }
+
+    @Override
+    public void close() {
+        if (ch == null)
+            return;
+        try {
+            ch.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // The ids of the objects of the previous tick followed by the ids of the new ones
+    private String[] grow(String[] prevIds, int n) {
+        if (n < prevIds.length)
+            throw new IllegalStateException("Malformed log: objects cannot be removed.");
+        if (n == prevIds.length)
+            return prevIds; // immutable, can be shared
+        String[] a = Arrays.copyOf(prevIds, n);
+        for (int i = prevIds.length; i < n; i++)
+            a[i] = id(in.readVarInt());
+        return a;
+    }
+
+    // Sizes of the lists (one for each element of ends) followed by their ids
+    private String[] readIdLists(int[] ends) {
+        int n = 0;
+        for (int i = 0; i < ends.length; i++) {
+            n += in.readVarInt();
+            ends[i] = n;
+        }
+        String[] a = new String[n];
+        for (int i = 0; i < n; i++)
+            a[i] = id(in.readVarInt());
+        return a;
+    }
+
+    private String id(int i) {
+        if (i < 0 || i >= ids.size())
+            throw new IllegalStateException("Malformed log: unknown id " + i + ".");
+        return ids.get(i);
+    }
+}
@@ -0,0 +1,210 @@
+package simulator.model;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import simulator.misc.IdTable;
+import simulator.misc.VarIntWriter;
+
+// Writes the states of a simulation as a compact binary log, which
+// TrajectoryLogReader turns back into exactly the same JSON as StatesWriter.
+//
+// Format (all ints are variable-length, see VarIntWriter, and values marked
+// with ~ are zig-zag deltas from the same object in the previous tick):
+//
+//   header   MAGIC (4 bytes), VERSION
+//   records  ID string               the next id index, ids are interned once
+//            TICK tick               the state at some time, see below
+//            END                     written by close()
+//
+// A tick is stored by columns (all speed limits, then all weathers, etc.)
+// and objects are identified by their position: objects are only appended,
+// so the object at position i is the same as in the previous tick and only
+// the ids of the new objects are written.
+//
+//   ~time
+//   roads      n, ids of new roads, ~speed limits, weathers, ~co2,
+//              number of vehicles of each road, vehicle ids
+//   vehicles   n, ids of new vehicles, ~speeds, ~distances, ~co2, ~classes,
+//              ~locations, statuses, road ids + 1 (0 if none)
+//   junctions  n, ids of new junctions, green ids, number of queues of each
+//              junction, road ids of the new queues, number of vehicles of
+//              each queue, vehicle ids
+public class TrajectoryLogWriter implements StatesSink {
+
+    static final int MAGIC = 0x544A4C47; // "TJLG"
+    static final int VERSION = 1;
+
+    static final int ID = 1;
+    static final int TICK = 2;
+    static final int END = 3;
+
+    private VarIntWriter out;
+    private IdTable ids;
+    private StateSnapshot prev;
+    private boolean closed;
+
+    public TrajectoryLogWriter(WritableByteChannel ch) {
+        this.out = new VarIntWriter(ch);
+        this.ids = new IdTable();
+        this.prev = StateSnapshot.capture(0, List.of(), List.of(), List.of());
+        this.closed = false;
+        out.writeInt(MAGIC);
+        out.writeVarInt(VERSION);
+    }
+
+    public static TrajectoryLogWriter open(Path file) throws IOException {
+        return new TrajectoryLogWriter(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+    }
+
+    @Override
+    public void write(int time, List<Road> roads, List<Vehicle> vehicles, List<Junction> junctions) {
+        write(StateSnapshot.capture(time, roads, vehicles, junctions));
+    }
+
+    public void write(StateSnapshot s) {
+        if (closed)
+            throw new IllegalStateException("The log is closed.");
+        checkSameObjects(s);
+        internAll(s);
+
+        out.writeByte(TICK);
+        out.writeZigZag(s.time - prev.time);
+        writeRoads(s);
+        writeVehicles(s);
+        writeJunctions(s);
+        prev = s;
+    }
+
+    // Number of bytes written so far
+    public long position() {
+        return out.position();
+    }
+
+    public void flush() {
+        out.flush();
+    }
+
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        out.writeByte(END);
+        out.close();
+    }
+
+    // Objects (and queues) can only be appended
+    private void checkSameObjects(StateSnapshot s) {
+        if (!samePrefix(prev.roadIds, s.roadIds) || !samePrefix(prev.vehicleIds, s.vehicleIds) || !samePrefix(prev.junctionIds, s.junctionIds))
+            throw new IllegalArgumentException("Objects must keep their positions from one tick to the next.");
+        for (int j = 0; j < prev.junctionIds.length; j++) {
+            int from = start(s.queuesEnd, j);
+            int prevFrom = start(prev.queuesEnd, j);
+            int prevN = prev.queuesEnd[j] - prevFrom;
+            if (s.queuesEnd[j] - from < prevN)
+                throw new IllegalArgumentException("Queues of junction " + s.junctionIds[j] + " cannot be removed.");
+            for (int q = 0; q < prevN; q++) {
+                if (!s.queueRoads[from + q].equals(prev.queueRoads[prevFrom + q]))
+                    throw new IllegalArgumentException("Queues of junction " + s.junctionIds[j] + " must keep their positions.");
+            }
+        }
+    }
+
+    private static boolean samePrefix(String[] prev, String[] cur) {
+        if (cur.length < prev.length)
+            return false;
+        for (int i = 0; i < prev.length; i++) {
+            if (!prev[i].equals(cur[i]))
+                return false;
+        }
+        return true;
+    }
+
+    // Writes an ID record for each string that has no id yet
+    private void internAll(StateSnapshot s) {
+        intern(s.roadIds, prev.roadIds.length);
+        intern(s.roadVehicles, 0);
+        intern(s.vehicleIds, prev.vehicleIds.length);
+        intern(s.vehicleRoads, 0);
+        intern(s.junctionIds, prev.junctionIds.length);
+        intern(s.greens, 0);
+        intern(s.queueRoads, 0);
+        intern(s.queueVehicles, 0);
+    }
+
+    private void intern(String[] a, int from) {
+        for (int i = from; i < a.length; i++) {
+            if (a[i] != null && ids.indexOf(a[i]) == -1) {
+                ids.intern(a[i]);
+                out.writeByte(ID);
+                out.writeString(a[i]);
+            }
+        }
+    }
+
+    private void writeRoads(StateSnapshot s) {
+        int n = s.roadIds.length;
+        int pn = prev.roadIds.length;
+        out.writeVarInt(n);
+        for (int i = pn; i < n; i++)
+            out.writeVarInt(ids.indexOf(s.roadIds[i]));
+        for (int i = 0; i < n; i++)
+            out.writeZigZag(s.speedLimits[i] - (i < pn ? prev.speedLimits[i] : 0));
+        for (int i = 0; i < n; i++)
+            out.writeVarInt(s.weathers[i].ordinal());
+        for (int i = 0; i < n; i++)
+            out.writeZigZag(s.roadCO2[i] - (i < pn ? prev.roadCO2[i] : 0));
+        for (int i = 0; i < n; i++)
+            out.writeVarInt(s.roadVehiclesEnd[i] - start(s.roadVehiclesEnd, i));
+        for (String v : s.roadVehicles)
+            out.writeVarInt(ids.indexOf(v));
+    }
+
+    private void writeVehicles(StateSnapshot s) {
+        int n = s.vehicleIds.length;
+        int pn = prev.vehicleIds.length;
+        int k = StateSnapshot.VEHICLE_INTS;
+        out.writeVarInt(n);
+        for (int i = pn; i < n; i++)
+            out.writeVarInt(ids.indexOf(s.vehicleIds[i]));
+        for (int c = 0; c < k; c++) {
+            for (int i = 0; i < n; i++)
+                out.writeZigZag(s.vehicleInts[i * k + c] - (i < pn ? prev.vehicleInts[i * k + c] : 0));
+        }
+        for (int i = 0; i < n; i++)
+            out.writeVarInt(s.statuses[i].ordinal());
+        for (int i = 0; i < n; i++)
+            out.writeVarInt(s.vehicleRoads[i] == null ? 0 : ids.indexOf(s.vehicleRoads[i]) + 1);
+    }
+
+    private void writeJunctions(StateSnapshot s) {
+        int n = s.junctionIds.length;
+        int pn = prev.junctionIds.length;
+        out.writeVarInt(n);
+        for (int i = pn; i < n; i++)
+            out.writeVarInt(ids.indexOf(s.junctionIds[i]));
+        for (int i = 0; i < n; i++)
+            out.writeVarInt(ids.indexOf(s.greens[i]));
+        for (int i = 0; i < n; i++)
+            out.writeVarInt(s.queuesEnd[i] - start(s.queuesEnd, i));
+        for (int i = 0; i < n; i++) {
+            int prevQueues = i < pn ? prev.queuesEnd[i] - start(prev.queuesEnd, i) : 0;
+            for (int q = start(s.queuesEnd, i) + prevQueues; q < s.queuesEnd[i]; q++)
+                out.writeVarInt(ids.indexOf(s.queueRoads[q]));
+        }
+        for (int q = 0; q < s.queueRoads.length; q++)
+            out.writeVarInt(s.queueVehiclesEnd[q] - start(s.queueVehiclesEnd, q));
+        for (String v : s.queueVehicles)
+            out.writeVarInt(ids.indexOf(v));
+    }
+
+    // Start of the range i of an array of range ends
+    static int start(int[] ends, int i) {
+        return i == 0 ? 0 : ends[i - 1];
+    }
+}
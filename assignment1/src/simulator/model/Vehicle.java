@@ -1,11 +1,11 @@
 package simulator.model;
 
 import org.json.JSONObject;
-import java.util.Collections;
+
+import simulator.misc.JsonWriter;
 import java.util.List;
 
 public class Vehicle extends SimulatedObject {
-    private List<Junction> itinerary;
     private int maxSpeed;
     private int currentSpeed;
     private VehicleStatus status;
@@ -15,6 +15,7 @@ public class Vehicle extends SimulatedObject {
     private int totalCO2;
     private int totalDistance;
     private int currentJunctionIdx; // Tracks the last visited junction
+    private final Route route; // Roads of the itinerary, resolved when the vehicle is created
 
     // Constructor
     public Vehicle(String id, int maxSpeed, int contClass, List<Junction> itinerary) {
@@ -29,13 +30,13 @@ public class Vehicle extends SimulatedObject {
         this.maxSpeed = maxSpeed;
         this.currentSpeed = 0; // Vehicles start with 0 speed
         this.contClass = contClass;
-        this.itinerary = Collections.unmodifiableList(itinerary); // Read-only list
         this.status = VehicleStatus.PENDING;
         this.road = null;
         this.location = 0;
         this.totalCO2 = 0;
         this.totalDistance = 0;
         this.currentJunctionIdx = 0; // Start at first junction
+        this.route = itinerary.get(0).routeFrom(itinerary); // Fails if two junctions are not connected
     }
 
     // Sets the current speed
@@ -43,7 +44,11 @@ public class Vehicle extends SimulatedObject {
         if (speed < 0)
             throw new IllegalArgumentException("Speed cannot be negative.");
         if (status == VehicleStatus.TRAVELING) {
-            this.currentSpeed = Math.min(speed, maxSpeed); // Ensure speed does not exceed maxSpeed
+            int s = Math.min(speed, maxSpeed); // Ensure speed does not exceed maxSpeed
+            if (s != currentSpeed) {
+                currentSpeed = s;
+                markDirty();
+            }
         }
     }
 
@@ -51,7 +56,10 @@ public class Vehicle extends SimulatedObject {
     public void setContClass(int contClass) {
         if (contClass < 0 || contClass > 10)
             throw new IllegalArgumentException("Contamination class must be between 0 and 10.");
-        this.contClass = contClass;
+        if (contClass != this.contClass) {
+            this.contClass = contClass;
+            markDirty();
+        }
     }
 
     // Advances the vehicle over time
@@ -62,6 +70,8 @@ public class Vehicle extends SimulatedObject {
         int prevLocation = location;
         location = Math.min(location + currentSpeed, road.getLength()); // Move the vehicle
         int traveledDistance = location - prevLocation;
+        if (traveledDistance > 0)
+            markDirty();
 
         totalDistance += traveledDistance;
         int contamination = traveledDistance * contClass;
@@ -71,41 +81,85 @@ public class Vehicle extends SimulatedObject {
         if (location == road.getLength()) { // Reached end of road
             status = VehicleStatus.WAITING;
             currentSpeed = 0; // Set speed to 0 when entering the junction
-            itinerary.get(currentJunctionIdx + 1).enter(this); // Add vehicle to junction's queue
+            markDirty();
+            route.getRoad(currentJunctionIdx).getDest().enter(this); // Add vehicle to junction's queue
         }
     }
 
+    // Advances the vehicle several ticks at its current speed in one step. The
+    // caller must make sure it does not reach the end of the road meanwhile.
+    void fastForward(int ticks) {
+        if (status != VehicleStatus.TRAVELING) return;
+
+        int traveledDistance = ticks * currentSpeed;
+        if (traveledDistance > 0)
+            markDirty();
+        location += traveledDistance;
+        totalDistance += traveledDistance;
+        totalCO2 += traveledDistance * contClass;
+    }
+
+    // Overwrites the whole state, for vehicles that only show the state of
+    // another representation to the strategies (see ColumnarEngine). The
+    // vehicle is not added to the vehicles of road.
+    void loadState(VehicleStatus status, Road road, int location, int speed, int contClass, int totalCO2, int totalDistance, int junctionIdx) {
+        this.status = status;
+        this.road = road;
+        this.location = location;
+        this.currentSpeed = speed;
+        this.contClass = contClass;
+        this.totalCO2 = totalCO2;
+        this.totalDistance = totalDistance;
+        this.currentJunctionIdx = junctionIdx;
+    }
+
     // Moves the vehicle to the next road in the itinerary
     public void moveToNextRoad() {
+        moveToNextRoad(null);
+    }
+
+    // Same as moveToNextRoad(), but when arrivals is not null the vehicle is not
+    // added to the vehicles of its new road yet, it is appended to arrivals and
+    // enterRoad() must be called later. Junctions that advance in parallel use
+    // it, since two junctions can move vehicles in and out of the same road.
+    void moveToNextRoad(List<Vehicle> arrivals) {
         if (status != VehicleStatus.PENDING && status != VehicleStatus.WAITING)
             throw new IllegalStateException("Vehicle must be PENDING or WAITING to move to the next road.");
 
+        markDirty();
         if (status == VehicleStatus.PENDING) {
-            // Get the outgoing road from the first junction to the second junction
-            road = itinerary.get(0).roadTo(itinerary.get(1));
+            road = route.getRoad(0);
         } else {
             // Exit the current road
             road.exit(this);
             currentJunctionIdx++;
 
             // Check if the vehicle has reached the last junction
-            if (currentJunctionIdx == itinerary.size() - 1) {
+            if (currentJunctionIdx == route.size()) {
                 status = VehicleStatus.ARRIVED;
                 road = null;
                 location = 0;
                 return;
             }
 
-            // Get the outgoing road from the current junction to the next junction
-            road = itinerary.get(currentJunctionIdx).roadTo(itinerary.get(currentJunctionIdx + 1));
+            // The road from the current junction to the next junction
+            road = route.getRoad(currentJunctionIdx);
         }
 
         // Enter the new road
         location = 0;
-        road.enter(this);
+        if (arrivals == null)
+            road.enter(this);
+        else
+            arrivals.add(this);
         status = VehicleStatus.TRAVELING;
     }
 
+    // Adds the vehicle to the vehicles of its road, see moveToNextRoad(List)
+    void enterRoad() {
+        road.enter(this);
+    }
+
     // Returns the vehicle's status as a JSON object
     @Override
     public JSONObject report() {
@@ -125,6 +179,21 @@ public class Vehicle extends SimulatedObject {
         return json;
     }
 
+    public void report(JsonWriter out) {
+        out.beginObject();
+        out.name("id").value(getId());
+        out.name("speed").value(currentSpeed);
+        out.name("distance").value(totalDistance);
+        out.name("co2").value(totalCO2);
+        out.name("class").value(contClass);
+        out.name("status").value(status.toString());
+        if (status == VehicleStatus.TRAVELING || status == VehicleStatus.WAITING) {
+            out.name("road").value(road.getId());
+            out.name("location").value(location);
+        }
+        out.endObject();
+    }
+
     // Getters
     public int getLocation() { return location; }
     public int getSpeed() { return currentSpeed; }
@@ -132,6 +201,8 @@ public class Vehicle extends SimulatedObject {
     public int getContClass() { return contClass; }
     public VehicleStatus getStatus() { return status; }
     public int getTotalCO2() { return totalCO2; }
-    public List<Junction> getItinerary() { return itinerary; }
+    public int getTotalDistance() { return totalDistance; }
+    public List<Junction> getItinerary() { return route.getItinerary(); }
     public Road getRoad() { return road; }
+    public Route getRoute() { return route; }
 }
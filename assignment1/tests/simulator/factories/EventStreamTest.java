@@ -0,0 +1,94 @@
+package simulator.factories;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.junit.jupiter.api.Test;
+
+class EventStreamTest {
+
+	// builds "type time id" strings instead of events
+	private static final Factory<String> FACTORY = new Factory<String>() {
+		@Override
+		public String create_instance(JSONObject info) {
+			JSONObject data = info.getJSONObject("data");
+			return info.getString("type") + " " + data.getInt("time") + " " + data.optString("id", "-");
+		}
+
+		@Override
+		public List<JSONObject> get_info() {
+			return List.of();
+		}
+	};
+
+	private static EventStream<String> stream(String json) {
+		return new EventStream<>(new StringReader(json), FACTORY);
+	}
+
+	@Test
+	void same_events_as_full_parse() throws IOException {
+		for (String ex : new String[] { "ex1", "ex2", "ex3" }) {
+			String file = "resources/examples/" + ex + ".json";
+			JSONArray events = new JSONObject(new JSONTokener(new FileInputStream(file))).getJSONArray("events");
+			List<String> streamed = new ArrayList<>();
+			try (EventStream<String> s = new EventStream<>(new FileInputStream(file), FACTORY)) {
+				while (s.hasNext())
+					streamed.add(s.next());
+			}
+			assertEquals(events.length(), streamed.size());
+			for (int i = 0; i < events.length(); i++)
+				assertEquals(FACTORY.create_instance(events.getJSONObject(i)), streamed.get(i));
+		}
+	}
+
+	@Test
+	void lazy_admission() {
+		EventStream<String> s = stream("{\"events\":[" //
+				+ "{\"type\":\"a\",\"data\":{\"time\":1,\"id\":\"x\"}}," //
+				+ "{\"type\":\"b\",\"data\":{\"time\":1}}," //
+				+ "{\"type\":\"c\",\"data\":{\"time\":5}}]}");
+		List<String> admitted = new ArrayList<>();
+		assertEquals(1, s.nextTime());
+		assertEquals(0, s.admitUntil(0, admitted::add));
+		assertEquals(2, s.admitUntil(4, admitted::add));
+		assertEquals(List.of("a 1 x", "b 1 -"), admitted);
+		assertEquals(5, s.nextTime());
+		assertEquals(1, s.admitUntil(100, admitted::add));
+		assertEquals("c 5 -", admitted.get(2));
+		assertEquals(Integer.MAX_VALUE, s.nextTime());
+		assertFalse(s.hasNext());
+
+		EventStream<String> unsorted = stream("{\"events\":[{\"type\":\"a\",\"data\":{\"time\":3}},{\"type\":\"b\",\"data\":{\"time\":2}}]}");
+		unsorted.admitUntil(2, e -> {});
+		assertThrows(IllegalStateException.class, () -> unsorted.admitUntil(3, e -> {}));
+	}
+
+	@Test
+	void other_keys_and_empty_events() {
+		EventStream<String> s = stream("{\"name\":\"x\", \"meta\":{\"a\":[1,2]}, \"events\" : [ ], \"after\":1}");
+		assertFalse(s.hasNext());
+		assertEquals(Integer.MAX_VALUE, s.nextTime());
+
+		s = stream(" { 'meta' : 3 , 'events' : [ {'type':'a','data':{'time':7}} ] } ");
+		assertEquals("a 7 -", s.next());
+		assertFalse(s.hasNext());
+	}
+
+	@Test
+	void error_handling() {
+		assertThrows(IllegalArgumentException.class, () -> stream("{\"other\":[]}"));
+		assertThrows(RuntimeException.class, () -> stream("[]"));
+		assertThrows(RuntimeException.class, () -> stream("{\"events\":{}}"));
+		assertThrows(RuntimeException.class, () -> stream("{\"events\":[1]}").next());
+		assertThrows(RuntimeException.class, () -> stream("{\"events\":[{\"type\":\"a\",\"data\":{}} {}]}").next());
+		assertThrows(IllegalArgumentException.class, () -> stream("{\"events\":[{\"type\":\"a\",\"data\":{}}]}").nextTime());
+	}
+}
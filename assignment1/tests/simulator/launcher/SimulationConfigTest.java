@@ -0,0 +1,57 @@
+package simulator.launcher;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class SimulationConfigTest {
+
+	@Test
+	void defaults_and_values() {
+		SimulationConfig c = new SimulationConfig.Builder("ex1.json").build();
+		assertEquals("ex1.json", c.getInFile());
+		assertNull(c.getOutFile());
+		assertEquals(10, c.getTicks());
+		assertEquals(1, c.getThreads());
+		assertFalse(c.isFastForward());
+		assertEquals(0, c.getKeyframeInterval());
+		assertEquals(0, c.getReportQueue());
+		assertEquals(0, c.getIndexInterval());
+		assertFalse(c.isStats());
+
+		c = new SimulationConfig.Builder("ex1.json").setOutFile("out.json").setTicks(300).setThreads(4).setFastForward(true, true)
+				.setAsyncReports(16).setIndex(100).setStreamEvents(true).setStats(true).build();
+		assertEquals("out.json", c.getOutFile());
+		assertEquals(300, c.getTicks());
+		assertEquals(4, c.getThreads());
+		assertTrue(c.isSkipQuietReports());
+		assertEquals(16, c.getReportQueue());
+		assertEquals(100, c.getIndexInterval());
+		assertTrue(c.isStreamEvents());
+		assertTrue(c.isStats());
+	}
+
+	// a builder can be reused, the configs it built do not change
+	@Test
+	void configs_are_immutable() {
+		SimulationConfig.Builder b = new SimulationConfig.Builder("ex1.json").setTicks(5);
+		SimulationConfig c1 = b.build();
+		SimulationConfig c2 = b.setTicks(7).setOutFile("out.json").build();
+		assertEquals(5, c1.getTicks());
+		assertNull(c1.getOutFile());
+		assertEquals(7, c2.getTicks());
+	}
+
+	@Test
+	void error_handling() {
+		assertThrows(IllegalArgumentException.class, () -> new SimulationConfig.Builder(null));
+		assertThrows(IllegalArgumentException.class, () -> new SimulationConfig.Builder("x").setTicks(-1));
+		assertThrows(IllegalArgumentException.class, () -> new SimulationConfig.Builder("x").setThreads(0));
+		assertThrows(IllegalArgumentException.class, () -> new SimulationConfig.Builder("x").setFastForward(false, true).build());
+		assertThrows(IllegalArgumentException.class, () -> new SimulationConfig.Builder("x").setDeltaReports(10).setAsyncReports(4).build());
+		assertThrows(IllegalArgumentException.class, () -> new SimulationConfig.Builder("x").setTrajectoryLog(true).build());
+		assertThrows(IllegalArgumentException.class, () -> new SimulationConfig.Builder("x").setIndex(10).build());
+		assertThrows(IllegalArgumentException.class,
+				() -> new SimulationConfig.Builder("x").setOutFile("o").setIndex(10).setTrajectoryLog(true).build());
+	}
+}
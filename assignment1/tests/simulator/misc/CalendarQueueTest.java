@@ -0,0 +1,91 @@
+package simulator.misc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class CalendarQueueTest {
+
+	// elements are {time, insertion number}
+	private static void poll(List<int[]> expected, int now, int time, List<int[]> out) {
+		// stable: by time, then insertion order, and past times count as now
+		expected.sort((a, b) -> Integer.compare(Math.max(a[0], now), Math.max(b[0], now)));
+		while (!expected.isEmpty() && expected.get(0)[0] <= time)
+			out.add(expected.remove(0));
+	}
+
+	// same order as a stable sort by time, for near, far (overflow) and past times
+	@Test
+	void same_order_as_sorted_list() {
+		for (int seed = 0; seed < 20; seed++) {
+			Random rnd = new Random(seed);
+			CalendarQueue<int[]> q = new CalendarQueue<>(1);
+			List<int[]> expected = new ArrayList<>();
+			int now = 1; // next tick to poll
+			int n = 0;
+			while (now < 100000000) {
+				int adds = rnd.nextInt(20);
+				for (int i = 0; i < adds; i++) {
+					int time;
+					switch (rnd.nextInt(5)) {
+					case 0: time = now + rnd.nextInt(3); break;
+					case 1: time = now + rnd.nextInt(1000); break;
+					case 2: time = now + rnd.nextInt(200000); break;
+					case 3: time = now + rnd.nextInt(rnd.nextBoolean() ? 3000000 : 50000000); break;
+					default: time = now - rnd.nextInt(5); break;
+					}
+					int[] e = { time, n++ };
+					q.add(time, e);
+					expected.add(e);
+				}
+				assertEquals(expected.size(), q.size());
+				int next = now;
+				int first = expected.stream().mapToInt(e -> Math.max(e[0], next)).min().orElse(Integer.MAX_VALUE);
+				assertEquals(first, q.nextTime());
+
+				int to = now;
+				if (rnd.nextInt(4) == 0)
+					to += rnd.nextInt(rnd.nextInt(10) == 0 ? 20000000 : 100000);
+				List<int[]> polled = new ArrayList<>();
+				List<int[]> want = new ArrayList<>();
+				poll(expected, now, to, want);
+				assertEquals(want.size(), q.pollUntil(to, polled::add));
+				assertEquals(want.size(), polled.size());
+				for (int i = 0; i < want.size(); i++)
+					assertSame(want.get(i), polled.get(i), "seed " + seed + " tick " + to);
+				now = to + 1;
+			}
+		}
+	}
+
+	// what the simulator does: events of the current tick may schedule more
+	@Test
+	void adds_while_polling() {
+		CalendarQueue<String> q = new CalendarQueue<>();
+		q.add(5, "a");
+		q.add(5, "b");
+		q.add(70000, "far");
+		List<String> polled = new ArrayList<>();
+		assertEquals(0, q.pollUntil(4, polled::add));
+		assertEquals(5, q.nextTime());
+		q.pollUntil(5, e -> {
+			polled.add(e);
+			if (e.equals("a")) {
+				q.add(5, "a5");
+				q.add(6, "a6");
+				q.add(1, "a1");
+			}
+		});
+		// a1 is in the past, so it is polled with the current tick
+		assertEquals(List.of("a", "b", "a5", "a1"), polled);
+		assertEquals(6, q.nextTime());
+		assertEquals(2, q.pollUntil(Integer.MAX_VALUE, polled::add));
+		assertEquals(List.of("a", "b", "a5", "a1", "a6", "far"), polled);
+		assertTrue(q.isEmpty());
+		assertEquals(Integer.MAX_VALUE, q.nextTime());
+	}
+}
@@ -0,0 +1,65 @@
+package simulator.misc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class IdTableTest {
+
+	@Test
+	void dense_ids() {
+		IdTable t = new IdTable();
+		assertEquals(0, t.intern("j1"));
+		assertEquals(1, t.intern("r1"));
+		assertEquals(0, t.intern("j1"));
+		assertEquals(1, t.indexOf("r1"));
+		assertEquals(-1, t.indexOf("v1"));
+		assertEquals(2, t.size());
+		assertEquals("r1", t.get(1));
+	}
+
+	// the same ids as a HashMap that numbers them in order, also after growing
+	@Test
+	void same_as_hash_map() {
+		Random rnd = new Random(9);
+		IdTable t = new IdTable();
+		Map<String, Integer> m = new HashMap<>();
+		for (int i = 0; i < 100000; i++) {
+			String id = "v" + rnd.nextInt(50000);
+			Integer expected = m.get(id);
+			if (expected == null) {
+				expected = m.size();
+				m.put(id, expected);
+			}
+			assertEquals((int) expected, t.intern(id));
+		}
+		assertEquals(m.size(), t.size());
+		for (Map.Entry<String, Integer> e : m.entrySet()) {
+			assertEquals((int) e.getValue(), t.indexOf(e.getKey()));
+			assertEquals(e.getKey(), t.get(e.getValue()));
+		}
+	}
+
+	@Test
+	void clear() {
+		IdTable t = new IdTable();
+		for (int i = 0; i < 100; i++)
+			t.intern("j" + i);
+		t.clear();
+		assertEquals(0, t.size());
+		assertEquals(-1, t.indexOf("j5"));
+		assertEquals(0, t.intern("j7"));
+	}
+
+	@Test
+	void error_handling() {
+		IdTable t = new IdTable();
+		t.intern("j1");
+		assertThrows(IndexOutOfBoundsException.class, () -> t.get(1));
+		assertThrows(IndexOutOfBoundsException.class, () -> t.get(-1));
+	}
+}
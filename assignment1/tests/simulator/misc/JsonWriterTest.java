@@ -0,0 +1,77 @@
+package simulator.misc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+class JsonWriterTest {
+
+	@Test
+	void objects_and_arrays() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		JsonWriter out = new JsonWriter(bytes);
+		out.beginObject();
+		out.name("id").value("r1");
+		out.name("co2").value(-1234567890123L);
+		out.name("max").value(Integer.MAX_VALUE);
+		out.name("min").value(Long.MIN_VALUE);
+		out.name("ok").value(true);
+		out.name("none").nullValue();
+		out.name("vehicles").beginArray().value("v1").value("v2").endArray();
+		out.name("queues").beginArray().beginObject().name("road").value("r2").endObject().beginArray().endArray().endArray();
+		out.endObject();
+		out.flush();
+
+		String s = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+		assertEquals("{\"id\":\"r1\",\"co2\":-1234567890123,\"max\":2147483647,\"min\":-9223372036854775808,\"ok\":true,\"none\":null,"
+				+ "\"vehicles\":[\"v1\",\"v2\"],\"queues\":[{\"road\":\"r2\"},[]]}", s);
+		assertEquals(0, out.getDepth());
+	}
+
+	@Test
+	void strings_are_escaped() {
+		String[] strings = { "a\"b\\c", "tab\tnew\nline\u0001", "\u00f1and\u00fa", "\u20ac", "\ud83d\ude97" };
+
+		// a small buffer, so that it is flushed in the middle of the strings
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		JsonWriter out = new JsonWriter(bytes, 16);
+		out.beginArray();
+		for (String s : strings)
+			out.value(s);
+		out.endArray();
+		out.flush();
+
+		JSONArray a = new JSONArray(new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+		assertEquals(strings.length, a.length());
+		for (int i = 0; i < strings.length; i++)
+			assertEquals(strings[i], a.getString(i));
+	}
+
+	@Test
+	void top_level_values_one_per_line() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		JsonWriter out = new JsonWriter(bytes);
+		out.beginObject().name("time").value(1).endObject();
+		out.beginObject().name("time").value(2).endObject();
+		out.flush();
+
+		String[] lines = new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n");
+		assertEquals(2, lines.length);
+		assertTrue(new JSONObject("{\"time\":2}").similar(new JSONObject(lines[1])));
+	}
+
+	@Test
+	void error_handling() {
+		JsonWriter out = new JsonWriter(new ByteArrayOutputStream());
+		assertThrows(IllegalStateException.class, () -> out.endObject());
+		assertThrows(IllegalStateException.class, () -> out.name("a"));
+		out.beginObject().name("a");
+		assertThrows(IllegalStateException.class, () -> out.name("b"));
+		assertThrows(IllegalStateException.class, () -> out.endObject());
+	}
+}
@@ -0,0 +1,77 @@
+package simulator.misc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+	// every value is in the bucket whose range contains it
+	@Test
+	void buckets() {
+		Random rnd = new Random(1);
+		for (int i = 0; i < 100000; i++) {
+			long v = (rnd.nextLong() >>> 1) >>> rnd.nextInt(63); // non-negative
+			int b = LatencyHistogram.bucket(v);
+			assertTrue(v <= LatencyHistogram.highest(b));
+			assertTrue(b == 0 || v > LatencyHistogram.highest(b - 1));
+		}
+		for (int v = 0; v < 16; v++) // exact
+			assertEquals(v, LatencyHistogram.highest(LatencyHistogram.bucket(v)));
+		assertEquals(Long.MAX_VALUE, LatencyHistogram.highest(LatencyHistogram.bucket(Long.MAX_VALUE)));
+	}
+
+	// percentiles within 1/16 of the exact ones
+	@Test
+	void percentiles() {
+		Random rnd = new Random(2);
+		LatencyHistogram h = new LatencyHistogram();
+		long[] values = new long[10000];
+		long sum = 0;
+		for (int i = 0; i < values.length; i++) {
+			values[i] = (long) Math.exp(rnd.nextDouble() * 20);
+			h.record(values[i]);
+			sum += values[i];
+		}
+		Arrays.sort(values);
+		for (double p : new double[] { 1, 50, 90, 99, 99.9, 100 }) {
+			long exact = values[(int) Math.ceil(p / 100 * values.length) - 1];
+			long approx = h.getPercentile(p);
+			assertTrue(approx >= exact && approx <= exact + exact / 16, p + ": " + approx + " vs " + exact);
+		}
+		assertEquals(values[values.length - 1], h.getMax());
+		assertEquals(values[values.length - 1], h.getPercentile(100));
+		assertEquals(values.length, h.getCount());
+		assertEquals(sum, h.getSum());
+	}
+
+	@Test
+	void add_and_clear() {
+		LatencyHistogram a = new LatencyHistogram();
+		LatencyHistogram b = new LatencyHistogram();
+		assertEquals(0, a.getPercentile(50));
+		for (int i = 1; i <= 10; i++)
+			a.record(i);
+		for (int i = 11; i <= 15; i++)
+			b.record(i);
+		a.add(b);
+		assertEquals(15, a.getCount());
+		assertEquals(15, a.getMax());
+		assertEquals(8, a.getPercentile(50));
+		assertEquals(8.0, a.getMean(), 1e-9);
+		a.clear();
+		assertEquals(0, a.getCount());
+		assertEquals(0, a.getMax());
+		assertEquals(0, a.getPercentile(99));
+	}
+
+	@Test
+	void error_handling() {
+		LatencyHistogram h = new LatencyHistogram();
+		assertThrows(IllegalArgumentException.class, () -> h.record(-1));
+		assertThrows(IllegalArgumentException.class, () -> h.getPercentile(101));
+	}
+}
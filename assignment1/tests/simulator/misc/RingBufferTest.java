@@ -0,0 +1,52 @@
+package simulator.misc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class RingBufferTest {
+
+	// behaves like a LinkedList used as a queue, also when it wraps around and grows
+	@Test
+	void test_1() {
+		RingBuffer<Integer> q = new RingBuffer<>(4);
+		List<Integer> expected = new LinkedList<>();
+
+		int next = 0;
+		for (int round = 0; round < 20; round++) {
+			for (int i = 0; i < round % 7; i++) {
+				q.add(next);
+				expected.add(next);
+				next++;
+			}
+			int k = Math.min(round % 3, q.size());
+			q.removeFirst(k);
+			for (int i = 0; i < k; i++)
+				expected.remove(0);
+			assertEquals(expected, q);
+		}
+
+		// remove from the middle
+		q.remove(q.size() / 2);
+		expected.remove(expected.size() / 2);
+		assertEquals(expected, q);
+
+		q.removeFirst(q.size());
+		assertEquals(0, q.size());
+	}
+
+	@Test
+	void error_handling() {
+		RingBuffer<Integer> q = new RingBuffer<>();
+		q.add(1);
+
+		assertThrows(Exception.class, () -> q.removeFirst(2));
+		assertThrows(Exception.class, () -> q.removeFirst(-1));
+		assertThrows(Exception.class, () -> q.get(1));
+		assertThrows(Exception.class, () -> new RingBuffer<Integer>(0));
+	}
+}
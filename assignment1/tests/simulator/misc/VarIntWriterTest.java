@@ -0,0 +1,76 @@
+package simulator.misc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+
+import org.junit.jupiter.api.Test;
+
+class VarIntWriterTest {
+
+	private static final int[] INTS = { 0, 1, -1, 63, -64, 64, 127, 128, 300, -300, 1 << 20, Integer.MAX_VALUE, Integer.MIN_VALUE };
+	private static final long[] LONGS = { 0, 1, -1, 1L << 40, Long.MAX_VALUE, Long.MIN_VALUE };
+
+	private static byte[] write() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		VarIntWriter out = new VarIntWriter(Channels.newChannel(bytes), 16); // a small buffer, so it is flushed often
+		for (int v : INTS) {
+			out.writeVarInt(v);
+			out.writeZigZag(v);
+			out.writeInt(v);
+		}
+		for (long v : LONGS) {
+			out.writeVarLong(v);
+			out.writeZigZagLong(v);
+			out.writeLong(v);
+		}
+		out.writeString("r1");
+		out.writeString("a longer string, so that it does not fit in the buffer \u20ac");
+		out.writeByte(0xFF);
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	private static void read(VarIntReader in, int size) {
+		for (int v : INTS) {
+			assertEquals(v, in.readVarInt());
+			assertEquals(v, in.readZigZag());
+			assertEquals(v, in.readInt());
+		}
+		for (long v : LONGS) {
+			assertEquals(v, in.readVarLong());
+			assertEquals(v, in.readZigZagLong());
+			assertEquals(v, in.readLong());
+		}
+		assertEquals("r1", in.readString());
+		assertEquals("a longer string, so that it does not fit in the buffer \u20ac", in.readString());
+		assertEquals(0xFF, in.readByte());
+		assertEquals(size, in.position());
+		assertFalse(in.hasRemaining());
+		assertThrows(IllegalStateException.class, () -> in.readByte());
+	}
+
+	@Test
+	void round_trip() {
+		byte[] b = write();
+		read(new VarIntReader(ByteBuffer.wrap(b)), b.length);
+		read(new VarIntReader(Channels.newChannel(new ByteArrayInputStream(b))), b.length);
+	}
+
+	@Test
+	void small_values_take_one_byte() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		VarIntWriter out = new VarIntWriter(Channels.newChannel(bytes));
+		out.writeVarInt(127);
+		out.writeZigZag(-64);
+		out.writeZigZag(63);
+		assertEquals(3, out.position());
+		out.writeVarInt(128);
+		assertEquals(5, out.position());
+		out.close();
+		assertEquals(5, bytes.size());
+	}
+}
@@ -0,0 +1,200 @@
+package simulator.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class ActiveSetEngineTest {
+
+	// a 6 x 6 grid with roads in both directions and few vehicles, so most of
+	// it is idle most of the time
+	private static class Network {
+		final List<Junction> junctions = new ArrayList<>();
+		final List<Road> roads = new ArrayList<>();
+		final List<Vehicle> vehicles = new ArrayList<>();
+
+		Network() {
+			Random rnd = new Random(11);
+			for (int i = 0; i < 36; i++) {
+				LightSwitchingStrategy lss = i % 3 == 0 ? new MostCrowdedStrategy(1 + rnd.nextInt(4)) : new RoundRobinStrategy(rnd.nextInt(5));
+				junctions.add(new Junction("j" + i, lss, i % 2 == 0 ? new MoveFirstStrategy() : new MoveAllStrategy(), 0, 0));
+			}
+			for (int i = 0; i < 36; i++) {
+				if (i % 6 < 5) {
+					road(i, i + 1, rnd);
+					road(i + 1, i, rnd);
+				}
+				if (i < 30) {
+					road(i, i + 6, rnd);
+					road(i + 6, i, rnd);
+				}
+			}
+		}
+
+		void road(int src, int dest, Random rnd) {
+			String id = "r" + src + "_" + dest;
+			if (rnd.nextBoolean())
+				roads.add(new CityRoad(id, junctions.get(src), junctions.get(dest), 50 + rnd.nextInt(50), 100, 100 + rnd.nextInt(200), Weather.SUNNY));
+			else
+				roads.add(new InterCityRoad(id, junctions.get(src), junctions.get(dest), 50 + rnd.nextInt(50), 100, 100 + rnd.nextInt(200), Weather.SUNNY));
+		}
+
+		// a random walk of the given length
+		List<Junction> itinerary(Random rnd, int length) {
+			int i = rnd.nextInt(36);
+			List<Junction> it = new ArrayList<>();
+			it.add(junctions.get(i));
+			while (it.size() < length) {
+				int[] next = { i % 6 < 5 ? i + 1 : i - 1, i % 6 > 0 ? i - 1 : i + 1, i < 30 ? i + 6 : i - 6, i >= 6 ? i - 6 : i + 6 };
+				i = next[rnd.nextInt(4)];
+				it.add(junctions.get(i));
+			}
+			return it;
+		}
+
+		String state() {
+			StringBuilder s = new StringBuilder();
+			for (Junction j : junctions)
+				s.append(j.report()).append('\n');
+			for (Road r : roads)
+				s.append(r.report()).append('\n');
+			return s.toString();
+		}
+	}
+
+	// the same reports as advancing every junction and road in every tick
+	@Test
+	void same_as_advancing_all() {
+		Network all = new Network();
+		Network active = new Network();
+		ActiveSetEngine engine = new ActiveSetEngine();
+		for (Junction j : active.junctions)
+			engine.addJunction(j);
+		for (Road r : active.roads)
+			engine.addRoad(r);
+
+		Random rnd = new Random(3);
+		int minActive = Integer.MAX_VALUE;
+		for (int time = 1; time <= 400; time++) {
+			events(time, rnd, all, active);
+			for (Junction j : all.junctions)
+				j.advance(time);
+			for (Road r : all.roads)
+				r.advance(time);
+			engine.advance(time);
+
+			minActive = Math.min(minActive, engine.getActiveRoadCount());
+			if (time % 17 == 0 || time == 400)
+				assertEquals(all.state(), active.state(), "time " + time);
+		}
+		assertTrue(minActive < active.roads.size() / 4);
+		assertEquals(0, engine.getActiveRoadCount()); // all vehicles arrived
+	}
+
+	// the events of a tick: a few vehicles and some weather changes, the same
+	// in each network
+	private static void events(int time, Random rnd, Network... ns) {
+		if (time % 9 == 0 && time < 300) {
+			long seed = rnd.nextLong();
+			int maxSpeed = 30 + rnd.nextInt(60);
+			int contClass = rnd.nextInt(11);
+			for (Network n : ns) {
+				Vehicle v = new Vehicle("v" + time, maxSpeed, contClass, n.itinerary(new Random(seed), 4));
+				n.vehicles.add(v);
+				v.moveToNextRoad();
+			}
+		}
+		if (time % 13 == 0) {
+			int r = rnd.nextInt(ns[0].roads.size());
+			Weather w = Weather.values()[rnd.nextInt(Weather.values().length)];
+			for (Network n : ns)
+				n.roads.get(r).setWeather(w);
+		}
+	}
+
+	// the skipped objects are in the deltas when their contamination or lights
+	// change, as when every object advances
+	@Test
+	void same_delta_reports() {
+		Network all = new Network();
+		Network active = new Network();
+		ParallelTickEngine parallel = new ParallelTickEngine(2);
+		ActiveSetEngine engine = new ActiveSetEngine();
+		for (Junction j : active.junctions)
+			engine.addJunction(j);
+		for (Road r : active.roads)
+			engine.addRoad(r);
+
+		ByteArrayOutputStream allOut = new ByteArrayOutputStream();
+		ByteArrayOutputStream activeOut = new ByteArrayOutputStream();
+		try (DeltaStatesWriter allDeltas = new DeltaStatesWriter(allOut, 50);
+				DeltaStatesWriter activeDeltas = new DeltaStatesWriter(activeOut, 50)) {
+			Random rnd = new Random(5);
+			for (int time = 1; time <= 400; time++) {
+				events(time, rnd, all, active);
+				parallel.advance(all.junctions, all.roads, time);
+				engine.advance(time);
+				allDeltas.write(time, all.roads, all.vehicles, all.junctions);
+				activeDeltas.write(time, active.roads, active.vehicles, active.junctions);
+			}
+		} finally {
+			parallel.shutdown();
+		}
+		assertEquals(allOut.toString(), activeOut.toString());
+		assertTrue(engine.getActiveRoadCount() < active.roads.size() / 4);
+	}
+
+	// a junction with a polluted city road and a polluted inter-city road in
+	private static Road[] pollutedRoads() {
+		Junction dest = new Junction("j", new RoundRobinStrategy(3), new MoveFirstStrategy(), 0, 0);
+		Junction src1 = new Junction("s1", new RoundRobinStrategy(3), new MoveFirstStrategy(), 0, 0);
+		Junction src2 = new Junction("s2", new RoundRobinStrategy(3), new MoveFirstStrategy(), 0, 0);
+		Road[] rs = { new CityRoad("r1", src1, dest, 100, 50, 100, Weather.STORM), new InterCityRoad("r2", src2, dest, 100, 50, 100, Weather.SUNNY) };
+		for (Road r : rs)
+			r.addContamination(5000);
+		dest.advance(1);
+		return rs;
+	}
+
+	// idle objects catch up in one step with the same result
+	@Test
+	void skip_idle() {
+		Road[] r1 = pollutedRoads();
+		Road[] r2 = pollutedRoads();
+		Junction j1 = r1[0].getDest();
+		Junction j2 = r2[0].getDest();
+		assertTrue(j1.isIdle() && r1[0].isIdle() && r1[1].isIdle());
+
+		int synced = 1; // last tick applied to j2 and r2
+		for (int time = 2; time <= 600; time++) {
+			j1.advance(time);
+			for (Road r : r1)
+				r.advance(time);
+			if (time == 300 || time == 600) { // part of the contamination is gone, all of it
+				j2.skipIdle(synced, time);
+				for (Road r : r2)
+					r.skipIdle(time - synced);
+				synced = time;
+				assertEquals(j1.report().toString(), j2.report().toString());
+				for (int k = 0; k < 2; k++)
+					assertEquals(r1[k].report().toString(), r2[k].report().toString());
+			}
+		}
+		assertEquals(0, r2[0].getTotalCO2());
+		assertEquals(0, r2[1].getTotalCO2());
+	}
+
+	@Test
+	void error_handling() {
+		ActiveSetEngine engine = new ActiveSetEngine();
+		Junction j = new Junction("j1", new RoundRobinStrategy(3), new MoveFirstStrategy(), 0, 0);
+		engine.addJunction(j);
+		assertThrows(IllegalArgumentException.class, () -> engine.addJunction(j));
+		assertThrows(IllegalArgumentException.class, () -> new ActiveSetEngine().addJunction(j));
+	}
+}
@@ -0,0 +1,104 @@
+package simulator.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class AsyncStatesWriterTest {
+
+	private static List<Junction> junctions() {
+		List<Junction> js = new ArrayList<>();
+		js.add(new Junction("j1", new RoundRobinStrategy(3), new MoveFirstStrategy(), 0, 0));
+		js.add(new Junction("j2", new RoundRobinStrategy(2), new MoveAllStrategy(), 10, 0));
+		js.add(new Junction("j3", new RoundRobinStrategy(4), new MoveFirstStrategy(), 10, 10));
+		return js;
+	}
+
+	private static List<Road> roads(List<Junction> js) {
+		List<Road> rs = new ArrayList<>();
+		rs.add(new CityRoad("r1", js.get(0), js.get(1), 100, 500, 300, Weather.SUNNY));
+		rs.add(new InterCityRoad("r2", js.get(1), js.get(2), 120, 800, 500, Weather.RAINY));
+		rs.add(new InterCityRoad("r3", js.get(2), js.get(0), 80, 300, 400, Weather.STORM));
+		return rs;
+	}
+
+	private static List<Vehicle> vehicles(List<Junction> js) {
+		List<Vehicle> vs = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			Vehicle v = new Vehicle("v" + i, 40 + 10 * i, i, Arrays.asList(js.get(i % 3), js.get((i + 1) % 3), js.get((i + 2) % 3)));
+			vs.add(v);
+			if (i != 5)
+				v.moveToNextRoad();
+		}
+		return vs;
+	}
+
+	private static void advance(List<Junction> js, List<Road> rs, int time) {
+		for (Junction j : js)
+			j.advance(time);
+		for (Road r : rs)
+			r.advance(time);
+	}
+
+	// the output must be byte by byte the same as the synchronous one, also when the queue is full
+	@Test
+	void same_output_as_sync() {
+		for (int capacity : new int[] { 1, 4, 1000 }) {
+			List<Junction> js1 = junctions();
+			List<Road> rs1 = roads(js1);
+			List<Vehicle> vs1 = vehicles(js1);
+			List<Junction> js2 = junctions();
+			List<Road> rs2 = roads(js2);
+			List<Vehicle> vs2 = vehicles(js2);
+
+			ByteArrayOutputStream sync = new ByteArrayOutputStream();
+			ByteArrayOutputStream async = new ByteArrayOutputStream();
+			AsyncStatesWriter aw = new AsyncStatesWriter(async, capacity);
+			try (StatesWriter sw = new StatesWriter(sync)) {
+				for (int time = 1; time <= 200; time++) {
+					advance(js1, rs1, time);
+					advance(js2, rs2, time);
+					sw.write(time, rs1, vs1, js1);
+					aw.write(time, rs2, vs2, js2);
+					assertTrue(aw.getQueueDepth() <= capacity);
+				}
+			}
+			aw.close();
+
+			assertArrayEquals(sync.toByteArray(), async.toByteArray(), "capacity " + capacity);
+			assertTrue(aw.getMaxQueueDepth() <= capacity);
+			assertEquals(0, aw.getQueueDepth());
+		}
+	}
+
+	@Test
+	void error_handling() {
+		assertThrows(IllegalArgumentException.class, () -> new AsyncStatesWriter(new ByteArrayOutputStream(), 0));
+
+		// errors of the writer thread are reported to the simulation thread
+		OutputStream broken = new OutputStream() {
+			@Override
+			public void write(int b) throws IOException {
+				throw new IOException("disk full");
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				throw new IOException("disk full");
+			}
+		};
+		List<Junction> js = junctions();
+		List<Road> rs = roads(js);
+		AsyncStatesWriter aw = new AsyncStatesWriter(broken, 2);
+		aw.write(1, rs, List.of(), js);
+		assertThrows(IllegalStateException.class, () -> aw.close());
+		assertThrows(IllegalStateException.class, () -> aw.write(2, rs, List.of(), js));
+	}
+}
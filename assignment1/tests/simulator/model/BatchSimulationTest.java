@@ -0,0 +1,102 @@
+package simulator.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.junit.jupiter.api.Test;
+
+class BatchSimulationTest {
+
+	private static final Path EX1 = Path.of("resources/examples/ex1.json");
+	private static final Path EX1_OUT = Path.of("resources/examples/ex1.expout.json");
+	private static final Path EX3 = Path.of("resources/examples/ex3.json");
+	private static final Path EX3_OUT = Path.of("resources/examples/ex3.expout.json");
+
+	private static JSONObject run(BatchSimulation sim, int ticks) {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		sim.run(ticks, new StatesWriter(os));
+		return new JSONObject(os.toString());
+	}
+
+	private static JSONObject expected() throws IOException {
+		return read(EX1_OUT);
+	}
+
+	private static JSONObject read(Path file) throws IOException {
+		try (FileInputStream in = new FileInputStream(file.toFile())) {
+			return new JSONObject(new JSONTokener(in));
+		}
+	}
+
+	@Test
+	void matches_the_expected_output() throws IOException {
+		assertTrue(run(new BatchSimulation(ScenarioPlan.load(EX1)), 300).similar(expected()));
+	}
+
+	@Test
+	void parallel_and_fast_forward_match_the_expected_output() throws IOException {
+		BatchSimulation sim = new BatchSimulation(ScenarioPlan.load(EX1));
+		sim.setThreads(3);
+		sim.setFastForward(true, false);
+		sim.setStats(new TickStats());
+		assertTrue(run(sim, 300).similar(expected()));
+	}
+
+	@Test
+	void skipped_quiet_reports_are_a_subset() throws IOException {
+		BatchSimulation sim = new BatchSimulation(ScenarioPlan.load(EX1));
+		sim.setFastForward(true, true);
+		JSONObject out = run(sim, 300);
+		JSONObject exp = expected();
+		int n = out.getJSONArray("states").length();
+		assertTrue(n > 0 && n < 300);
+		for (int i = 0; i < n; i++) {
+			JSONObject s = out.getJSONArray("states").getJSONObject(i);
+			assertTrue(s.similar(exp.getJSONArray("states").getJSONObject(s.getInt("time") - 1)));
+		}
+		assertEquals(300, sim.getTime());
+	}
+
+	@Test
+	void compiled_scenarios_match_the_expected_output() throws IOException {
+		Path compiled = Files.createTempFile("scenario", ".scn");
+		try {
+			ScenarioWriter.compile(new FileInputStream(EX3.toFile()), compiled);
+			assertTrue(ScenarioReader.isScenario(compiled));
+			assertTrue(run(new BatchSimulation(ScenarioPlan.load(compiled)), 150).similar(read(EX3_OUT)));
+			try (ScenarioReader in = ScenarioReader.open(compiled)) {
+				assertTrue(run(new BatchSimulation(in), 150).similar(read(EX3_OUT)));
+			}
+		} finally {
+			Files.deleteIfExists(compiled);
+		}
+	}
+
+	@Test
+	void streamed_events_must_be_sorted() throws IOException {
+		Path compiled = Files.createTempFile("scenario", ".scn");
+		try {
+			ScenarioWriter.compile(new FileInputStream(EX1.toFile()), compiled); // its last events are at 100 and 50
+			try (ScenarioReader in = ScenarioReader.open(compiled)) {
+				BatchSimulation sim = new BatchSimulation(in);
+				assertThrows(IllegalArgumentException.class, () -> sim.run(300, new StatesWriter(new ByteArrayOutputStream())));
+			}
+		} finally {
+			Files.deleteIfExists(compiled);
+		}
+	}
+
+	@Test
+	void skip_quiet_reports_requires_fast_forward() throws IOException {
+		BatchSimulation sim = new BatchSimulation(ScenarioPlan.load(EX1));
+		assertThrows(IllegalArgumentException.class, () -> sim.setFastForward(false, true));
+		assertThrows(IllegalArgumentException.class, () -> sim.setThreads(0));
+	}
+}
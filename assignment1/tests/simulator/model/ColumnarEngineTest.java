@@ -0,0 +1,205 @@
+package simulator.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+class ColumnarEngineTest {
+
+	// a small network: j1 -> j2 -> j3 -> j1, with a city road and an inter-city road
+	private static List<Junction> junctions() {
+		List<Junction> js = new ArrayList<>();
+		js.add(new Junction("j1", new RoundRobinStrategy(3), new MoveFirstStrategy(), 0, 0));
+		js.add(new Junction("j2", new RoundRobinStrategy(2), new MoveAllStrategy(), 10, 0));
+		js.add(new Junction("j3", new RoundRobinStrategy(4), new MoveFirstStrategy(), 10, 10));
+		return js;
+	}
+
+	// the same network with strategies that read the vehicles of the queues
+	private static List<Junction> readingJunctions() {
+		// the first two vehicles, as a list
+		DequeuingStrategy firstTwo = q -> new ArrayList<>(q.subList(0, Math.min(2, q.size())));
+		// green for a queue whose first vehicle pollutes, at most every 5 ticks
+		LightSwitchingStrategy polluting = (roads, qs, currGreen, lastSwitchingTime, currTime) -> {
+			if (currGreen != -1 && currTime - lastSwitchingTime < 5)
+				return currGreen;
+			for (int i = 0; i < qs.size(); i++) {
+				if (!qs.get(i).isEmpty() && qs.get(i).get(0).getContClass() > 3 && qs.get(i).get(0).getStatus() == VehicleStatus.WAITING)
+					return i;
+			}
+			return currGreen == -1 ? -1 : (currGreen + 1) % qs.size();
+		};
+		List<Junction> js = new ArrayList<>();
+		js.add(new Junction("j1", polluting, firstTwo, 0, 0));
+		js.add(new Junction("j2", new RoundRobinStrategy(2), firstTwo, 10, 0));
+		js.add(new Junction("j3", polluting, new MoveAllStrategy(), 10, 10));
+		return js;
+	}
+
+	private static List<Road> roads(List<Junction> js) {
+		List<Road> rs = new ArrayList<>();
+		rs.add(new CityRoad("r1", js.get(0), js.get(1), 100, 500, 300, Weather.SUNNY));
+		rs.add(new InterCityRoad("r2", js.get(1), js.get(2), 120, 800, 500, Weather.RAINY));
+		rs.add(new InterCityRoad("r3", js.get(2), js.get(0), 80, 300, 400, Weather.STORM));
+		return rs;
+	}
+
+	// the engine must produce the same reports as the object model
+	@Test
+	void test_same_report_as_objects() {
+		sameReportAsObjects(false);
+	}
+
+	// also with strategies that read the vehicles of the queues
+	@Test
+	void test_strategies_read_vehicles() {
+		sameReportAsObjects(true);
+	}
+
+	private static void sameReportAsObjects(boolean reading) {
+		List<Junction> js1 = reading ? readingJunctions() : junctions();
+		List<Road> rs1 = roads(js1);
+		List<Vehicle> vs1 = new ArrayList<>();
+
+		List<Junction> js2 = reading ? readingJunctions() : junctions();
+		List<Road> rs2 = roads(js2);
+		ColumnarEngine engine = new ColumnarEngine();
+		for (Junction j : js2)
+			engine.addJunction(j);
+		for (Road r : rs2)
+			engine.addRoad(r);
+
+		Random rnd = new Random(7);
+		for (int time = 1; time <= 200; time++) {
+			// new vehicles
+			if (time <= 60 && time % 3 == 0) {
+				int maxSpeed = 30 + rnd.nextInt(100);
+				int contClass = rnd.nextInt(11);
+				int[] it = { 0, 1, 2, 0 };
+				int start = rnd.nextInt(3);
+				int len = 2 + rnd.nextInt(3);
+
+				List<Junction> it1 = new ArrayList<>();
+				List<Junction> it2 = new ArrayList<>();
+				for (int i = 0; i < len; i++) {
+					it1.add(js1.get(it[(start + i) % 3]));
+					it2.add(js2.get(it[(start + i) % 3]));
+				}
+
+				Vehicle v = new Vehicle("v" + time, maxSpeed, contClass, it1);
+				vs1.add(v);
+				v.moveToNextRoad();
+				engine.moveToNextRoad(engine.addVehicle("v" + time, maxSpeed, contClass, it2));
+			}
+
+			// change some weather and contamination classes
+			if (time % 25 == 0) {
+				Weather w = Weather.values()[rnd.nextInt(Weather.values().length)];
+				rs1.get(time % 3).setWeather(w);
+				rs2.get(time % 3).setWeather(w);
+
+				int c = rnd.nextInt(11);
+				vs1.get(0).setContClass(c);
+				engine.setContClass(0, c);
+			}
+
+			for (Junction j : js1)
+				j.advance(time);
+			for (Road r : rs1)
+				r.advance(time);
+			engine.advance(time);
+
+			assertTrue(report(js1, rs1, vs1).similar(engine.report()), "different report at time " + time);
+		}
+	}
+
+	@Test
+	void error_handling() {
+		List<Junction> js = junctions();
+		List<Road> rs = roads(js);
+		ColumnarEngine engine = new ColumnarEngine();
+
+		// junctions must be added before their roads
+		assertThrows(Exception.class, () -> engine.addRoad(rs.get(0)));
+
+		for (Junction j : js)
+			engine.addJunction(j);
+		for (Road r : rs)
+			engine.addRoad(r);
+
+		assertThrows(Exception.class, () -> engine.addJunction(js.get(0)));
+		assertThrows(Exception.class, () -> engine.addVehicle("v1", 0, 1, Arrays.asList(js.get(0), js.get(1))));
+		assertThrows(Exception.class, () -> engine.addVehicle("v1", 10, 11, Arrays.asList(js.get(0), js.get(1))));
+		assertThrows(Exception.class, () -> engine.addVehicle("v1", 10, 1, Arrays.asList(js.get(0))));
+
+		// there is no road from j2 to j1, checked when the vehicle is added
+		assertThrows(Exception.class, () -> engine.addVehicle("v1", 10, 1, Arrays.asList(js.get(0), js.get(1), js.get(0))));
+		assertEquals(0, engine.getVehicleCount());
+
+		// ids are unique
+		engine.addVehicle("v1", 10, 1, Arrays.asList(js.get(0), js.get(1)));
+		assertThrows(Exception.class, () -> engine.addVehicle("v1", 10, 1, Arrays.asList(js.get(0), js.get(1))));
+	}
+
+	// vehicles with the same itinerary share the route
+	@Test
+	void test_shared_routes() {
+		List<Junction> js = junctions();
+		List<Road> rs = roads(js);
+		ColumnarEngine engine = new ColumnarEngine();
+		for (Junction j : js)
+			engine.addJunction(j);
+		for (Road r : rs)
+			engine.addRoad(r);
+
+		engine.addVehicle("v1", 50, 1, Arrays.asList(js.get(0), js.get(1), js.get(2)));
+		engine.addVehicle("v2", 60, 2, new ArrayList<>(Arrays.asList(js.get(0), js.get(1), js.get(2))));
+		engine.addVehicle("v3", 70, 3, Arrays.asList(js.get(1), js.get(2)));
+		assertEquals(2, engine.getRouteCount());
+	}
+
+	// junctions and roads are indexed by the last engine that added them
+	@Test
+	void test_objects_of_another_engine() {
+		List<Junction> js = junctions();
+		List<Road> rs = roads(js);
+		ColumnarEngine engine = new ColumnarEngine();
+		for (Junction j : js)
+			engine.addJunction(j);
+		for (Road r : rs)
+			engine.addRoad(r);
+
+		ColumnarEngine other = new ColumnarEngine();
+		for (int i = js.size() - 1; i >= 0; i--)
+			other.addJunction(js.get(i));
+		assertThrows(Exception.class, () -> engine.addVehicle("v1", 50, 1, Arrays.asList(js.get(0), js.get(1))));
+		assertEquals(0, engine.getVehicleCount());
+	}
+
+	private static JSONObject report(List<Junction> js, List<Road> rs, List<Vehicle> vs) {
+		JSONArray roads = new JSONArray();
+		for (Road r : rs)
+			roads.put(r.report());
+		JSONArray vehicles = new JSONArray();
+		for (Vehicle v : vs)
+			vehicles.put(v.report());
+		JSONArray junctions = new JSONArray();
+		for (Junction j : js)
+			junctions.put(j.report());
+
+		JSONObject o = new JSONObject();
+		o.put("roads", roads);
+		o.put("vehicles", vehicles);
+		o.put("junctions", junctions);
+		return o;
+	}
+}
@@ -0,0 +1,119 @@
+package simulator.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+class DeltaStatesWriterTest {
+
+	// a small network where vehicles are added, weather and classes change,
+	// and some ticks are fast-forwarded
+	private static class Sim {
+		List<Junction> junctions = new ArrayList<>();
+		List<Road> roads = new ArrayList<>();
+		List<Vehicle> vehicles = new ArrayList<>();
+
+		Sim() {
+			Junction j1 = new Junction("j1", new RoundRobinStrategy(3), new MoveFirstStrategy(), 0, 0);
+			Junction j2 = new Junction("j2", new RoundRobinStrategy(2), new MoveAllStrategy(), 10, 0);
+			Junction j3 = new Junction("j3", new RoundRobinStrategy(4), new MoveFirstStrategy(), 10, 10);
+			junctions.addAll(Arrays.asList(j1, j2, j3));
+			roads.add(new CityRoad("r1", j1, j2, 100, 500, 300, Weather.SUNNY));
+			roads.add(new InterCityRoad("r2", j2, j3, 120, 800, 500, Weather.RAINY));
+			roads.add(new InterCityRoad("r3", j3, j1, 80, 300, 400, Weather.STORM));
+		}
+
+		void step(int time) {
+			if (time % 7 == 0 && time < 80) {
+				Vehicle v = new Vehicle("v" + time, 40 + time, time % 11, Arrays.asList(junctions.get(0), junctions.get(1), junctions.get(2), junctions.get(0)));
+				vehicles.add(v);
+				if (time % 2 == 0)
+					v.moveToNextRoad(); // the others stay PENDING
+			}
+			if (time % 30 == 0) {
+				roads.get(time % 3).setWeather(Weather.values()[time % Weather.values().length]);
+				vehicles.get(0).setContClass(time % 11);
+			}
+
+			if (time > 150)
+				FastForward.advance(junctions, roads, time - 1, 1, null);
+			else {
+				for (Junction j : junctions)
+					j.advance(time);
+				for (Road r : roads)
+					r.advance(time);
+			}
+		}
+	}
+
+	@Test
+	void deltas_rebuild_the_full_states() {
+		for (int interval : new int[] { 1, 10, 1000 }) {
+			Sim full = new Sim();
+			Sim delta = new Sim();
+			ByteArrayOutputStream fullBytes = new ByteArrayOutputStream();
+			ByteArrayOutputStream deltaBytes = new ByteArrayOutputStream();
+			try (StatesWriter fw = new StatesWriter(fullBytes); DeltaStatesWriter dw = new DeltaStatesWriter(deltaBytes, interval)) {
+				for (int time = 1; time <= 250; time++) {
+					full.step(time);
+					delta.step(time);
+					fw.write(time, full.roads, full.vehicles, full.junctions);
+					dw.write(time, delta.roads, delta.vehicles, delta.junctions);
+				}
+			}
+
+			JSONObject expected = new JSONObject(new String(fullBytes.toByteArray(), StandardCharsets.UTF_8));
+			JSONObject deltas = new JSONObject(new String(deltaBytes.toByteArray(), StandardCharsets.UTF_8));
+			assertTrue(expected.similar(DeltaStatesReader.expand(deltas)), "keyframe interval " + interval);
+			if (interval > 1)
+				assertTrue(deltaBytes.size() < fullBytes.size());
+		}
+	}
+
+	@Test
+	void only_changed_objects() {
+		Junction j1 = new Junction("j1", new RoundRobinStrategy(10), new MoveFirstStrategy(), 0, 0);
+		Junction j2 = new Junction("j2", new RoundRobinStrategy(10), new MoveFirstStrategy(), 0, 0);
+		Road r1 = new CityRoad("r1", j1, j2, 100, 500, 1000, Weather.SUNNY);
+		Vehicle v1 = new Vehicle("v1", 50, 1, Arrays.asList(j1, j2));
+		Vehicle v2 = new Vehicle("v2", 50, 1, Arrays.asList(j1, j2));
+		v1.moveToNextRoad();
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DeltaStatesWriter out = new DeltaStatesWriter(bytes, 100)) {
+			for (int time = 1; time <= 3; time++) {
+				j1.advance(time);
+				j2.advance(time);
+				r1.advance(time);
+				out.write(time, Arrays.asList(r1), Arrays.asList(v1, v2), Arrays.asList(j1, j2));
+			}
+		}
+
+		JSONArray states = new JSONObject(new String(bytes.toByteArray(), StandardCharsets.UTF_8)).getJSONArray("states");
+		assertTrue(states.getJSONObject(0).getBoolean("keyframe"));
+
+		// the road and the traveling vehicle change, the pending vehicle and the junctions do not
+		JSONObject delta = states.getJSONObject(2).getJSONObject("delta");
+		assertEquals(1, delta.getJSONArray("roads").length());
+		assertEquals(1, delta.getJSONArray("vehicles").length());
+		assertEquals("v1", delta.getJSONArray("vehicles").getJSONObject(0).getString("id"));
+		assertEquals(0, delta.getJSONArray("junctions").length());
+	}
+
+	@Test
+	void error_handling() {
+		assertThrows(IllegalArgumentException.class, () -> new DeltaStatesWriter(new ByteArrayOutputStream(), 0));
+
+		// the first state must be a keyframe
+		JSONObject o = new JSONObject("{\"states\":[{\"time\":1,\"delta\":{\"roads\":[],\"vehicles\":[],\"junctions\":[]}}]}");
+		assertThrows(IllegalArgumentException.class, () -> DeltaStatesReader.expand(o));
+	}
+}
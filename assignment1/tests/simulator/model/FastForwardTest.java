@@ -0,0 +1,131 @@
+package simulator.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.junit.jupiter.api.Test;
+
+class FastForwardTest {
+
+	// long roads, few vehicles and long light slots: mostly quiet
+	private static void network(List<Junction> js, List<Road> rs, List<Vehicle> vs) {
+		js.add(new Junction("j1", new RoundRobinStrategy(40), new MoveFirstStrategy(), 0, 0));
+		js.add(new Junction("j2", new RoundRobinStrategy(60), new MoveAllStrategy(), 100, 0));
+		js.add(new Junction("j3", new RoundRobinStrategy(50), new MoveFirstStrategy(), 100, 100));
+
+		rs.add(new CityRoad("r1", js.get(0), js.get(1), 100, 500, 5000, Weather.WINDY));
+		rs.add(new InterCityRoad("r2", js.get(1), js.get(2), 120, 2000, 8000, Weather.SUNNY));
+		rs.add(new InterCityRoad("r3", js.get(2), js.get(0), 90, 800, 6000, Weather.STORM));
+		rs.add(new CityRoad("r4", js.get(0), js.get(2), 60, 500, 7000, Weather.SUNNY));
+
+		vs.add(new Vehicle("v1", 90, 2, Arrays.asList(js.get(0), js.get(1), js.get(2), js.get(0))));
+		vs.add(new Vehicle("v2", 120, 7, Arrays.asList(js.get(0), js.get(1), js.get(2))));
+		vs.add(new Vehicle("v3", 50, 10, Arrays.asList(js.get(0), js.get(2), js.get(0), js.get(1))));
+		vs.add(new Vehicle("v4", 110, 0, Arrays.asList(js.get(1), js.get(2), js.get(0))));
+		for (Vehicle v : vs)
+			v.moveToNextRoad();
+	}
+
+	private static String state(int time, List<Junction> js, List<Road> rs, List<Vehicle> vs) {
+		JSONArray a = new JSONArray();
+		for (Road r : rs)
+			a.put(r.report());
+		for (Junction j : js)
+			a.put(j.report());
+		for (Vehicle v : vs)
+			a.put(v.report());
+		return time + ":" + a.toString();
+	}
+
+	private static List<String> serial(int ticks) {
+		List<Junction> js = new ArrayList<>();
+		List<Road> rs = new ArrayList<>();
+		List<Vehicle> vs = new ArrayList<>();
+		network(js, rs, vs);
+
+		List<String> states = new ArrayList<>();
+		for (int t = 1; t <= ticks; t++) {
+			for (Junction j : js)
+				j.advance(t);
+			for (Road r : rs)
+				r.advance(t);
+			states.add(state(t, js, rs, vs));
+		}
+		return states;
+	}
+
+	// reports of the skipped ticks are the same as in a tick by tick run
+	@Test
+	void test_same_reports() {
+		int ticks = 800;
+		List<String> expected = serial(ticks);
+
+		List<Junction> js = new ArrayList<>();
+		List<Road> rs = new ArrayList<>();
+		List<Vehicle> vs = new ArrayList<>();
+		network(js, rs, vs);
+
+		List<String> states = new ArrayList<>();
+		FastForward.advance(js, rs, 0, ticks, t -> states.add(state(t, js, rs, vs)));
+		assertEquals(expected, states);
+	}
+
+	// without reports, the state at the end is the same
+	@Test
+	void test_same_final_state() {
+		List<String> expected = serial(800);
+
+		List<Junction> js = new ArrayList<>();
+		List<Road> rs = new ArrayList<>();
+		List<Vehicle> vs = new ArrayList<>();
+		network(js, rs, vs);
+
+		// in steps of 100 ticks, like a simulation with events every 100 ticks
+		for (int t = 0; t < 800; t += 100) {
+			FastForward.advance(js, rs, t, 100, null);
+			assertEquals(expected.get(t + 99), state(t + 100, js, rs, vs));
+		}
+	}
+
+	// the contamination of the skipped ticks changes the report of the road,
+	// so it is in the next delta report
+	@Test
+	void test_marks_dirty() {
+		List<Junction> js = new ArrayList<>();
+		List<Road> rs = new ArrayList<>();
+		List<Vehicle> vs = new ArrayList<>();
+		network(js, rs, vs);
+
+		Road r1 = rs.get(0); // no contamination yet, v1 and v2 on it
+		r1.clearDirty();
+		r1.fastForward(1); // only the contamination of the vehicles changes
+		assertTrue(r1.getTotalCO2() > 0);
+		assertTrue(r1.isDirty());
+	}
+
+	@Test
+	void test_quiet_ticks() {
+		List<Junction> js = new ArrayList<>();
+		List<Road> rs = new ArrayList<>();
+		List<Vehicle> vs = new ArrayList<>();
+		network(js, rs, vs);
+
+		// in the first tick the lights are switched on
+		assertEquals(0, FastForward.quietTicks(js, rs, 0, 1000));
+		for (Junction j : js)
+			j.advance(1);
+		for (Road r : rs)
+			r.advance(1);
+
+		// then nothing happens until j3, the only junction with two incoming roads,
+		// switches at time 51
+		int quiet = FastForward.quietTicks(js, rs, 1, 1000);
+		assertEquals(49, quiet);
+		assertTrue(FastForward.quietTicks(js, rs, 1, 10) == 10);
+	}
+}
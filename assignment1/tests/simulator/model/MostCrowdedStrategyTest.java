@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.jupiter.api.Test;
 
@@ -64,4 +65,70 @@ class MostCrowdedStrategyTest {
 
 	}
 
+	// the same choices when the junction keeps the lengths
+	@Test
+	void test_lengths() {
+		QueueLengths q = new QueueLengths();
+		q.addQueue();
+		q.addQueue();
+		q.set(0, 5);
+		q.set(1, 5);
+
+		MostCrowdedStrategy st = new MostCrowdedStrategy(3);
+
+		assertEquals(0, st.chooseNextGreen(q, -1, 0, 11));
+		assertEquals(0, st.chooseNextGreen(q, 0, 11, 12));
+		assertEquals(0, st.chooseNextGreen(q, 0, 11, 13));
+		assertEquals(1, st.chooseNextGreen(q, 0, 11, 14));
+
+		q.set(0, 4);
+		assertEquals(1, st.chooseNextGreen(q, -1, 0, 11));
+		q.set(1, 4);
+		assertEquals(1, st.chooseNextGreen(q, 1, 11, 12));
+		q.set(1, 3);
+		assertEquals(1, st.chooseNextGreen(q, 1, 11, 13));
+		q.set(1, 2);
+		assertEquals(0, st.chooseNextGreen(q, 1, 11, 14));
+
+		assertEquals(-1, st.chooseNextGreen(new QueueLengths(), -1, 0, 11));
+	}
+
+	// a junction with three incoming roads keeps the lengths of its queues
+	@Test
+	void test_junction() {
+		Junction j0 = new Junction("j0", new MostCrowdedStrategy(2), new MoveFirstStrategy(), 0, 0);
+		List<Road> rs = new ArrayList<>();
+		for (int k = 1; k <= 3; k++) {
+			Junction jk = new Junction("j" + k, new RoundRobinStrategy(1), new MoveFirstStrategy(), 0, 0);
+			rs.add(new CityRoad("r" + k, jk, j0, 100, 500, 10, Weather.SUNNY));
+		}
+
+		Random rnd = new Random(3);
+		MostCrowdedStrategy st = new MostCrowdedStrategy(2);
+		int longest = 0;
+		for (int time = 1; time <= 100; time++) {
+			int arriving = time <= 60 ? rnd.nextInt(3) : 0;
+			for (int i = 0; i < arriving; i++) {
+				Road r = rs.get(rnd.nextInt(3));
+				Vehicle v = new Vehicle("v" + time + "_" + i, 50, 1, Arrays.asList(r.getSrc(), j0));
+				v.moveToNextRoad();
+			}
+			for (Road r : rs)
+				r.advance(time);
+			j0.advance(time);
+
+			QueueLengths q = j0.getQueueLengths();
+			List<List<Vehicle>> qs = new ArrayList<>();
+			for (int i = 0; i < 3; i++) {
+				assertEquals(j0.getQueue(i).size(), q.get(i));
+				qs.add(j0.getQueue(i));
+			}
+			for (int green = -1; green < 3; green++)
+				assertEquals(st.chooseNextGreen(rs, qs, green, time - 2, time), st.chooseNextGreen(q, green, time - 2, time));
+			longest = Math.max(longest, q.getMax());
+		}
+		assertTrue(longest > 1);
+		assertEquals(0, j0.getQueueLengths().getMax()); // all gone by the end
+	}
+
 }
@@ -18,6 +18,10 @@ public class MoveFirstStrategyTest {
 		Junction j2 = new Junction("j2", new RoundRobinStrategy(10), new MoveFirstStrategy(), 0, 0);
 
 
+		// a road, the itinerary of a vehicle must be connected
+		@SuppressWarnings("unused")
+		Road r1 = new CityRoad("r1", j1, j2, 100, 10, 1000, Weather.SUNNY);
+
 		// vehicles entered from r1
 		Vehicle vs[] = new Vehicle[5];
 		for(int i=0; i<vs.length; i++)
@@ -0,0 +1,86 @@
+package simulator.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class ParallelTickEngineTest {
+
+	// a ring of n junctions with roads in both directions, and vehicles going
+	// around it in both directions
+	private static void ring(int n, int nVehicles, boolean mostCrowded, List<Junction> js, List<Road> rs, List<Vehicle> vs) {
+		Random rnd = new Random(3);
+		for (int i = 0; i < n; i++) {
+			LightSwitchingStrategy lss = mostCrowded ? new MostCrowdedStrategy(1 + i % 3) : new RoundRobinStrategy(1 + i % 3);
+			js.add(new Junction("j" + i, lss, i % 2 == 0 ? new MoveFirstStrategy() : new MoveAllStrategy(), i, 0));
+		}
+		for (int i = 0; i < n; i++) {
+			rs.add(new CityRoad("r" + i + "+", js.get(i), js.get((i + 1) % n), 100, 500, 200 + 10 * i, Weather.SUNNY));
+			rs.add(new InterCityRoad("r" + i + "-", js.get((i + 1) % n), js.get(i), 100, 500, 300 + 10 * i, Weather.RAINY));
+		}
+		for (int k = 0; k < nVehicles; k++) {
+			int start = rnd.nextInt(n);
+			int dir = rnd.nextBoolean() ? 1 : n - 1;
+			List<Junction> it = new ArrayList<>();
+			for (int i = 0; i < 2 + rnd.nextInt(2 * n); i++)
+				it.add(js.get((start + i * dir) % n));
+			vs.add(new Vehicle("v" + k, 20 + rnd.nextInt(100), rnd.nextInt(11), it));
+		}
+	}
+
+	private static String run(int threads, boolean mostCrowded) {
+		List<Junction> js = new ArrayList<>();
+		List<Road> rs = new ArrayList<>();
+		List<Vehicle> vs = new ArrayList<>();
+		ring(40, 500, mostCrowded, js, rs, vs);
+
+		ParallelTickEngine engine = new ParallelTickEngine(threads);
+		StringBuilder sb = new StringBuilder();
+		for (int t = 1; t <= 150; t++) {
+			// vehicles enter little by little
+			for (int k = (t - 1) * 5; k < t * 5 && k < vs.size(); k++)
+				vs.get(k).moveToNextRoad();
+
+			engine.advance(js, rs, t);
+
+			for (Road r : rs)
+				sb.append(r.getId() + r.getVehicles() + r.getTotalCO2() + r.getSpeedLimit());
+			for (Junction j : js)
+				sb.append(j.getId() + j.getGreenLightIndex() + j.report().get("queues"));
+			for (Vehicle v : vs)
+				sb.append(v.getId() + v.getStatus() + v.getLocation() + v.getSpeed() + v.getTotalCO2());
+			sb.append('\n');
+		}
+		engine.shutdown();
+		return sb.toString();
+	}
+
+	// any number of threads gives the same states as the serial run
+	@Test
+	void test_same_as_serial() {
+		String serial = run(1, false);
+		assertEquals(serial, run(2, false));
+		assertEquals(serial, run(4, false));
+	}
+
+	// also when the lights depend on the lengths of the queues, which several
+	// roads fill at the same time
+	@Test
+	void test_most_crowded_same_as_serial() {
+		String serial = run(1, true);
+		for (int k = 0; k < 5; k++) {
+			assertEquals(serial, run(2, true));
+			assertEquals(serial, run(4, true));
+		}
+	}
+
+	@Test
+	void error_handling() {
+		assertThrows(Exception.class, () -> new ParallelTickEngine(0));
+	}
+}
@@ -0,0 +1,174 @@
+package simulator.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.junit.jupiter.api.Test;
+
+class ParameterSweepTest {
+
+	private static final Path EX1 = Path.of("resources/examples/ex1.json");
+
+	private static JSONObject junction(int time, String id) {
+		return new JSONObject().put("type", "new_junction").put("data", new JSONObject().put("time", time).put("id", id)
+				.put("coor", new JSONArray().put(0).put(0))
+				.put("ls_strategy", new JSONObject().put("type", "round_robin_lss").put("data", new JSONObject().put("timeslot", 2)))
+				.put("dq_strategy", new JSONObject().put("type", "move_first_dqs").put("data", new JSONObject())));
+	}
+
+	private static Path write(JSONArray events) throws IOException {
+		Path file = Files.createTempFile("events", ".json");
+		Files.write(file, new JSONObject().put("events", events).toString().getBytes());
+		return file;
+	}
+
+	// the ids of the junctions, in the order they are replayed
+	private static class Ids implements ScenarioHandler {
+		final ScenarioPlan plan;
+		final List<String> ids = new ArrayList<>();
+
+		Ids(ScenarioPlan plan) {
+			this.plan = plan;
+		}
+
+		@Override
+		public void newJunction(int time, int id, int x, int y, LightSwitchingStrategy lss, DequeuingStrategy dqs) {
+			ids.add(time + ":" + plan.getId(id));
+		}
+
+		@Override
+		public void newRoad(int time, int id, boolean city, int src, int dest, int length, int co2Limit, int maxSpeed, Weather weather) {
+		}
+
+		@Override
+		public void newVehicle(int time, int id, int maxSpeed, int contClass, int[] itinerary) {
+		}
+
+		@Override
+		public void setWeather(int time, int[] roads, Weather[] weathers) {
+		}
+
+		@Override
+		public void setContClass(int time, int[] vehicles, int[] classes) {
+		}
+	}
+
+	@Test
+	void plan_replays_by_time() throws IOException {
+		Path file = write(new JSONArray().put(junction(3, "a")).put(junction(1, "b")).put(junction(3, "c")).put(junction(2, "d")));
+		try {
+			ScenarioPlan plan = ScenarioPlan.load(file);
+			assertEquals(4, plan.getEventCount());
+			Ids h = new Ids(plan);
+			int next = plan.replay(0, 0, h);
+			assertEquals(0, next);
+			next = plan.replay(next, 2, h);
+			assertEquals(List.of("1:b", "2:d"), h.ids);
+			assertEquals(3, plan.getTime(next));
+			next = plan.replay(next, 10, h);
+			assertEquals(List.of("1:b", "2:d", "3:a", "3:c"), h.ids);
+			assertEquals(Integer.MAX_VALUE, plan.getTime(next));
+
+			// a compiled file gives the same plan
+			Path compiled = Files.createTempFile("scenario", ".scn");
+			try {
+				ScenarioWriter.compile(new FileInputStream(file.toFile()), compiled);
+				ScenarioPlan plan2 = ScenarioPlan.load(compiled);
+				Ids h2 = new Ids(plan2);
+				plan2.replay(0, 10, h2);
+				assertEquals(h.ids, h2.ids);
+			} finally {
+				Files.delete(compiled);
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	void baseline_matches_the_expected_output() throws IOException {
+		JSONArray states = new JSONObject(new JSONTokener(new FileInputStream("resources/examples/ex1.expout.json"))).getJSONArray("states");
+		JSONArray vehicles = states.getJSONObject(states.length() - 1).getJSONObject("state").getJSONArray("vehicles");
+		long co2 = 0;
+		for (int i = 0; i < vehicles.length(); i++)
+			co2 += vehicles.getJSONObject(i).getInt("co2");
+
+		ParameterSweep.Result r = ParameterSweep.run(ScenarioPlan.load(EX1), new ParameterSweep.Variant(0, 100, 100), states.length());
+		assertEquals(co2, r.getTotalCO2());
+		assertEquals(vehicles.length(), r.getVehicles());
+	}
+
+	@Test
+	void variants_are_independent() throws Exception {
+		ScenarioPlan plan = ScenarioPlan.load(EX1);
+		List<ParameterSweep.Variant> variants = ParameterSweep.grid(new int[] { 0, 1, 10 }, new int[] { 50, 100 }, new int[] { 50, 100 });
+		assertEquals(12, variants.size());
+
+		List<ParameterSweep.Result> expected = new ArrayList<>();
+		for (ParameterSweep.Variant v : variants)
+			expected.add(ParameterSweep.run(plan, v, 300));
+
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<ParameterSweep.Result>> results = new ArrayList<>();
+			for (int k = 0; k < 3; k++)
+				for (ParameterSweep.Variant v : variants)
+					results.add(pool.submit(() -> ParameterSweep.run(plan, v, 300)));
+			for (int i = 0; i < results.size(); i++) {
+				ParameterSweep.Result r = results.get(i).get();
+				ParameterSweep.Result e = expected.get(i % variants.size());
+				assertSame(e.getVariant(), r.getVariant());
+				assertEquals(e.getTotalCO2(), r.getTotalCO2(), r.getVariant().toString());
+				assertEquals(e.getArrivals(), r.getArrivals(), r.getVariant().toString());
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	void parameters_change_the_result() throws IOException {
+		ScenarioPlan plan = ScenarioPlan.load(EX1);
+		ParameterSweep.Result base = ParameterSweep.run(plan, new ParameterSweep.Variant(0, 100, 100), 300);
+		assertNotEquals(base.getTotalCO2(), ParameterSweep.run(plan, new ParameterSweep.Variant(1, 100, 100), 300).getTotalCO2());
+		assertNotEquals(base.getTotalCO2(), ParameterSweep.run(plan, new ParameterSweep.Variant(0, 50, 100), 300).getTotalCO2());
+		assertNotEquals(base.getTotalCO2(), ParameterSweep.run(plan, new ParameterSweep.Variant(0, 100, 50), 300).getTotalCO2());
+
+		Path ex3 = Path.of("resources/examples/ex3.json");
+		ParameterSweep.Result fast = ParameterSweep.run(ScenarioPlan.load(ex3), new ParameterSweep.Variant(0, 100, 100), 300);
+		ParameterSweep.Result slow = ParameterSweep.run(ScenarioPlan.load(ex3), new ParameterSweep.Variant(0, 50, 100), 300);
+		assertEquals(1, fast.getArrivals());
+		assertTrue(slow.getMeanTravelTime() > fast.getMeanTravelTime());
+		assertTrue(Double.isNaN(ParameterSweep.run(plan, new ParameterSweep.Variant(0, 100, 100), 0).getMeanTravelTime()));
+	}
+
+	@Test
+	void error_handling() throws IOException {
+		assertThrows(IllegalArgumentException.class, () -> new ParameterSweep.Variant(-1, 100, 100));
+		assertThrows(IllegalArgumentException.class, () -> new ParameterSweep.Variant(0, 0, 100));
+		assertThrows(IllegalArgumentException.class, () -> new ParameterSweep.Variant(0, 100, -5));
+
+		// a road between junctions that do not exist yet
+		JSONObject road = new JSONObject().put("type", "new_city_road").put("data", new JSONObject().put("time", 1).put("id", "r1")
+				.put("src", "j1").put("dest", "j2").put("length", 100).put("co2limit", 500).put("maxspeed", 50).put("weather", "SUNNY"));
+		Path file = write(new JSONArray().put(junction(2, "j1")).put(junction(2, "j2")).put(road));
+		try {
+			ScenarioPlan plan = ScenarioPlan.load(file);
+			assertThrows(IllegalArgumentException.class, () -> ParameterSweep.run(plan, new ParameterSweep.Variant(0, 100, 100), 5));
+		} finally {
+			Files.delete(file);
+		}
+	}
+}
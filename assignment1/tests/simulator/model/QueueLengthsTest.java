@@ -0,0 +1,66 @@
+package simulator.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class QueueLengthsTest {
+
+	// the first longest queue in circular order, by scanning
+	private static int scan(int[] lengths, int n, int from) {
+		int best = from;
+		for (int k = 1; k < n; k++) {
+			int i = (from + k) % n;
+			if (lengths[i] > lengths[best])
+				best = i;
+		}
+		return best;
+	}
+
+	@Test
+	void same_as_scanning() {
+		Random rnd = new Random(5);
+		QueueLengths q = new QueueLengths();
+		int[] lengths = new int[40];
+		int n = 0;
+		for (int step = 0; step < 20000; step++) {
+			if (n < lengths.length && rnd.nextInt(50) == 0) {
+				q.addQueue();
+				n++;
+			}
+			if (n == 0)
+				continue;
+			int i = rnd.nextInt(n);
+			if (rnd.nextBoolean()) {
+				q.increment(i);
+				lengths[i]++;
+			} else {
+				lengths[i] = rnd.nextInt(Math.max(1, lengths[i]));
+				q.set(i, lengths[i]);
+			}
+			int max = 0;
+			for (int k = 0; k < n; k++) {
+				assertEquals(lengths[k], q.get(k));
+				max = Math.max(max, lengths[k]);
+			}
+			assertEquals(max, q.getMax());
+			int from = rnd.nextInt(n);
+			assertEquals(scan(lengths, n, from), q.firstLongest(from));
+		}
+		assertEquals(40, q.size());
+	}
+
+	@Test
+	void error_handling() {
+		QueueLengths q = new QueueLengths();
+		assertEquals(-1, q.firstLongest(0));
+		assertThrows(IndexOutOfBoundsException.class, () -> q.get(0));
+		q.addQueue();
+		assertEquals(0, q.firstLongest(0));
+		assertThrows(IndexOutOfBoundsException.class, () -> q.set(1, 2));
+		assertThrows(IllegalArgumentException.class, () -> q.set(0, -1));
+		assertThrows(IndexOutOfBoundsException.class, () -> q.firstLongest(1));
+	}
+}
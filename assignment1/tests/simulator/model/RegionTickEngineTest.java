@@ -0,0 +1,152 @@
+package simulator.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class RegionTickEngineTest {
+
+	// a size x size grid with roads in both directions, and vehicles that follow random walks
+	private static void grid(int size, int nVehicles, List<Junction> js, List<Road> rs, List<Vehicle> vs) {
+		Random rnd = new Random(5);
+		for (int y = 0; y < size; y++)
+			for (int x = 0; x < size; x++)
+				js.add(new Junction("j" + x + "_" + y, new RoundRobinStrategy(1 + rnd.nextInt(3)),
+						rnd.nextBoolean() ? new MoveFirstStrategy() : new MoveAllStrategy(), 100 * x, 100 * y));
+		for (int y = 0; y < size; y++) {
+			for (int x = 0; x < size; x++) {
+				Junction j = js.get(y * size + x);
+				if (x + 1 < size) {
+					Junction k = js.get(y * size + x + 1);
+					rs.add(new CityRoad("r" + j + k, j, k, 100, 500, 200 + rnd.nextInt(300), Weather.SUNNY));
+					rs.add(new InterCityRoad("r" + k + j, k, j, 100, 500, 200 + rnd.nextInt(300), Weather.SUNNY));
+				}
+				if (y + 1 < size) {
+					Junction k = js.get((y + 1) * size + x);
+					rs.add(new CityRoad("r" + j + k, j, k, 100, 500, 200 + rnd.nextInt(300), Weather.SUNNY));
+					rs.add(new InterCityRoad("r" + k + j, k, j, 100, 500, 200 + rnd.nextInt(300), Weather.SUNNY));
+				}
+			}
+		}
+		for (int i = 0; i < nVehicles; i++) {
+			int x = rnd.nextInt(size), y = rnd.nextInt(size);
+			List<Junction> it = new ArrayList<>();
+			it.add(js.get(y * size + x));
+			while (it.size() < 10) {
+				if (rnd.nextBoolean())
+					x = Math.max(0, Math.min(size - 1, x + (rnd.nextBoolean() ? 1 : -1)));
+				else
+					y = Math.max(0, Math.min(size - 1, y + (rnd.nextBoolean() ? 1 : -1)));
+				if (js.get(y * size + x) != it.get(it.size() - 1))
+					it.add(js.get(y * size + x));
+			}
+			vs.add(new Vehicle("v" + i, 30 + rnd.nextInt(100), rnd.nextInt(11), it));
+		}
+	}
+
+	private static String run(int regions) {
+		List<Junction> js = new ArrayList<>();
+		List<Road> rs = new ArrayList<>();
+		List<Vehicle> vs = new ArrayList<>();
+		grid(6, 400, js, rs, vs);
+		for (Vehicle v : vs)
+			v.moveToNextRoad();
+
+		RegionTickEngine engine = regions == 0 ? null : new RegionTickEngine(js, rs, regions);
+		StringBuilder sb = new StringBuilder();
+		for (int t = 1; t <= 120; t++) {
+			if (engine == null) {
+				for (Junction j : js)
+					j.advance(t);
+				for (Road r : rs)
+					r.advance(t);
+			} else {
+				engine.advance(t);
+			}
+
+			for (Road r : rs)
+				sb.append(r.getId() + r.getVehicles() + r.getTotalCO2());
+			for (Junction j : js)
+				sb.append(j.getId() + j.getGreenLightIndex() + j.report().get("queues"));
+			for (Vehicle v : vs)
+				sb.append(v.getId() + v.getStatus() + v.getLocation() + v.getTotalCO2());
+			sb.append('\n');
+		}
+		if (engine != null)
+			engine.shutdown();
+		return sb.toString();
+	}
+
+	// any number of regions gives the same states as the serial run
+	@Test
+	void test_same_as_serial() {
+		String serial = run(0);
+		assertEquals(serial, run(1));
+		assertEquals(serial, run(3));
+		assertEquals(serial, run(4));
+	}
+
+	@Test
+	void test_partition() {
+		List<Junction> js = new ArrayList<>();
+		List<Road> rs = new ArrayList<>();
+		grid(8, 0, js, rs, new ArrayList<>());
+
+		RegionPartition p = new RegionPartition(js, rs, 4);
+		assertEquals(4, p.getRegions());
+
+		// every junction and road is in exactly one region, regions are balanced
+		int nj = 0, nr = 0;
+		for (int r = 0; r < 4; r++) {
+			nj += p.getJunctions(r).size();
+			nr += p.getRoads(r).size();
+			assertTrue(p.getJunctions(r).size() <= 18);
+			for (Road road : p.getRoads(r))
+				assertEquals(r, p.regionOf(road.getDest()));
+		}
+		assertEquals(js.size(), nj);
+		assertEquals(rs.size(), nr);
+
+		// a 8x8 grid cut in 4 quadrants has 2 * 2 * 8 roads between regions
+		assertEquals(32, p.getCutRoads());
+	}
+
+	// a region that fails stops every worker, also the ones still in the phase
+	@Test
+	void test_failure_stops_the_workers() {
+		List<Junction> js = new ArrayList<>();
+		List<Road> rs = new ArrayList<>();
+		grid(6, 0, js, rs, new ArrayList<>());
+		js.add(new Junction("bad", (roads, qs, currGreen, lastSwitchingTime, currTime) -> {
+			if (currTime == 3)
+				throw new IllegalStateException("broken strategy");
+			return currGreen;
+		}, new MoveFirstStrategy(), 0, 0));
+
+		RegionTickEngine engine = new RegionTickEngine(js, rs, 4);
+		engine.advance(1);
+		engine.advance(2);
+		IllegalStateException e = assertThrows(IllegalStateException.class, () -> engine.advance(3));
+		assertEquals("broken strategy", e.getCause().getMessage());
+		assertThrows(IllegalStateException.class, () -> engine.advance(4));
+
+		engine.shutdown();
+		assertTrue(engine.isTerminated());
+	}
+
+	@Test
+	void error_handling() {
+		assertThrows(Exception.class, () -> new RegionPartition(new ArrayList<>(), new ArrayList<>(), 0));
+
+		RegionTickEngine engine = new RegionTickEngine(new ArrayList<>(), new ArrayList<>(), 2);
+		engine.shutdown();
+		assertTrue(engine.isTerminated());
+		assertThrows(Exception.class, () -> engine.advance(1));
+	}
+}
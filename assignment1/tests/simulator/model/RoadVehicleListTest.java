@@ -0,0 +1,77 @@
+package simulator.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class RoadVehicleListTest {
+
+	// the incremental order must be the same as a full (stable) sort
+	@Test
+	void test_same_order_as_sort() {
+		// two junctions
+		Junction j1 = new Junction("j1", new RoundRobinStrategy(10), new MoveFirstStrategy(), 0, 0);
+		Junction j2 = new Junction("j2", new RoundRobinStrategy(10), new MoveFirstStrategy(), 0, 0);
+
+		// a long road
+		Road r1 = new CityRoad("r1", j1, j2, 100, 500, 100000, Weather.SUNNY);
+
+		// vehicles with different speeds and classes, so they overtake each other
+		Random rnd = new Random(42);
+		List<Vehicle> expected = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			Vehicle v = new Vehicle("v" + i, 10 + rnd.nextInt(90), rnd.nextInt(11), Arrays.asList(j1, j2));
+			v.moveToNextRoad();
+			expected.add(v);
+		}
+
+		for (int t = 1; t <= 100; t++) {
+			r1.advance(t);
+			expected.sort((v1, v2) -> Integer.compare(v2.getLocation(), v1.getLocation()));
+			assertEquals(expected, r1.getVehicles());
+		}
+	}
+
+	@Test
+	void test_remove() {
+		// two junctions
+		Junction j1 = new Junction("j1", new RoundRobinStrategy(10), new MoveFirstStrategy(), 0, 0);
+		Junction j2 = new Junction("j2", new RoundRobinStrategy(10), new MoveFirstStrategy(), 0, 0);
+
+		// a road, the itinerary of a vehicle must be connected
+		@SuppressWarnings("unused")
+		Road r1 = new CityRoad("r1", j1, j2, 100, 10, 1000, Weather.SUNNY);
+
+		RoadVehicleList l = new RoadVehicleList();
+		List<Vehicle> expected = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			Vehicle v = new Vehicle("v" + i, 50, 1, Arrays.asList(j1, j2));
+			l.add(v);
+			expected.add(v);
+		}
+
+		// remove from the front, the middle and the back, and keep adding
+		for (int i = 0; i < 30; i++) {
+			Vehicle v = expected.get((i * 7) % expected.size());
+			l.remove(v);
+			expected.remove(v);
+			Vehicle w = new Vehicle("w" + i, 50, 1, Arrays.asList(j1, j2));
+			l.add(w);
+			expected.add(w);
+			assertEquals(expected, l);
+		}
+
+		l.remove(expected.get(0));
+		expected.remove(0);
+		assertEquals(expected, l);
+
+		l.clear();
+		assertEquals(0, l.size());
+	}
+
+}
@@ -0,0 +1,71 @@
+package simulator.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class RouteTest {
+
+	@Test
+	void roads_are_resolved() {
+		Junction j1 = new Junction("j1", new RoundRobinStrategy(10), new MoveFirstStrategy(), 0, 0);
+		Junction j2 = new Junction("j2", new RoundRobinStrategy(10), new MoveFirstStrategy(), 0, 0);
+		Junction j3 = new Junction("j3", new RoundRobinStrategy(10), new MoveFirstStrategy(), 0, 0);
+		Road r1 = new CityRoad("r1", j1, j2, 100, 500, 1000, Weather.SUNNY);
+		Road r2 = new CityRoad("r2", j2, j3, 100, 500, 1000, Weather.SUNNY);
+
+		Route route = j1.routeFrom(Arrays.asList(j1, j2, j3));
+		assertEquals(2, route.size());
+		assertEquals(r1, route.getRoad(0));
+		assertEquals(r2, route.getRoad(1));
+		assertEquals(Arrays.asList(j1, j2, j3), route.getItinerary());
+	}
+
+	@Test
+	void vehicles_with_the_same_itinerary_share_the_route() {
+		Junction j1 = new Junction("j1", new RoundRobinStrategy(10), new MoveFirstStrategy(), 0, 0);
+		Junction j2 = new Junction("j2", new RoundRobinStrategy(10), new MoveFirstStrategy(), 0, 0);
+		Junction j3 = new Junction("j3", new RoundRobinStrategy(10), new MoveFirstStrategy(), 0, 0);
+		new CityRoad("r1", j1, j2, 100, 500, 1000, Weather.SUNNY);
+		new CityRoad("r2", j2, j3, 100, 500, 1000, Weather.SUNNY);
+
+		List<Junction> itinerary = new ArrayList<>(Arrays.asList(j1, j2, j3));
+		Vehicle v1 = new Vehicle("v1", 50, 1, itinerary);
+		Vehicle v2 = new Vehicle("v2", 60, 2, Arrays.asList(j1, j2, j3));
+		Vehicle v3 = new Vehicle("v3", 60, 2, Arrays.asList(j1, j2));
+
+		// the route is resolved when the vehicle is created
+		assertSame(v1.getRoute(), v2.getRoute());
+		v1.moveToNextRoad();
+		v2.moveToNextRoad();
+		v3.moveToNextRoad();
+		assertSame(v1.getRoute(), v2.getRoute());
+		assertNotSame(v1.getRoute(), v3.getRoute());
+
+		// changing the list afterwards does not change the shared route
+		itinerary.remove(2);
+		assertEquals(2, v2.getRoute().size());
+
+		// and the vehicles have no itinerary of their own
+		assertSame(v1.getItinerary(), v2.getItinerary());
+		assertEquals(Arrays.asList(j1, j2, j3), v1.getItinerary());
+	}
+
+	@Test
+	void error_handling() {
+		Junction j1 = new Junction("j1", new RoundRobinStrategy(10), new MoveFirstStrategy(), 0, 0);
+		Junction j2 = new Junction("j2", new RoundRobinStrategy(10), new MoveFirstStrategy(), 0, 0);
+		Junction j3 = new Junction("j3", new RoundRobinStrategy(10), new MoveFirstStrategy(), 0, 0);
+		new CityRoad("r1", j1, j2, 100, 500, 1000, Weather.SUNNY);
+
+		// there is no road from j2 to j3, the vehicle is not created
+		assertThrows(IllegalArgumentException.class, () -> new Vehicle("v1", 50, 1, Arrays.asList(j1, j2, j3)));
+
+		// the itinerary must start at the junction
+		assertThrows(IllegalArgumentException.class, () -> j2.routeFrom(Arrays.asList(j1, j2)));
+	}
+}
@@ -0,0 +1,147 @@
+package simulator.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.junit.jupiter.api.Test;
+
+import simulator.factories.EventStream;
+
+class ScenarioGeneratorTest {
+
+	private static byte[] generate(ScenarioGenerator g) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		g.write(out);
+		return out.toByteArray();
+	}
+
+	private static ScenarioGenerator small(long seed, ScenarioGenerator.Topology t) {
+		return new ScenarioGenerator(seed).setTopology(t).setJunctions(50).setVehicles(300).setItinerary(3, 6).setEntryTicks(10)
+				.setChangeEvents(20, 30);
+	}
+
+	@Test
+	void same_seed_same_file() {
+		for (ScenarioGenerator.Topology t : ScenarioGenerator.Topology.values()) {
+			byte[] a = generate(small(7, t));
+			assertArrayEquals(a, generate(small(7, t)));
+			assertFalse(Arrays.equals(a, generate(small(8, t))));
+		}
+	}
+
+	@Test
+	void valid_events() {
+		for (ScenarioGenerator.Topology t : ScenarioGenerator.Topology.values()) {
+			ScenarioGenerator g = small(3, t);
+			JSONArray events = new JSONObject(new JSONTokener(new ByteArrayInputStream(generate(g)))).getJSONArray("events");
+
+			Map<String, Set<String>> outgoing = new HashMap<>();
+			Map<String, String[]> roads = new HashMap<>();
+			Set<String> vehicles = new HashSet<>();
+			int lastTime = 0, weather = 0, contClass = 0;
+			for (int i = 0; i < events.length(); i++) {
+				JSONObject e = events.getJSONObject(i);
+				JSONObject d = e.getJSONObject("data");
+				assertTrue(d.getInt("time") >= lastTime, "sorted by time");
+				lastTime = d.getInt("time");
+				switch (e.getString("type")) {
+				case "new_junction":
+					assertNull(outgoing.put(d.getString("id"), new HashSet<>()));
+					break;
+				case "new_city_road":
+				case "new_inter_city_road":
+					assertTrue(outgoing.get(d.getString("src")).add(d.getString("dest")), "one road per pair of junctions");
+					assertTrue(outgoing.containsKey(d.getString("dest")));
+					assertTrue(d.getInt("length") > 0 && d.getInt("maxspeed") > 0);
+					roads.put(d.getString("id"), new String[] { d.getString("src"), d.getString("dest") });
+					break;
+				case "new_vehicle":
+					JSONArray it = d.getJSONArray("itinerary");
+					assertTrue(it.length() >= 3 && it.length() <= 6);
+					for (int k = 1; k < it.length(); k++)
+						assertTrue(outgoing.get(it.getString(k - 1)).contains(it.getString(k)), "itineraries follow roads");
+					assertTrue(d.getInt("class") >= 0 && d.getInt("class") <= 10);
+					vehicles.add(d.getString("id"));
+					break;
+				case "set_weather":
+					for (Object o : d.getJSONArray("info"))
+						assertTrue(roads.containsKey(((JSONObject) o).getString("road")));
+					weather++;
+					break;
+				default:
+					assertEquals("set_cont_class", e.getString("type"));
+					for (Object o : d.getJSONArray("info"))
+						assertTrue(vehicles.contains(((JSONObject) o).getString("vehicle")), "changes of vehicles that exist");
+					contClass++;
+				}
+			}
+			assertEquals(50, outgoing.size());
+			assertEquals(g.getRoadCount(), roads.size());
+			assertEquals(300, vehicles.size());
+			assertEquals(20, weather);
+			assertEquals(30, contClass);
+			assertEquals(10, lastTime);
+			// roads in both directions
+			for (String[] r : roads.values())
+				assertTrue(outgoing.get(r[1]).contains(r[0]));
+		}
+	}
+
+	@Test
+	void streamed_and_simulated() throws IOException {
+		byte[] bytes = generate(small(5, ScenarioGenerator.Topology.GEOMETRIC));
+		try (EventStream<JSONObject> events = EventStream.ofJson(new ByteArrayInputStream(bytes))) {
+			int n = 0;
+			for (int time = 1; time <= 10; time++)
+				n += events.admitUntil(time, e -> { });
+			assertFalse(events.hasNext());
+			assertTrue(n > 300);
+		}
+
+		Path file = Files.createTempFile("events", ".json");
+		try {
+			Files.write(file, bytes);
+			ParameterSweep.Result r = ParameterSweep.run(ScenarioPlan.load(file), new ParameterSweep.Variant(0, 100, 100), 100);
+			assertEquals(300, r.getVehicles());
+			assertTrue(r.getArrivals() > 0);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	void grid_topology() {
+		ScenarioGenerator g = new ScenarioGenerator(1).setJunctions(9).setVehicles(0);
+		generate(g);
+		assertEquals(2 * 12, g.getRoadCount()); // a 3x3 grid has 12 pairs of neighbours
+		g.setJunctions(10); // rows of 4, 4 and 2: 7 horizontal and 6 vertical pairs
+		generate(g);
+		assertEquals(2 * 13, g.getRoadCount());
+	}
+
+	@Test
+	void error_handling() {
+		ScenarioGenerator g = new ScenarioGenerator(1);
+		assertThrows(IllegalArgumentException.class, () -> g.setJunctions(1));
+		assertThrows(IllegalArgumentException.class, () -> g.setCityRoadPct(101));
+		assertThrows(IllegalArgumentException.class, () -> g.setVehicles(-1));
+		assertThrows(IllegalArgumentException.class, () -> g.setItinerary(1, 5));
+		assertThrows(IllegalArgumentException.class, () -> g.setItinerary(5, 4));
+		assertThrows(IllegalArgumentException.class, () -> g.setEntryTicks(0));
+		assertThrows(IllegalArgumentException.class, () -> g.setChangeEvents(-1, 0));
+		assertThrows(IllegalArgumentException.class, () -> g.setTopology(null));
+	}
+}
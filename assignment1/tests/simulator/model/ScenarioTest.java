@@ -0,0 +1,189 @@
+package simulator.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.junit.jupiter.api.Test;
+
+class ScenarioTest {
+
+	// writes each event as a line, with the ids resolved
+	private static class Recorder implements ScenarioHandler {
+		final ScenarioReader in;
+		final List<String> events = new ArrayList<>();
+
+		Recorder(ScenarioReader in) {
+			this.in = in;
+		}
+
+		@Override
+		public void newJunction(int time, int id, int x, int y, LightSwitchingStrategy lss, DequeuingStrategy dqs) {
+			events.add("new_junction " + time + " " + in.getId(id) + " " + x + " " + y + " " + lss.getClass().getSimpleName() + " "
+					+ dqs.getClass().getSimpleName());
+		}
+
+		@Override
+		public void newRoad(int time, int id, boolean city, int src, int dest, int length, int co2Limit, int maxSpeed, Weather weather) {
+			events.add((city ? "new_city_road " : "new_inter_city_road ") + time + " " + in.getId(id) + " " + in.getId(src) + " "
+					+ in.getId(dest) + " " + length + " " + co2Limit + " " + maxSpeed + " " + weather);
+		}
+
+		@Override
+		public void newVehicle(int time, int id, int maxSpeed, int contClass, int[] itinerary) {
+			StringBuilder s = new StringBuilder("new_vehicle " + time + " " + in.getId(id) + " " + maxSpeed + " " + contClass);
+			for (int j : itinerary)
+				s.append(" ").append(in.getId(j));
+			events.add(s.toString());
+		}
+
+		@Override
+		public void setWeather(int time, int[] roads, Weather[] weathers) {
+			StringBuilder s = new StringBuilder("set_weather " + time);
+			for (int i = 0; i < roads.length; i++)
+				s.append(" ").append(in.getId(roads[i])).append(" ").append(weathers[i]);
+			events.add(s.toString());
+		}
+
+		@Override
+		public void setContClass(int time, int[] vehicles, int[] classes) {
+			StringBuilder s = new StringBuilder("set_cont_class " + time);
+			for (int i = 0; i < vehicles.length; i++)
+				s.append(" ").append(in.getId(vehicles[i])).append(" ").append(classes[i]);
+			events.add(s.toString());
+		}
+	}
+
+	// the same line as Recorder, from the JSON
+	private static String line(JSONObject e) {
+		String type = e.getString("type");
+		JSONObject d = e.getJSONObject("data");
+		String s = type + " " + d.getInt("time");
+		switch (type) {
+		case "new_junction":
+			return s + " " + d.getString("id") + " " + d.getJSONArray("coor").getInt(0) + " " + d.getJSONArray("coor").getInt(1)
+					+ " RoundRobinStrategy " + (d.getJSONObject("dq_strategy").getString("type").equals("move_first_dqs") ? "MoveFirstStrategy" : "MoveAllStrategy");
+		case "new_city_road":
+		case "new_inter_city_road":
+			return s + " " + d.getString("id") + " " + d.getString("src") + " " + d.getString("dest") + " " + d.getInt("length") + " "
+					+ d.getInt("co2limit") + " " + d.getInt("maxspeed") + " " + d.getString("weather").toUpperCase();
+		case "new_vehicle":
+			s += " " + d.getString("id") + " " + d.getInt("maxspeed") + " " + d.getInt("class");
+			for (Object j : d.getJSONArray("itinerary"))
+				s += " " + j;
+			return s;
+		default:
+			boolean weather = type.equals("set_weather");
+			for (Object o : d.getJSONArray("info")) {
+				JSONObject p = (JSONObject) o;
+				s += " " + p.getString(weather ? "road" : "vehicle") + " " + (weather ? p.getString("weather") : p.getInt("class"));
+			}
+			return s;
+		}
+	}
+
+	private static Path compile(JSONArray events) throws IOException {
+		Path file = Files.createTempFile("scenario", ".scn");
+		try (ScenarioWriter out = ScenarioWriter.open(file)) {
+			for (int i = 0; i < events.length(); i++)
+				out.write(events.getJSONObject(i));
+		}
+		return file;
+	}
+
+	@Test
+	void same_events_as_json() throws IOException {
+		for (String ex : new String[] { "ex1", "ex2", "ex3" }) {
+			JSONArray events = new JSONObject(new JSONTokener(new FileInputStream("resources/examples/" + ex + ".json"))).getJSONArray("events");
+			Path file = compile(events);
+			try (ScenarioReader in = ScenarioReader.open(file)) {
+				assertTrue(ScenarioReader.isScenario(file));
+				assertEquals(events.length(), in.getEventCount());
+				Recorder r = new Recorder(in);
+				in.read(r);
+				assertEquals(events.length(), r.events.size());
+				for (int i = 0; i < events.length(); i++)
+					assertEquals(line(events.getJSONObject(i)), r.events.get(i));
+				assertEquals(Integer.MAX_VALUE, in.nextTime());
+			} finally {
+				Files.delete(file);
+			}
+			assertFalse(ScenarioReader.isScenario(Path.of("resources/examples/" + ex + ".json")));
+		}
+	}
+
+	@Test
+	void read_until() throws IOException {
+		JSONArray events = new JSONArray();
+		for (int t : new int[] { 1, 1, 3, 7 }) {
+			events.put(new JSONObject().put("type", "new_junction").put("data", new JSONObject().put("time", t).put("id", "j" + events.length())
+					.put("coor", new JSONArray().put(0).put(0))
+					.put("ls_strategy", new JSONObject().put("type", "round_robin_lss").put("data", new JSONObject().put("timeslot", 2)))
+					.put("dq_strategy", new JSONObject().put("type", "move_all_dqs").put("data", new JSONObject()))));
+		}
+		Path file = compile(events);
+		try (ScenarioReader in = ScenarioReader.open(file)) {
+			Recorder r = new Recorder(in);
+			assertEquals(1, in.nextTime());
+			assertEquals(0, in.readUntil(0, r));
+			assertEquals(2, in.readUntil(2, r));
+			assertEquals(3, in.nextTime());
+			assertEquals(1, in.readUntil(6, r));
+			assertEquals(1, in.readUntil(7, r));
+			assertEquals("new_junction 7 j3 0 0 RoundRobinStrategy MoveAllStrategy", r.events.get(3));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	void most_crowded() throws IOException {
+		JSONArray events = new JSONArray().put(new JSONObject().put("type", "new_junction").put("data", new JSONObject().put("time", 1).put("id", "j0")
+				.put("coor", new JSONArray().put(0).put(0))
+				.put("ls_strategy", new JSONObject().put("type", "most_crowded_lss").put("data", new JSONObject().put("timeslot", 4)))
+				.put("dq_strategy", new JSONObject().put("type", "move_first_dqs").put("data", new JSONObject()))));
+		Path file = compile(events);
+		try (ScenarioReader in = ScenarioReader.open(file)) {
+			Recorder r = new Recorder(in);
+			in.read(r);
+			assertEquals("new_junction 1 j0 0 0 MostCrowdedStrategy MoveFirstStrategy", r.events.get(0));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	void error_handling() throws IOException {
+		Path file = Files.createTempFile("scenario", ".scn");
+		try {
+			try (ScenarioWriter out = ScenarioWriter.open(file)) {
+				assertThrows(IllegalArgumentException.class, () -> out.write(new JSONObject("{\"type\":\"new_bus\",\"data\":{\"time\":1}}")));
+				assertThrows(IllegalArgumentException.class, () -> out.write(new JSONObject("{\"type\":\"new_vehicle\",\"data\":{\"time\":1}}")));
+				assertThrows(IllegalArgumentException.class, () -> out.write(new JSONObject("{\"type\":\"set_weather\",\"data\":{\"time\":1,"
+						+ "\"info\":[{\"road\":\"r1\",\"weather\":\"FOGGY\"}]}}")));
+				assertThrows(IllegalArgumentException.class, () -> out.write(new JSONObject("{\"type\":\"new_junction\",\"data\":{\"time\":1,\"id\":\"j1\","
+						+ "\"coor\":[0,0],\"ls_strategy\":{\"type\":\"random_lss\",\"data\":{}},\"dq_strategy\":{\"type\":\"move_all_dqs\",\"data\":{}}}}")));
+				out.write(new JSONObject("{\"type\":\"set_cont_class\",\"data\":{\"time\":4,\"info\":[{\"vehicle\":\"v1\",\"class\":2}]}}"));
+			}
+			// the events that failed left nothing behind
+			try (ScenarioReader in = ScenarioReader.open(file)) {
+				Recorder r = new Recorder(in);
+				in.read(r);
+				assertEquals(List.of("set_cont_class 4 v1 2"), r.events);
+			}
+			Files.write(file, "{\"events\":[]}".getBytes());
+			assertFalse(ScenarioReader.isScenario(file));
+			assertThrows(IllegalArgumentException.class, () -> ScenarioReader.open(file));
+		} finally {
+			Files.delete(file);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package simulator.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+class SimulationEventsTest {
+
+	// the events of simulator.jfc are recorded and do not change the result
+	@Test
+	void recorded_with_settings_file() throws Exception {
+		ScenarioPlan plan = ScenarioPlan.load(Path.of("resources/examples/ex1.json"));
+		ParameterSweep.Variant v = new ParameterSweep.Variant(0, 100, 100);
+		long co2 = ParameterSweep.run(plan, v, 300).getTotalCO2();
+
+		Configuration c = Configuration.create(Path.of("resources/jfr/simulator.jfc"));
+		Path file = Files.createTempFile("simulator", ".jfr");
+		try (Recording r = new Recording(c)) {
+			r.start();
+			assertEquals(co2, ParameterSweep.run(plan, v, 300).getTotalCO2());
+			r.stop();
+			r.dump(file);
+		}
+
+		Map<String, Integer> counts = new HashMap<>();
+		Set<String> phases = new HashSet<>();
+		Set<String> types = new HashSet<>();
+		try (RecordingFile f = new RecordingFile(file)) {
+			while (f.hasMoreEvents()) {
+				RecordedEvent e = f.readEvent();
+				String name = e.getEventType().getName();
+				counts.merge(name, 1, Integer::sum);
+				if (name.equals("simulator.Phase"))
+					phases.add(e.getString("phase"));
+				else if (name.equals("simulator.ApplyEvent"))
+					types.add(e.getString("type"));
+				else if (name.equals("simulator.LightSwitch"))
+					assertNotEquals(e.getInt("oldGreen"), e.getInt("newGreen"));
+			}
+		} finally {
+			Files.delete(file);
+		}
+		assertEquals(300, (int) counts.get("simulator.Tick"));
+		assertEquals(900, (int) counts.get("simulator.Phase"));
+		assertEquals(Set.of("EVENTS", "JUNCTIONS", "ROADS"), phases);
+		assertTrue(counts.get("simulator.LightSwitch") > 0);
+		assertTrue(counts.get("simulator.Dequeue") > 0);
+		assertEquals(11, (int) counts.get("simulator.ApplyEvent"));
+		assertTrue(types.contains("new_junction") && types.contains("new_vehicle"));
+	}
+
+	// per junction and per event types are off unless the settings enable them
+	@Test
+	void disabled_by_default() throws IOException {
+		ScenarioPlan plan = ScenarioPlan.load(Path.of("resources/examples/ex1.json"));
+		Path file = Files.createTempFile("simulator", ".jfr");
+		try (Recording r = new Recording()) {
+			r.enable("simulator.Tick");
+			r.start();
+			ParameterSweep.run(plan, new ParameterSweep.Variant(0, 100, 100), 10);
+			r.stop();
+			r.dump(file);
+		}
+		int ticks = 0;
+		try (RecordingFile f = new RecordingFile(file)) {
+			while (f.hasMoreEvents()) {
+				String name = f.readEvent().getEventType().getName();
+				assertFalse(name.equals("simulator.LightSwitch") || name.equals("simulator.Dequeue"), name);
+				if (name.equals("simulator.Tick"))
+					ticks++;
+			}
+		} finally {
+			Files.delete(file);
+		}
+		assertEquals(10, ticks);
+	}
+}
@@ -0,0 +1,129 @@
+package simulator.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.junit.jupiter.api.Test;
+
+class StatesIndexTest {
+
+	private static final int TICKS = 150;
+
+	// runs a small simulation, skipping some times, and writes its states
+	private static void simulate(Path out, int interval, boolean async) throws IOException {
+		Junction j1 = new Junction("j1", new RoundRobinStrategy(3), new MoveFirstStrategy(), 0, 0);
+		Junction j2 = new Junction("j2", new RoundRobinStrategy(2), new MoveAllStrategy(), 10, 0);
+		Junction j3 = new Junction("j3", new RoundRobinStrategy(4), new MoveFirstStrategy(), 10, 10);
+		List<Junction> junctions = Arrays.asList(j1, j2, j3);
+		List<Road> roads = Arrays.asList(new CityRoad("r1", j1, j2, 100, 500, 300, Weather.SUNNY),
+				new InterCityRoad("r2", j2, j3, 120, 800, 500, Weather.RAINY), new InterCityRoad("r3", j3, j1, 80, 300, 400, Weather.STORM));
+		List<Vehicle> vehicles = new ArrayList<>();
+
+		StatesIndexWriter index = new StatesIndexWriter(StatesIndex.indexFile(out), interval);
+		StatesWriter sw = async ? null : new StatesWriter(new FileOutputStream(out.toFile()), index);
+		AsyncStatesWriter aw = async ? new AsyncStatesWriter(new FileOutputStream(out.toFile()), 4, index) : null;
+		for (int time = 1; time <= TICKS; time++) {
+			if (time % 10 == 1) {
+				Vehicle v = new Vehicle("v" + time, 50 + time, time % 11, Arrays.asList(j1, j2, j3));
+				vehicles.add(v);
+				v.moveToNextRoad();
+			}
+			for (Junction j : junctions)
+				j.advance(time);
+			for (Road r : roads)
+				r.advance(time);
+			if (time % 13 == 0)
+				continue; // not reported
+			if (async)
+				aw.write(time, roads, vehicles, junctions);
+			else
+				sw.write(time, roads, vehicles, junctions);
+		}
+		if (async)
+			aw.close();
+		else
+			sw.close();
+	}
+
+	@Test
+	void states_by_time() throws IOException {
+		for (int interval : new int[] { 1, 7, 1000 }) {
+			for (boolean async : new boolean[] { false, true }) {
+				Path out = Files.createTempFile("states", ".json");
+				try {
+					simulate(out, interval, async);
+					JSONArray states = new JSONObject(new JSONTokener(Files.newInputStream(out))).getJSONArray("states");
+
+					try (StatesIndex index = StatesIndex.open(out)) {
+						assertEquals(interval, index.getInterval());
+						int k = 0;
+						for (int time = 0; time <= TICKS + 1; time++) {
+							JSONObject s = index.getState(time);
+							if (time == 0 || time > TICKS || time % 13 == 0) {
+								assertNull(s, "time " + time);
+							} else {
+								assertTrue(states.getJSONObject(k).similar(s), "time " + time);
+								k++;
+							}
+						}
+					}
+				} finally {
+					Files.deleteIfExists(StatesIndex.indexFile(out));
+					Files.deleteIfExists(out);
+				}
+			}
+		}
+	}
+
+	@Test
+	void object_over_time() throws IOException {
+		Path out = Files.createTempFile("states", ".json");
+		try {
+			simulate(out, 10, false);
+			try (StatesIndex index = StatesIndex.open(out)) {
+				// v21 exists from time 21, time 26 is not reported
+				JSONArray a = index.getObjectStates("v21", 15, 30);
+				assertEquals(9, a.length());
+				assertEquals(21, a.getJSONObject(0).getInt("time"));
+				assertEquals(30, a.getJSONObject(8).getInt("time"));
+				assertEquals("v21", a.getJSONObject(0).getJSONObject("state").getString("id"));
+				assertTrue(index.getState(30).getJSONObject("state").getJSONArray("vehicles").getJSONObject(2).similar(a.getJSONObject(8).getJSONObject("state")));
+
+				assertEquals(TICKS - TICKS / 13, index.getObjectStates("r3", 0, Integer.MAX_VALUE).length());
+				assertEquals(0, index.getObjectStates("nothing", 0, TICKS).length());
+			}
+		} finally {
+			Files.deleteIfExists(StatesIndex.indexFile(out));
+			Files.deleteIfExists(out);
+		}
+	}
+
+	@Test
+	void error_handling() throws IOException {
+		assertThrows(IllegalArgumentException.class, () -> new StatesIndexWriter(Path.of("x.idx"), 0));
+
+		StatesIndexWriter w = new StatesIndexWriter(Path.of("x.idx"), 1);
+		w.add(5, 0);
+		assertThrows(IllegalArgumentException.class, () -> w.add(5, 100));
+
+		Path out = Files.createTempFile("states", ".json");
+		Path idx = StatesIndex.indexFile(out);
+		try {
+			Files.write(idx, "not an index".getBytes());
+			assertThrows(IllegalArgumentException.class, () -> StatesIndex.open(out));
+		} finally {
+			Files.deleteIfExists(idx);
+			Files.deleteIfExists(out);
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package simulator.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+class StatesWriterTest {
+
+	// the streamed states must be the same as the ones built with report()
+	@Test
+	void same_states_as_report() {
+		Junction j1 = new Junction("j1", new RoundRobinStrategy(3), new MoveFirstStrategy(), 0, 0);
+		Junction j2 = new Junction("j2", new RoundRobinStrategy(2), new MoveAllStrategy(), 10, 0);
+		Junction j3 = new Junction("j3", new RoundRobinStrategy(4), new MoveFirstStrategy(), 10, 10);
+		List<Junction> junctions = Arrays.asList(j1, j2, j3);
+		List<Road> roads = new ArrayList<>();
+		roads.add(new CityRoad("r1", j1, j2, 100, 500, 300, Weather.SUNNY));
+		roads.add(new InterCityRoad("r2", j2, j3, 120, 800, 500, Weather.RAINY));
+		roads.add(new InterCityRoad("r3", j3, j1, 80, 300, 400, Weather.STORM));
+
+		List<Vehicle> vehicles = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			Vehicle v = new Vehicle("v" + i, 40 + 15 * i, i, Arrays.asList(j1, j2, j3, j1));
+			vehicles.add(v);
+			if (i % 2 == 0)
+				v.moveToNextRoad();
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		JSONArray expected = new JSONArray();
+		try (StatesWriter out = new StatesWriter(bytes)) {
+			for (int time = 1; time <= 120; time++) {
+				for (Junction j : junctions)
+					j.advance(time);
+				for (Road r : roads)
+					r.advance(time);
+
+				out.write(time, roads, vehicles, junctions);
+				expected.put(state(time, roads, vehicles, junctions));
+			}
+		}
+
+		JSONObject o = new JSONObject(new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+		assertTrue(new JSONObject().put("states", expected).similar(o));
+	}
+
+	@Test
+	void empty_states() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		new StatesWriter(bytes).close();
+		assertEquals("{\"states\":[]}", new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	private static JSONObject state(int time, List<Road> rs, List<Vehicle> vs, List<Junction> js) {
+		JSONObject state = new JSONObject();
+		state.put("roads", new JSONArray());
+		state.put("vehicles", new JSONArray());
+		state.put("junctions", new JSONArray());
+		for (Road r : rs)
+			state.getJSONArray("roads").put(r.report());
+		for (Vehicle v : vs)
+			state.getJSONArray("vehicles").put(v.report());
+		for (Junction j : js)
+			state.getJSONArray("junctions").put(j.report());
+		return new JSONObject().put("time", time).put("state", state);
+	}
+}
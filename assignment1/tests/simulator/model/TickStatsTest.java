@@ -0,0 +1,60 @@
+package simulator.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TickStatsTest {
+
+	@Test
+	void phases_and_allocations() {
+		TickStats s = new TickStats();
+		List<int[]> kept = new ArrayList<>();
+		for (int t = 0; t < 5; t++) {
+			s.startTick();
+			s.start(TickStats.Phase.JUNCTIONS);
+			s.end(TickStats.Phase.JUNCTIONS);
+			s.start(TickStats.Phase.ROADS);
+			kept.add(new int[100000]);
+			s.end(TickStats.Phase.ROADS);
+			s.endTick();
+		}
+		assertEquals(5, s.getTicks().getCount());
+		assertEquals(5, s.getPhase(TickStats.Phase.ROADS).getCount());
+		assertEquals(0, s.getPhase(TickStats.Phase.EVENTS).getCount());
+		assertTrue(s.getTicks().getSum() >= s.getPhase(TickStats.Phase.ROADS).getSum());
+		if (s.isAllocationMeasured()) {
+			assertTrue(s.getAllocatedBytes(TickStats.Phase.ROADS) >= 5 * 400000L);
+			assertTrue(s.getAllocatedBytes(TickStats.Phase.JUNCTIONS) < 400000L);
+		}
+		assertEquals(5, kept.size());
+
+		TickStats total = new TickStats();
+		total.add(s);
+		total.add(s);
+		assertEquals(10, total.getPhase(TickStats.Phase.ROADS).getCount());
+		assertEquals(2 * s.getAllocatedBytes(TickStats.Phase.ROADS), total.getAllocatedBytes(TickStats.Phase.ROADS));
+		assertTrue(total.toString().contains("junctions"));
+	}
+
+	// measuring does not change the result
+	@Test
+	void sweep_with_stats() throws IOException {
+		ScenarioPlan plan = ScenarioPlan.load(Path.of("resources/examples/ex1.json"));
+		ParameterSweep.Variant v = new ParameterSweep.Variant(0, 100, 100);
+		TickStats s = new TickStats();
+		ParameterSweep.Result r = ParameterSweep.run(plan, v, 300, s);
+		assertSame(s, r.getStats());
+		assertNull(ParameterSweep.run(plan, v, 300).getStats());
+		assertEquals(ParameterSweep.run(plan, v, 300).getTotalCO2(), r.getTotalCO2());
+		assertEquals(300, s.getTicks().getCount());
+		assertEquals(300, s.getPhase(TickStats.Phase.EVENTS).getCount());
+		assertEquals(300, s.getPhase(TickStats.Phase.JUNCTIONS).getCount());
+		assertEquals(0, s.getPhase(TickStats.Phase.REPORTS).getCount());
+	}
+}
@@ -0,0 +1,118 @@
+package simulator.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TrajectoryLogTest {
+
+	// a network that grows while it runs: junctions, roads and vehicles are
+	// added at different times, and weather and classes change
+	private static void simulate(StatesWriter json, TrajectoryLogWriter log) {
+		List<Junction> junctions = new ArrayList<>();
+		List<Road> roads = new ArrayList<>();
+		List<Vehicle> vehicles = new ArrayList<>();
+
+		Junction j1 = new Junction("j1", new RoundRobinStrategy(3), new MoveFirstStrategy(), 0, 0);
+		Junction j2 = new Junction("j2", new RoundRobinStrategy(2), new MoveAllStrategy(), 10, 0);
+		junctions.addAll(Arrays.asList(j1, j2));
+		roads.add(new CityRoad("r1", j1, j2, 100, 500, 300, Weather.SUNNY));
+
+		for (int time = 1; time <= 300; time++) {
+			if (time == 20) {
+				Junction j3 = new Junction("j3", new RoundRobinStrategy(4), new MoveFirstStrategy(), 10, 10);
+				junctions.add(j3);
+				roads.add(new InterCityRoad("r2", j2, j3, 120, 800, 500, Weather.RAINY));
+				roads.add(new InterCityRoad("r3", j3, j1, 80, 300, 400, Weather.STORM));
+			}
+			if (time % 5 == 0 && time < 150) {
+				List<Junction> it = time < 20 ? Arrays.asList(j1, j2) : Arrays.asList(j1, j2, junctions.get(2), j1);
+				Vehicle v = new Vehicle("v" + time, 30 + time % 90, time % 11, it);
+				vehicles.add(v);
+				if (time % 3 != 0)
+					v.moveToNextRoad();
+			}
+			if (time % 40 == 0) {
+				roads.get(time % roads.size()).setWeather(Weather.values()[time % Weather.values().length]);
+				vehicles.get(time % vehicles.size()).setContClass(time % 11);
+			}
+
+			for (Junction j : junctions)
+				j.advance(time);
+			for (Road r : roads)
+				r.advance(time);
+
+			json.write(time, roads, vehicles, junctions);
+			log.write(time, roads, vehicles, junctions);
+		}
+	}
+
+	@Test
+	void replay_is_the_same_json() {
+		ByteArrayOutputStream json = new ByteArrayOutputStream();
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+		try (StatesWriter jw = new StatesWriter(json); TrajectoryLogWriter lw = new TrajectoryLogWriter(Channels.newChannel(log))) {
+			simulate(jw, lw);
+		}
+		assertTrue(log.size() * 5 < json.size(), "log: " + log.size() + " bytes, json: " + json.size() + " bytes");
+
+		// from a buffer (e.g., a mapped file) and from a channel
+		ByteArrayOutputStream replay1 = new ByteArrayOutputStream();
+		new TrajectoryLogReader(ByteBuffer.wrap(log.toByteArray())).writeJson(replay1);
+		assertArrayEquals(json.toByteArray(), replay1.toByteArray());
+
+		ByteArrayOutputStream replay2 = new ByteArrayOutputStream();
+		try (TrajectoryLogReader r = new TrajectoryLogReader(Channels.newChannel(new ByteArrayInputStream(log.toByteArray())))) {
+			r.writeJson(replay2);
+		}
+		assertArrayEquals(json.toByteArray(), replay2.toByteArray());
+	}
+
+	@Test
+	void truncated_log() {
+		ByteArrayOutputStream json = new ByteArrayOutputStream();
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+		try (StatesWriter jw = new StatesWriter(json); TrajectoryLogWriter lw = new TrajectoryLogWriter(Channels.newChannel(log))) {
+			simulate(jw, lw);
+		}
+
+		// without END the ticks are still read
+		byte[] b = Arrays.copyOf(log.toByteArray(), log.size() - 1);
+		TrajectoryLogReader r = new TrajectoryLogReader(ByteBuffer.wrap(b));
+		int ticks = 0;
+		while (r.hasNext()) {
+			assertEquals(ticks + 1, r.next().getTime());
+			ticks++;
+		}
+		assertEquals(300, ticks);
+
+		// a tick cut in the middle
+		TrajectoryLogReader r2 = new TrajectoryLogReader(ByteBuffer.wrap(Arrays.copyOf(b, b.length - 3)));
+		assertThrows(IllegalStateException.class, () -> {
+			while (r2.hasNext())
+				r2.next();
+		});
+	}
+
+	@Test
+	void error_handling() {
+		assertThrows(IllegalArgumentException.class, () -> new TrajectoryLogReader(ByteBuffer.wrap("{\"states\":[]}".getBytes())));
+		assertThrows(IllegalArgumentException.class, () -> new TrajectoryLogReader(ByteBuffer.wrap(new byte[0])));
+
+		// objects cannot change their position
+		Junction j1 = new Junction("j1", new RoundRobinStrategy(3), new MoveFirstStrategy(), 0, 0);
+		Junction j2 = new Junction("j2", new RoundRobinStrategy(3), new MoveFirstStrategy(), 0, 0);
+		TrajectoryLogWriter lw = new TrajectoryLogWriter(Channels.newChannel(new ByteArrayOutputStream()));
+		lw.write(1, List.of(), List.of(), Arrays.asList(j1, j2));
+		assertThrows(IllegalArgumentException.class, () -> lw.write(2, List.of(), List.of(), Arrays.asList(j2, j1)));
+		assertThrows(IllegalArgumentException.class, () -> lw.write(2, List.of(), List.of(), Arrays.asList(j1)));
+	}
+}
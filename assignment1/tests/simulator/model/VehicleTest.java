@@ -17,6 +17,10 @@ class VehicleTest {
 		Junction j1 = new Junction("j1", new RoundRobinStrategy(10), new MoveFirstStrategy(), 0, 0);
 		Junction j2 = new Junction("j2", new RoundRobinStrategy(10), new MoveFirstStrategy(), 0, 0);
 
+		// a road, the itinerary of a vehicle must be connected
+		@SuppressWarnings("unused")
+		Road r1 = new CityRoad("r1", j1, j2, 100, 10, 1000, Weather.SUNNY);
+
 		// a vehicle
 		Vehicle v1 = new Vehicle("v1", 50, 1, Arrays.asList(j1, j2));
 
@@ -71,6 +75,10 @@ class VehicleTest {
 		Junction j1 = new Junction("j1", new RoundRobinStrategy(10), new MoveFirstStrategy(), 0, 0);
 		Junction j2 = new Junction("j2", new RoundRobinStrategy(10), new MoveFirstStrategy(), 0, 0);
 
+		// a road, the itinerary of a vehicle must be connected
+		@SuppressWarnings("unused")
+		Road r1 = new CityRoad("r1", j1, j2, 100, 10, 1000, Weather.SUNNY);
+
 		// a vehicle
 		Vehicle v1 = new Vehicle("v1", 50, 1, Arrays.asList(j1, j2));
 		
@@ -92,6 +100,10 @@ class VehicleTest {
 		Junction j2 = new Junction("j2", new RoundRobinStrategy(10), new MoveFirstStrategy(), 0, 0);
 		Junction j3 = new Junction("j3", new RoundRobinStrategy(10), new MoveFirstStrategy(), 0, 0);
 
+		// a road, the itinerary of a vehicle must be connected
+		@SuppressWarnings("unused")
+		Road r1 = new CityRoad("r1", j1, j2, 100, 10, 1000, Weather.SUNNY);
+
 		// a vehicle
 		Vehicle v1 = new Vehicle("v1", 50, 1, Arrays.asList(j1, j2));
 		assertThrows(UnsupportedOperationException.class, () -> v1.getItinerary().add(j3));